@@ -0,0 +1,138 @@
+package ru.securitytrip.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Замер движка отдельно от приложения: случайные флоты стандартного состава,
+ * партия - выстрелы по клеткам в случайном порядке до потопления флота.
+ *
+ * Флоты и порядок выстрелов готовятся заранее, в замер входят только
+ * построение Fleet/Board и выстрелы. Первый раунд - прогрев JIT.
+ *
+ * --games   партий в раунде (100000)
+ * --rounds  раундов после прогрева (5)
+ * --seed    seed генератора (42)
+ */
+public final class BoardBenchmark {
+
+    private static final int[] FLEET = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+    // Разных флотов и порядков выстрелов; партии берут их по кругу
+    private static final int LAYOUTS = 1024;
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (arg.startsWith("--") && eq > 2) {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        int games = Integer.parseInt(options.getOrDefault("games", "100000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        SplittableRandom rng = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+
+        int[][][] layouts = new int[LAYOUTS][][];
+        int[][] orders = new int[LAYOUTS][];
+        for (int i = 0; i < LAYOUTS; i++) {
+            layouts[i] = randomFleet(rng);
+            orders[i] = shuffledCells(rng);
+        }
+
+        System.out.printf("Движок: %d партий в раунде, %d раундов%n", games, rounds);
+        long checksum = 0;
+        for (int round = 0; round <= rounds; round++) {
+            long shots = 0;
+            long started = System.nanoTime();
+            for (int game = 0; game < games; game++) {
+                int layout = game % LAYOUTS;
+                shots += play(layouts[layout], orders[layout]);
+            }
+            long elapsed = System.nanoTime() - started;
+            checksum += shots;
+            System.out.printf("%s %d: %.1f мс, %.0f партий/с, %.1f нс на выстрел (%d выстрелов)%n",
+                    round == 0 ? "прогрев" : "раунд", round, elapsed / 1e6,
+                    games / (elapsed / 1e9), (double) elapsed / shots, shots);
+        }
+        // Чтобы JIT не выбросил партии как неиспользуемые
+        System.out.println("контрольная сумма " + checksum);
+    }
+
+    private static int play(int[][] layout, int[] order) {
+        Fleet fleet = new Fleet(layout.length);
+        int[][] cells = new int[Board.SIZE][Board.SIZE];
+        for (int[] ship : layout) {
+            fleet.add(ship[0], ship[1], ship[2], ship[3] == 1, 0);
+        }
+        Board board = new Board(cells, fleet, true);
+        int shots = 0;
+        for (int cell : order) {
+            if (board.shoot(cell % Board.SIZE, cell / Board.SIZE) == ShotOutcome.ALREADY_SHOT) {
+                continue;
+            }
+            shots++;
+            if (board.isGameOver()) {
+                break;
+            }
+        }
+        return shots;
+    }
+
+    private static int[] shuffledCells(SplittableRandom rng) {
+        int[] cells = new int[Board.CELLS];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int tmp = cells[i];
+            cells[i] = cells[j];
+            cells[j] = tmp;
+        }
+        return cells;
+    }
+
+    // Корабли не касаются друг друга даже углами; {x, y, size, horizontal}
+    private static int[][] randomFleet(SplittableRandom rng) {
+        while (true) {
+            boolean[] taken = new boolean[Board.CELLS];
+            int[][] ships = new int[FLEET.length][];
+            boolean placed = true;
+            for (int i = 0; i < FLEET.length && placed; i++) {
+                placed = false;
+                for (int attempt = 0; attempt < 200 && !placed; attempt++) {
+                    int size = FLEET[i];
+                    boolean horizontal = rng.nextBoolean();
+                    int x = rng.nextInt(horizontal ? Board.SIZE - size + 1 : Board.SIZE);
+                    int y = rng.nextInt(horizontal ? Board.SIZE : Board.SIZE - size + 1);
+                    if (fits(taken, x, y, size, horizontal)) {
+                        for (int k = 0; k < size; k++) {
+                            taken[(horizontal ? y : y + k) * Board.SIZE + (horizontal ? x + k : x)] = true;
+                        }
+                        ships[i] = new int[]{x, y, size, horizontal ? 1 : 0};
+                        placed = true;
+                    }
+                }
+            }
+            if (placed) {
+                return ships;
+            }
+        }
+    }
+
+    private static boolean fits(boolean[] taken, int x, int y, int size, boolean horizontal) {
+        for (int k = 0; k < size; k++) {
+            int cx = horizontal ? x + k : x;
+            int cy = horizontal ? y : y + k;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (Board.onBoard(cx + dx, cy + dy) && taken[(cy + dy) * Board.SIZE + cx + dx]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
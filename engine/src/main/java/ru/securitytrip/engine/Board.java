@@ -0,0 +1,89 @@
+package ru.securitytrip.engine;
+
+/**
+ * Доска 10x10 с флотом: выстрел, ореол потопленного корабля и конец игры.
+ *
+ * Клетки хранятся в массиве int[y][x] в тех же кодах, что и в сохранённых
+ * играх (0 - пусто, 1 - корабль, 2 - промах, 3 - попадание), и изменяются на
+ * месте, поэтому вызывающий код продолжает сериализовать свой массив.
+ * Доска изменяемая и не потокобезопасная: одна доска - один запрос.
+ */
+public final class Board {
+
+    public static final int SIZE = 10;
+    public static final int CELLS = SIZE * SIZE;
+
+    public static final int EMPTY = 0;
+    public static final int SHIP = 1;
+    public static final int MISS = 2;
+    public static final int HIT = 3;
+
+    private final int[][] cells;
+    private final Fleet fleet;
+    private final boolean haloOnSunk;
+    private int lastShip = Fleet.NO_SHIP;
+
+    /**
+     * @param haloOnSunk помечать ли промахом клетки вокруг потопленного корабля
+     */
+    public Board(int[][] cells, Fleet fleet, boolean haloOnSunk) {
+        if (cells.length != SIZE) {
+            throw new IllegalArgumentException("Доска должна быть " + SIZE + "x" + SIZE);
+        }
+        for (int[] row : cells) {
+            if (row.length != SIZE) {
+                throw new IllegalArgumentException("Доска должна быть " + SIZE + "x" + SIZE);
+            }
+        }
+        this.cells = cells;
+        this.fleet = fleet;
+        this.haloOnSunk = haloOnSunk;
+    }
+
+    public static boolean onBoard(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    public ShotOutcome shoot(int x, int y) {
+        if (!onBoard(x, y)) {
+            throw new IllegalArgumentException("Недопустимые координаты хода: x=" + x + ", y=" + y);
+        }
+        int cell = cells[y][x];
+        if (cell == MISS || cell == HIT) {
+            lastShip = Fleet.NO_SHIP;
+            return ShotOutcome.ALREADY_SHOT;
+        }
+        lastShip = fleet.hit(x, y);
+        if (lastShip == Fleet.NO_SHIP) {
+            cells[y][x] = MISS;
+            return ShotOutcome.MISS;
+        }
+        cells[y][x] = HIT;
+        if (!fleet.isSunk(lastShip)) {
+            return ShotOutcome.HIT;
+        }
+        if (haloOnSunk) {
+            fleet.markHalo(lastShip, cells);
+        }
+        return ShotOutcome.SUNK;
+    }
+
+    /**
+     * Номер корабля, поражённого последним выстрелом, или Fleet.NO_SHIP
+     */
+    public int lastShip() {
+        return lastShip;
+    }
+
+    public boolean isGameOver() {
+        return fleet.allSunk();
+    }
+
+    public Fleet fleet() {
+        return fleet;
+    }
+
+    public int[][] cells() {
+        return cells;
+    }
+}
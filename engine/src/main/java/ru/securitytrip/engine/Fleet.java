@@ -0,0 +1,174 @@
+package ru.securitytrip.engine;
+
+/**
+ * Флот на доске 10x10.
+ *
+ * Клетка -> номер корабля хранится в массиве из 100 байт, попадания по
+ * каждому кораблю - в битовой маске (бит i - i-я клетка от начала корабля),
+ * клетки корабля вместе с ореолом - в 100-битной маске (два long).
+ * Попадание, потопление и ореол потопленного корабля находятся за O(1) без
+ * выделения памяти на выстрел.
+ */
+public final class Fleet {
+
+    public static final int NO_SHIP = -1;
+
+    // Номер корабля + 1 для каждой клетки y * 10 + x; 0 - пусто
+    private final byte[] cells = new byte[Board.CELLS];
+    private final int[] hitMasks;
+    private final int[] fullMasks;
+    // Клетки корабля и соседние с ними: биты 0..63 и 64..99
+    private final long[] areaLow;
+    private final long[] areaHigh;
+    private final int[] originX;
+    private final int[] originY;
+    private final boolean[] horizontal;
+    private int count;
+    private int afloat;
+
+    /**
+     * Пустой флот на capacity кораблей (не больше 127)
+     */
+    public Fleet(int capacity) {
+        if (capacity < 0 || capacity > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Недопустимое число кораблей: " + capacity);
+        }
+        this.hitMasks = new int[capacity];
+        this.fullMasks = new int[capacity];
+        this.areaLow = new long[capacity];
+        this.areaHigh = new long[capacity];
+        this.originX = new int[capacity];
+        this.originY = new int[capacity];
+        this.horizontal = new boolean[capacity];
+    }
+
+    public static int fullMask(int size) {
+        return (1 << size) - 1;
+    }
+
+    /**
+     * Добавляет корабль с уже имеющимися попаданиями и возвращает его номер.
+     * Клетки за пределами доски пропускаются; при наложении клетка остаётся
+     * за кораблём, добавленным раньше
+     */
+    public int add(int x, int y, int size, boolean isHorizontal, int hitMask) {
+        if (count == hitMasks.length) {
+            throw new IllegalStateException("Флот заполнен: " + count + " кораблей");
+        }
+        if (size < 1 || size >= Integer.SIZE) {
+            throw new IllegalArgumentException("Недопустимый размер корабля: " + size);
+        }
+        int ship = count++;
+        originX[ship] = x;
+        originY[ship] = y;
+        horizontal[ship] = isHorizontal;
+        fullMasks[ship] = fullMask(size);
+        hitMasks[ship] = hitMask & fullMasks[ship];
+        if (hitMasks[ship] != fullMasks[ship]) {
+            afloat++;
+        }
+        for (int i = 0; i < size; i++) {
+            int cx = isHorizontal ? x + i : x;
+            int cy = isHorizontal ? y : y + i;
+            if (!Board.onBoard(cx, cy)) {
+                continue;
+            }
+            int cell = cy * Board.SIZE + cx;
+            if (cells[cell] == 0) {
+                cells[cell] = (byte) (ship + 1);
+            }
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (Board.onBoard(cx + dx, cy + dy)) {
+                        setArea(ship, (cy + dy) * Board.SIZE + cx + dx);
+                    }
+                }
+            }
+        }
+        return ship;
+    }
+
+    private void setArea(int ship, int cell) {
+        if (cell < Long.SIZE) {
+            areaLow[ship] |= 1L << cell;
+        } else {
+            areaHigh[ship] |= 1L << (cell - Long.SIZE);
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Номер корабля в клетке или NO_SHIP
+     */
+    public int shipAt(int x, int y) {
+        return Board.onBoard(x, y) ? cells[y * Board.SIZE + x] - 1 : NO_SHIP;
+    }
+
+    /**
+     * Отмечает попадание в клетку. Возвращает номер поражённого корабля или NO_SHIP при промахе
+     */
+    public int hit(int x, int y) {
+        int ship = shipAt(x, y);
+        if (ship == NO_SHIP) {
+            return NO_SHIP;
+        }
+        int segment = horizontal[ship] ? x - originX[ship] : y - originY[ship];
+        int before = hitMasks[ship];
+        int after = before | (1 << segment);
+        if (after != before) {
+            hitMasks[ship] = after;
+            if (after == fullMasks[ship]) {
+                afloat--;
+            }
+        }
+        return ship;
+    }
+
+    public boolean isSunk(int ship) {
+        return hitMasks[ship] == fullMasks[ship];
+    }
+
+    public boolean allSunk() {
+        return afloat == 0;
+    }
+
+    public int size(int ship) {
+        return Integer.bitCount(fullMasks[ship]);
+    }
+
+    public int hitMask(int ship) {
+        return hitMasks[ship];
+    }
+
+    // Клетки корабля вместе с ореолом: биты 0..63 и 64..99
+    long areaLow(int ship) {
+        return areaLow[ship];
+    }
+
+    long areaHigh(int ship) {
+        return areaHigh[ship];
+    }
+
+    /**
+     * Помечает промахом ещё не обстрелянные клетки вокруг корабля
+     */
+    void markHalo(int ship, int[][] board) {
+        markArea(areaLow[ship], 0, board);
+        markArea(areaHigh[ship], Long.SIZE, board);
+    }
+
+    private static void markArea(long bits, int offset, int[][] board) {
+        while (bits != 0) {
+            int cell = offset + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int[] row = board[cell / Board.SIZE];
+            int x = cell % Board.SIZE;
+            if (row[x] < Board.MISS) {
+                row[x] = Board.MISS;
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ru.securitytrip.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверка расстановки флота на доске 10x10.
+ *
+ * Для каждого возможного корабля (размер 1..4, две ориентации, любая
+ * начальная клетка) клетки корабля и клетки вместе с ореолом заранее
+ * посчитаны в 100-битных масках (два long). Корабль проверяется парой AND
+ * с масками уже поставленных: пересечение с их клетками - наложение, с
+ * ореолом - касание. Весь флот проверяется за один проход без выделения
+ * памяти на корабль; состав флота сверяется со стандартным в конце.
+ *
+ * Тот же объект служит генератору расстановок: fits() отвечает, можно ли
+ * поставить корабль, add() ставит его.
+ */
+public final class FleetValidator {
+
+    // 1 четырёхпалубный, 2 трёхпалубных, 3 двухпалубных, 4 однопалубных
+    public static final int[] STANDARD_FLEET = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+    public static final int MAX_SHIP_SIZE = 4;
+
+    public enum Code {
+        BAD_SIZE, OUT_OF_BOUNDS, OVERLAP, ADJACENT, COMPOSITION
+    }
+
+    /**
+     * Нарушение расстановки; ship - индекс корабля в расстановке или -1 для состава флота
+     */
+    public record Violation(Code code, int ship, String message) {
+    }
+
+    static final int PLACEMENTS = MAX_SHIP_SIZE * 2 * Board.CELLS;
+    // Индекс: ((size - 1) * 2 + horizontal) * 100 + y * 10 + x. Таблицу читает и PlacementDensity
+    static final long[] SHIP_LOW = new long[PLACEMENTS];
+    static final long[] SHIP_HIGH = new long[PLACEMENTS];
+    static final long[] AREA_LOW = new long[PLACEMENTS];
+    static final long[] AREA_HIGH = new long[PLACEMENTS];
+    static final boolean[] INSIDE = new boolean[PLACEMENTS];
+    // Число кораблей каждого размера в стандартном флоте
+    private static final int[] STANDARD_COUNTS = new int[MAX_SHIP_SIZE + 1];
+
+    static {
+        for (int size : STANDARD_FLEET) {
+            STANDARD_COUNTS[size]++;
+        }
+        for (int size = 1; size <= MAX_SHIP_SIZE; size++) {
+            for (int h = 0; h < 2; h++) {
+                boolean horizontal = h == 1;
+                for (int y = 0; y < Board.SIZE; y++) {
+                    for (int x = 0; x < Board.SIZE; x++) {
+                        int p = index(x, y, size, horizontal);
+                        int endX = horizontal ? x + size - 1 : x;
+                        int endY = horizontal ? y : y + size - 1;
+                        if (!Board.onBoard(endX, endY)) {
+                            continue;
+                        }
+                        INSIDE[p] = true;
+                        for (int i = 0; i < size; i++) {
+                            int cx = horizontal ? x + i : x;
+                            int cy = horizontal ? y : y + i;
+                            setBit(SHIP_LOW, SHIP_HIGH, p, cy * Board.SIZE + cx);
+                        }
+                        for (int cy = y - 1; cy <= endY + 1; cy++) {
+                            for (int cx = x - 1; cx <= endX + 1; cx++) {
+                                if (Board.onBoard(cx, cy)) {
+                                    setBit(AREA_LOW, AREA_HIGH, p, cy * Board.SIZE + cx);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void setBit(long[] low, long[] high, int p, int cell) {
+        if (cell < Long.SIZE) {
+            low[p] |= 1L << cell;
+        } else {
+            high[p] |= 1L << (cell - Long.SIZE);
+        }
+    }
+
+    static int index(int x, int y, int size, boolean horizontal) {
+        return ((size - 1) * 2 + (horizontal ? 1 : 0)) * Board.CELLS + y * Board.SIZE + x;
+    }
+
+    // Индекс в таблице или -1, если корабль не помещается на доске
+    private static int placement(int x, int y, int size, boolean horizontal) {
+        if (size < 1 || size > MAX_SHIP_SIZE || !Board.onBoard(x, y)) {
+            return -1;
+        }
+        int p = index(x, y, size, horizontal);
+        return INSIDE[p] ? p : -1;
+    }
+
+    // Клетки поставленных кораблей и они же вместе с ореолом
+    private long shipsLow;
+    private long shipsHigh;
+    private long areaLow;
+    private long areaHigh;
+    private final int[] sizeCounts = new int[MAX_SHIP_SIZE + 1];
+    private int count;
+    private final List<Violation> violations = new ArrayList<>();
+
+    /**
+     * Можно ли поставить корабль: он на доске и не касается уже поставленных
+     */
+    public boolean fits(int x, int y, int size, boolean horizontal) {
+        int p = placement(x, y, size, horizontal);
+        return p >= 0 && ((SHIP_LOW[p] & areaLow) | (SHIP_HIGH[p] & areaHigh)) == 0;
+    }
+
+    /**
+     * Ставит очередной корабль и запоминает нарушения. Возвращает false, если
+     * корабль нарушает правила; такой корабль всё равно учитывается в составе
+     */
+    public boolean add(int x, int y, int size, boolean horizontal) {
+        int ship = count++;
+        if (size < 1 || size > MAX_SHIP_SIZE) {
+            violations.add(new Violation(Code.BAD_SIZE, ship,
+                    "Корабль " + ship + ": недопустимый размер " + size + " (от 1 до " + MAX_SHIP_SIZE + ")"));
+            return false;
+        }
+        sizeCounts[size]++;
+        int p = placement(x, y, size, horizontal);
+        if (p < 0) {
+            violations.add(new Violation(Code.OUT_OF_BOUNDS, ship,
+                    "Корабль " + ship + " (" + x + ", " + y + ") выходит за пределы доски"));
+            return false;
+        }
+        long low = SHIP_LOW[p];
+        long high = SHIP_HIGH[p];
+        boolean valid = true;
+        if (((low & shipsLow) | (high & shipsHigh)) != 0) {
+            violations.add(new Violation(Code.OVERLAP, ship,
+                    "Корабль " + ship + " (" + x + ", " + y + ") пересекается с другим кораблём"));
+            valid = false;
+        } else if (((low & areaLow) | (high & areaHigh)) != 0) {
+            violations.add(new Violation(Code.ADJACENT, ship,
+                    "Корабль " + ship + " (" + x + ", " + y + ") касается другого корабля"));
+            valid = false;
+        }
+        shipsLow |= low;
+        shipsHigh |= high;
+        areaLow |= AREA_LOW[p];
+        areaHigh |= AREA_HIGH[p];
+        return valid;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Нарушения по кораблям в порядке добавления и, последним, нарушение состава флота
+     */
+    public List<Violation> violations() {
+        List<Violation> result = new ArrayList<>(violations);
+        if (!isStandardComposition()) {
+            result.add(new Violation(Code.COMPOSITION, -1,
+                    "Нужны корабли 1x4, 2x3, 3x2, 4x1; получено " + describeComposition()));
+        }
+        return result;
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty() && isStandardComposition();
+    }
+
+    private boolean isStandardComposition() {
+        if (count != STANDARD_FLEET.length) {
+            return false;
+        }
+        for (int size = 1; size <= MAX_SHIP_SIZE; size++) {
+            if (sizeCounts[size] != STANDARD_COUNTS[size]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String describeComposition() {
+        StringBuilder sb = new StringBuilder();
+        for (int size = MAX_SHIP_SIZE; size >= 1; size--) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(sizeCounts[size]).append('x').append(size);
+        }
+        int other = count;
+        for (int size = 1; size <= MAX_SHIP_SIZE; size++) {
+            other -= sizeCounts[size];
+        }
+        if (other > 0) {
+            sb.append(", недопустимых размеров: ").append(other);
+        }
+        return sb.toString();
+    }
+}
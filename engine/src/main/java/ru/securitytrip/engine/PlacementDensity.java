@@ -0,0 +1,160 @@
+package ru.securitytrip.engine;
+
+import java.util.Arrays;
+
+/**
+ * Оценка вероятности того, что в клетке стоит корабль, по тому, что видно стреляющему.
+ *
+ * Для каждого размера ещё не потопленных кораблей перебираются все его
+ * положения из таблицы масок FleetValidator. Положение отбрасывается, если
+ * накрывает промах, потопленный корабль или его ореол, либо касается чужой
+ * раненой клетки. Положения, накрывающие раненые клетки, весят больше:
+ * корабль, в который уже попали, стоит где-то рядом. Вероятность клетки -
+ * сумма по размерам: число кораблей размера, умноженное на долю веса
+ * положений, накрывающих клетку (корабли не пересекаются, поэтому это и
+ * есть ожидаемое число кораблей в клетке; положения разных кораблей
+ * считаются независимыми).
+ *
+ * Из флота берутся только размеры кораблей и клетки потопленных - то, что
+ * противник и так знает. Весь расчёт - около 640 положений по паре AND
+ * без выделения памяти, кроме результата.
+ */
+public final class PlacementDensity {
+
+    // Вес положения за каждую накрытую раненую клетку непотопленного корабля
+    static final double HIT_WEIGHT = 20;
+    private static final double[] WEIGHTS = new double[FleetValidator.MAX_SHIP_SIZE + 1];
+
+    static {
+        WEIGHTS[0] = 1;
+        for (int k = 1; k < WEIGHTS.length; k++) {
+            WEIGHTS[k] = WEIGHTS[k - 1] * HIT_WEIGHT;
+        }
+    }
+
+    private PlacementDensity() {
+    }
+
+    /**
+     * Вероятности по клеткам [y][x]: 0 - промах, потопленный корабль и его ореол,
+     * 1 - раненая клетка, для необстрелянных - оценка от 0 до 1
+     *
+     * @param cells доска, как её видит стреляющий; SHIP считается необстрелянной клеткой
+     * @param fleet флот на доске с текущими попаданиями
+     */
+    public static double[][] of(int[][] cells, Fleet fleet) {
+        int[] remaining = new int[FleetValidator.MAX_SHIP_SIZE + 1];
+        long sunkLow = 0;
+        long sunkHigh = 0;
+        for (int ship = 0; ship < fleet.count(); ship++) {
+            if (fleet.isSunk(ship)) {
+                sunkLow |= fleet.areaLow(ship);
+                sunkHigh |= fleet.areaHigh(ship);
+            } else if (fleet.size(ship) <= FleetValidator.MAX_SHIP_SIZE) {
+                remaining[fleet.size(ship)]++;
+            }
+        }
+
+        // Промахи и раненые клетки кораблей на плаву
+        long missLow = 0;
+        long missHigh = 0;
+        long hitLow = 0;
+        long hitHigh = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            int value = cells[cell / Board.SIZE][cell % Board.SIZE];
+            long bit = 1L << cell;
+            if (value == Board.MISS) {
+                if (cell < Long.SIZE) {
+                    missLow |= bit;
+                } else {
+                    missHigh |= bit;
+                }
+            } else if (value == Board.HIT) {
+                if (cell < Long.SIZE) {
+                    hitLow |= bit & ~sunkLow;
+                } else {
+                    hitHigh |= bit & ~sunkHigh;
+                }
+            }
+        }
+        long closedLow = missLow | sunkLow;
+        long closedHigh = missHigh | sunkHigh;
+
+        double[] density = new double[Board.CELLS];
+        double[] sizeDensity = new double[Board.CELLS];
+        for (int size = 1; size <= FleetValidator.MAX_SHIP_SIZE; size++) {
+            if (remaining[size] == 0) {
+                continue;
+            }
+            Arrays.fill(sizeDensity, 0);
+            double total = 0;
+            int first = FleetValidator.index(0, 0, size, false);
+            for (int p = first; p < first + 2 * Board.CELLS; p++) {
+                if (!FleetValidator.INSIDE[p]) {
+                    continue;
+                }
+                long shipLow = FleetValidator.SHIP_LOW[p];
+                long shipHigh = FleetValidator.SHIP_HIGH[p];
+                if (((shipLow & closedLow) | (shipHigh & closedHigh)) != 0) {
+                    continue;
+                }
+                // Раненая клетка рядом, но не под кораблём - она чужая, а корабли не касаются
+                if (((FleetValidator.AREA_LOW[p] & ~shipLow & hitLow)
+                        | (FleetValidator.AREA_HIGH[p] & ~shipHigh & hitHigh)) != 0) {
+                    continue;
+                }
+                double weight = WEIGHTS[Long.bitCount(shipLow & hitLow) + Long.bitCount(shipHigh & hitHigh)];
+                total += weight;
+                accumulate(sizeDensity, shipLow, 0, weight);
+                accumulate(sizeDensity, shipHigh, Long.SIZE, weight);
+            }
+            if (total == 0) {
+                continue;
+            }
+            double scale = remaining[size] / total;
+            for (int cell = 0; cell < Board.CELLS; cell++) {
+                density[cell] += sizeDensity[cell] * scale;
+            }
+        }
+
+        double[][] result = new double[Board.SIZE][Board.SIZE];
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            boolean low = cell < Long.SIZE;
+            long bit = 1L << cell;
+            double value;
+            if (((low ? closedLow : closedHigh) & bit) != 0) {
+                value = 0;
+            } else if (((low ? hitLow : hitHigh) & bit) != 0) {
+                value = 1;
+            } else {
+                value = Math.min(1, density[cell]);
+            }
+            result[cell / Board.SIZE][cell % Board.SIZE] = value;
+        }
+        return result;
+    }
+
+    /**
+     * Необстрелянная клетка с наибольшей вероятностью (y * 10 + x) или -1, если таких нет
+     */
+    public static int best(double[][] density, int[][] cells) {
+        int best = -1;
+        double max = -1;
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                if (cells[y][x] < Board.MISS && density[y][x] > max) {
+                    max = density[y][x];
+                    best = y * Board.SIZE + x;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static void accumulate(double[] density, long bits, int offset, double weight) {
+        while (bits != 0) {
+            density[offset + Long.numberOfTrailingZeros(bits)] += weight;
+            bits &= bits - 1;
+        }
+    }
+}
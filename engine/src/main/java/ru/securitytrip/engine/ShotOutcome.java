@@ -0,0 +1,16 @@
+package ru.securitytrip.engine;
+
+/**
+ * Результат выстрела по доске
+ */
+public enum ShotOutcome {
+    MISS,
+    HIT,
+    SUNK,
+    // Клетка уже обстреляна, доска не изменилась
+    ALREADY_SHOT;
+
+    public boolean isHit() {
+        return this == HIT || this == SUNK;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.securitytrip.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    @Test
+    void testShotsSinkFleet() {
+        Fleet fleet = new Fleet(2);
+        assertEquals(0, fleet.add(1, 2, 3, true, 0));
+        assertEquals(1, fleet.add(9, 8, 2, false, 0));
+        Board board = new Board(new int[10][10], fleet, false);
+
+        assertEquals(ShotOutcome.MISS, board.shoot(0, 2));
+        assertEquals(Fleet.NO_SHIP, board.lastShip());
+        assertEquals(ShotOutcome.HIT, board.shoot(2, 2));
+        assertEquals(0, board.lastShip());
+        assertEquals(ShotOutcome.HIT, board.shoot(1, 2));
+        assertEquals(0b011, fleet.hitMask(0));
+        assertEquals(ShotOutcome.ALREADY_SHOT, board.shoot(1, 2));
+        assertEquals(ShotOutcome.SUNK, board.shoot(3, 2));
+        assertFalse(board.isGameOver());
+
+        assertEquals(ShotOutcome.HIT, board.shoot(9, 8));
+        assertEquals(ShotOutcome.SUNK, board.shoot(9, 9));
+        assertEquals(1, board.lastShip());
+        assertTrue(board.isGameOver());
+        assertEquals(2, fleet.size(1));
+        assertEquals(Board.HIT, board.cells()[9][9]);
+        assertEquals(Board.MISS, board.cells()[2][0]);
+    }
+
+    @Test
+    void testHaloOfSunkShipIsMarkedAsMiss() {
+        Fleet fleet = new Fleet(2);
+        fleet.add(0, 0, 2, false, 0);
+        fleet.add(5, 5, 1, true, 0);
+        int[][] cells = new int[10][10];
+        cells[0][0] = Board.SHIP;
+        cells[1][0] = Board.SHIP;
+        cells[5][5] = Board.SHIP;
+        Board board = new Board(cells, fleet, true);
+
+        assertEquals(ShotOutcome.HIT, board.shoot(0, 0));
+        assertEquals(ShotOutcome.SUNK, board.shoot(0, 1));
+
+        int[][] expected = new int[10][10];
+        expected[0][0] = Board.HIT;
+        expected[1][0] = Board.HIT;
+        expected[0][1] = Board.MISS;
+        expected[1][1] = Board.MISS;
+        expected[2][0] = Board.MISS;
+        expected[2][1] = Board.MISS;
+        expected[5][5] = Board.SHIP;
+        assertArrayEquals(expected, cells);
+    }
+
+    @Test
+    void testHaloCoversCellsBeyondFirstLong() {
+        Fleet fleet = new Fleet(1);
+        fleet.add(6, 9, 4, true, 0);
+        int[][] cells = new int[10][10];
+        Board board = new Board(cells, fleet, true);
+        for (int x = 6; x < 10; x++) {
+            board.shoot(x, 9);
+        }
+        for (int x = 5; x < 10; x++) {
+            assertEquals(Board.MISS, cells[8][x]);
+        }
+        assertEquals(Board.MISS, cells[9][5]);
+        assertEquals(Board.EMPTY, cells[7][6]);
+    }
+
+    @Test
+    void testExistingHitsAreKept() {
+        Fleet fleet = new Fleet(2);
+        fleet.add(0, 0, 2, true, 0b11);
+        fleet.add(0, 5, 1, true, 0);
+        assertTrue(fleet.isSunk(0));
+        assertFalse(fleet.allSunk());
+
+        Board board = new Board(new int[10][10], fleet, true);
+        assertEquals(ShotOutcome.SUNK, board.shoot(0, 5));
+        assertTrue(board.isGameOver());
+    }
+
+    @Test
+    void testOverlappingCellBelongsToFirstShip() {
+        Fleet fleet = new Fleet(2);
+        fleet.add(0, 0, 3, true, 0);
+        fleet.add(1, 0, 2, false, 0);
+        assertEquals(0, fleet.shipAt(1, 0));
+        assertEquals(1, fleet.shipAt(1, 1));
+        assertEquals(Fleet.NO_SHIP, fleet.shipAt(10, 0));
+    }
+
+    @Test
+    void testRejectsInvalidInput() {
+        Board board = new Board(new int[10][10], new Fleet(0), true);
+        assertThrows(IllegalArgumentException.class, () -> board.shoot(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Board(new int[9][10], new Fleet(0), true));
+        assertThrows(IllegalStateException.class, () -> new Fleet(0).add(0, 0, 1, true, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Fleet(1).add(0, 0, 0, true, 0));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.securitytrip.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetValidatorTest {
+
+    // Стандартный флот без касаний: корабли через строку
+    private static FleetValidator standardFleet() {
+        FleetValidator validator = new FleetValidator();
+        validator.add(0, 0, 4, true);
+        validator.add(0, 2, 3, true);
+        validator.add(5, 2, 3, true);
+        validator.add(0, 4, 2, true);
+        validator.add(3, 4, 2, true);
+        validator.add(6, 4, 2, true);
+        validator.add(0, 6, 1, true);
+        validator.add(2, 6, 1, true);
+        validator.add(4, 6, 1, true);
+        validator.add(9, 9, 1, true);
+        return validator;
+    }
+
+    @Test
+    void testStandardFleetIsValid() {
+        FleetValidator validator = standardFleet();
+        assertTrue(validator.isValid());
+        assertEquals(List.of(), validator.violations());
+        assertEquals(10, validator.count());
+    }
+
+    @Test
+    void testOverlapAndAdjacencyAreReportedPerShip() {
+        FleetValidator validator = new FleetValidator();
+        assertTrue(validator.add(2, 2, 3, false));
+        // Пересекает клетку (2, 3)
+        assertFalse(validator.add(1, 3, 2, true));
+        // Касается углом клетки (2, 4)
+        assertFalse(validator.add(3, 5, 1, true));
+        // Вплотную к доске, но через клетку от кораблей
+        assertTrue(validator.add(4, 2, 1, true));
+
+        List<FleetValidator.Violation> violations = validator.violations();
+        assertEquals(FleetValidator.Code.OVERLAP, violations.get(0).code());
+        assertEquals(1, violations.get(0).ship());
+        assertEquals(FleetValidator.Code.ADJACENT, violations.get(1).code());
+        assertEquals(2, violations.get(1).ship());
+        assertEquals(FleetValidator.Code.COMPOSITION, violations.get(2).code());
+        assertEquals(-1, violations.get(2).ship());
+    }
+
+    @Test
+    void testBoundsAndSizes() {
+        FleetValidator validator = new FleetValidator();
+        assertFalse(validator.add(7, 0, 4, true));
+        assertFalse(validator.add(0, 9, 2, false));
+        assertFalse(validator.add(-1, 0, 1, true));
+        assertFalse(validator.add(0, 0, 5, true));
+        assertFalse(validator.add(0, 0, 0, true));
+        assertTrue(validator.add(6, 0, 4, true));
+        assertTrue(validator.add(0, 8, 2, false));
+
+        List<FleetValidator.Violation> violations = validator.violations();
+        assertEquals(FleetValidator.Code.OUT_OF_BOUNDS, violations.get(0).code());
+        assertEquals(FleetValidator.Code.OUT_OF_BOUNDS, violations.get(1).code());
+        assertEquals(FleetValidator.Code.OUT_OF_BOUNDS, violations.get(2).code());
+        assertEquals(FleetValidator.Code.BAD_SIZE, violations.get(3).code());
+        assertEquals(FleetValidator.Code.BAD_SIZE, violations.get(4).code());
+        assertEquals(6, violations.size());
+    }
+
+    @Test
+    void testCompositionMustMatchStandardFleet() {
+        FleetValidator validator = new FleetValidator();
+        validator.add(0, 0, 2, true);
+        assertFalse(validator.isValid());
+        assertEquals(List.of(FleetValidator.Code.COMPOSITION),
+                validator.violations().stream().map(FleetValidator.Violation::code).toList());
+
+        // Одиннадцатый корабль лишний
+        FleetValidator extra = standardFleet();
+        extra.add(9, 0, 1, true);
+        assertFalse(extra.isValid());
+    }
+
+    @Test
+    void testFitsMatchesAdd() {
+        FleetValidator validator = new FleetValidator();
+        validator.add(4, 4, 2, true);
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                boolean touches = x >= 3 && x <= 6 && y >= 3 && y <= 5;
+                assertEquals(!touches, validator.fits(x, y, 1, true), x + "," + y);
+            }
+        }
+        assertFalse(validator.fits(9, 0, 2, true));
+        assertTrue(validator.fits(9, 0, 2, false));
+        assertFalse(validator.fits(0, 0, 5, true));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.securitytrip.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementDensityTest {
+
+    private static Fleet standardFleet(int sunkShips) {
+        Fleet fleet = new Fleet(FleetValidator.STANDARD_FLEET.length);
+        fleet.add(0, 0, 4, true, sunkShips > 0 ? Fleet.fullMask(4) : 0);
+        fleet.add(0, 2, 3, true, 0);
+        fleet.add(5, 2, 3, true, 0);
+        fleet.add(0, 4, 2, true, 0);
+        fleet.add(3, 4, 2, true, 0);
+        fleet.add(6, 4, 2, true, 0);
+        fleet.add(0, 6, 1, true, 0);
+        fleet.add(2, 6, 1, true, 0);
+        fleet.add(4, 6, 1, true, 0);
+        fleet.add(9, 9, 1, true, 0);
+        return fleet;
+    }
+
+    private static double sum(double[][] density) {
+        double sum = 0;
+        for (double[] row : density) {
+            for (double value : row) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    void testOpenBoardSpreadsWholeFleet() {
+        // Клетки с кораблями противника для стреляющего не отличаются от пустых
+        int[][] cells = new int[10][10];
+        cells[0][0] = Board.SHIP;
+        double[][] density = PlacementDensity.of(cells, standardFleet(0));
+
+        // 20 палуб: ожидаемое число кораблей по всем клеткам
+        assertEquals(20, sum(density), 1e-9);
+        assertEquals(density[0][0], density[9][9], 1e-12);
+        assertEquals(density[0][3], density[3][0], 1e-12);
+        assertTrue(density[4][4] > density[0][0]);
+        // Лучшая клетка - не у края доски
+        int best = PlacementDensity.best(density, cells);
+        assertTrue(best % 10 >= 2 && best % 10 <= 7 && best / 10 >= 2 && best / 10 <= 7);
+    }
+
+    @Test
+    void testMissesSunkShipsAndWoundsShapeTheMap() {
+        int[][] cells = new int[10][10];
+        // Потопленный четырёхпалубный в углу
+        for (int x = 0; x < 4; x++) {
+            cells[0][x] = Board.HIT;
+        }
+        cells[5][5] = Board.MISS;
+        // Раненый корабль на плаву
+        cells[7][2] = Board.HIT;
+        double[][] density = PlacementDensity.of(cells, standardFleet(1));
+
+        assertEquals(0, density[0][2]);
+        assertEquals(0, density[1][4]);
+        assertEquals(0, density[5][5]);
+        assertEquals(1, density[7][2]);
+        // По диагонали от раненой клетки корабля быть не может, рядом по стороне - скорее всего
+        assertEquals(0, density[6][1]);
+        assertEquals(0, density[8][3]);
+        assertTrue(density[7][3] > density[7][5]);
+        assertTrue(density[6][2] > density[3][7]);
+
+        int best = PlacementDensity.best(density, cells);
+        int bestX = best % 10;
+        int bestY = best / 10;
+        assertEquals(1, Math.abs(bestX - 2) + Math.abs(bestY - 7));
+    }
+
+    @Test
+    void testFullyShotBoardHasNoBestCell() {
+        int[][] cells = new int[10][10];
+        for (int[] row : cells) {
+            Arrays.fill(row, Board.MISS);
+        }
+        double[][] density = PlacementDensity.of(cells, standardFleet(0));
+        assertEquals(0, sum(density));
+        assertEquals(-1, PlacementDensity.best(density, cells));
+    }
+}
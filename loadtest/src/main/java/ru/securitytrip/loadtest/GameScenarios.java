@@ -0,0 +1,100 @@
+package ru.securitytrip.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * Полные партии от создания до последнего хода. Игроки стреляют по клеткам
+ * подряд, поэтому любая партия гарантированно заканчивается не более чем
+ * за 100 выстрелов каждого игрока.
+ */
+public final class GameScenarios {
+
+    private static final int CELLS = 100;
+
+    private GameScenarios() {
+    }
+
+    /**
+     * Одиночная игра: создание и старт через REST, ходы через STOMP
+     * (/app/singleplayer.move), ответ ищется по id игры
+     */
+    public static void playSingleplayer(VirtualPlayer player, String difficulty) {
+        JsonNode ships = player.get("/game/generate-ships/RANDOM");
+        JsonNode game = player.post("/game/singleplayer", Map.of("ships", ships, "difficultyLevel", difficulty));
+        long gameId = game.path("id").asLong();
+        player.post("/game/start/" + gameId, null);
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            Map<String, Object> move = Map.of("gameId", gameId, "userId", player.userId(), "x", cell % 10, "y", cell / 10);
+            VirtualPlayer.Frame response = player.sendAndAwait("/app/singleplayer.move", move,
+                    "/topic/singleplayer/move", frame -> frame.body().path("gameState").path("id").asLong() == gameId);
+            JsonNode body = response.body();
+            if (body.path("gameOver").asBoolean()
+                    || !"IN_PROGRESS".equals(body.path("gameState").path("gameState").asText())) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Одиночная игра " + gameId + " не завершилась за " + CELLS + " ходов");
+    }
+
+    /**
+     * Мультиплеерная игра: хост создаёт комнату, гость подключается по коду
+     * раньше, чем хост расставил корабли (create расстановку не сохраняет), и
+     * игра начинается только после multiplayer.place. Затем игроки ходят по
+     * очереди (при попадании ход остаётся у стрелявшего). Кадр хода ищется по
+     * коду комнаты и версии состояния
+     */
+    public static void playMultiplayer(VirtualPlayer host, VirtualPlayer guest) {
+        JsonNode hostShips = host.get("/game/generate-ships/RANDOM");
+        JsonNode guestShips = guest.get("/game/generate-ships/RANDOM");
+
+        VirtualPlayer.Frame created = host.sendAndAwait("/app/multiplayer.create",
+                Map.of("ships", hostShips, "userId", host.userId()),
+                "/topic/multiplayer/code", frame -> frame.body().path("userId").asLong() == host.userId());
+        String gameCode = created.body().path("gameCode").asText();
+
+        VirtualPlayer.Frame joined = guest.sendAndAwait("/app/multiplayer.join",
+                Map.of("gameCode", gameCode, "ships", guestShips, "userId", guest.userId()),
+                "/topic/multiplayer/join", frame -> gameCode.equals(frame.body().path("gameCode").asText()));
+        expectGameState(joined, "WAITING", gameCode, "без флота хоста");
+
+        VirtualPlayer.Frame placed = host.sendAndAwait("/app/multiplayer.place",
+                Map.of("gameCode", gameCode, "ships", hostShips, "userId", host.userId()),
+                "/topic/multiplayer/place", frame -> gameCode.equals(frame.body().path("gameCode").asText()));
+        expectGameState(placed, "IN_PROGRESS", gameCode, "после расстановки обоих флотов");
+
+        int[] shots = new int[2];
+        boolean hostTurn = true;
+        long version = -1;
+        while (true) {
+            VirtualPlayer shooter = hostTurn ? host : guest;
+            int index = hostTurn ? 0 : 1;
+            if (shots[index] >= CELLS) {
+                throw new IllegalStateException("Мультиплеерная игра " + gameCode + " не завершилась");
+            }
+            int cell = shots[index]++;
+            Map<String, Object> move = Map.of("gameCode", gameCode, "userId", shooter.userId(),
+                    "x", cell % 10, "y", cell / 10);
+            long previousVersion = version;
+            VirtualPlayer.Frame frame = shooter.sendAndAwait("/app/multiplayer.move", move, "/topic/multiplayer/move",
+                    f -> gameCode.equals(f.header("game-code")) && f.stateVersion() > previousVersion);
+            version = frame.stateVersion();
+            JsonNode body = frame.body();
+            if (body.path("lastMoveGameOver").asBoolean()) {
+                return;
+            }
+            // playerTurn в кадре мультиплеера означает ход хоста (player1)
+            hostTurn = body.path("playerTurn").asBoolean();
+        }
+    }
+
+    private static void expectGameState(VirtualPlayer.Frame frame, String expected, String gameCode, String when) {
+        String actual = frame.body().path("gameState").asText();
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Комната " + gameCode + " " + when + " в состоянии " + actual
+                    + ", ожидалось " + expected);
+        }
+    }
+}
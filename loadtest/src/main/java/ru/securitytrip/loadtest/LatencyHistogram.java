@@ -0,0 +1,105 @@
+package ru.securitytrip.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с логарифмически-линейными корзинами (в микросекундах).
+ *
+ * Значения до 128 мкс хранятся точно, дальше каждая степень двойки делится
+ * на 64 корзины — относительная погрешность не больше 1/64. Запись lock-free
+ * и не выделяет память, поэтому её можно вызывать из тысяч виртуальных потоков.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_LIMIT = 128;
+    private static final int SUB_BUCKETS = 64;
+    // Верхняя граница — 2^40 мкс (~12 дней), всё, что больше, попадает в последнюю корзину
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKETS = LINEAR_LIMIT + (MAX_MAGNITUDE - 7 + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+    }
+
+    // Добавляет замеры другой гистограммы (для сводок; не атомарно относительно записи в other)
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        errors.add(other.errors.sum());
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public double meanMicros() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Значение перцентиля (0 < p <= 1) в микросекундах: нижняя граница корзины,
+     * в которую попадает p-я доля замеров
+     */
+    public long percentileMicros(double p) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBoundOf(i);
+            }
+        }
+        return lowerBoundOf(BUCKETS - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int magnitude = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_MAGNITUDE);
+        if (magnitude == MAX_MAGNITUDE && value >= (1L << (MAX_MAGNITUDE + 1))) {
+            return BUCKETS - 1;
+        }
+        int shift = magnitude - 6;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (magnitude - 7) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int magnitude = offset / SUB_BUCKETS + 7;
+        int sub = offset % SUB_BUCKETS + SUB_BUCKETS;
+        return (long) sub << (magnitude - 6);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.securitytrip.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Замеры нагрузочного прогона: гистограмма задержек на каждый адрес
+ * (REST-эндпоинт или STOMP-назначение) и счётчики завершённых игр
+ */
+public class LoadMetrics {
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final LongAdder singleplayerGames = new LongAdder();
+    private final LongAdder multiplayerGames = new LongAdder();
+    private final LongAdder failedGames = new LongAdder();
+
+    public LatencyHistogram histogram(String destination) {
+        return histograms.computeIfAbsent(destination, d -> new LatencyHistogram());
+    }
+
+    public void record(String destination, long startNanos) {
+        histogram(destination).recordMicros((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    public void recordError(String destination) {
+        histogram(destination).recordError();
+    }
+
+    public void singleplayerGameFinished() {
+        singleplayerGames.increment();
+    }
+
+    public void multiplayerGameFinished() {
+        multiplayerGames.increment();
+    }
+
+    public void gameFailed() {
+        failedGames.increment();
+    }
+
+    public long gamesFinished() {
+        return singleplayerGames.sum() + multiplayerGames.sum();
+    }
+
+    // Ошибки запросов и сорванные игры
+    public long errors() {
+        long errors = failedGames.sum();
+        for (LatencyHistogram histogram : histograms.values()) {
+            errors += histogram.errors();
+        }
+        return errors;
+    }
+
+    /**
+     * Замеры нескольких адресов в одной гистограмме
+     */
+    public LatencyHistogram merged(Collection<String> destinations) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (String destination : destinations) {
+            LatencyHistogram histogram = histograms.get(destination);
+            if (histogram != null) {
+                merged.add(histogram);
+            }
+        }
+        return merged;
+    }
+
+    public void printReport(PrintStream out, Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+        out.printf("%n=== Результаты нагрузочного прогона (%.1f с) ===%n", seconds);
+        out.printf("%-32s %9s %7s %10s %9s %9s %9s %9s %10s%n",
+                "адрес", "запросов", "ошибок", "rps", "mean,мс", "p50,мс", "p99,мс", "p999,мс", "max≈,мс");
+        long totalRequests = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            totalRequests += h.count();
+            out.printf("%-32s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %10.2f%n",
+                    entry.getKey(), h.count(), h.errors(), h.count() / seconds,
+                    h.meanMicros() / 1000.0,
+                    h.percentileMicros(0.50) / 1000.0,
+                    h.percentileMicros(0.99) / 1000.0,
+                    h.percentileMicros(0.999) / 1000.0,
+                    h.percentileMicros(1.0) / 1000.0);
+        }
+        out.printf("%nВсего запросов: %d (%.1f в секунду)%n", totalRequests, totalRequests / seconds);
+        out.printf("Игр завершено: одиночных %d, мультиплеерных %d (%.2f игр в секунду), сорвано %d%n",
+                singleplayerGames.sum(), multiplayerGames.sum(),
+                (singleplayerGames.sum() + multiplayerGames.sum()) / seconds, failedGames.sum());
+    }
+}
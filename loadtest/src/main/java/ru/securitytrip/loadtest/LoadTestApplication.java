@@ -0,0 +1,189 @@
+package ru.securitytrip.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import ru.securitytrip.backend.BackendApplication;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Нагрузочный стенд. Запускает N виртуальных игроков (по виртуальному потоку
+ * на игрока), каждый проходит регистрацию, вход, подключение по STOMP и играет
+ * полные одиночные и мультиплеерные партии. В конце печатает p50/p99/p999
+ * по каждому адресу и пропускную способность.
+ *
+ * Без --target приложение поднимается в этом же процессе на профиле loadtest
+ * (встроенная H2), внешние сервисы не нужны.
+ *
+ * С --transports=native,sockjs тот же сценарий прогоняется по очереди через
+ * каждый транспорт STOMP, в конце печатается их сравнение.
+ */
+public class LoadTestApplication {
+
+    private static final List<String> MOVE_DESTINATIONS = List.of("/app/singleplayer.move", "/app/multiplayer.move");
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext server = null;
+        String baseUrl = options.target();
+        if (options.embedded()) {
+            server = new SpringApplicationBuilder(BackendApplication.class)
+                    .profiles("loadtest")
+                    .run();
+            baseUrl = "http://localhost:" + server.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            new LoadTestApplication().run(options, baseUrl.replaceAll("/+$", ""));
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    void run(LoadTestOptions options, String baseUrl) throws InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(options.timeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        Map<StompTransport, TransportResult> results = new LinkedHashMap<>();
+        for (StompTransport transport : options.transports()) {
+            LoadMetrics metrics = new LoadMetrics();
+            // Свои пользователи на каждый транспорт, чтобы прогоны не пересекались
+            String transportRunId = runId + transport.ordinal();
+            Duration elapsed = runTransport(options, baseUrl, transportRunId, transport, httpClient, objectMapper, metrics);
+            System.out.printf("%nТранспорт: %s%n", transport.label());
+            metrics.printReport(System.out, elapsed);
+            results.put(transport, new TransportResult(metrics, elapsed));
+        }
+        if (results.size() > 1) {
+            printComparison(results);
+        }
+    }
+
+    private record TransportResult(LoadMetrics metrics, Duration elapsed) {
+    }
+
+    private Duration runTransport(LoadTestOptions options, String baseUrl, String runId, StompTransport transport,
+                                  HttpClient httpClient, ObjectMapper objectMapper, LoadMetrics metrics)
+            throws InterruptedException {
+        WebSocketStompClient stompClient = transport.createClient();
+
+        int clients = options.clients();
+        // Игроки 2k и 2k+1 образуют пару для мультиплеера: первый — хост
+        int pairs = options.multiplayerGames() > 0 ? clients / 2 : 0;
+        List<CompletableFuture<VirtualPlayer>> ready = new ArrayList<>(clients);
+        List<CompletableFuture<Void>> matchesDone = new ArrayList<>(pairs);
+        for (int i = 0; i < clients; i++) {
+            ready.add(new CompletableFuture<>());
+        }
+        for (int i = 0; i < pairs; i++) {
+            matchesDone.add(new CompletableFuture<>());
+        }
+
+        System.out.printf("Нагрузочный прогон %s (%s): %d игроков, %d одиночных игр на игрока, %d мультиплеерных на пару, цель %s%n",
+                runId, transport.label(), clients, options.singleplayerGames(), options.multiplayerGames(), baseUrl);
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int index = i;
+                long delayMillis = clients > 1 ? options.rampUp().toMillis() * i / (clients - 1) : 0;
+                executor.submit(() -> {
+                    Thread.sleep(delayMillis);
+                    runPlayer(index, pairs, options, new VirtualPlayer(baseUrl, httpClient, stompClient, transport,
+                            objectMapper, metrics, options.timeout(), "lt_" + runId + "_" + index),
+                            metrics, ready, matchesDone);
+                    return null;
+                });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        stompClient.stop();
+        return elapsed;
+    }
+
+    // Сводка по транспортам: подключение, ходы и пропускная способность одного и того же сценария
+    private void printComparison(Map<StompTransport, TransportResult> results) {
+        System.out.printf("%n=== Сравнение транспортов ===%n");
+        System.out.printf("%-12s %16s %16s %12s %12s %8s %8s%n", "транспорт", "CONNECT p50,мс", "CONNECT p99,мс",
+                "ход p50,мс", "ход p99,мс", "игр/с", "ошибок");
+        for (Map.Entry<StompTransport, TransportResult> entry : results.entrySet()) {
+            LoadMetrics metrics = entry.getValue().metrics();
+            double seconds = Math.max(entry.getValue().elapsed().toMillis(), 1) / 1000.0;
+            LatencyHistogram connect = metrics.histogram("STOMP CONNECT");
+            LatencyHistogram moves = metrics.merged(MOVE_DESTINATIONS);
+            System.out.printf("%-12s %16.2f %16.2f %12.2f %12.2f %8.2f %8d%n", entry.getKey().label(),
+                    connect.percentileMicros(0.50) / 1000.0, connect.percentileMicros(0.99) / 1000.0,
+                    moves.percentileMicros(0.50) / 1000.0, moves.percentileMicros(0.99) / 1000.0,
+                    metrics.gamesFinished() / seconds, metrics.errors());
+        }
+    }
+
+    private void runPlayer(int index, int pairs, LoadTestOptions options, VirtualPlayer player, LoadMetrics metrics,
+                           List<CompletableFuture<VirtualPlayer>> ready, List<CompletableFuture<Void>> matchesDone) {
+        boolean paired = index < pairs * 2;
+        try (player) {
+            try {
+                player.registerAndLogin();
+                player.connect();
+            } catch (RuntimeException e) {
+                System.err.printf("Игрок %d не подключился: %s%n", index, e.getMessage());
+                ready.get(index).completeExceptionally(e);
+                if (paired && index % 2 == 0) {
+                    matchesDone.get(index / 2).complete(null);
+                }
+                return;
+            }
+
+            for (int game = 0; game < options.singleplayerGames(); game++) {
+                try {
+                    GameScenarios.playSingleplayer(player, options.difficulty());
+                    metrics.singleplayerGameFinished();
+                } catch (RuntimeException e) {
+                    metrics.gameFailed();
+                    System.err.printf("Одиночная игра игрока %d сорвана: %s%n", index, e.getMessage());
+                }
+            }
+            ready.get(index).complete(player);
+
+            if (!paired) {
+                return;
+            }
+            if (index % 2 == 1) {
+                // Гость остаётся подключённым, пока хост проводит матчи
+                matchesDone.get(index / 2).join();
+                return;
+            }
+            try {
+                VirtualPlayer guest = ready.get(index + 1).join();
+                for (int game = 0; game < options.multiplayerGames(); game++) {
+                    try {
+                        GameScenarios.playMultiplayer(player, guest);
+                        metrics.multiplayerGameFinished();
+                    } catch (RuntimeException e) {
+                        metrics.gameFailed();
+                        System.err.printf("Мультиплеерная игра пары %d сорвана: %s%n", index / 2, e.getMessage());
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.printf("Пара %d без гостя: %s%n", index / 2, e.getMessage());
+            } finally {
+                matchesDone.get(index / 2).complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.securitytrip.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --name=value.
+ *
+ * --clients               число виртуальных игроков (по умолчанию 50)
+ * --singleplayer-games    одиночных игр на игрока (1)
+ * --multiplayer-games     мультиплеерных игр на пару игроков (1)
+ * --target                адрес уже запущенного сервера; без него приложение
+ *                         поднимается в этом же процессе на профиле loadtest
+ * --timeout               ожидание одного ответа (PT10S)
+ * --ramp-up               время, за которое стартуют все игроки (PT5S)
+ * --difficulty            сложность одиночных игр (MEDIUM)
+ * --transports            транспорты STOMP через запятую: native, sockjs,
+ *                         sockjs-xhr (native); при нескольких прогон
+ *                         повторяется для каждого и печатается сравнение
+ */
+public record LoadTestOptions(int clients,
+                              int singleplayerGames,
+                              int multiplayerGames,
+                              String target,
+                              Duration timeout,
+                              Duration rampUp,
+                              String difficulty,
+                              List<StompTransport> transports) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq > 2) {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("clients", "50")),
+                Integer.parseInt(values.getOrDefault("singleplayer-games", "1")),
+                Integer.parseInt(values.getOrDefault("multiplayer-games", "1")),
+                values.get("target"),
+                Duration.parse(values.getOrDefault("timeout", "PT10S")),
+                Duration.parse(values.getOrDefault("ramp-up", "PT5S")),
+                values.getOrDefault("difficulty", "MEDIUM"),
+                Arrays.stream(values.getOrDefault("transports", "native").split(","))
+                        .filter(value -> !value.isBlank())
+                        .map(StompTransport::parse)
+                        .distinct()
+                        .toList());
+    }
+
+    public boolean embedded() {
+        return target == null || target.isBlank();
+    }
+}
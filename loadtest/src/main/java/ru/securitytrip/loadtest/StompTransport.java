@@ -0,0 +1,63 @@
+package ru.securitytrip.loadtest;
+
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.RestTemplateXhrTransport;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Транспорт STOMP для сравнения адресов сервера:
+ *
+ * native      /ws-native, чистый WebSocket
+ * sockjs      /ws через SockJS-клиент поверх WebSocket (обрамление кадров SockJS)
+ * sockjs-xhr  /ws через SockJS-клиент на XHR streaming — запасной транспорт
+ *             для клиентов без WebSocket
+ */
+public enum StompTransport {
+
+    NATIVE("native"),
+    SOCKJS("sockjs"),
+    SOCKJS_XHR("sockjs-xhr");
+
+    private final String label;
+
+    StompTransport(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static StompTransport parse(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        for (StompTransport transport : values()) {
+            if (transport.label.equals(normalized)) {
+                return transport;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный транспорт: " + value);
+    }
+
+    public String url(String baseUrl) {
+        return switch (this) {
+            case NATIVE -> baseUrl.replaceFirst("^http", "ws") + "/ws-native";
+            case SOCKJS, SOCKJS_XHR -> baseUrl + "/ws";
+        };
+    }
+
+    public WebSocketStompClient createClient() {
+        WebSocketStompClient client = switch (this) {
+            case NATIVE -> new WebSocketStompClient(new StandardWebSocketClient());
+            case SOCKJS -> new WebSocketStompClient(
+                    new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+            case SOCKJS_XHR -> new WebSocketStompClient(new SockJsClient(List.of(new RestTemplateXhrTransport())));
+        };
+        client.setInboundMessageSizeLimit(1024 * 1024);
+        return client;
+    }
+}
@@ -0,0 +1,240 @@
+package ru.securitytrip.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Один виртуальный игрок: регистрируется и входит через /auth, подключается
+ * по STOMP с JWT (адрес зависит от транспорта) и подписывается на игровые топики.
+ *
+ * Топики общие для всех игроков, поэтому ответ на свой запрос игрок находит
+ * по предикату (id игры, код комнаты, версия состояния). Задержка запроса —
+ * время от отправки до получения такого ответа.
+ */
+public class VirtualPlayer implements AutoCloseable {
+
+    private static final List<String> TOPICS = List.of(
+            "/topic/singleplayer/move",
+            "/topic/multiplayer/code",
+            "/topic/multiplayer/place",
+            "/topic/multiplayer/join",
+            "/topic/multiplayer/move");
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final WebSocketStompClient stompClient;
+    private final StompTransport transport;
+    private final ObjectMapper objectMapper;
+    private final LoadMetrics metrics;
+    private final Duration timeout;
+    private final String username;
+
+    private String token;
+    private long userId;
+    private StompSession session;
+
+    // Ожидания ответов в топиках; обычно не больше одного
+    private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+
+    private record Waiter(String topic, Predicate<Frame> predicate, CompletableFuture<Frame> future) {
+    }
+
+    /**
+     * Сообщение из топика. Тело разбирается лениво: большинство сообщений
+     * адресовано другим игрокам и отсеивается по заголовкам
+     */
+    public final class Frame {
+        private final StompHeaders headers;
+        private final byte[] payload;
+        private JsonNode body;
+
+        Frame(StompHeaders headers, byte[] payload) {
+            this.headers = headers;
+            this.payload = payload;
+        }
+
+        public String header(String name) {
+            return headers.getFirst(name);
+        }
+
+        public long stateVersion() {
+            String version = headers.getFirst("state-version");
+            return version != null ? Long.parseLong(version) : -1;
+        }
+
+        public JsonNode body() {
+            if (body == null) {
+                try {
+                    body = objectMapper.readTree(payload);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Некорректный JSON в сообщении", e);
+                }
+            }
+            return body;
+        }
+    }
+
+    public VirtualPlayer(String baseUrl, HttpClient httpClient, WebSocketStompClient stompClient, StompTransport transport,
+                         ObjectMapper objectMapper, LoadMetrics metrics, Duration timeout, String username) {
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.stompClient = stompClient;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.timeout = timeout;
+        this.username = username;
+    }
+
+    public long userId() {
+        return userId;
+    }
+
+    public void registerAndLogin() {
+        Map<String, Object> credentials = Map.of("username", username, "password", "loadtest-" + username);
+        JsonNode registered = post("/auth/register", Map.of(
+                "username", username, "password", "loadtest-" + username, "avatarId", 1));
+        if (!registered.path("success").asBoolean()) {
+            throw new IllegalStateException("Регистрация не удалась: " + registered.path("message").asText());
+        }
+        JsonNode login = post("/auth/login", credentials);
+        token = login.path("token").asText();
+        userId = login.path("userId").asLong();
+    }
+
+    public void connect() {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        String url = transport.url(baseUrl);
+        long start = System.nanoTime();
+        try {
+            session = stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                    new StompSessionHandlerAdapter() { }).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            metrics.recordError("STOMP CONNECT");
+            throw new IllegalStateException("Не удалось подключиться к " + url, e);
+        }
+        metrics.record("STOMP CONNECT", start);
+        for (String topic : TOPICS) {
+            session.subscribe(topic, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    dispatch(topic, headers, (byte[]) payload);
+                }
+            });
+        }
+    }
+
+    private void dispatch(String topic, StompHeaders headers, byte[] payload) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Frame frame = new Frame(headers, payload);
+        for (Waiter waiter : waiters) {
+            if (waiter.topic().equals(topic) && !waiter.future().isDone() && waiter.predicate().test(frame)) {
+                waiter.future().complete(frame);
+            }
+        }
+    }
+
+    /**
+     * Отправляет сообщение и ждёт ответа в топике, удовлетворяющего предикату.
+     * Ожидание регистрируется до отправки, чтобы не пропустить быстрый ответ
+     */
+    public Frame sendAndAwait(String destination, Object payload, String topic, Predicate<Frame> predicate) {
+        Waiter waiter = new Waiter(topic, predicate, new CompletableFuture<>());
+        waiters.add(waiter);
+        long start = System.nanoTime();
+        try {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            session.send(headers, objectMapper.writeValueAsBytes(payload));
+            Frame frame = waiter.future().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            metrics.record(destination, start);
+            return frame;
+        } catch (Exception e) {
+            metrics.recordError(destination);
+            throw new IllegalStateException("Нет ответа на " + destination + " в " + topic, e);
+        } finally {
+            waiters.remove(waiter);
+        }
+    }
+
+    public JsonNode get(String path) {
+        return exchange(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET(), "GET " + metricPath(path));
+    }
+
+    public JsonNode post(String path, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return exchange(HttpRequest.newBuilder(URI.create(baseUrl + path)).POST(publisher), "POST " + metricPath(path));
+    }
+
+    private JsonNode exchange(HttpRequest.Builder builder, String metric) {
+        builder.timeout(timeout).header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(metric + " вернул " + response.statusCode());
+            }
+            metrics.record(metric, start);
+            return response.body().length == 0 ? objectMapper.nullNode() : objectMapper.readTree(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metrics.recordError(metric);
+            throw new IllegalStateException(metric + " прерван", e);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordError(metric);
+            throw new IllegalStateException(metric + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Числовые части пути (id игры) не должны плодить отдельные строки отчёта
+    private static String metricPath(String path) {
+        return path.replaceAll("/\\d+", "/{id}");
+    }
+
+    @Override
+    public void close() {
+        if (session != null && session.isConnected()) {
+            session.disconnect();
+        }
+    }
+}
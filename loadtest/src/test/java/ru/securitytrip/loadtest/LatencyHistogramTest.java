@@ -0,0 +1,60 @@
+package ru.securitytrip.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordMicros(i);
+        }
+        assertEquals(50, histogram.percentileMicros(0.50));
+        assertEquals(99, histogram.percentileMicros(0.99));
+        assertEquals(100, histogram.percentileMicros(1.0));
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i * 1000L);
+        }
+        assertEquals(500_000, histogram.percentileMicros(0.50), 500_000 / 64.0);
+        assertEquals(990_000, histogram.percentileMicros(0.99), 990_000 / 64.0);
+        assertEquals(999_000, histogram.percentileMicros(0.999), 999_000 / 64.0);
+        assertEquals(1000, histogram.count());
+    }
+
+    @Test
+    void testBucketBoundsAreConsistent() {
+        for (long value : new long[]{0, 127, 128, 129, 255, 256, 1_000_000, 1L << 40}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(index) <= value, "Нижняя граница больше значения " + value);
+            assertEquals(index, LatencyHistogram.indexOf(LatencyHistogram.lowerBoundOf(index)));
+        }
+        assertDoesNotThrow(() -> new LatencyHistogram().recordMicros(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testMergedHistogramCombinesDestinations() {
+        LoadMetrics metrics = new LoadMetrics();
+        for (int i = 1; i <= 50; i++) {
+            metrics.histogram("/app/singleplayer.move").recordMicros(i);
+            metrics.histogram("/app/multiplayer.move").recordMicros(50 + i);
+        }
+        metrics.recordError("/app/multiplayer.move");
+
+        LatencyHistogram merged = metrics.merged(List.of("/app/singleplayer.move", "/app/multiplayer.move", "/app/none"));
+        assertEquals(100, merged.count());
+        assertEquals(1, merged.errors());
+        assertEquals(50, merged.percentileMicros(0.50));
+        assertEquals(100, merged.percentileMicros(1.0));
+        assertEquals(1, metrics.errors());
+    }
+}
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Запускает локальный кластер из N экземпляров бэкенда на одной машине
+# (порты 8080, 8081, ...). Все экземпляры используют одну БД из application.properties.
+#
+#   ./scripts/run-local-cluster.sh [N]
+#
+# Остановка: Ctrl+C (завершает все экземпляры).
+set -euo pipefail
+
+NODES="${1:-3}"
+# Секрет внутреннего канала узлов: для локального кластера подойдёт любой
+export GAME_CLUSTER_SECRET="${GAME_CLUSTER_SECRET:-local-cluster-secret}"
+BASE_PORT=8080
+cd "$(dirname "$0")/.."
+
+./gradlew -q bootJar
+JAR="$(ls build/libs/*.jar | grep -v plain | head -n 1)"
+
+NODE_URLS=""
+for ((i = 0; i < NODES; i++)); do
+  NODE_URLS+="http://localhost:$((BASE_PORT + i)),"
+done
+NODE_URLS="${NODE_URLS%,}"
+
+mkdir -p build/cluster
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null || true' EXIT INT TERM
+
+for ((i = 0; i < NODES; i++)); do
+  PORT=$((BASE_PORT + i))
+  GAME_CLUSTER_NODES="$NODE_URLS" java -jar "$JAR" \
+    --spring.profiles.active=cluster \
+    --server.port="$PORT" \
+    --game.node.id="$i" \
+    > "build/cluster/node-$i.log" 2>&1 &
+  PIDS+=($!)
+  echo "Узел $i: http://localhost:$PORT (лог build/cluster/node-$i.log)"
+done
+
+wait
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Сравнивает время старта экземпляра в разных режимах запуска:
+#   jar       — java -jar со вложенными jar (как раньше в Dockerfile);
+#   extracted — распакованный jar;
+#   cds       — распакованный jar + архив CDS;
+#   aot-cds   — то же + определения бинов, сгенерированные Spring AOT (как в Dockerfile).
+# Время — "process running for" из строки Started...: от запуска JVM до готовности приложения.
+# Нужна БД из application.properties (как и для run-local-cluster.sh).
+#
+#   ./scripts/startup-benchmark.sh [RUNS] [PROFILES]
+#
+# По умолчанию 5 запусков каждого режима с профилем prod; печатается медиана.
+set -euo pipefail
+
+RUNS="${1:-5}"
+PROFILES="${2:-prod}"
+cd "$(dirname "$0")/.."
+
+./gradlew -q clean :bootJar -Paot
+JAR="$(ls build/libs/*.jar | grep -v plain | head -n 1)"
+
+WORK=build/startup
+rm -rf "$WORK"
+mkdir -p "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" > /dev/null
+EXTRACTED="$WORK/app/$(basename "$JAR")"
+
+# Архивы CDS: тренировочный запуск без БД, выход сразу после refresh контекста
+train() {
+  local archive="$1"
+  shift
+  java -XX:ArchiveClassesAtExit="$archive" "$@" -Dspring.context.exit=onRefresh \
+    -jar "$EXTRACTED" --spring.profiles.active="$PROFILES",training > "$archive.log" 2>&1
+}
+train "$WORK/app.jsa"
+train "$WORK/app-aot.jsa" -Dspring.aot.enabled=true
+
+# Один запуск: ждёт строку Started..., печатает секунды и завершает процесс
+measure() {
+  local log="$WORK/run.log"
+  java "$@" --spring.profiles.active="$PROFILES" --server.port=0 > "$log" 2>&1 &
+  local pid=$!
+  local seconds=""
+  for _ in $(seq 1 600); do
+    seconds="$(sed -n 's/.*Started .* (process running for \([0-9.]*\)).*/\1/p' "$log" | head -n 1)"
+    if [[ -n "$seconds" ]] || ! kill -0 "$pid" 2>/dev/null; then
+      break
+    fi
+    sleep 0.1
+  done
+  kill "$pid" 2>/dev/null || true
+  wait "$pid" 2>/dev/null || true
+  if [[ -z "$seconds" ]]; then
+    echo "Приложение не стартовало, лог: $log" >&2
+    exit 1
+  fi
+  echo "$seconds"
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+bench() {
+  local name="$1"
+  shift
+  local times=()
+  for ((i = 0; i < RUNS; i++)); do
+    times+=("$(measure "$@")")
+  done
+  printf '%-10s медиана %6s с  (%s)\n' "$name" "$(printf '%s\n' "${times[@]}" | median)" "${times[*]}"
+}
+
+echo "Профили: $PROFILES, запусков на режим: $RUNS"
+bench jar -jar "$JAR"
+bench extracted -jar "$EXTRACTED"
+bench cds -XX:SharedArchiveFile="$WORK/app.jsa" -jar "$EXTRACTED"
+bench aot-cds -XX:SharedArchiveFile="$WORK/app-aot.jsa" -Dspring.aot.enabled=true -jar "$EXTRACTED"
@@ -0,0 +1,170 @@
+package ru.securitytrip.backend.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Согласование формата исходящих STOMP-сообщений.
+ *
+ * По умолчанию всё отправляется как JSON. Клиент, подключённый по «чистому»
+ * WebSocket (не через SockJS), может указать в кадре CONNECT заголовок
+ * accept-payload: application/cbor — тогда сообщения, адресованные его сессии,
+ * перекодируются из JSON в CBOR и уходят бинарными WebSocket-кадрами с
+ * заголовком payload-format: cbor.
+ *
+ * Перехватчик регистрируется на входящем (CONNECT) и исходящем (MESSAGE) каналах.
+ */
+@Component
+public class BinaryPayloadInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryPayloadInterceptor.class);
+
+    public static final String ACCEPT_HEADER = "accept-payload";
+    public static final String FORMAT_HEADER = "payload-format";
+    public static final String CBOR_FORMAT = "cbor";
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    // Атрибут сессии: соединение поддерживает бинарные кадры (не SockJS)
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "binaryCapable";
+
+    @Value("${game.websocket.cbor.enabled:true}")
+    private boolean enabled;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    // Сессии, выбравшие CBOR
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    // Последнее перекодированное сообщение: рассылка в топик отдаёт всем подписчикам
+    // один и тот же массив байт, поэтому перекодирование выполняется один раз на рассылку
+    private final AtomicReference<Transcoded> lastTranscoded = new AtomicReference<>();
+
+    private record Transcoded(byte[] source, byte[] cbor) {
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT) {
+            negotiate(message);
+            return message;
+        }
+        if (type == SimpMessageType.MESSAGE && !cborSessions.isEmpty()) {
+            return transcodeIfRequested(message);
+        }
+        return message;
+    }
+
+    // Заголовок присылает клиент: CBOR только если он назван явно, маски вроде */* и
+    // application/* оставляют JSON; без заголовка или с неразборчивым значением тоже JSON
+    static boolean acceptsCbor(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MimeTypeUtils.parseMimeTypes(accept).stream()
+                    .anyMatch(type -> !type.isWildcardType() && !type.isWildcardSubtype()
+                            && type.equalsTypeAndSubtype(APPLICATION_CBOR));
+        } catch (InvalidMimeTypeException e) {
+            logger.debug("Неверный заголовок {}: {}, используется JSON", ACCEPT_HEADER, e.getMessage());
+            return false;
+        }
+    }
+
+    private void negotiate(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return;
+        }
+        String accept = accessor.getFirstNativeHeader(ACCEPT_HEADER);
+        if (!acceptsCbor(accept)) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            // SockJS передаёт только текст: клиент остаётся на JSON
+            logger.debug("Сессия {} запросила CBOR через SockJS, используется JSON", accessor.getSessionId());
+            return;
+        }
+        cborSessions.add(accessor.getSessionId());
+        logger.debug("Сессия {} получает сообщения в формате CBOR", accessor.getSessionId());
+    }
+
+    private Message<?> transcodeIfRequested(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || !cborSessions.contains(sessionId)
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        MimeType contentType = SimpMessageHeaderAccessor.getContentType(message.getHeaders());
+        if (contentType == null || !contentType.isCompatibleWith(MimeTypeUtils.APPLICATION_JSON)) {
+            return message;
+        }
+        byte[] cbor;
+        try {
+            cbor = toCbor(json);
+        } catch (IOException e) {
+            logger.warn("Не удалось перекодировать сообщение в CBOR для сессии {}: {}", sessionId, e.getMessage());
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        // STOMP-обработчик отправляет бинарный WebSocket-кадр только для application/octet-stream,
+        // фактический формат клиент узнаёт из заголовка payload-format
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(FORMAT_HEADER, CBOR_FORMAT);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    byte[] toCbor(byte[] json) throws IOException {
+        Transcoded cached = lastTranscoded.get();
+        if (cached != null && cached.source() == json) {
+            return cached.cbor();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 16);
+        // Потоковое копирование токенов: без построения дерева и без объекта GameDto
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        byte[] cbor = out.toByteArray();
+        lastTranscoded.set(new Transcoded(json, cbor));
+        return cbor;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+}
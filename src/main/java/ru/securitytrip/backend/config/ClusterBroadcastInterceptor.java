@@ -0,0 +1,47 @@
+package ru.securitytrip.backend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import ru.securitytrip.backend.service.ClusterService;
+
+/**
+ * Перехватчик канала брокера: всё, что публикуется в /topic на этом узле,
+ * ретранслируется остальным узлам кластера.
+ *
+ * Не ретранслируются сообщения, уже пришедшие с другого узла (заголовок
+ * RELAYED_HEADER), и адресные сообщения пользователю (@SendToUser): их
+ * получатель подключён к этому же узлу.
+ */
+@Component
+public class ClusterBroadcastInterceptor implements ChannelInterceptor {
+
+    public static final String RELAYED_HEADER = "clusterRelayed";
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || !clusterService.isEnabled()) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || accessor.getHeader(RELAYED_HEADER) != null
+                || accessor.getHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION) != null) {
+            return;
+        }
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith("/topic/")) {
+            return;
+        }
+        if (message.getPayload() instanceof byte[] payload) {
+            clusterService.relayBroadcast(destination, payload, accessor.getContentType());
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package ru.securitytrip.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import ru.securitytrip.backend.service.GameFramePublisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Исходящая очередь WebSocket-сессии.
+ *
+ * STOMP-обработчик пишет сообщения в сессию из потоков исходящего канала;
+ * запись в сокет медленного клиента (плохая мобильная связь) занимала бы эти
+ * потоки и задерживала рассылку в другие комнаты, а буфер перед сессией рос
+ * бы без учёта того, что устарело. Декоратор принимает сообщение без
+ * блокировки и ставит его в очередь сессии; в сокет очередь пишет отдельный
+ * виртуальный поток, по одному сообщению.
+ *
+ * Кадр состояния комнаты (заголовки game-code и state-version, см.
+ * GameFramePublisher) вытесняет ещё не отправленный кадр той же комнаты в той
+ * же подписке — клиенту нужен только последний снимок.
+ *
+ * Лимиты: объём очереди в байтах (buffer-size-limit) и время записи одного
+ * сообщения (send-time-limit). Если запись идёт дольше лимита, сессия
+ * закрывается. При переполнении очереди действует политика: CLOSE — закрыть
+ * сессию (клиент переподключится и запросит текущее состояние), DROP_OLDEST —
+ * отбрасывать самые старые сообщения.
+ */
+public class CoalescingSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingSessionDecorator.class);
+
+    public enum OverflowPolicy {
+        CLOSE, DROP_OLDEST
+    }
+
+    private static final String MESSAGE_COMMAND = "MESSAGE\n";
+
+    private final Executor sender;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final OverflowPolicy overflowPolicy;
+
+    // Очередь и всё ниже — под блокировкой queue
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    // Неотправленный кадр состояния по ключу "подписка|назначение|комната"
+    private final Map<String, Pending> pendingStates = new HashMap<>();
+    private int bufferedBytes;
+    private boolean draining;
+    private boolean closing;
+    private long coalesced;
+    private long dropped;
+
+    // Момент начала текущей записи в сокет; 0 — запись не идёт
+    private volatile long sendStartedNanos;
+
+    private static final class Pending {
+        final WebSocketMessage<?> message;
+        final String stateKey;
+        final int size;
+        boolean superseded;
+
+        Pending(WebSocketMessage<?> message, String stateKey, int size) {
+            this.message = message;
+            this.stateKey = stateKey;
+            this.size = size;
+        }
+    }
+
+    public CoalescingSessionDecorator(WebSocketSession delegate, Executor sender, long sendTimeLimitMillis,
+                                      int bufferSizeLimit, OverflowPolicy overflowPolicy) {
+        super(delegate);
+        this.sender = sender;
+        this.sendTimeLimitNanos = sendTimeLimitMillis * 1_000_000L;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        String stateKey = stateKey(message);
+        int size = message.getPayloadLength();
+        String closeReason = null;
+        boolean startDrain = false;
+        synchronized (queue) {
+            if (closing) {
+                return;
+            }
+            if (stateKey != null) {
+                Pending previous = pendingStates.remove(stateKey);
+                if (previous != null) {
+                    previous.superseded = true;
+                    bufferedBytes -= previous.size;
+                    coalesced++;
+                }
+            }
+            Pending pending = new Pending(message, stateKey, size);
+            queue.addLast(pending);
+            if (stateKey != null) {
+                pendingStates.put(stateKey, pending);
+            }
+            bufferedBytes += size;
+
+            long started = sendStartedNanos;
+            if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+                closeReason = "запись в сокет дольше " + sendTimeLimitNanos / 1_000_000 + " мс";
+            } else if (bufferedBytes > bufferSizeLimit) {
+                if (overflowPolicy == OverflowPolicy.CLOSE) {
+                    closeReason = "очередь больше " + bufferSizeLimit + " байт";
+                } else {
+                    dropOldest(pending);
+                }
+            }
+            if (closeReason != null) {
+                closing = true;
+                queue.clear();
+                pendingStates.clear();
+                bufferedBytes = 0;
+            } else if (!draining) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+        if (closeReason != null) {
+            logger.warn("Сессия {} закрыта: {} (вытеснено кадров: {}, отброшено: {})",
+                    getId(), closeReason, coalesced, dropped);
+            closeQuietly();
+        } else if (startDrain) {
+            sender.execute(this::drain);
+        }
+    }
+
+    // Отбрасывает самые старые сообщения, пока очередь не уложится в лимит; новое сообщение остаётся
+    private void dropOldest(Pending newest) {
+        while (bufferedBytes > bufferSizeLimit && queue.peekFirst() != newest) {
+            Pending oldest = queue.pollFirst();
+            if (oldest.superseded) {
+                continue;
+            }
+            if (oldest.stateKey != null) {
+                pendingStates.remove(oldest.stateKey, oldest);
+            }
+            bufferedBytes -= oldest.size;
+            dropped++;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                while (next != null && next.superseded) {
+                    next = queue.pollFirst();
+                }
+                if (next == null || closing) {
+                    draining = false;
+                    return;
+                }
+                if (next.stateKey != null) {
+                    pendingStates.remove(next.stateKey, next);
+                }
+                bufferedBytes -= next.size;
+            }
+            sendStartedNanos = System.nanoTime();
+            try {
+                getDelegate().sendMessage(next.message);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Не удалось отправить сообщение в сессию {}: {}", getId(), e.getMessage());
+                synchronized (queue) {
+                    closing = true;
+                    queue.clear();
+                    pendingStates.clear();
+                    bufferedBytes = 0;
+                    draining = false;
+                }
+                closeQuietly();
+                return;
+            } finally {
+                sendStartedNanos = 0;
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Ошибка при закрытии сессии {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    int bufferedBytes() {
+        synchronized (queue) {
+            return bufferedBytes;
+        }
+    }
+
+    long coalescedCount() {
+        synchronized (queue) {
+            return coalesced;
+        }
+    }
+
+    /**
+     * Ключ кадра состояния комнаты или null для прочих сообщений.
+     * Читаются только заголовки STOMP-кадра (до пустой строки), тело не разбирается
+     */
+    static String stateKey(WebSocketMessage<?> message) {
+        String headers;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            if (!payload.startsWith(MESSAGE_COMMAND)) {
+                return null;
+            }
+            int end = payload.indexOf("\n\n");
+            headers = end >= 0 ? payload.substring(0, end) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload();
+            int start = payload.position();
+            int limit = payload.limit();
+            int end = limit;
+            for (int i = start; i + 1 < limit; i++) {
+                if (payload.get(i) == '\n' && payload.get(i + 1) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            byte[] bytes = new byte[end - start];
+            payload.duplicate().get(bytes);
+            headers = new String(bytes, StandardCharsets.UTF_8);
+            if (!headers.startsWith(MESSAGE_COMMAND)) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        String subscription = null;
+        String destination = null;
+        String gameCode = null;
+        boolean versioned = false;
+        for (String line : headers.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = line.substring(0, colon);
+            String value = line.substring(colon + 1);
+            switch (name) {
+                case "subscription" -> subscription = value;
+                case "destination" -> destination = value;
+                case GameFramePublisher.GAME_CODE_HEADER -> gameCode = value;
+                case GameFramePublisher.STATE_VERSION_HEADER -> versioned = true;
+                default -> {
+                }
+            }
+        }
+        if (!versioned || gameCode == null || destination == null) {
+            return null;
+        }
+        return subscription + "|" + destination + "|" + gameCode;
+    }
+}
@@ -7,12 +7,33 @@ import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class OpenApiConfig {
 
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    /**
+     * Документация нужна только по запросу /v3/api-docs и Swagger UI: бины
+     * springdoc и описание API создаются при первом обращении, а не на старте.
+     * Бины, от которых зависят неленивые (например, настройки MVC), всё равно
+     * создаются сразу
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyApiDocs() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(name, false);
+                if (type != null && (type.getName().startsWith(SPRINGDOC_PACKAGE) || OpenAPI.class.isAssignableFrom(type))) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
     @Bean
     public OpenAPI customOpenAPI() {
         return new OpenAPI()
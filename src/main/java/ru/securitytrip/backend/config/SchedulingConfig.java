@@ -0,0 +1,26 @@
+package ru.securitytrip.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.securitytrip.backend.service.TimingWheel;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+// Включает фоновые задачи (@Scheduled): очистка комнат и кэшей
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // Общее колесо таймеров (таймеры ходов всех комнат); задачи выполняются на виртуальных потоках
+    @Bean(destroyMethod = "stop")
+    public TimingWheel timingWheel(@Value("${game.timer.tick-ms:100}") long tickMs,
+                                   @Value("${game.timer.wheel-size:512}") int wheelSize) {
+        TimingWheel wheel = new TimingWheel(Duration.ofMillis(tickMs), wheelSize,
+                Executors.newVirtualThreadPerTaskExecutor());
+        wheel.start();
+        return wheel;
+    }
+}
@@ -48,7 +48,9 @@ public class SecurityConfig {
             "/configuration/security",
             "/actuator/**",
             "/ws/**",
-            "/ws"
+            "/ws",
+            "/ws-native",
+            "/internal/cluster/**" // защищено общим секретом узлов, см. ClusterController
     };
 
     @Bean
@@ -0,0 +1,274 @@
+package ru.securitytrip.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничение частоты входящих STOMP-кадров SEND на /app/**.
+ *
+ * Каждый такой кадр (ход, запрос состояния) открывает транзакцию в БД, и
+ * клиент, опрашивающий состояние в цикле, мог занять весь пул соединений.
+ * Для каждого назначения задан бюджет "rate/burst": rate кадров в секунду в
+ * среднем и до burst кадров подряд. Бюджет действует отдельно на каждую
+ * сессию и, с множителем user-multiplier, на пользователя по всем его
+ * сессиям (несколько вкладок не обходят лимит).
+ *
+ * Ведро токенов хранится как "теоретическое время прихода" следующего кадра
+ * (GCRA) в одном long и обновляется одним CAS, без блокировок. Кадр сверх
+ * бюджета отбрасывается; при action=REJECT сессия дополнительно получает
+ * уведомление в /user/topic/rate-limit (не чаще раза в секунду). Вёдра,
+ * которые успели наполниться, неотличимы от новых и удаляются фоновой очисткой.
+ */
+@Component
+public class StompRateLimitInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompRateLimitInterceptor.class);
+
+    public static final String NOTICE_DESTINATION = "/topic/rate-limit";
+
+    private static final String APP_PREFIX = "/app/";
+    private static final long NOTICE_INTERVAL_NANOS = 1_000_000_000L;
+
+    public enum Action {
+        DROP, REJECT
+    }
+
+    @Value("${game.websocket.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // Бюджеты по назначениям: "/app/multiplayer.state=2/5" — 2 кадра в секунду, до 5 подряд
+    @Value("${game.websocket.rate-limit.budgets:/app/multiplayer.state=2/5,/app/multiplayer.move=5/10,/app/singleplayer.move=5/10}")
+    private List<String> budgetSpecs;
+
+    // Для прочих назначений /app/**
+    @Value("${game.websocket.rate-limit.default-budget:10/20}")
+    private String defaultBudgetSpec;
+
+    // Бюджет пользователя по всем его сессиям — во столько раз больше бюджета сессии
+    @Value("${game.websocket.rate-limit.user-multiplier:2}")
+    private int userMultiplier;
+
+    @Value("${game.websocket.rate-limit.action:REJECT}")
+    private Action action;
+
+    @Lazy
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * interval — наносекунд на один кадр, tolerance — на сколько время прихода
+     * может уйти вперёд (burst кадров подряд)
+     */
+    record Budget(String destination, long intervalNanos, long toleranceNanos) {
+
+        static Budget parse(String destination, String spec) {
+            int slash = spec.indexOf('/');
+            if (slash <= 0) {
+                throw new IllegalArgumentException("Бюджет " + destination + " должен иметь вид rate/burst: " + spec);
+            }
+            double rate = Double.parseDouble(spec.substring(0, slash).trim());
+            int burst = Integer.parseInt(spec.substring(slash + 1).trim());
+            if (rate <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Недопустимый бюджет " + destination + ": " + spec);
+            }
+            long interval = (long) (1_000_000_000L / rate);
+            return new Budget(destination, interval, interval * burst);
+        }
+
+        Budget scaled(int multiplier) {
+            return new Budget(destination, intervalNanos / multiplier, toleranceNanos);
+        }
+    }
+
+    /**
+     * Вёдра одной сессии или пользователя: время прихода по индексу назначения
+     */
+    static final class Buckets {
+        private final AtomicLongArray arrival;
+        private final AtomicLong lastNotice = new AtomicLong(Long.MIN_VALUE);
+
+        Buckets(int size) {
+            arrival = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                arrival.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        /**
+         * 0 — кадр пропущен, иначе сколько наносекунд ждать до следующего разрешённого
+         */
+        long acquire(int index, Budget budget, long now) {
+            while (true) {
+                long current = arrival.get(index);
+                long next = Math.max(current, now) + budget.intervalNanos();
+                long ahead = next - now;
+                if (ahead > budget.toleranceNanos()) {
+                    return ahead - budget.toleranceNanos();
+                }
+                if (arrival.compareAndSet(index, current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean shouldNotify(long now) {
+            long last = lastNotice.get();
+            return (last == Long.MIN_VALUE || now - last >= NOTICE_INTERVAL_NANOS)
+                    && lastNotice.compareAndSet(last, now);
+        }
+
+        // Все вёдра полны: состояние не отличается от нового
+        boolean idle(long now) {
+            for (int i = 0; i < arrival.length(); i++) {
+                long current = arrival.get(i);
+                if (current != Long.MIN_VALUE && current - now > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<String, Integer> destinationIndex = new HashMap<>();
+    private Budget[] sessionBudgets;
+    private Budget[] userBudgets;
+    private final Map<String, Buckets> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> users = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        sessionBudgets = new Budget[budgetSpecs.size() + 1];
+        for (int i = 0; i < budgetSpecs.size(); i++) {
+            String spec = budgetSpecs.get(i).trim();
+            int eq = spec.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Бюджет должен иметь вид назначение=rate/burst: " + spec);
+            }
+            String destination = spec.substring(0, eq).trim();
+            sessionBudgets[i] = Budget.parse(destination, spec.substring(eq + 1));
+            destinationIndex.put(destination, i);
+        }
+        sessionBudgets[budgetSpecs.size()] = Budget.parse(APP_PREFIX + "**", defaultBudgetSpec);
+        userBudgets = new Budget[sessionBudgets.length];
+        for (int i = 0; i < sessionBudgets.length; i++) {
+            userBudgets[i] = sessionBudgets[i].scaled(Math.max(1, userMultiplier));
+        }
+        if (meterRegistry != null) {
+            FunctionCounter.builder("game.websocket.rate-limit.rejected", rejected, LongAdder::sum)
+                    .description("Входящие STOMP-кадры, отброшенные по лимиту частоты")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SEND) {
+            return message;
+        }
+        return admit(accessor, System.nanoTime()) == 0 ? message : null;
+    }
+
+    /**
+     * Проверяет бюджет кадра SEND; 0 — кадр пропущен, иначе он отброшен и
+     * возвращается время в наносекундах до следующего разрешённого кадра
+     */
+    long admit(StompHeaderAccessor accessor, long now) {
+        String destination = accessor.getDestination();
+        String sessionId = accessor.getSessionId();
+        if (destination == null || sessionId == null || !destination.startsWith(APP_PREFIX)) {
+            return 0;
+        }
+        int index = destinationIndex.getOrDefault(destination, sessionBudgets.length - 1);
+        Buckets session = sessions.computeIfAbsent(sessionId, id -> new Buckets(sessionBudgets.length));
+        long wait = session.acquire(index, sessionBudgets[index], now);
+        Principal user = accessor.getUser();
+        if (wait == 0 && user != null && user.getName() != null) {
+            wait = users.computeIfAbsent(user.getName(), name -> new Buckets(userBudgets.length))
+                    .acquire(index, userBudgets[index], now);
+        }
+        if (wait == 0) {
+            return 0;
+        }
+        rejected.increment();
+        if (session.shouldNotify(now)) {
+            logger.warn("Сессия {} (пользователь {}) превысила лимит {}: кадры отбрасываются",
+                    sessionId, user != null ? user.getName() : "anonymous", destination);
+            if (action == Action.REJECT) {
+                notifySession(sessionId, user, destination, wait);
+            }
+        }
+        return wait;
+    }
+
+    // Уведомление только этой сессии: заголовок simpSessionId выбирает её среди сессий пользователя
+    private void notifySession(String sessionId, Principal user, String destination, long waitNanos) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        Map<String, Object> notice = Map.of(
+                "destination", destination,
+                "retryAfterMs", Math.max(1, waitNanos / 1_000_000));
+        try {
+            messagingTemplate.convertAndSendToUser(user != null ? user.getName() : sessionId,
+                    NOTICE_DESTINATION, notice, headers.getMessageHeaders());
+        } catch (RuntimeException e) {
+            logger.debug("Не удалось уведомить сессию {} о лимите: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${game.websocket.rate-limit.cleanup-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(buckets -> buckets.idle(now));
+        users.values().removeIf(buckets -> buckets.idle(now));
+    }
+
+    long rejectedCount() {
+        return rejected.sum();
+    }
+
+    int trackedSessions() {
+        return sessions.size();
+    }
+}
@@ -1,12 +1,33 @@
 package ru.securitytrip.backend.config;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -15,23 +36,134 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private WebSocketAuthInterceptor webSocketAuthInterceptor;
 
+    @Autowired
+    private ClusterBroadcastInterceptor clusterBroadcastInterceptor;
+
+    @Autowired
+    private BinaryPayloadInterceptor binaryPayloadInterceptor;
+
+    @Autowired
+    private StompRateLimitInterceptor stompRateLimitInterceptor;
+
+    // Планировщик брокера для heart-beat; @Lazy — бин создаётся этой же конфигурацией
+    @Lazy
+    @Autowired
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Сжатие кадров на /ws-native, если клиент его предлагает (Tomcat поддерживает permessage-deflate)
+    @Value("${game.websocket.native.permessage-deflate:true}")
+    private boolean permessageDeflate;
+
+    // Буферы контейнера для входящих кадров WebSocket
+    @Value("${game.websocket.native.max-text-message-buffer:64KB}")
+    private DataSize maxTextMessageBuffer;
+
+    @Value("${game.websocket.native.max-binary-message-buffer:64KB}")
+    private DataSize maxBinaryMessageBuffer;
+
+    // STOMP heart-beat: сервер шлёт и ожидает кадры с этим интервалом (PT0S — отключено)
+    @Value("${game.websocket.heartbeat:PT10S}")
+    private Duration heartbeat;
+
+    // Запись одного сообщения в сокет дольше этого времени - сессия закрывается
+    @Value("${game.websocket.outbound.send-time-limit:PT10S}")
+    private Duration sendTimeLimit;
+
+    // Предел неотправленных сообщений одной сессии
+    @Value("${game.websocket.outbound.buffer-size-limit:512KB}")
+    private DataSize bufferSizeLimit;
+
+    // CLOSE - закрыть сессию при переполнении, DROP_OLDEST - отбрасывать старые сообщения
+    @Value("${game.websocket.outbound.overflow:CLOSE}")
+    private CoalescingSessionDecorator.OverflowPolicy overflowPolicy;
+
+    // Потоки, пишущие исходящие очереди сессий в сокеты
+    private final ExecutorService outboundSender = Executors.newVirtualThreadPerTaskExecutor();
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // SockJS с запасными HTTP-транспортами для клиентов без WebSocket
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS()
                 .setSessionCookieNeeded(false);
+        // Чистый WebSocket без SockJS: без HTTP-фолбэков и их обрамления кадров
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(new DefaultHandshakeHandler() {
+                    @Override
+                    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                                 List<WebSocketExtension> requested,
+                                                                                 List<WebSocketExtension> supported) {
+                        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requested, supported);
+                        if (permessageDeflate) {
+                            return extensions;
+                        }
+                        return extensions.stream()
+                                .filter(extension -> !"permessage-deflate".equals(extension.getName()))
+                                .toList();
+                    }
+                });
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize((int) maxTextMessageBuffer.toBytes());
+        container.setMaxBinaryMessageBufferSize((int) maxBinaryMessageBuffer.toBytes());
+        return container;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app"); // для отправки сообщений серверу
-        registry.enableSimpleBroker("/topic"); // для подписки клиентов
+        long heartbeatMillis = heartbeat.toMillis();
+        registry.enableSimpleBroker("/topic") // для подписки клиентов
+                .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        registry.configureBrokerChannel().interceptors(clusterBroadcastInterceptor); // ретрансляция на другие узлы кластера
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(webSocketAuthInterceptor); // Добавляем наш интерсептор
+        // Лимит частоты первым: кадр сверх бюджета отбрасывается до остальной обработки
+        registration.interceptors(stompRateLimitInterceptor, webSocketAuthInterceptor, binaryPayloadInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(binaryPayloadInterceptor); // CBOR для сессий, которые его запросили
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Те же лимиты для буфера Spring перед нашей очередью; запись в неё не блокируется,
+        // так что они срабатывают, только если очередь сессии сама перестала принимать сообщения
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis());
+        registration.setSendBufferSizeLimit((int) bufferSizeLimit.toBytes());
+        registration.addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                // Отмечаем сессии, способные принимать бинарные кадры (SockJS передаёт только текст)
+                session.getAttributes().put(BinaryPayloadInterceptor.BINARY_CAPABLE_ATTRIBUTE,
+                        !(session instanceof SockJsSession));
+                // STOMP-обработчик запоминает эту сессию и дальше пишет только в неё
+                super.afterConnectionEstablished(new CoalescingSessionDecorator(session, outboundSender,
+                        sendTimeLimit.toMillis(), (int) bufferSizeLimit.toBytes(), overflowPolicy));
+            }
+        });
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Клиенты могут отправлять запросы в CBOR (content-type: application/cbor); JSON остаётся по умолчанию
+        MappingJackson2MessageConverter cborConverter =
+                new MappingJackson2MessageConverter(BinaryPayloadInterceptor.APPLICATION_CBOR);
+        cborConverter.setObjectMapper(new CBORMapper());
+        // Только при явном content-type, иначе сообщения без заголовка ушли бы в CBOR
+        cborConverter.setStrictContentTypeMatch(true);
+        messageConverters.add(cborConverter);
+        return true;
     }
 }
 
@@ -0,0 +1,89 @@
+package ru.securitytrip.backend.controller;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.bind.annotation.*;
+import ru.securitytrip.backend.config.ClusterBroadcastInterceptor;
+import ru.securitytrip.backend.dto.GameStateFrame;
+import ru.securitytrip.backend.dto.MoveRequest;
+import ru.securitytrip.backend.service.ClusterService;
+import ru.securitytrip.backend.service.GameFramePublisher;
+import ru.securitytrip.backend.service.GameService;
+
+/**
+ * Внутренний канал между узлами кластера. Доступен только с общим секретом
+ * (заголовок X-Cluster-Secret) и не публикуется в OpenAPI.
+ */
+@Hidden
+@RestController
+@RequestMapping("/internal/cluster")
+public class ClusterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterController.class);
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private GameFramePublisher gameFramePublisher;
+
+    // Ход, пересланный с узла, который не владеет комнатой
+    @PostMapping("/multiplayer/move")
+    public ResponseEntity<String> forwardedMove(
+            @RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+            @RequestHeader(value = ClusterService.ORIGIN_HEADER, required = false) String origin,
+            @RequestBody MoveRequest moveRequest) {
+        if (!clusterService.isTrustedPeer(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        if (!clusterService.isLocal(moveRequest.getGameCode())) {
+            return ResponseEntity.status(421).body("Комната обслуживается другим узлом");
+        }
+        logger.debug("[CLUSTER] Ход с узла {} в комнате {}", origin, moveRequest.getGameCode());
+        try {
+            GameStateFrame frame = gameService.makeMultiplayerMove(moveRequest.getGameCode(), moveRequest.getUserId(), moveRequest);
+            gameFramePublisher.publish("/topic/multiplayer/move", frame);
+            return ResponseEntity.accepted().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    // Рассылка, опубликованная на другом узле: доставляем локальным подписчикам
+    @PostMapping("/broadcast")
+    public ResponseEntity<Void> relayedBroadcast(
+            @RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+            @RequestHeader(ClusterService.DESTINATION_HEADER) String destination,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestBody byte[] payload) {
+        if (!clusterService.isTrustedPeer(secret)) {
+            return ResponseEntity.status(403).build();
+        }
+        if (!destination.startsWith("/topic/")) {
+            return ResponseEntity.badRequest().build();
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType));
+        }
+        accessor.setHeader(ClusterBroadcastInterceptor.RELAYED_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -7,18 +7,26 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.securitytrip.backend.dto.CreateSinglePlayerGameRequest;
 import ru.securitytrip.backend.dto.GameDto;
+import ru.securitytrip.backend.dto.HeatmapDto;
 import ru.securitytrip.backend.dto.MoveRequest;
 import ru.securitytrip.backend.dto.MoveResponse;
+import ru.securitytrip.backend.dto.ReplayFrameDto;
 import ru.securitytrip.backend.dto.ShipDto;
 import ru.securitytrip.backend.model.DifficultyLevel;
 import ru.securitytrip.backend.service.GameService;
+import ru.securitytrip.backend.service.InvalidFleetException;
+import ru.securitytrip.backend.service.ReplayService;
+import ru.securitytrip.engine.FleetValidator;
 
 import java.util.List;
 import java.util.Map;
@@ -31,7 +39,8 @@ import org.slf4j.LoggerFactory;
  * # WebSocket API для одиночной игры в морской бой
  *
  * ## Подключение
- * ws://<host>:<port>/ws (STOMP/SockJS)
+ * ws://<host>:<port>/ws-native (STOMP поверх WebSocket)
+ * http://<host>:<port>/ws (STOMP/SockJS — для клиентов без WebSocket)
  *
  * ## Каналы и сообщения:
  *
@@ -62,6 +71,9 @@ public class GameController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private ReplayService replayService;
+
     @Operation(summary = "Создание одиночной игры", 
                description = "Создает новую игру в режиме одиночной игры с переданной расстановкой кораблей игрока")
     @ApiResponses(value = {
@@ -137,6 +149,10 @@ public class GameController {
         // Обходим проблему с инициализацией объекта
         // Создаем запрос на основе готовых данных
         CreateSinglePlayerGameRequest gameRequest = createGameRequest(ships, difficultyLevel);
+        // Гостевая игра в памяти или сразу в БД (без параметра - по настройке сервера)
+        if (request.containsKey("ephemeral")) {
+            gameRequest.setEphemeral(Boolean.valueOf(request.get("ephemeral")));
+        }
         
         // Создаем игру через сервис
         GameDto gameDto = gameService.createSinglePlayerGame(userId, gameRequest);
@@ -258,6 +274,57 @@ public class GameController {
         return ResponseEntity.ok(gameDto);
     }
     
+    @Operation(summary = "Подсказка: карта вероятностей",
+               description = "Возвращает для каждой клетки доски компьютера вероятность того, что там стоит корабль, "
+                       + "по сделанным выстрелам и оставшимся кораблям, и клетку с наибольшей вероятностью. "
+                       + "Карта пересчитывается только после нового выстрела")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Карта получена",
+                    content = @Content(mediaType = "application/json", 
+                            schema = @Schema(implementation = HeatmapDto.class))),
+            @ApiResponse(responseCode = "401", description = "Не авторизован",
+                    content = @Content),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (не владелец игры)",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Игра не найдена",
+                    content = @Content)
+    })
+    @GetMapping("/{gameId}/heatmap")
+    public ResponseEntity<HeatmapDto> getHeatmap(
+            @Parameter(description = "Идентификатор игры", required = true)
+            @PathVariable Long gameId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = getUserIdOrGenerateFromUsername(authentication.getName());
+        
+        return ResponseEntity.ok(gameService.getHeatmap(gameId, userId));
+    }
+    
+    @Operation(summary = "Сохранить гостевую игру",
+               description = "Сохраняет одиночную игру, которая пока хранится только в памяти сервера, в БД. "
+                       + "Возвращает состояние игры с новым идентификатором; старый ещё некоторое время ведёт на неё")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Игра сохранена",
+                    content = @Content(mediaType = "application/json", 
+                            schema = @Schema(implementation = GameDto.class))),
+            @ApiResponse(responseCode = "401", description = "Не авторизован",
+                    content = @Content),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (не владелец игры)",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Игра не найдена",
+                    content = @Content)
+    })
+    @PostMapping("/singleplayer/{gameId}/save")
+    public ResponseEntity<GameDto> saveGuestGame(
+            @Parameter(description = "Идентификатор игры", required = true)
+            @PathVariable Long gameId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long userId = getUserIdOrGenerateFromUsername(authentication.getName());
+        
+        GameDto gameDto = gameService.saveGuestGame(gameId, userId);
+        
+        return ResponseEntity.ok(gameDto);
+    }
+    
     @Operation(summary = "Сгенерировать расстановку кораблей", 
               description = "Автоматически генерирует расстановку кораблей для игрока по выбранной стратегии")
     @ApiResponses(value = {
@@ -327,6 +394,14 @@ public class GameController {
             return Math.abs((long) username.hashCode());
         }
     }
+
+    // Некорректная расстановка: 400 со списком нарушений по кораблям
+    @ExceptionHandler(InvalidFleetException.class)
+    public ResponseEntity<List<FleetValidator.Violation>> handleInvalidFleet(InvalidFleetException e,
+                                                                             HttpServletRequest request) {
+        logger.warn("[{} {}] {}", request.getMethod(), request.getRequestURI(), e.getMessage());
+        return ResponseEntity.badRequest().body(e.getViolations());
+    }
     
     @Operation(summary = "Получить состояние мультиплеерной игры",
                description = "Возвращает текущее состояние мультиплеерной игры по коду комнаты (gameCode)")
@@ -361,4 +436,110 @@ public class GameController {
             return ResponseEntity.status(403).build();
         }
     }
+
+    @Operation(summary = "Выгрузить повтор одиночной игры",
+               description = "Потоковая бинарная выгрузка записи партии (application/octet-stream, chunked): " +
+                       "флоты на старте и все выстрелы по 2 байта. Формат описан в ReplayService.writeReplay")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Запись партии",
+                    content = @Content(mediaType = "application/octet-stream")),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (не участник игры)",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Игра или повтор не найдены",
+                    content = @Content)
+    })
+    @GetMapping("/{gameId}/replay")
+    public ResponseEntity<StreamingResponseBody> getReplay(
+            @Parameter(description = "Идентификатор игры", required = true)
+            @PathVariable Long gameId) {
+        Long userId = getUserIdOrGenerateFromUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+        try {
+            ReplayService.ReplaySource source = replayService.loadSingleplayer(gameId, userId);
+            return streamReplay(source);
+        } catch (RuntimeException e) {
+            return replayError("getReplay", userId, String.valueOf(gameId), e);
+        }
+    }
+
+    @Operation(summary = "Повтор одиночной игры на указанный ход",
+               description = "Восстанавливает обе доски после moveIndex выстрелов (0 - начальная расстановка)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние досок на ход",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReplayFrameDto.class))),
+            @ApiResponse(responseCode = "400", description = "Номер хода вне диапазона",
+                    content = @Content),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен (не участник игры)",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Игра или повтор не найдены",
+                    content = @Content)
+    })
+    @GetMapping("/{gameId}/replay/{moveIndex}")
+    public ResponseEntity<ReplayFrameDto> getReplayFrame(
+            @Parameter(description = "Идентификатор игры", required = true)
+            @PathVariable Long gameId,
+            @Parameter(description = "Номер хода", required = true)
+            @PathVariable int moveIndex) {
+        Long userId = getUserIdOrGenerateFromUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+        try {
+            ReplayService.ReplaySource source = replayService.loadSingleplayer(gameId, userId);
+            return ResponseEntity.ok(replayService.frameAt(source, moveIndex));
+        } catch (RuntimeException e) {
+            return replayError("getReplayFrame", userId, String.valueOf(gameId), e);
+        }
+    }
+
+    @Operation(summary = "Выгрузить повтор мультиплеерной игры",
+               description = "То же, что /game/{gameId}/replay, для комнаты по коду. Пока партия идёт, корабли соперника не выгружаются")
+    @GetMapping("/multiplayer/{gameCode}/replay")
+    public ResponseEntity<StreamingResponseBody> getMultiplayerReplay(
+            @Parameter(description = "Код комнаты (gameCode)", required = true)
+            @PathVariable String gameCode) {
+        Long userId = getUserIdOrGenerateFromUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+        try {
+            ReplayService.ReplaySource source = replayService.loadMultiplayer(gameCode, userId);
+            return streamReplay(source);
+        } catch (RuntimeException e) {
+            return replayError("getMultiplayerReplay", userId, gameCode, e);
+        }
+    }
+
+    @Operation(summary = "Повтор мультиплеерной игры на указанный ход",
+               description = "Восстанавливает обе доски комнаты после moveIndex выстрелов (0 - начальная расстановка)")
+    @GetMapping("/multiplayer/{gameCode}/replay/{moveIndex}")
+    public ResponseEntity<ReplayFrameDto> getMultiplayerReplayFrame(
+            @Parameter(description = "Код комнаты (gameCode)", required = true)
+            @PathVariable String gameCode,
+            @Parameter(description = "Номер хода", required = true)
+            @PathVariable int moveIndex) {
+        Long userId = getUserIdOrGenerateFromUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+        try {
+            ReplayService.ReplaySource source = replayService.loadMultiplayer(gameCode, userId);
+            return ResponseEntity.ok(replayService.frameAt(source, moveIndex));
+        } catch (RuntimeException e) {
+            return replayError("getMultiplayerReplayFrame", userId, gameCode, e);
+        }
+    }
+
+    // Запись уже прочитана из БД; тело пишется после выхода из контроллера, без Content-Length (chunked)
+    private ResponseEntity<StreamingResponseBody> streamReplay(ReplayService.ReplaySource source) {
+        StreamingResponseBody body = out -> replayService.writeReplay(source, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    private <T> ResponseEntity<T> replayError(String operation, Long userId, String gameId, RuntimeException e) {
+        String reason = e.getMessage();
+        if (e instanceof IllegalArgumentException) {
+            logger.warn("[{}] userId={}, game={}, причина={}", operation, userId, gameId, reason);
+            return ResponseEntity.badRequest().build();
+        }
+        if (reason != null && reason.contains("не найден")) {
+            logger.warn("[{}] userId={}, game={}, причина={}", operation, userId, gameId, reason);
+            return ResponseEntity.status(404).build();
+        }
+        logger.warn("[{}] userId={}, game={}, причина=Доступ запрещен: {}", operation, userId, gameId, reason);
+        return ResponseEntity.status(403).build();
+    }
 }
@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
@@ -13,12 +14,17 @@ import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RestController;
 import ru.securitytrip.backend.dto.*;
+import ru.securitytrip.backend.service.ClusterService;
+import ru.securitytrip.backend.service.GameFramePublisher;
 import ru.securitytrip.backend.service.GameService;
-import ru.securitytrip.backend.model.GameMode;
+import ru.securitytrip.backend.service.InvalidFleetException;
+import ru.securitytrip.engine.FleetValidator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 @Tag(name = "WebSocket Морской Бой (Multiplayer)", description = "Production-ready WebSocket API для мультиплеерной игры в морской бой.\n\nКаналы:\n- /app/multiplayer.create (создать комнату)\n- /app/multiplayer.join (подключиться по коду)\n- /app/multiplayer.move (сделать ход)\n- /app/multiplayer.state (получить состояние)\n\nВсе методы работают только для multiplayer режима. Примеры сообщений и ответы приведены в описаниях методов.")
 @RestController
 @CrossOrigin(origins = "http://localhost")
@@ -29,7 +35,13 @@ public class MultiplayerGameWebSocketController {
     @Autowired
     private GameService gameService;
 
-    @Operation(summary = "Размещение кораблей хоста", description = "Хост отправляет свою расстановку кораблей после создания комнаты.\n\n**Отправить:** PlaceHostShipsRequest на /app/multiplayer.place\n**Получить:** GameDto по /topic/multiplayer/place.\n\nПример запроса:\n```json\n{\n  \"gameCode\": \"ABC123\",\n  \"ships\": [ ... ],\n  \"userId\": 123456\n}\n```\n\nОшибки:\n- 400: Некорректный код или запрос\n- 404: Игра не найдена\n")
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private GameFramePublisher gameFramePublisher;
+
+    @Operation(summary = "Размещение кораблей хоста", description = "Хост отправляет свою расстановку кораблей после создания комнаты.\n\n**Отправить:** PlaceHostShipsRequest на /app/multiplayer.place\n**Получить:** GameDto по /topic/multiplayer/place.\n\nПример запроса:\n```json\n{\n  \"gameCode\": \"ABC123\",\n  \"ships\": [ ... ],\n  \"userId\": 123456\n}\n```\n\nОшибки:\n- 400: Некорректный код или запрос\n- 404: Игра не найдена\n\nНекорректная расстановка (наложение, касание, выход за доску, нестандартный состав флота) не сохраняется; список нарушений приходит по /user/topic/multiplayer/errors\n")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Корабли успешно размещены", content = @io.swagger.v3.oas.annotations.media.Content(mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = GameDto.class))),
             @ApiResponse(responseCode = "400", description = "Некорректный код игры или запрос", content = @io.swagger.v3.oas.annotations.media.Content),
@@ -48,14 +60,27 @@ public class MultiplayerGameWebSocketController {
                 username = name;
             }
         }
-        logger.info("[MULTIPLAYER] Хост {} (userId={}) размещает корабли в комнате {}: {}", username, userId, request.getGameCode(), request.getShips());
+        logger.info("[MULTIPLAYER] Хост {} (userId={}) размещает корабли в комнате {}: {} кораблей", username, userId, request.getGameCode(), shipCount(request.getShips()));
         GameDto dto = gameService.placeHostShips(request.getGameCode(), userId, request.getShips());
         logger.info("[MULTIPLAYER] Корабли хоста размещены для userId={} в комнате {}", userId, request.getGameCode());
         return dto;
     }
 
+    // В лог пишется только число кораблей, а не весь список
+    private static int shipCount(List<ShipDto> ships) {
+        return ships != null ? ships.size() : 0;
+    }
+
+    // Некорректная расстановка в place/join: список нарушений отправляется только автору запроса
+    @MessageExceptionHandler(InvalidFleetException.class)
+    @SendToUser("/topic/multiplayer/errors")
+    public List<FleetValidator.Violation> handleInvalidFleet(InvalidFleetException e) {
+        logger.warn("[MULTIPLAYER] Расстановка отклонена: {}", e.getMessage());
+        return e.getViolations();
+    }
+
     // Создание игры, генерация кода
-    @Operation(summary = "Создание мультиплеерной игры", description = "Создаёт новую комнату для мультиплеерной игры.\n\n**Отправить:** CreateMultiplayerGameRequest на /app/multiplayer.create\n**Получить:** MultiplayerGameCodeResponse по /topic/multiplayer/code.\n\nПример запроса:\n```json\n{\n  \"ships\": [\n    {\"size\": 4, \"x\": 0, \"y\": 0, \"horizontal\": true}\n  ],\n  \"userId\": 123456\n}\n```\n\nПример ответа:\n```json\n{\n  \"gameCode\": \"ABC123\"\n}\n```")
+    @Operation(summary = "Создание мультиплеерной игры", description = "Создаёт новую комнату для мультиплеерной игры.\n\n**Отправить:** CreateMultiplayerGameRequest на /app/multiplayer.create\n**Получить:** MultiplayerGameCodeResponse по /topic/multiplayer/code.\n\nПример запроса:\n```json\n{\n  \"ships\": [\n    {\"size\": 4, \"x\": 0, \"y\": 0, \"horizontal\": true}\n  ],\n  \"userId\": 123456\n}\n```\n\nПример ответа:\n```json\n{\n  \"gameCode\": \"ABC123\",\n  \"userId\": 123456\n}\n```")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Игра успешно создана", content = @io.swagger.v3.oas.annotations.media.Content(mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = MultiplayerGameCodeResponse.class))),
             @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @io.swagger.v3.oas.annotations.media.Content),
@@ -66,10 +91,10 @@ public class MultiplayerGameWebSocketController {
     public MultiplayerGameCodeResponse createMultiplayerGame(@Payload CreateMultiplayerGameRequest request, SimpMessageHeaderAccessor headerAccessor) {
         Long userId = request.getUserId();
         String username = headerAccessor.getUser() != null ? headerAccessor.getUser().getName() : "anonymous";
-        logger.info("[MULTIPLAYER] Запрос на создание комнаты от пользователя: {} (userId={}), ships={}", username, userId, request.getShips());
+        logger.info("[MULTIPLAYER] Запрос на создание комнаты от пользователя: {} (userId={})", username, userId);
         String gameCode = gameService.createMultiplayerGame(userId, request.getShips());
         logger.info("[MULTIPLAYER] Комната создана: {} для userId={}", gameCode, userId);
-        return new MultiplayerGameCodeResponse(gameCode);
+        return new MultiplayerGameCodeResponse(gameCode, userId);
     }
 
     // Подключение по коду
@@ -92,22 +117,21 @@ public class MultiplayerGameWebSocketController {
                 username = name;
             }
         }
-        logger.info("[MULTIPLAYER] Пользователь {} (userId={}) подключается к комнате {} с кораблями {}", username, userId, request.getGameCode(), request.getShips());
+        logger.info("[MULTIPLAYER] Пользователь {} (userId={}) подключается к комнате {}: {} кораблей", username, userId, request.getGameCode(), shipCount(request.getShips()));
         GameDto dto = gameService.joinMultiplayerGame(request.getGameCode(), userId, request.getShips());
         logger.info("[MULTIPLAYER] Пользователь {} (userId={}) успешно подключён к комнате {}", username, userId, request.getGameCode());
         return dto;
     }
 
     // Сделать ход в мультиплеерной игре
-    @Operation(summary = "Сделать ход в мультиплеерной игре", description = "Выполняет ход игрока в мультиплеерной игре.\n\n**Отправить:** MoveRequest на /app/multiplayer.move\n**Получить:** GameDto по /topic/multiplayer/move.\n\nПример запроса:\n```json\n{\n  \"gameCode\": \"ABC123\",\n  \"x\": 5,\n  \"y\": 3\n}\n```\n\nПример ответа:\n```json\n{\n  \"mode\": \"multiplayer\",\n  \"gameState\": \"IN_PROGRESS\",\n  \"playerTurn\": true,\n  \"playerBoard\": { ... },\n  \"computerBoard\": { ... }\n}\n```\n\nОшибки:\n- 400: Некорректные параметры (например, не ваш ход, неверные координаты)\n- 404: Игра не найдена\n")
+    @Operation(summary = "Сделать ход в мультиплеерной игре", description = "Выполняет ход игрока в мультиплеерной игре.\n\n**Отправить:** MoveRequest на /app/multiplayer.move\n**Получить:** GameDto по /topic/multiplayer/move (STOMP-заголовки state-version и game-code позволяют отбрасывать устаревшие кадры).\n\nПример запроса:\n```json\n{\n  \"gameCode\": \"ABC123\",\n  \"x\": 5,\n  \"y\": 3\n}\n```\n\nПример ответа:\n```json\n{\n  \"mode\": \"multiplayer\",\n  \"gameState\": \"IN_PROGRESS\",\n  \"playerTurn\": true,\n  \"playerBoard\": { ... },\n  \"computerBoard\": { ... }\n}\n```\n\nОшибки:\n- 400: Некорректные параметры (например, не ваш ход, неверные координаты)\n- 404: Игра не найдена\n")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Ход успешно выполнен", content = @io.swagger.v3.oas.annotations.media.Content(mediaType = "application/json", schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = GameDto.class))),
         @ApiResponse(responseCode = "400", description = "Некорректные параметры", content = @io.swagger.v3.oas.annotations.media.Content),
         @ApiResponse(responseCode = "404", description = "Игра не найдена", content = @io.swagger.v3.oas.annotations.media.Content)
     })
     @MessageMapping("/multiplayer.move")
-    @SendTo("/topic/multiplayer/move")
-    public GameDto makeMove(@Payload MoveRequest moveRequest, SimpMessageHeaderAccessor headerAccessor) {
+    public void makeMove(@Payload MoveRequest moveRequest, SimpMessageHeaderAccessor headerAccessor) {
         Long userId = moveRequest.getUserId();
         String username = "anonymous";
         Object userObj = headerAccessor.getUser();
@@ -118,10 +142,19 @@ public class MultiplayerGameWebSocketController {
             }
         }
         String gameCode = moveRequest.getGameCode();
-        logger.info("[MULTIPLAYER] Пользователь {} (userId={}) делает ход в комнате {}: x={}, y={}", username, userId, gameCode, moveRequest.getX(), moveRequest.getY());
-        GameDto dto = gameService.makeMultiplayerMove(gameCode, userId, moveRequest);
-        logger.info("[MULTIPLAYER] Ход пользователя {} (userId={}) в комнате {} обработан", username, userId, gameCode);
-        return dto;
+        // Сам выстрел пишется в журнал событий (GameEventLog); здесь - только отладка
+        logger.debug("[MULTIPLAYER] Пользователь {} (userId={}) делает ход в комнате {}: x={}, y={}", username, userId, gameCode, moveRequest.getX(), moveRequest.getY());
+        if (!clusterService.isLocal(gameCode)) {
+            // Комнату обслуживает другой узел: он выполнит ход и разошлёт результат всем узлам
+            clusterService.forwardMove(moveRequest);
+            logger.info("[MULTIPLAYER] Ход в комнате {} переслан узлу {}", gameCode, clusterService.ownerOf(gameCode));
+            return;
+        }
+        GameStateFrame frame = gameService.makeMultiplayerMove(gameCode, userId, moveRequest);
+        // Кадр уже сериализован при сохранении — отправляем байты без повторной конвертации
+        gameFramePublisher.publish("/topic/multiplayer/move", frame);
+        logger.debug("[MULTIPLAYER] Ход пользователя {} (userId={}) в комнате {} обработан (версия {}, {} байт)",
+                username, userId, gameCode, frame.getVersion(), frame.size());
     }
 
     // Получить состояние мультиплеерной игры
@@ -131,8 +164,7 @@ public class MultiplayerGameWebSocketController {
         @ApiResponse(responseCode = "404", description = "Игра не найдена", content = @io.swagger.v3.oas.annotations.media.Content)
     })
     @MessageMapping("/multiplayer.state")
-    @SendToUser("/topic/multiplayer/state")
-    public GameDto getGameState(@Payload MultiplayerGameStateRequest request, SimpMessageHeaderAccessor headerAccessor) {
+    public void getGameState(@Payload MultiplayerGameStateRequest request, SimpMessageHeaderAccessor headerAccessor) {
         String gameCode = request.getGameCode();
         Long userId = null;
         try {
@@ -154,9 +186,9 @@ public class MultiplayerGameWebSocketController {
         }
         String cleanCode = gameCode.trim().replaceAll("^[\"']|[\"']$", "");
         logger.info("[MULTIPLAYER] Запрос состояния комнаты {} (очищено: {}) для userId={}", gameCode, cleanCode, userId);
-        GameDto gameState = gameService.getMultiplayerGameState(cleanCode, userId);
-        gameState.setMode(GameMode.multiplayer);
+        // Готовый кадр: пока состояние комнаты не менялось, JSON не собирается заново
+        GameStateFrame frame = gameService.getMultiplayerGameStateFrame(cleanCode, userId);
+        gameFramePublisher.publishToUser(headerAccessor, "/topic/multiplayer/state", frame);
         logger.info("[MULTIPLAYER] Состояние комнаты {} отправлено для userId={}", cleanCode, userId);
-        return gameState;
     }
 }
@@ -0,0 +1,70 @@
+package ru.securitytrip.backend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import ru.securitytrip.backend.dto.LeaderboardPageDto;
+import ru.securitytrip.backend.dto.RatingDto;
+import ru.securitytrip.backend.service.RatingService;
+
+@RestController
+@RequestMapping("/rating")
+@CrossOrigin(origins = "http://localhost")
+@Tag(name = "Рейтинг", description = "Рейтинг игроков (Glicko) и таблица лидеров")
+public class RatingController {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Operation(summary = "Таблица лидеров",
+               description = "Страница таблицы лидеров по убыванию рейтинга. Таблица хранится в памяти, " +
+                       "место и страница находятся за O(log n)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница таблицы",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = LeaderboardPageDto.class)))
+    })
+    @GetMapping("/leaderboard")
+    public ResponseEntity<LeaderboardPageDto> getLeaderboard(
+            @Parameter(description = "Сколько мест пропустить") @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Размер страницы (не больше game.rating.max-page-size)") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(ratingService.getLeaderboard(offset, limit));
+    }
+
+    @Operation(summary = "Мой рейтинг", description = "Рейтинг и место текущего пользователя")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Рейтинг игрока",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RatingDto.class))),
+            @ApiResponse(responseCode = "401", description = "Не авторизован", content = @Content)
+    })
+    @GetMapping("/me")
+    public ResponseEntity<RatingDto> getMyRating() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(ratingService.getRating(getUserIdOrGenerateFromUsername(username)));
+    }
+
+    @Operation(summary = "Рейтинг игрока", description = "Рейтинг и место игрока по его идентификатору")
+    @GetMapping("/{playerId}")
+    public ResponseEntity<RatingDto> getRating(
+            @Parameter(description = "Идентификатор игрока", required = true) @PathVariable Long playerId) {
+        return ResponseEntity.ok(ratingService.getRating(playerId));
+    }
+
+    // Идентификатор игрока определяется так же, как в GameController
+    private Long getUserIdOrGenerateFromUsername(String username) {
+        try {
+            return Long.parseLong(username);
+        } catch (NumberFormatException e) {
+            return Math.abs((long) username.hashCode());
+        }
+    }
+}
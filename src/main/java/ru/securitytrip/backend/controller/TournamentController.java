@@ -0,0 +1,139 @@
+package ru.securitytrip.backend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import ru.securitytrip.backend.dto.CreateTournamentRequest;
+import ru.securitytrip.backend.dto.TournamentDto;
+import ru.securitytrip.backend.dto.TournamentMatchDto;
+import ru.securitytrip.backend.service.TournamentService;
+
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/tournaments")
+@CrossOrigin(origins = "http://localhost")
+@Tag(name = "Турниры", description = "Турниры на выбывание из мультиплеерных партий")
+public class TournamentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TournamentController.class);
+
+    @Autowired
+    private TournamentService tournamentService;
+
+    @Operation(summary = "Создать турнир", description = "Создаёт турнир и открывает регистрацию")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Турнир создан",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = TournamentDto.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректные параметры", content = @Content)
+    })
+    @PostMapping
+    public ResponseEntity<TournamentDto> createTournament(@RequestBody CreateTournamentRequest request) {
+        Long userId = currentUserId();
+        return handle("createTournament", userId, null, () -> tournamentService.createTournament(userId, request));
+    }
+
+    @Operation(summary = "Турнир", description = "Участники и сетка турнира с кодами комнат матчей")
+    @GetMapping("/{tournamentId}")
+    public ResponseEntity<TournamentDto> getTournament(
+            @Parameter(description = "Идентификатор турнира", required = true) @PathVariable Long tournamentId) {
+        return handle("getTournament", null, tournamentId, () -> tournamentService.getTournament(tournamentId));
+    }
+
+    @Operation(summary = "Регистрация в турнире")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Игрок зарегистрирован",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = TournamentDto.class))),
+            @ApiResponse(responseCode = "404", description = "Турнир не найден", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Регистрация закрыта, мест нет или игрок уже зарегистрирован",
+                    content = @Content)
+    })
+    @PostMapping("/{tournamentId}/register")
+    public ResponseEntity<TournamentDto> register(
+            @Parameter(description = "Идентификатор турнира", required = true) @PathVariable Long tournamentId) {
+        Long userId = currentUserId();
+        return handle("register", userId, tournamentId, () -> tournamentService.register(tournamentId, userId));
+    }
+
+    @Operation(summary = "Запустить турнир",
+               description = "Закрывает регистрацию, выполняет посев по рейтингу и строит первый раунд. " +
+                       "Комнаты матчей создаются в течение game.tournament.rooms-interval-ms")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Турнир запущен",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = TournamentDto.class))),
+            @ApiResponse(responseCode = "403", description = "Запустить турнир может только создатель", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Турнир уже начат или участников меньше двух", content = @Content)
+    })
+    @PostMapping("/{tournamentId}/start")
+    public ResponseEntity<TournamentDto> start(
+            @Parameter(description = "Идентификатор турнира", required = true) @PathVariable Long tournamentId) {
+        Long userId = currentUserId();
+        return handle("start", userId, tournamentId, () -> tournamentService.start(tournamentId, userId));
+    }
+
+    @Operation(summary = "Мой матч",
+               description = "Несыгранный матч текущего игрока. Хост комнаты (player1) расставляет корабли через " +
+                       "placeHostShips, второй игрок входит в комнату через joinMultiplayerGame")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Матч игрока",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = TournamentMatchDto.class))),
+            @ApiResponse(responseCode = "404", description = "Несыгранного матча нет", content = @Content)
+    })
+    @GetMapping("/{tournamentId}/match")
+    public ResponseEntity<TournamentMatchDto> getCurrentMatch(
+            @Parameter(description = "Идентификатор турнира", required = true) @PathVariable Long tournamentId) {
+        Long userId = currentUserId();
+        return tournamentService.getCurrentMatch(tournamentId, userId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private <T> ResponseEntity<T> handle(String operation, Long userId, Long tournamentId, Supplier<T> action) {
+        try {
+            return ResponseEntity.ok(action.get());
+        } catch (IllegalArgumentException e) {
+            logger.warn("[{}] userId={}, tournament={}, причина={}", operation, userId, tournamentId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            logger.warn("[{}] userId={}, tournament={}, причина={}", operation, userId, tournamentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (SecurityException e) {
+            logger.warn("[{}] userId={}, tournament={}, причина=Доступ запрещен: {}", operation, userId, tournamentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("не найден")) {
+                logger.warn("[{}] userId={}, tournament={}, причина={}", operation, userId, tournamentId, e.getMessage());
+                return ResponseEntity.notFound().build();
+            }
+            throw e;
+        }
+    }
+
+    private Long currentUserId() {
+        return getUserIdOrGenerateFromUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    // Идентификатор игрока определяется так же, как в GameController
+    private Long getUserIdOrGenerateFromUsername(String username) {
+        try {
+            return Long.parseLong(username);
+        } catch (NumberFormatException e) {
+            return Math.abs((long) username.hashCode());
+        }
+    }
+}
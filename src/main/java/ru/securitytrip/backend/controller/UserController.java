@@ -9,7 +9,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.securitytrip.backend.dto.PlayerStatsDto;
 import ru.securitytrip.backend.dto.UpdateUserRequest;
+import ru.securitytrip.backend.service.PlayerStatsAggregator;
 import ru.securitytrip.backend.service.UserService;
 
 @RestController
@@ -20,6 +24,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PlayerStatsAggregator playerStatsAggregator;
+
     @Operation(summary = "Обновить профиль пользователя", description = "Позволяет изменить username, пароль и avatarId текущего пользователя.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Профиль успешно обновлён"),
@@ -34,4 +41,28 @@ public class UserController {
         userService.updateUser(userId, request);
         return ResponseEntity.ok().build();
     }
+
+    @Operation(summary = "Статистика текущего пользователя",
+            description = "Партии, доля побед, точность, среднее число выстрелов до победы и любимая стратегия расстановки. " +
+                    "Считается накопительно по событиям партий, без пересчёта по таблицам игр")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статистика игрока",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PlayerStatsDto.class))),
+            @ApiResponse(responseCode = "401", description = "Не авторизован")
+    })
+    @GetMapping("/me/stats")
+    public ResponseEntity<PlayerStatsDto> getMyStats() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        // Статистика ведётся по идентификатору игрока в партиях (см. GameController)
+        return ResponseEntity.ok(playerStatsAggregator.getStats(getPlayerId(username)));
+    }
+
+    private Long getPlayerId(String username) {
+        try {
+            return Long.parseLong(username);
+        } catch (NumberFormatException e) {
+            return Math.abs((long) username.hashCode());
+        }
+    }
 }
@@ -28,4 +28,9 @@ public class CreateSinglePlayerGameRequest {
             defaultValue = "MEDIUM")
     private DifficultyLevel difficultyLevel = DifficultyLevel.MEDIUM;
 
+    @Schema(description = "Гостевая игра: хранится только в памяти сервера и попадает в БД после окончания "
+            + "или по запросу на сохранение (null - по настройке сервера)",
+            example = "true", nullable = true)
+    private Boolean ephemeral;
+
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Запрос на создание турнира")
+public class CreateTournamentRequest {
+    @Schema(description = "Название турнира", example = "Кубок осени")
+    private String name;
+
+    @Schema(description = "Максимум участников (по умолчанию game.tournament.default-max-players)", example = "64", nullable = true)
+    private Integer maxPlayers;
+}
@@ -53,6 +53,17 @@ public class GameDto {
     @Schema(description = "ID аватара противника (для мультиплеера)", example = "2")
     private Integer opponentAvatarId;
 
+    @Schema(description = "Срок текущего хода, epoch millis (для мультиплеера; null, если таймер выключен)",
+            example = "1735689600000", nullable = true)
+    private Long turnDeadline;
+
+    @Schema(description = "Действие по истечении времени хода (pass - ход передан, forfeit - поражение)",
+            example = "pass", nullable = true)
+    private String timeoutAction;
+
+    @Schema(description = "Гостевая одиночная игра, ещё не сохранённая в БД (id отрицательный)", example = "false")
+    private boolean ephemeral;
+
     public void setPlayerBoard(GameBoardDto playerBoard) {
         this.playerBoard = playerBoard;
     }
@@ -0,0 +1,56 @@
+package ru.securitytrip.backend.dto;
+
+import ru.securitytrip.backend.model.GameState;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Неизменяемое представление состояния мультиплеерной комнаты одной версии,
+ * сериализованное в JSON (UTF-8) ровно один раз. Эти же байты сохраняются
+ * в колонку gameStateJson и отправляются в STOMP-канал без повторной
+ * сериализации GameDto конвертером сообщений.
+ */
+public final class GameStateFrame {
+    private final String gameCode;
+    private final long version;
+    private final byte[] json;
+    private final GameState gameState;
+    private final boolean lastMoveHit;
+    private final boolean lastMoveSunk;
+    private final boolean lastMoveGameOver;
+
+    public GameStateFrame(String gameCode, long version, byte[] json, GameState gameState,
+                          boolean lastMoveHit, boolean lastMoveSunk, boolean lastMoveGameOver) {
+        this.gameCode = gameCode;
+        this.version = version;
+        this.json = json;
+        this.gameState = gameState;
+        this.lastMoveHit = lastMoveHit;
+        this.lastMoveSunk = lastMoveSunk;
+        this.lastMoveGameOver = lastMoveGameOver;
+    }
+
+    public String getGameCode() { return gameCode; }
+    public long getVersion() { return version; }
+    public GameState getGameState() { return gameState; }
+    public boolean isLastMoveHit() { return lastMoveHit; }
+    public boolean isLastMoveSunk() { return lastMoveSunk; }
+    public boolean isLastMoveGameOver() { return lastMoveGameOver; }
+
+    /**
+     * Байты кадра для отправки. Массив общий для всех получателей и не копируется,
+     * изменять его нельзя
+     */
+    public byte[] payload() {
+        return json;
+    }
+
+    public int size() {
+        return json.length;
+    }
+
+    // Строковое представление для колонки gameStateJson
+    public String asString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Подсказка: вероятность того, что в клетке доски противника стоит корабль")
+public class HeatmapDto {
+    @Schema(description = "Идентификатор игры", example = "1")
+    private Long gameId;
+
+    @Schema(description = "Версия доски - число сделанных по ней выстрелов", example = "12")
+    private int version;
+
+    @Schema(description = "Вероятности по клеткам [y][x] от 0 до 1: 0 - промах или клетка у потопленного корабля, "
+            + "1 - попадание по кораблю на плаву")
+    private double[][] probabilities;
+
+    @Schema(description = "X необстрелянной клетки с наибольшей вероятностью (null, если таких нет)",
+            example = "4", nullable = true)
+    private Integer bestX;
+
+    @Schema(description = "Y необстрелянной клетки с наибольшей вероятностью (null, если таких нет)",
+            example = "5", nullable = true)
+    private Integer bestY;
+}
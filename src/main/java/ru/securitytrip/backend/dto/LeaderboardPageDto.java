@@ -0,0 +1,23 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.List;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница таблицы лидеров")
+public class LeaderboardPageDto {
+    @Schema(description = "Всего игроков в таблице", example = "15230")
+    private int total;
+
+    @Schema(description = "Смещение страницы (число пропущенных мест)", example = "0")
+    private int offset;
+
+    @Schema(description = "Записи страницы по убыванию рейтинга")
+    private List<RatingDto> entries;
+}
@@ -11,7 +11,15 @@ public class MultiplayerGameCodeResponse {
     @Schema(description = "Код комнаты (игры)")
     private String gameCode;
 
+    @Schema(description = "ID создателя комнаты (ответ рассылается всем подписчикам топика)")
+    private Long userId;
+
     public MultiplayerGameCodeResponse(String gameCode) {
         this.gameCode = gameCode;
     }
+
+    public MultiplayerGameCodeResponse(String gameCode, Long userId) {
+        this.gameCode = gameCode;
+        this.userId = userId;
+    }
 }
@@ -0,0 +1,40 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Статистика игрока по одиночным и мультиплеерным партиям")
+public class PlayerStatsDto {
+    @Schema(description = "Идентификатор игрока", example = "123456")
+    private Long playerId;
+
+    @Schema(description = "Завершённых партий", example = "40")
+    private long gamesPlayed;
+
+    @Schema(description = "Побед", example = "22")
+    private long wins;
+
+    @Schema(description = "Доля побед (0..1)", example = "0.55")
+    private double winRate;
+
+    @Schema(description = "Всего выстрелов", example = "2100")
+    private long shots;
+
+    @Schema(description = "Попаданий", example = "640")
+    private long hits;
+
+    @Schema(description = "Точность: доля попаданий среди выстрелов (0..1)", example = "0.3")
+    private double accuracy;
+
+    @Schema(description = "Среднее число выстрелов в выигранной партии (null — ещё нет побед)", example = "54.5", nullable = true)
+    private Double averageShotsToWin;
+
+    @Schema(description = "Самая частая стратегия расстановки (SHORE, ASYMMETRIC, RANDOM), null — нет данных",
+            example = "SHORE", nullable = true)
+    private String favoritePlacement;
+}
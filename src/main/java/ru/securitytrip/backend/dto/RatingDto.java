@@ -0,0 +1,33 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Рейтинг игрока и его место в таблице лидеров")
+public class RatingDto {
+    @Schema(description = "Идентификатор игрока", example = "123456")
+    private Long playerId;
+
+    @Schema(description = "Имя пользователя (если игрок зарегистрирован под этим id)", example = "user123", nullable = true)
+    private String username;
+
+    @Schema(description = "Рейтинг (Glicko)", example = "1534.2")
+    private double rating;
+
+    @Schema(description = "Отклонение рейтинга (RD): чем меньше, тем точнее оценка", example = "87.5")
+    private double deviation;
+
+    @Schema(description = "Место в таблице лидеров (с 1), 0 — игрок ещё не играл", example = "42")
+    private int rank;
+
+    @Schema(description = "Сыграно партий", example = "17")
+    private int gamesPlayed;
+
+    @Schema(description = "Побед", example = "9")
+    private int wins;
+}
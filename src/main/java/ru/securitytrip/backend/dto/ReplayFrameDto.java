@@ -0,0 +1,39 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние досок партии на указанный ход (повтор)")
+public class ReplayFrameDto {
+    @Schema(description = "Номер хода: 0 - начальная расстановка, N - после N выстрелов", example = "12")
+    private int moveIndex;
+
+    @Schema(description = "Общее количество записанных выстрелов", example = "57")
+    private int totalMoves;
+
+    @Schema(description = "Доска игрока 1 (в одиночной игре - доска игрока)")
+    private int[][] player1Board;
+
+    @Schema(description = "Доска игрока 2 (в одиночной игре - доска компьютера)")
+    private int[][] player2Board;
+
+    @Schema(description = "Кто сделал последний выстрел (player1/player2), null для хода 0", example = "player1")
+    private String lastShooter;
+
+    @Schema(description = "Координата X последнего выстрела", example = "3")
+    private Integer lastX;
+
+    @Schema(description = "Координата Y последнего выстрела", example = "7")
+    private Integer lastY;
+
+    @Schema(description = "Результат последнего выстрела", example = "HIT", allowableValues = {"MISS", "HIT", "SUNK"})
+    private String lastResult;
+
+    @Schema(description = "Партия завершена", example = "true")
+    private boolean finished;
+}
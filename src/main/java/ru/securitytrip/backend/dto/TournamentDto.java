@@ -0,0 +1,45 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import ru.securitytrip.backend.model.TournamentStatus;
+
+import java.util.List;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Турнир: участники и сетка")
+public class TournamentDto {
+    @Schema(description = "Идентификатор турнира", example = "17")
+    private Long id;
+
+    @Schema(description = "Название турнира", example = "Кубок осени")
+    private String name;
+
+    @Schema(description = "Статус турнира")
+    private TournamentStatus status;
+
+    @Schema(description = "Создатель турнира", example = "123456")
+    private Long createdBy;
+
+    @Schema(description = "Максимум участников", example = "64")
+    private int maxPlayers;
+
+    @Schema(description = "Текущий раунд (с 1), 0 — турнир не начат", example = "2")
+    private int currentRound;
+
+    @Schema(description = "Всего раундов в сетке (0 до старта)", example = "6")
+    private int rounds;
+
+    @Schema(description = "Победитель турнира", nullable = true)
+    private Long winnerId;
+
+    @Schema(description = "Участники; после старта — в порядке посева")
+    private List<TournamentPlayerDto> players;
+
+    @Schema(description = "Матчи сетки по раундам")
+    private List<TournamentMatchDto> matches;
+}
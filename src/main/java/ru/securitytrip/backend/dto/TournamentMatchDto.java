@@ -0,0 +1,30 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Матч турнирной сетки")
+public class TournamentMatchDto {
+    @Schema(description = "Раунд (с 1)", example = "2")
+    private int round;
+
+    @Schema(description = "Позиция матча в раунде (с 0)", example = "5")
+    private int slot;
+
+    @Schema(description = "Хост комнаты (ходит первым)", example = "123456")
+    private Long player1Id;
+
+    @Schema(description = "Второй игрок; null — player1 проходит дальше без игры", example = "654321", nullable = true)
+    private Long player2Id;
+
+    @Schema(description = "Код комнаты; null, пока комната не создана", example = "0ABCDEF", nullable = true)
+    private String roomCode;
+
+    @Schema(description = "Победитель матча; null, пока матч не сыгран", nullable = true)
+    private Long winnerId;
+}
@@ -0,0 +1,24 @@
+package ru.securitytrip.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Setter
+@Getter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Участник турнира")
+public class TournamentPlayerDto {
+    @Schema(description = "Идентификатор игрока", example = "123456")
+    private Long playerId;
+
+    @Schema(description = "Место в посеве (с 1); null до старта турнира", example = "3", nullable = true)
+    private Integer seed;
+
+    @Schema(description = "Рейтинг, по которому выполнен посев", example = "1612.4", nullable = true)
+    private Double rating;
+
+    @Schema(description = "Игрок выбыл из турнира", example = "false")
+    private boolean eliminated;
+}
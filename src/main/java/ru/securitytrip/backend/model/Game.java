@@ -3,6 +3,7 @@ package ru.securitytrip.backend.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +26,21 @@ public class Game {
     @Enumerated(EnumType.STRING)
     private DifficultyLevel difficultyLevel = DifficultyLevel.MEDIUM;
     
+    // Seed генератора случайных чисел игры: по нему воспроизводятся расстановка
+    // кораблей компьютера и все его ходы (см. GameRandom)
+    private Long rngSeed;
+
+    // Номер последнего хода компьютера, для которого выдан генератор
+    @ColumnDefault("0")
+    private long rngStep;
+
+    // Запись партии для повторов (см. ReplayCodec): флоты на старте и все выстрелы, 2 байта на ход
+    @Column(length = 1024)
+    private byte[] replayFleets;
+
+    @Column(length = 1024)
+    private byte[] replayShots;
+
     // Координаты последнего удачного выстрела (для ИИ сложного уровня)
     private int lastHitX = -1;
     private int lastHitY = -1;
@@ -3,11 +3,16 @@ package ru.securitytrip.backend.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "multiplayer_rooms")
+@Table(name = "multiplayer_rooms", indexes = {
+        @Index(name = "idx_multiplayer_rooms_status_activity", columnList = "status, lastActivityAt")
+})
 public class MultiplayerRoomEntity {
     @Id
     private String code;
@@ -32,4 +37,41 @@ public class MultiplayerRoomEntity {
 
     @Enumerated(EnumType.STRING)
     private GameMode gameMode;
-} 
\ No newline at end of file
+
+    // Жизненный цикл комнаты: статус, время создания и последней активности
+    @Enumerated(EnumType.STRING)
+    private GameState status;
+
+    private Instant createdAt;
+
+    private Instant lastActivityAt;
+
+    // Архивная комната: доски и корабли удалены, сохранено только итоговое состояние
+    @ColumnDefault("false")
+    private boolean archived;
+
+    // Версия состояния (gameStateJson), увеличивается при каждой записи
+    @ColumnDefault("0")
+    private long stateVersion;
+
+    // Запись партии для повторов (см. ReplayCodec); при архивации сохраняется
+    @Column(length = 1024)
+    private byte[] replayFleets;
+
+    @Column(length = 1024)
+    private byte[] replayShots;
+
+    @PrePersist
+    void onCreate() {
+        Instant now = Instant.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        lastActivityAt = now;
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        lastActivityAt = Instant.now();
+    }
+}
@@ -0,0 +1,46 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Рейтинг игрока (Glicko): оценка силы и её неопределённость
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "player_ratings")
+public class PlayerRating {
+    // Идентификатор игрока в партиях (тот же, что ownerId доски и player1Id/player2Id комнаты)
+    @Id
+    private Long playerId;
+
+    private double rating;
+
+    // Отклонение рейтинга (RD): чем меньше, тем точнее оценка
+    private double deviation;
+
+    private int gamesPlayed;
+
+    private int wins;
+
+    private Instant lastPlayedAt;
+
+    public PlayerRating(Long playerId, double rating, double deviation) {
+        this.playerId = playerId;
+        this.rating = rating;
+        this.deviation = deviation;
+    }
+
+    // Копия для записи в БД, независимая от дальнейших изменений
+    public PlayerRating copy() {
+        PlayerRating copy = new PlayerRating(playerId, rating, deviation);
+        copy.setGamesPlayed(gamesPlayed);
+        copy.setWins(wins);
+        copy.setLastPlayedAt(lastPlayedAt);
+        return copy;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Накопительные счётчики статистики игрока; обновляются пачками (PlayerStatsAggregator)
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "player_stats")
+public class PlayerStats {
+    // Идентификатор игрока в партиях (тот же, что в рейтинге)
+    @Id
+    private Long playerId;
+
+    private long gamesPlayed;
+
+    private long wins;
+
+    private long shots;
+
+    private long hits;
+
+    // Выстрелы в выигранных партиях и число таких партий (для среднего числа выстрелов до победы)
+    private long shotsInWins;
+
+    private long trackedWins;
+
+    // Сколько раз игрок расставлял флот каждым способом (см. PlacementClassifier)
+    private long shorePlacements;
+
+    private long asymmetricPlacements;
+
+    private long randomPlacements;
+
+    private Instant updatedAt;
+
+    public PlayerStats(Long playerId) {
+        this.playerId = playerId;
+    }
+
+    // Прибавляет счётчики другой записи (накопленные изменения)
+    public void add(PlayerStats delta) {
+        gamesPlayed += delta.gamesPlayed;
+        wins += delta.wins;
+        shots += delta.shots;
+        hits += delta.hits;
+        shotsInWins += delta.shotsInWins;
+        trackedWins += delta.trackedWins;
+        shorePlacements += delta.shorePlacements;
+        asymmetricPlacements += delta.asymmetricPlacements;
+        randomPlacements += delta.randomPlacements;
+    }
+}
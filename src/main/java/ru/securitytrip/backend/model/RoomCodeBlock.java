@@ -0,0 +1,29 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Счётчик блоков кодов комнат для узла.
+ * Узел резервирует блок целиком (одна короткая транзакция), а коды внутри блока
+ * выдаются уже без обращения к БД.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "room_code_blocks")
+public class RoomCodeBlock {
+    @Id
+    private Integer nodeId;
+
+    // Номер следующего свободного блока
+    private long nextBlock;
+
+    public RoomCodeBlock(Integer nodeId) {
+        this.nodeId = nodeId;
+        this.nextBlock = 0;
+    }
+}
@@ -1,54 +1,72 @@
 package ru.securitytrip.backend.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.securitytrip.engine.Fleet;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Ship {
     private int size;
     private int x;
     private int y;
     private boolean isHorizontal;
-    private List<Boolean> hits = new ArrayList<>();
+
+    // Попадания по клеткам корабля: бит i - поражена i-я клетка от начала.
+    // В JSON по-прежнему массив hits: [true, false, ...]
+    @JsonIgnore
+    private int hitMask;
     
     public Ship(int size, int x, int y, boolean isHorizontal) {
         this.size = size;
         this.x = x;
         this.y = y;
         this.isHorizontal = isHorizontal;
-        
-        // Инициализируем список попаданий (false - целая часть корабля)
-        for (int i = 0; i < size; i++) {
-            hits.add(false);
-        }
     }
     
     // Проверяет, потоплен ли корабль (все части поражены)
     public boolean isSunk() {
-        return !hits.contains(false);
+        return hitMask == Fleet.fullMask(size);
     }
     
     // Пытается поразить корабль по указанным координатам и возвращает true, если попадание успешно
     public boolean hit(int hitX, int hitY) {
         if (isHorizontal) {
             if (hitY == y && hitX >= x && hitX < x + size) {
-                hits.set(hitX - x, true);
+                hitMask |= 1 << (hitX - x);
                 return true;
             }
         } else {
             if (hitX == x && hitY >= y && hitY < y + size) {
-                hits.set(hitY - y, true);
+                hitMask |= 1 << (hitY - y);
                 return true;
             }
         }
         return false;
     }
+
+    public boolean[] getHits() {
+        boolean[] hits = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            hits[i] = (hitMask & (1 << i)) != 0;
+        }
+        return hits;
+    }
+
+    public void setHits(boolean[] hits) {
+        hitMask = 0;
+        if (hits != null) {
+            for (int i = 0; i < hits.length && i < Integer.SIZE; i++) {
+                if (hits[i]) {
+                    hitMask |= 1 << i;
+                }
+            }
+        }
+    }
     
     // Получает все координаты корабля
     public List<int[]> getCoordinates() {
@@ -66,4 +84,4 @@ public class Ship {
         
         return coordinates;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+// Привычки игрока при стрельбе: насколько рано в партии он обычно стреляет по каждой клетке.
+// Обновляются пачками (ShotHabitTracker)
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "player_shot_habits")
+public class ShotHabits {
+
+    public static final int CELLS = 100;
+
+    // Идентификатор игрока в партиях (тот же, что в рейтинге и статистике)
+    @Id
+    private Long playerId;
+
+    // Партии, в которых учтены выстрелы
+    private long games;
+
+    private long shots;
+
+    // Гистограмма 10x10 (клетка y * 10 + x): 100 int подряд; чем раньше выстрел, тем больше вклад
+    @Column(length = CELLS * Integer.BYTES)
+    private byte[] histogram;
+
+    private Instant updatedAt;
+
+    public ShotHabits(Long playerId) {
+        this.playerId = playerId;
+    }
+
+    public int[] cells() {
+        int[] cells = new int[CELLS];
+        if (histogram != null) {
+            ByteBuffer.wrap(histogram).asIntBuffer().get(cells);
+        }
+        return cells;
+    }
+
+    public void setCells(int[] cells) {
+        ByteBuffer buffer = ByteBuffer.allocate(CELLS * Integer.BYTES);
+        buffer.asIntBuffer().put(cells, 0, CELLS);
+        histogram = buffer.array();
+    }
+
+    // Прибавляет счётчики другой записи (накопленные изменения)
+    public void add(ShotHabits delta) {
+        games += delta.games;
+        shots += delta.shots;
+        int[] cells = cells();
+        int[] added = delta.cells();
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] += added[i];
+        }
+        setCells(cells);
+    }
+}
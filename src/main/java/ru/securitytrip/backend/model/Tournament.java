@@ -0,0 +1,52 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+// Турнир на выбывание: регистрация, посев по рейтингу, раунды из мультиплеерных комнат
+@Getter
+@Setter
+@Entity
+@Table(name = "tournaments")
+public class Tournament {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    // Игрок, создавший турнир; только он может его запустить
+    private Long createdBy;
+
+    @Enumerated(EnumType.STRING)
+    private TournamentStatus status = TournamentStatus.REGISTRATION;
+
+    private int maxPlayers;
+
+    // Текущий раунд (с 1), 0 — турнир ещё не начат
+    @ColumnDefault("0")
+    private int currentRound;
+
+    // Всего раундов в сетке
+    @ColumnDefault("0")
+    private int rounds;
+
+    private Long winnerId;
+
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Матч турнирной сетки: пара игроков раунда и комната, в которой они играют
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tournament_matches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tournament_matches_slot", columnNames = {"tournamentId", "round", "slot"})
+}, indexes = {
+        @Index(name = "idx_tournament_matches_room", columnList = "roomCode")
+})
+public class TournamentMatch {
+    // Идентификаторы выдаются блоками из последовательности: матчи раунда
+    // вставляются одним пакетом (с IDENTITY Hibernate вставляет строки по одной)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tournament_match_seq")
+    @SequenceGenerator(name = "tournament_match_seq", sequenceName = "tournament_match_seq", allocationSize = 64)
+    private Long id;
+
+    private Long tournamentId;
+
+    // Раунд (с 1) и позиция матча в раунде (с 0); победители матчей 2k и 2k+1 встречаются в матче k
+    private int round;
+
+    private int slot;
+
+    private Long player1Id;
+
+    // null — соперника нет, player1 проходит в следующий раунд без игры
+    private Long player2Id;
+
+    // Код комнаты; null, пока комната не создана
+    private String roomCode;
+
+    private Long winnerId;
+
+    public TournamentMatch(Long tournamentId, int round, int slot, Long player1Id, Long player2Id) {
+        this.tournamentId = tournamentId;
+        this.round = round;
+        this.slot = slot;
+        this.player1Id = player1Id;
+        this.player2Id = player2Id;
+    }
+}
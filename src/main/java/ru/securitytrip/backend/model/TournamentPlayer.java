@@ -0,0 +1,45 @@
+package ru.securitytrip.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+// Участник турнира
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tournament_players", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tournament_players_player", columnNames = {"tournamentId", "playerId"})
+})
+public class TournamentPlayer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long tournamentId;
+
+    // Идентификатор игрока в партиях (тот же, что player1Id/player2Id комнаты)
+    private Long playerId;
+
+    // Место в посеве (с 1); проставляется при старте турнира
+    private Integer seed;
+
+    // Рейтинг на момент старта турнира, по нему выполнен посев
+    private Double rating;
+
+    @ColumnDefault("false")
+    private boolean eliminated;
+
+    private Instant registeredAt;
+
+    public TournamentPlayer(Long tournamentId, Long playerId) {
+        this.tournamentId = tournamentId;
+        this.playerId = playerId;
+        this.registeredAt = Instant.now();
+    }
+}
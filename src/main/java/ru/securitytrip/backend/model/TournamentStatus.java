@@ -0,0 +1,7 @@
+package ru.securitytrip.backend.model;
+
+public enum TournamentStatus {
+    REGISTRATION, // Идёт регистрация
+    IN_PROGRESS,  // Турнир идёт
+    FINISHED      // Победитель определён
+}
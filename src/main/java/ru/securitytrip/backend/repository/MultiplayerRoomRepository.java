@@ -1,8 +1,57 @@
 package ru.securitytrip.backend.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.securitytrip.backend.model.GameState;
 import ru.securitytrip.backend.model.MultiplayerRoomEntity;
 
-public interface MultiplayerRoomRepository extends JpaRepository<MultiplayerRoomEntity, String> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MultiplayerRoomRepository extends JpaRepository<MultiplayerRoomEntity, String>, MultiplayerRoomRepositoryCustom {
     // поиск по коду комнаты уже реализован через findById
-} 
\ No newline at end of file
+
+    // Какие из кодов ещё есть в БД среди неархивных комнат (сверка журнала комнат)
+    @Query("SELECT r.code FROM MultiplayerRoomEntity r WHERE r.code IN :codes AND r.archived = false")
+    List<String> findLiveCodes(Collection<String> codes);
+
+    // Версия состояния без загрузки досок: проверка, не устарел ли готовый кадр
+    @Query("SELECT r.stateVersion FROM MultiplayerRoomEntity r WHERE r.code = :code")
+    Optional<Long> findStateVersion(String code);
+
+    // Коды комнат с указанными статусами, неактивных с момента cutoff (для очистки пачками)
+    @Query("SELECT r.code FROM MultiplayerRoomEntity r " +
+            "WHERE r.status IN :statuses AND r.archived = false AND r.lastActivityAt < :cutoff " +
+            "ORDER BY r.lastActivityAt")
+    List<String> findIdleRoomCodes(Collection<GameState> statuses, Instant cutoff, Pageable pageable);
+
+    // Комнаты без статуса (созданные до появления жизненного цикла)
+    @Query("SELECT r.code FROM MultiplayerRoomEntity r " +
+            "WHERE r.status IS NULL AND r.archived = false AND r.lastActivityAt < :cutoff " +
+            "ORDER BY r.lastActivityAt")
+    List<String> findIdleLegacyRoomCodes(Instant cutoff, Pageable pageable);
+
+    @Query("SELECT r.code FROM MultiplayerRoomEntity r " +
+            "WHERE r.archived = true AND r.lastActivityAt < :cutoff ORDER BY r.lastActivityAt")
+    List<String> findExpiredArchivedRoomCodes(Instant cutoff, Pageable pageable);
+
+    // Старые строки без времени активности получают текущее время, чтобы не удалить их сразу
+    @Transactional
+    @Modifying
+    @Query("UPDATE MultiplayerRoomEntity r SET r.lastActivityAt = :now WHERE r.lastActivityAt IS NULL")
+    int backfillLastActivity(Instant now);
+
+    // Архивирование: удаляем тяжёлые LOB-колонки, оставляем итоговое состояние игры.
+    // lastActivityAt сдвигается на момент архивации, от него отсчитывается срок хранения архива
+    @Transactional
+    @Modifying
+    @Query("UPDATE MultiplayerRoomEntity r SET r.player1ShipsJson = null, r.player2ShipsJson = null, " +
+            "r.player1BoardJson = null, r.player2BoardJson = null, r.archived = true, r.lastActivityAt = :now " +
+            "WHERE r.code IN :codes")
+    int archiveByCodes(Collection<String> codes, Instant now);
+}
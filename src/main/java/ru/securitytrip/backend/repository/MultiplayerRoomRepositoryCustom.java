@@ -0,0 +1,14 @@
+package ru.securitytrip.backend.repository;
+
+import ru.securitytrip.backend.model.MultiplayerRoomEntity;
+
+import java.util.List;
+
+public interface MultiplayerRoomRepositoryCustom {
+    /**
+     * Вставляет новые комнаты пакетами. В отличие от saveAll, не проверяет
+     * существование каждой комнаты (у комнат назначаемый ключ, и save
+     * делает SELECT на каждую строку перед вставкой)
+     */
+    void persistAll(List<MultiplayerRoomEntity> rooms);
+}
@@ -0,0 +1,31 @@
+package ru.securitytrip.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import ru.securitytrip.backend.model.MultiplayerRoomEntity;
+
+import java.util.List;
+
+public class MultiplayerRoomRepositoryCustomImpl implements MultiplayerRoomRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Совпадает с размером пакета JDBC: каждый flush отправляет один пакет INSERT
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public void persistAll(List<MultiplayerRoomEntity> rooms) {
+        for (int i = 0; i < rooms.size(); i++) {
+            entityManager.persist(rooms.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+            }
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,9 @@
+package ru.securitytrip.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.PlayerRating;
+
+@Repository
+public interface PlayerRatingRepository extends JpaRepository<PlayerRating, Long> {
+}
@@ -0,0 +1,9 @@
+package ru.securitytrip.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.PlayerStats;
+
+@Repository
+public interface PlayerStatsRepository extends JpaRepository<PlayerStats, Long>, PlayerStatsRepositoryCustom {
+}
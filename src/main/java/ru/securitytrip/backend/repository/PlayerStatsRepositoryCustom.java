@@ -0,0 +1,13 @@
+package ru.securitytrip.backend.repository;
+
+import ru.securitytrip.backend.model.PlayerStats;
+
+import java.util.Collection;
+
+public interface PlayerStatsRepositoryCustom {
+    /**
+     * Прибавляет счётчики к строкам игроков (создавая недостающие строки)
+     * пакетными запросами; возвращает число затронутых игроков
+     */
+    int addAll(Collection<PlayerStats> deltas);
+}
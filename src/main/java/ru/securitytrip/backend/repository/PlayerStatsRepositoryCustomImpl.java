@@ -0,0 +1,71 @@
+package ru.securitytrip.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.securitytrip.backend.model.PlayerStats;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Пакетное приращение счётчиков player_stats: один пакет UPDATE ... SET x = x + ?
+ * для всех игроков, затем один пакет INSERT для тех, у кого строки ещё нет.
+ * Приращения складываются в БД, поэтому записи с разных узлов не затирают друг друга
+ */
+public class PlayerStatsRepositoryCustomImpl implements PlayerStatsRepositoryCustom {
+
+    private static final String UPDATE_SQL = "UPDATE player_stats SET games_played = games_played + ?, wins = wins + ?, " +
+            "shots = shots + ?, hits = hits + ?, shots_in_wins = shots_in_wins + ?, tracked_wins = tracked_wins + ?, " +
+            "shore_placements = shore_placements + ?, asymmetric_placements = asymmetric_placements + ?, " +
+            "random_placements = random_placements + ?, updated_at = ? WHERE player_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO player_stats (games_played, wins, shots, hits, shots_in_wins, " +
+            "tracked_wins, shore_placements, asymmetric_placements, random_placements, updated_at, player_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int addAll(Collection<PlayerStats> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<PlayerStats> rows = new ArrayList<>(deltas);
+        Timestamp now = Timestamp.from(Instant.now());
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, delta) -> bind(ps, delta, now))[0];
+
+        List<PlayerStats> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), (ps, delta) -> bind(ps, delta, now));
+        }
+        return rows.size();
+    }
+
+    // Параметры в одном порядке для UPDATE и INSERT: счётчики, время, id игрока
+    private static void bind(PreparedStatement ps, PlayerStats delta, Timestamp now) throws SQLException {
+        ps.setLong(1, delta.getGamesPlayed());
+        ps.setLong(2, delta.getWins());
+        ps.setLong(3, delta.getShots());
+        ps.setLong(4, delta.getHits());
+        ps.setLong(5, delta.getShotsInWins());
+        ps.setLong(6, delta.getTrackedWins());
+        ps.setLong(7, delta.getShorePlacements());
+        ps.setLong(8, delta.getAsymmetricPlacements());
+        ps.setLong(9, delta.getRandomPlacements());
+        ps.setTimestamp(10, now);
+        ps.setLong(11, delta.getPlayerId());
+    }
+}
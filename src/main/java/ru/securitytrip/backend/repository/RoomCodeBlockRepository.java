@@ -0,0 +1,18 @@
+package ru.securitytrip.backend.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.RoomCodeBlock;
+
+import java.util.Optional;
+
+@Repository
+public interface RoomCodeBlockRepository extends JpaRepository<RoomCodeBlock, Integer> {
+    // Строка блокируется до конца транзакции, чтобы два экземпляра не получили один блок
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM RoomCodeBlock b WHERE b.nodeId = :nodeId")
+    Optional<RoomCodeBlock> findForUpdate(Integer nodeId);
+}
@@ -0,0 +1,13 @@
+package ru.securitytrip.backend.repository;
+
+import ru.securitytrip.backend.model.ShotHabits;
+
+import java.util.Collection;
+
+public interface ShotHabitsRepositoryCustom {
+    /**
+     * Прибавляет накопленные изменения к строкам игроков (создавая недостающие
+     * строки) в одной транзакции; возвращает число затронутых игроков
+     */
+    int addAll(Collection<ShotHabits> deltas);
+}
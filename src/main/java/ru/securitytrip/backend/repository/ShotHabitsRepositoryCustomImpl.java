@@ -0,0 +1,53 @@
+package ru.securitytrip.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.securitytrip.backend.model.ShotHabits;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное приращение гистограмм player_shot_habits. Гистограмма хранится
+ * одним значением, поэтому сложить её в SQL, как счётчики player_stats,
+ * нельзя: строки игроков читаются одним SELECT ... FOR UPDATE, складываются
+ * в памяти и пишутся пакетом при фиксации. Блокировка не даёт записям с
+ * разных узлов затереть друг друга
+ */
+public class ShotHabitsRepositoryCustomImpl implements ShotHabitsRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int addAll(Collection<ShotHabits> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = deltas.stream().map(ShotHabits::getPlayerId).toList();
+        Map<Long, ShotHabits> rows = entityManager
+                .createQuery("SELECT h FROM ShotHabits h WHERE h.playerId IN :ids", ShotHabits.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultStream()
+                .collect(Collectors.toMap(ShotHabits::getPlayerId, Function.identity()));
+        Instant now = Instant.now();
+        for (ShotHabits delta : deltas) {
+            ShotHabits row = rows.get(delta.getPlayerId());
+            if (row == null) {
+                row = new ShotHabits(delta.getPlayerId());
+                entityManager.persist(row);
+            }
+            row.add(delta);
+            row.setUpdatedAt(now);
+        }
+        return deltas.size();
+    }
+}
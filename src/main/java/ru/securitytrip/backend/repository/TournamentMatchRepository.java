@@ -0,0 +1,45 @@
+package ru.securitytrip.backend.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.TournamentMatch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TournamentMatchRepository extends JpaRepository<TournamentMatch, Long> {
+    Optional<TournamentMatch> findByRoomCode(String roomCode);
+
+    // Проверка "турнирная ли комната" для каждой завершённой партии — без загрузки матча
+    @Query("SELECT m.tournamentId FROM TournamentMatch m WHERE m.roomCode = :roomCode")
+    Optional<Long> findTournamentIdByRoomCode(String roomCode);
+
+    // Несыгранные матчи среди комнат, которые удаляет очистка
+    List<TournamentMatch> findByRoomCodeInAndWinnerIdIsNull(Collection<String> roomCodes);
+
+    List<TournamentMatch> findByTournamentIdAndRoundOrderBySlotAsc(Long tournamentId, int round);
+
+    List<TournamentMatch> findByTournamentIdOrderByRoundAscSlotAsc(Long tournamentId);
+
+    long countByTournamentIdAndRoundAndWinnerIdIsNull(Long tournamentId, int round);
+
+    @Query("SELECT m FROM TournamentMatch m WHERE m.tournamentId = :tournamentId AND m.winnerId IS NULL " +
+            "AND (m.player1Id = :playerId OR m.player2Id = :playerId)")
+    Optional<TournamentMatch> findUnfinished(Long tournamentId, Long playerId);
+
+    // Матчи, для которых ещё нет комнаты. Строки блокируются до конца транзакции; строки,
+    // уже взятые другим узлом, пропускаются (SKIP LOCKED), поэтому комната создаётся один раз
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM TournamentMatch m WHERE m.roomCode IS NULL AND m.winnerId IS NULL " +
+            "AND m.player2Id IS NOT NULL ORDER BY m.id")
+    List<TournamentMatch> findWithoutRoomForUpdate(Pageable pageable);
+}
@@ -0,0 +1,22 @@
+package ru.securitytrip.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.TournamentPlayer;
+
+import java.util.List;
+
+@Repository
+public interface TournamentPlayerRepository extends JpaRepository<TournamentPlayer, Long> {
+    List<TournamentPlayer> findByTournamentIdOrderByIdAsc(Long tournamentId);
+
+    boolean existsByTournamentIdAndPlayerId(Long tournamentId, Long playerId);
+
+    long countByTournamentId(Long tournamentId);
+
+    @Modifying
+    @Query("UPDATE TournamentPlayer p SET p.eliminated = true WHERE p.tournamentId = :tournamentId AND p.playerId = :playerId")
+    int markEliminated(Long tournamentId, Long playerId);
+}
@@ -0,0 +1,19 @@
+package ru.securitytrip.backend.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.securitytrip.backend.model.Tournament;
+
+import java.util.Optional;
+
+@Repository
+public interface TournamentRepository extends JpaRepository<Tournament, Long> {
+    // Изменения турнира (регистрация, старт, итог матча) идут по одному под блокировкой строки,
+    // в том числе с разных узлов
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tournament t WHERE t.id = :id")
+    Optional<Tournament> findForUpdate(Long id);
+}
@@ -0,0 +1,196 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import ru.securitytrip.backend.dto.MoveRequest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Кластерный режим: несколько экземпляров бэкенда за балансировщиком.
+ *
+ * Каждая комната принадлежит одному узлу. Для новых кодов узел-владелец записан
+ * в первом символе кода (см. RoomCodeAllocator), для старых — вычисляется хешем
+ * кода по числу узлов. Ходы, пришедшие на чужой узел, пересылаются владельцу
+ * по внутреннему HTTP-каналу (/internal/cluster), а все рассылки в /topic
+ * ретранслируются остальным узлам, так как клиенты подписаны на своём узле.
+ *
+ * При game.cluster.enabled=false все комнаты считаются локальными.
+ */
+@Service
+public class ClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterService.class);
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String ORIGIN_HEADER = "X-Cluster-Origin";
+    public static final String DESTINATION_HEADER = "X-Cluster-Destination";
+
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+
+    @Value("${game.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${game.node.id:0}")
+    private int nodeId;
+
+    // Базовые URL узлов; индекс в списке — идентификатор узла
+    @Value("${game.cluster.nodes:}")
+    private String[] nodes;
+
+    @Value("${game.cluster.secret:}")
+    private String secret;
+
+    @Value("${game.cluster.connect-timeout:PT1S}")
+    private Duration connectTimeout;
+
+    @Value("${game.cluster.read-timeout:PT5S}")
+    private Duration readTimeout;
+
+    private RestClient restClient;
+
+    // Ретрансляция не должна задерживать поток брокера
+    private final ExecutorService relayExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (nodes.length == 0) {
+            throw new IllegalStateException("game.cluster.enabled=true, но список game.cluster.nodes пуст");
+        }
+        if (nodeId < 0 || nodeId >= nodes.length) {
+            throw new IllegalStateException("game.node.id=" + nodeId + " вне списка game.cluster.nodes");
+        }
+        if (secret == null || secret.isBlank()) {
+            // /internal/cluster открыт без аутентификации и защищён только этим секретом
+            throw new IllegalStateException("Для кластерного режима нужен game.cluster.secret (GAME_CLUSTER_SECRET)");
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(connectTimeout).build());
+        requestFactory.setReadTimeout(readTimeout);
+        restClient = restClientBuilder.requestFactory(requestFactory).build();
+        logger.info("Кластерный режим: узел {} из {} ({})", nodeId, nodes.length, nodes[nodeId]);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Узел-владелец комнаты
+     */
+    public int ownerOf(String gameCode) {
+        return ownerOf(gameCode, nodes.length);
+    }
+
+    static int ownerOf(String gameCode, int nodeCount) {
+        if (nodeCount <= 1) {
+            return 0;
+        }
+        int encoded = RoomCodeAllocator.nodeIdOf(gameCode);
+        if (encoded >= 0 && encoded < nodeCount) {
+            return encoded;
+        }
+        // Старый формат кода или узел, которого больше нет в списке
+        return Math.floorMod(gameCode.hashCode(), nodeCount);
+    }
+
+    /**
+     * true, если комнату обслуживает этот узел (или кластерный режим выключен)
+     */
+    public boolean isLocal(String gameCode) {
+        return !enabled || gameCode == null || ownerOf(gameCode) == nodeId;
+    }
+
+    /**
+     * Пересылает ход владельцу комнаты. Владелец выполняет ход и сам рассылает
+     * результат, который затем ретранслируется на все узлы
+     */
+    public void forwardMove(MoveRequest moveRequest) {
+        int owner = ownerOf(moveRequest.getGameCode());
+        logger.debug("Пересылка хода в комнате {} на узел {}", moveRequest.getGameCode(), owner);
+        try {
+            restClient.post()
+                    .uri(nodes[owner] + "/internal/cluster/multiplayer/move")
+                    .header(SECRET_HEADER, secret)
+                    .header(ORIGIN_HEADER, String.valueOf(nodeId))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(moveRequest)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientResponseException e) {
+            // Ошибку хода (не ваш ход, клетка уже обстреляна) передаём вызывающему как есть
+            throw new RuntimeException(e.getResponseBodyAsString(StandardCharsets.UTF_8), e);
+        }
+    }
+
+    /**
+     * Асинхронно отправляет сообщение из /topic всем остальным узлам
+     */
+    public void relayBroadcast(String destination, byte[] payload, MimeType contentType) {
+        if (!enabled) {
+            return;
+        }
+        String mediaType = contentType != null ? contentType.toString() : MediaType.APPLICATION_JSON_VALUE;
+        for (int peer = 0; peer < nodes.length; peer++) {
+            if (peer == nodeId) {
+                continue;
+            }
+            String peerUrl = nodes[peer];
+            relayExecutor.execute(() -> {
+                try {
+                    restClient.post()
+                            .uri(peerUrl + "/internal/cluster/broadcast")
+                            .header(SECRET_HEADER, secret)
+                            .header(ORIGIN_HEADER, String.valueOf(nodeId))
+                            .header(DESTINATION_HEADER, destination)
+                            .contentType(MediaType.parseMediaType(mediaType))
+                            .body(payload)
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (Exception e) {
+                    logger.warn("Не удалось ретранслировать {} на узел {}: {}", destination, peerUrl, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Проверка общего секрета во внутренних запросах (сравнение за постоянное время)
+     */
+    public boolean isTrustedPeer(String presentedSecret) {
+        if (!enabled || presentedSecret == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8),
+                presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,246 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.Game;
+import ru.securitytrip.backend.model.GameBoard;
+import ru.securitytrip.backend.model.Ship;
+import ru.securitytrip.engine.Board;
+import ru.securitytrip.engine.Fleet;
+import ru.securitytrip.engine.ShotOutcome;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Серия ходов компьютера в одиночной игре: выстрелы до промаха, победы
+ * или лимита ходов подряд, рассчитанные по снимку игры без обращения к БД.
+ *
+ * Результат зависит только от снимка — доски и кораблей игрока, состояния
+ * добивания (HARD), seed игры и номера хода генератора. Выстрелы игрока
+ * меняют только доску компьютера, поэтому серию можно посчитать заранее,
+ * пока игрок думает, и применить без пересчёта, если снимок не изменился.
+ */
+record ComputerTurn(Snapshot snapshot, List<Shot> shots, String boardState, String shipsData,
+                    List<Game.PendingHit> pendingHits, int lastHitX, int lastHitY, long rngStep,
+                    boolean computerWon, boolean turnPassed) {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComputerTurn.class);
+
+    // Не более стольких выстрелов компьютера подряд
+    static final int MAX_SHOTS = 15;
+
+    private static final int[][] DIRECTIONS = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+
+    /**
+     * Всё, от чего зависит серия ходов компьютера
+     */
+    record Snapshot(String boardState, String shipsData, DifficultyLevel difficulty,
+                    List<Game.PendingHit> pendingHits, int lastHitX, int lastHitY,
+                    long rngSeed, long rngStep) {
+
+        static Snapshot of(Game game) {
+            GameBoard playerBoard = game.getPlayerBoard();
+            return new Snapshot(playerBoard.getBoardState(), playerBoard.getShipsData(), game.getDifficultyLevel(),
+                    copyOf(game.getPendingHits()), game.getLastHitX(), game.getLastHitY(),
+                    game.getRngSeed(), game.getRngStep());
+        }
+    }
+
+    record Shot(int x, int y, boolean hit, boolean sunk) {
+    }
+
+    /**
+     * Рассчитывает серию ходов; каждый выстрел использует генератор
+     * GameRandom.forStep(seed, номер хода), как и при ходе без предрасчёта
+     */
+    static ComputerTurn plan(Snapshot snapshot, ObjectMapper objectMapper) {
+        GameBoard board = new GameBoard();
+        board.setBoardState(snapshot.boardState());
+        int[][] boardArray = board.getBoardAsArray();
+        List<Game.PendingHit> pendingHits = copyOf(snapshot.pendingHits());
+        DifficultyLevel difficulty = snapshot.difficulty();
+        int lastHitX = snapshot.lastHitX();
+        int lastHitY = snapshot.lastHitY();
+        long step = snapshot.rngStep();
+
+        List<Ship> playerShips = null;
+        Board target = null;
+        List<Shot> shots = new ArrayList<>();
+        boolean computerWon = false;
+        boolean turnPassed = false;
+
+        while (true) {
+            if (shots.size() >= MAX_SHOTS) {
+                logger.warn("Достигнуто максимальное количество последовательных ходов компьютера ({}), передаем ход игроку", MAX_SHOTS);
+                turnPassed = true;
+                break;
+            }
+
+            // Генератор этого выстрела: определяется seed игры и номером хода компьютера
+            step++;
+            SplittableRandom rng = GameRandom.forStep(snapshot.rngSeed(), step);
+            int[] coordinates = new int[2]; // [x, y]
+            boolean validMove;
+            if (difficulty == DifficultyLevel.MEDIUM) {
+                // Выстрелы по шахматной доске
+                validMove = makeCheckerboardShot(boardArray, coordinates, rng);
+            } else if (difficulty == DifficultyLevel.HARD) {
+                // Случайные выстрелы с добиванием кораблей
+                validMove = makeSmartShot(boardArray, coordinates, pendingHits, lastHitX, lastHitY, rng);
+            } else {
+                // EASY и по умолчанию - полностью случайные выстрелы
+                validMove = makeRandomShot(boardArray, coordinates, rng);
+            }
+            if (!validMove) {
+                break;
+            }
+
+            int x = coordinates[0];
+            int y = coordinates[1];
+            // Дополнительная проверка, чтобы убедиться, что клетка еще не обстреляна
+            if (boardArray[y][x] == 2 || boardArray[y][x] == 3) {
+                logger.error("Ошибка в логике игры: компьютер пытается выстрелить в уже обстреляную клетку x={}, y={}", x, y);
+                turnPassed = true;
+                break;
+            }
+
+            if (playerShips == null) {
+                playerShips = readShips(snapshot.shipsData(), objectMapper);
+                target = new Board(boardArray, Fleets.ofShips(playerShips), true);
+            }
+            // Попадание (3) или промах (2); вокруг потопленного корабля клетки помечаются как промах
+            ShotOutcome outcome = target.shoot(x, y);
+            int hitShip = target.lastShip();
+            Fleets.copyHits(target.fleet(), hitShip, playerShips);
+            boolean hit = outcome.isHit();
+            boolean sunk = outcome == ShotOutcome.SUNK;
+            shots.add(new Shot(x, y, hit, sunk));
+
+            if (!hit) {
+                // Промах на HARD: pendingHits остаются, lastHitX/lastHitY сбрасываются
+                if (difficulty == DifficultyLevel.HARD) {
+                    lastHitX = -1;
+                    lastHitY = -1;
+                }
+                turnPassed = true;
+                break;
+            }
+
+            if (difficulty == DifficultyLevel.HARD) {
+                Game.PendingHit pendingHit = new Game.PendingHit(x, y);
+                if (!sunk && !pendingHits.contains(pendingHit)) {
+                    pendingHits.add(pendingHit);
+                }
+                lastHitX = x;
+                lastHitY = y;
+                if (sunk) {
+                    // Корабль потоплен - его попадания больше не нужно добивать
+                    Fleet fleet = target.fleet();
+                    pendingHits.removeIf(ph -> fleet.shipAt(ph.getX(), ph.getY()) == hitShip);
+                }
+            }
+            if (target.isGameOver()) {
+                computerWon = true;
+                break;
+            }
+            // Попал - компьютер ходит еще раз
+        }
+
+        String shipsData = null;
+        if (shots.stream().anyMatch(Shot::hit)) {
+            try {
+                shipsData = objectMapper.writeValueAsString(playerShips);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Ошибка при сохранении данных о кораблях игрока", e);
+            }
+        }
+        return new ComputerTurn(snapshot, List.copyOf(shots), board.convertBoardToString(boardArray), shipsData,
+                pendingHits, lastHitX, lastHitY, step, computerWon, turnPassed);
+    }
+
+    private static List<Ship> readShips(String shipsData, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(shipsData,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Ошибка при получении данных о кораблях игрока", e);
+        }
+    }
+
+    private static List<Game.PendingHit> copyOf(List<Game.PendingHit> pendingHits) {
+        List<Game.PendingHit> copy = new ArrayList<>(pendingHits.size());
+        for (Game.PendingHit ph : pendingHits) {
+            copy.add(new Game.PendingHit(ph.getX(), ph.getY()));
+        }
+        return copy;
+    }
+
+    // Случайный выстрел (для EASY)
+    private static boolean makeRandomShot(int[][] boardArray, int[] coordinates, SplittableRandom rng) {
+        int maxAttempts = 500; // Предотвращение бесконечного цикла
+        for (int attempts = 0; attempts < maxAttempts; attempts++) {
+            int x = rng.nextInt(10);
+            int y = rng.nextInt(10);
+            // Проверяем, что по этой клетке еще не стреляли
+            if (boardArray[y][x] != 2 && boardArray[y][x] != 3) {
+                coordinates[0] = x;
+                coordinates[1] = y;
+                return true;
+            }
+        }
+        logger.warn("Не удалось найти клетку для случайного выстрела после {} попыток", maxAttempts);
+        return false;
+    }
+
+    // Выстрел по шахматной доске (для MEDIUM)
+    private static boolean makeCheckerboardShot(int[][] boardArray, int[] coordinates, SplittableRandom rng) {
+        for (int attempts = 0; attempts < 100; attempts++) {
+            int x = rng.nextInt(10);
+            int y = rng.nextInt(10);
+            // Клетка следует шахматному паттерну (сумма координат четная), и по ней еще не стреляли
+            if ((x + y) % 2 == 0 && boardArray[y][x] != 2 && boardArray[y][x] != 3) {
+                coordinates[0] = x;
+                coordinates[1] = y;
+                return true;
+            }
+        }
+        logger.debug("Не удалось найти подходящую клетку по шахматной стратегии, переключаемся на случайную");
+        return makeRandomShot(boardArray, coordinates, rng);
+    }
+
+    // Умный выстрел с добиванием кораблей (для HARD)
+    private static boolean makeSmartShot(int[][] boardArray, int[] coordinates, List<Game.PendingHit> pendingHits,
+                                         int lastHitX, int lastHitY, SplittableRandom rng) {
+        // Если есть "висящие" попадания, пытаемся добить их
+        for (Game.PendingHit ph : pendingHits) {
+            if (shootNear(boardArray, coordinates, ph.getX(), ph.getY())) {
+                return true;
+            }
+        }
+        // Если нет pendingHits или не нашли подходящую клетку, используем lastHitX/lastHitY
+        if (lastHitX >= 0 && lastHitY >= 0 && shootNear(boardArray, coordinates, lastHitX, lastHitY)) {
+            return true;
+        }
+        logger.debug("Не удалось найти подходящую клетку для добивания, переключаемся на случайную");
+        return makeRandomShot(boardArray, coordinates, rng);
+    }
+
+    private static boolean shootNear(int[][] boardArray, int[] coordinates, int x, int y) {
+        for (int[] dir : DIRECTIONS) {
+            int newX = x + dir[0];
+            int newY = y + dir[1];
+            if (newX >= 0 && newX < 10 && newY >= 0 && newY < 10 &&
+                    boardArray[newY][newX] != 2 && boardArray[newY][newX] != 3) {
+                coordinates[0] = newX;
+                coordinates[1] = newY;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.securitytrip.backend.model.Game;
+import ru.securitytrip.backend.model.GameState;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Предрасчёт хода компьютера, пока игрок думает.
+ *
+ * Когда ход переходит к игроку, серия ходов компьютера (ComputerTurn)
+ * запускается в фоне по снимку игры. Ход игрока её не меняет: попадание
+ * оставляет ход игроку и тот же снимок, а при промахе GameService забирает
+ * готовую серию и применяет её без расчёта в потоке запроса. Серия берётся,
+ * только если снимок совпадает с текущим состоянием игры, поэтому результат
+ * тот же, что и без предрасчёта; иначе ход считается как обычно.
+ */
+@Service
+public class ComputerTurnSpeculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComputerTurnSpeculator.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${game.ai.speculative.enabled:true}")
+    private boolean enabled;
+
+    // Не больше стольких одновременно предрасчитанных игр
+    @Value("${game.ai.speculative.max-games:10000}")
+    private int maxGames;
+
+    // Предрасчёт брошенной игры удаляется через ttl
+    @Value("${game.ai.speculative.ttl:PT30M}")
+    private Duration ttl;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, Speculation> speculations = new ConcurrentHashMap<>();
+
+    private record Speculation(ComputerTurn.Snapshot snapshot, CompletableFuture<ComputerTurn> turn, long createdNanos) {
+    }
+
+    /**
+     * Запускает предрасчёт, если сейчас ход игрока и для этого состояния его ещё нет
+     */
+    public void prepare(Game game) {
+        if (!enabled || game.getId() == null || game.getRngSeed() == null
+                || game.getGameState() != GameState.IN_PROGRESS || !game.isPlayerTurn()) {
+            return;
+        }
+        ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game);
+        Speculation current = speculations.get(game.getId());
+        if (current != null && current.snapshot().equals(snapshot)) {
+            return;
+        }
+        if (current == null && speculations.size() >= maxGames) {
+            logger.debug("Предрасчёт хода компьютера пропущен: уже {} игр", speculations.size());
+            return;
+        }
+        CompletableFuture<ComputerTurn> turn = CompletableFuture.supplyAsync(
+                () -> ComputerTurn.plan(snapshot, objectMapper), executor);
+        Speculation previous = speculations.put(game.getId(), new Speculation(snapshot, turn, System.nanoTime()));
+        if (previous != null) {
+            previous.turn().cancel(false);
+        }
+    }
+
+    /**
+     * Серия для этого снимка или null (нет предрасчёта или снимок устарел)
+     */
+    ComputerTurn take(Long gameId, ComputerTurn.Snapshot snapshot) {
+        Speculation speculation = gameId != null ? speculations.remove(gameId) : null;
+        if (speculation == null) {
+            return null;
+        }
+        if (!speculation.snapshot().equals(snapshot)) {
+            speculation.turn().cancel(false);
+            logger.debug("Предрасчёт хода компьютера в игре {} устарел", gameId);
+            return null;
+        }
+        // Незаконченный расчёт уже идёт и завершится раньше нового; с ошибкой - ход считается заново
+        try {
+            return speculation.turn().join();
+        } catch (RuntimeException e) {
+            logger.debug("Предрасчёт хода компьютера в игре {} не удался: {}", gameId, e.getMessage());
+            return null;
+        }
+    }
+
+    public void discard(Long gameId) {
+        Speculation speculation = gameId != null ? speculations.remove(gameId) : null;
+        if (speculation != null) {
+            speculation.turn().cancel(false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${game.ai.speculative.cleanup-interval-ms:60000}")
+    public void evictAbandoned() {
+        long cutoff = System.nanoTime() - ttl.toNanos();
+        speculations.values().removeIf(speculation -> speculation.createdNanos() - cutoff < 0);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    int size() {
+        return speculations.size();
+    }
+}
@@ -0,0 +1,206 @@
+package ru.securitytrip.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.securitytrip.backend.model.Game;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гостевые одиночные игры: объект Game целиком живёт в памяти узла и не
+ * пишется в БД ни при создании, ни на ходах. В БД игра попадает, когда
+ * закончилась или игрок попросил её сохранить; после этого старый
+ * (отрицательный) id ещё idle-ttl ведёт на сохранённую игру.
+ *
+ * Хранилище ограничено max-games играми: при переполнении вытесняется игра,
+ * к которой дольше всех не обращались (LRU), а игры без обращений дольше
+ * idle-ttl удаляет фоновая очистка. Брошенная гостевая игра просто исчезает.
+ *
+ * Гостевые игры отличаются по знаку id: у них id < 0, у игр из БД — > 0.
+ * Игра есть только на создавшем её узле, поэтому в кластере без привязки
+ * клиента к узлу режим нужно выключать.
+ */
+@Service
+public class EphemeralGameStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(EphemeralGameStore.class);
+
+    @Value("${game.singleplayer.ephemeral.enabled:true}")
+    private boolean enabled;
+
+    // Режим игры, если в запросе на создание он не указан
+    @Value("${game.singleplayer.ephemeral.by-default:true}")
+    private boolean byDefault;
+
+    @Value("${game.singleplayer.ephemeral.max-games:10000}")
+    private int maxGames;
+
+    @Value("${game.singleplayer.ephemeral.idle-ttl:PT30M}")
+    private Duration idleTtl;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // Игра в памяти или отметка о том, под каким id она сохранена в БД
+    private static final class Entry {
+        final Game game;
+        final Long persistedId;
+        long lastAccessNanos;
+
+        Entry(Game game, Long persistedId, long now) {
+            this.game = game;
+            this.persistedId = persistedId;
+            this.lastAccessNanos = now;
+        }
+    }
+
+    // Отсчёт от времени запуска: id игр, потерянных при перезапуске, не достаются новым
+    private final AtomicLong nextId = new AtomicLong(-System.currentTimeMillis() * 1000);
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+
+    // Порядок доступа: первой идёт игра, к которой дольше всех не обращались
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() <= maxGames) {
+                return false;
+            }
+            if (eldest.getValue().game != null) {
+                evicted.increment();
+                logger.debug("Гостевая игра {} вытеснена из памяти", eldest.getKey());
+            }
+            return true;
+        }
+    };
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (meterRegistry != null) {
+            Gauge.builder("game.singleplayer.ephemeral.entries", this, EphemeralGameStore::size)
+                    .description("Гостевые игры в памяти и отметки о сохранённых")
+                    .register(meterRegistry);
+            FunctionCounter.builder("game.singleplayer.ephemeral.evicted", evicted, LongAdder::sum)
+                    .description("Гостевые игры, удалённые из памяти без сохранения")
+                    .register(meterRegistry);
+            FunctionCounter.builder("game.singleplayer.ephemeral.persisted", persisted, LongAdder::sum)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static boolean isEphemeral(Long gameId) {
+        return gameId != null && gameId < 0;
+    }
+
+    /**
+     * Хранить ли новую игру только в памяти; requested — выбор игрока (null — не указан)
+     */
+    public boolean keepInMemory(Boolean requested) {
+        return enabled && (requested != null ? requested : byDefault);
+    }
+
+    /**
+     * Кладёт новую игру в память и назначает ей отрицательный id
+     */
+    public Game add(Game game) {
+        long id = nextId.decrementAndGet();
+        game.setId(id);
+        synchronized (entries) {
+            entries.put(id, new Entry(game, null, System.nanoTime()));
+        }
+        return game;
+    }
+
+    /**
+     * Игра из памяти или null (id не гостевой, игра вытеснена или уже сохранена)
+     */
+    public Game get(Long gameId) {
+        if (!isEphemeral(gameId)) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(gameId);
+            if (entry == null) {
+                return null;
+            }
+            entry.lastAccessNanos = System.nanoTime();
+            return entry.game;
+        }
+    }
+
+    /**
+     * id игры в БД: для сохранённой гостевой игры — её новый id, для неизвестной
+     * гостевой — null, для обычной — тот же id
+     */
+    public Long resolve(Long gameId) {
+        if (!isEphemeral(gameId)) {
+            return gameId;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(gameId);
+            if (entry == null) {
+                return null;
+            }
+            entry.lastAccessNanos = System.nanoTime();
+            return entry.persistedId;
+        }
+    }
+
+    /**
+     * Гостевая игра сохранена в БД: память освобождается, старый id ведёт на новый
+     */
+    public void persisted(Long ephemeralId, Long persistedId) {
+        synchronized (entries) {
+            entries.put(ephemeralId, new Entry(null, persistedId, System.nanoTime()));
+        }
+        persisted.increment();
+        logger.debug("Гостевая игра {} сохранена в БД под id {}", ephemeralId, persistedId);
+    }
+
+    @Scheduled(fixedDelayString = "${game.singleplayer.ephemeral.cleanup-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - idleTtl.toNanos();
+        int removed = 0;
+        synchronized (entries) {
+            // Записи идут от давно не использованных к свежим: дальше первой свежей смотреть незачем
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.lastAccessNanos - cutoff >= 0) {
+                    break;
+                }
+                iterator.remove();
+                if (entry.game != null) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            evicted.add(removed);
+            logger.info("Удалено брошенных гостевых игр: {}", removed);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long evictedCount() {
+        return evicted.sum();
+    }
+}
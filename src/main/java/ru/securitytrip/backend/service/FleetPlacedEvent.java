@@ -0,0 +1,9 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Игрок расставил флот к началу партии
+ *
+ * @param placement стратегия, на которую похожа расстановка (PlacementClassifier)
+ */
+public record FleetPlacedEvent(String gameKey, Long playerId, String placement) {
+}
@@ -0,0 +1,86 @@
+package ru.securitytrip.backend.service;
+
+import ru.securitytrip.backend.dto.ShipDto;
+import ru.securitytrip.backend.model.Ship;
+import ru.securitytrip.engine.Fleet;
+import ru.securitytrip.engine.FleetValidator;
+
+import java.util.List;
+
+/**
+ * Флот движка из кораблей одиночной игры (Ship) и мультиплеера (ShipDto).
+ * Номер корабля во флоте равен его индексу в списке
+ */
+final class Fleets {
+
+    private Fleets() {
+    }
+
+    static Fleet ofShips(List<Ship> ships) {
+        Fleet fleet = new Fleet(ships.size());
+        for (Ship ship : ships) {
+            fleet.add(ship.getX(), ship.getY(), ship.getSize(), ship.isHorizontal(), ship.getHitMask());
+        }
+        return fleet;
+    }
+
+    static Fleet ofDtos(List<ShipDto> ships) {
+        Fleet fleet = new Fleet(ships.size());
+        for (ShipDto ship : ships) {
+            int mask = 0;
+            boolean[] hits = ship.getHits();
+            if (hits != null) {
+                for (int i = 0; i < hits.length && i < ship.getSize(); i++) {
+                    if (hits[i]) {
+                        mask |= 1 << i;
+                    }
+                }
+            }
+            fleet.add(ship.getX(), ship.getY(), ship.getSize(), ship.isHorizontal(), mask);
+        }
+        return fleet;
+    }
+
+    /**
+     * Проверяет присланную расстановку целиком и бросает InvalidFleetException
+     * со всеми нарушениями. Пустой элемент списка считается кораблём недопустимого размера
+     */
+    static void validate(List<ShipDto> ships) {
+        FleetValidator validator = new FleetValidator();
+        if (ships != null) {
+            for (ShipDto ship : ships) {
+                if (ship == null) {
+                    validator.add(0, 0, 0, true);
+                } else {
+                    validator.add(ship.getX(), ship.getY(), ship.getSize(), ship.isHorizontal());
+                }
+            }
+        }
+        if (!validator.isValid()) {
+            throw new InvalidFleetException(validator.violations());
+        }
+    }
+
+    // Переносит попадания корабля из флота обратно в модель для сохранения
+    static void copyHits(Fleet fleet, int ship, List<Ship> ships) {
+        if (ship != Fleet.NO_SHIP) {
+            ships.get(ship).setHitMask(fleet.hitMask(ship));
+        }
+    }
+
+    static void copyDtoHits(Fleet fleet, int ship, List<ShipDto> ships) {
+        if (ship == Fleet.NO_SHIP) {
+            return;
+        }
+        ShipDto dto = ships.get(ship);
+        boolean[] hits = dto.getHits();
+        if (hits == null || hits.length < dto.getSize()) {
+            hits = new boolean[dto.getSize()];
+            dto.setHits(hits);
+        }
+        int mask = fleet.hitMask(ship);
+        for (int i = 0; i < dto.getSize(); i++) {
+            hits[i] = (mask & (1 << i)) != 0;
+        }
+    }
+}
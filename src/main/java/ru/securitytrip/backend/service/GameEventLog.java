@@ -0,0 +1,265 @@
+package ru.securitytrip.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Структурированный журнал игровых событий (выстрелы, конец партии).
+ *
+ * Поток хода только заполняет заранее выделенную ячейку кольцевого буфера:
+ * без форматирования строк, без блокировок и без ввода-вывода. Строки
+ * "event=... game=... x=... y=... result=..." собирает и пишет в логгер
+ * game.events отдельный поток. Если буфер полон, событие отбрасывается и
+ * учитывается в метрике game.events.log.dropped — ход не ждёт журнала.
+ *
+ * Для каждой категории задана доля записываемых событий (sample.*):
+ * 1.0 — все, 0 — ни одного.
+ */
+@Service
+public class GameEventLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameEventLog.class);
+    private static final Logger events = LoggerFactory.getLogger("game.events");
+
+    // Пауза потока записи, когда буфер пуст
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+
+    public enum Category {
+        PLAYER_SHOT("player_shot"),
+        COMPUTER_SHOT("computer_shot"),
+        MULTIPLAYER_SHOT("multiplayer_shot"),
+        GAME_FINISHED("game_finished");
+
+        private final String key;
+
+        Category(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final int MISS = 0;
+    private static final int HIT = 1;
+    private static final int SUNK = 2;
+    private static final int WON = 3;
+    private static final int LOST = 4;
+    private static final String[] RESULTS = {"miss", "hit", "sunk", "won", "lost"};
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${game.events.log.enabled:true}")
+    private boolean enabled;
+
+    // Округляется вверх до степени двойки
+    @Value("${game.events.log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${game.events.log.sample.player-shot:1.0}")
+    private double playerShotRate;
+
+    @Value("${game.events.log.sample.computer-shot:0.1}")
+    private double computerShotRate;
+
+    @Value("${game.events.log.sample.multiplayer-shot:1.0}")
+    private double multiplayerShotRate;
+
+    @Value("${game.events.log.sample.game-finished:1.0}")
+    private double gameFinishedRate;
+
+    /**
+     * Ячейка буфера. Поля пишет поток, занявший номер ячейки, затем публикует
+     * её записью sequence; поток журнала читает поля после того, как увидел sequence
+     */
+    private static final class Slot {
+        volatile long sequence = -1;
+        Category category;
+        long timeMillis;
+        long gameId;
+        // Код комнаты (MULTIPLAYER_SHOT) или ключ партии "game:"/"room:" (GAME_FINISHED)
+        String gameKey;
+        long playerId;
+        int x;
+        int y;
+        int result;
+    }
+
+    private Slot[] slots;
+    private int mask;
+    // Следующий свободный номер (производители) и следующий к записи (поток журнала)
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final StringBuilder line = new StringBuilder(128);
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @PostConstruct
+    public void start() {
+        if (meterRegistry != null) {
+            FunctionCounter.builder("game.events.log.dropped", dropped, LongAdder::sum)
+                    .description("События, отброшенные из-за переполненного буфера журнала")
+                    .register(meterRegistry);
+            FunctionCounter.builder("game.events.log.written", written, LongAdder::sum)
+                    .register(meterRegistry);
+            Gauge.builder("game.events.log.buffered", this, GameEventLog::buffered)
+                    .register(meterRegistry);
+        }
+        if (!enabled) {
+            return;
+        }
+        allocate();
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("game-events").start(this::run);
+        logger.info("Журнал игровых событий: буфер {} событий", slots.length);
+    }
+
+    // Буфер без потока записи; в тестах журнал вычитывается через drain()
+    void allocate() {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void playerShot(Long gameId, Long playerId, int x, int y, boolean hit, boolean sunk) {
+        record(Category.PLAYER_SHOT, playerShotRate, gameId, null, playerId, x, y, shotResult(hit, sunk));
+    }
+
+    public void computerShot(Long gameId, int x, int y, boolean hit, boolean sunk) {
+        record(Category.COMPUTER_SHOT, computerShotRate, gameId, null, null, x, y, shotResult(hit, sunk));
+    }
+
+    public void multiplayerShot(String gameCode, Long playerId, int x, int y, boolean hit, boolean sunk) {
+        record(Category.MULTIPLAYER_SHOT, multiplayerShotRate, null, gameCode, playerId, x, y, shotResult(hit, sunk));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameFinished(GameFinishedEvent event) {
+        record(Category.GAME_FINISHED, gameFinishedRate, null, event.gameKey(), event.player1Id(), -1, -1,
+                event.player1Won() ? WON : LOST);
+    }
+
+    private static int shotResult(boolean hit, boolean sunk) {
+        return sunk ? SUNK : hit ? HIT : MISS;
+    }
+
+    private void record(Category category, double rate, Long gameId, String gameKey, Long playerId,
+                        int x, int y, int result) {
+        if (slots == null || rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.category = category;
+        slot.timeMillis = System.currentTimeMillis();
+        slot.gameId = gameId != null ? gameId : -1;
+        slot.gameKey = gameKey;
+        slot.playerId = playerId != null ? playerId : -1;
+        slot.x = x;
+        slot.y = y;
+        slot.result = result;
+        slot.sequence = sequence;
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Пишет опубликованные события по порядку и возвращает их число.
+     * Вызывается только из одного потока
+     */
+    int drain() {
+        int count = 0;
+        long next = head;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence != next) {
+                break;
+            }
+            if (events.isInfoEnabled()) {
+                events.info(format(slot));
+            }
+            slot.gameKey = null;
+            next++;
+            head = next;
+            count++;
+        }
+        written.add(count);
+        return count;
+    }
+
+    private String format(Slot slot) {
+        StringBuilder sb = line;
+        sb.setLength(0);
+        sb.append("event=").append(slot.category.key);
+        sb.append(" ts=").append(slot.timeMillis);
+        sb.append(" game=");
+        if (slot.gameKey != null) {
+            sb.append(slot.category == Category.MULTIPLAYER_SHOT ? "room:" : "").append(slot.gameKey);
+        } else {
+            sb.append("game:").append(slot.gameId);
+        }
+        if (slot.playerId >= 0) {
+            sb.append(" player=").append(slot.playerId);
+        }
+        if (slot.x >= 0) {
+            sb.append(" x=").append(slot.x).append(" y=").append(slot.y);
+        }
+        sb.append(" result=").append(RESULTS[slot.result]);
+        return sb.toString();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    int buffered() {
+        return (int) (tail.get() - head);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.securitytrip.backend.service;
+
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.GameMode;
+
+/**
+ * Партия завершена. Публикуется GameService внутри транзакции хода;
+ * слушатели (рейтинг, статистика) получают его после фиксации.
+ *
+ * @param gameKey    "game:{id}" для одиночной игры, "room:{code}" для комнаты
+ * @param player2Id  null — соперник компьютер
+ * @param difficulty уровень компьютера (только для одиночной игры)
+ * @param forfeit    поражение по времени, а не потопление всех кораблей
+ */
+public record GameFinishedEvent(GameMode mode, String gameKey, Long player1Id, Long player2Id,
+                                boolean player1Won, DifficultyLevel difficulty, boolean forfeit) {
+
+    public static GameFinishedEvent singleplayer(Long gameId, Long playerId, boolean playerWon, DifficultyLevel difficulty) {
+        return new GameFinishedEvent(GameMode.singleplayer, "game:" + gameId, playerId, null, playerWon, difficulty, false);
+    }
+
+    public static GameFinishedEvent multiplayer(String gameCode, Long player1Id, Long player2Id, boolean player1Won, boolean forfeit) {
+        return new GameFinishedEvent(GameMode.multiplayer, "room:" + gameCode, player1Id, player2Id, player1Won, null, forfeit);
+    }
+
+    public boolean againstComputer() {
+        return player2Id == null;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.securitytrip.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import ru.securitytrip.backend.dto.GameStateFrame;
+
+import java.security.Principal;
+
+/**
+ * Отправляет готовые кадры состояния в STOMP-канал как есть, минуя конвертер
+ * сообщений (повторная сериализация GameDto не нужна)
+ */
+@Component
+public class GameFramePublisher {
+
+    // STOMP-заголовок с версией состояния: клиент может отбрасывать устаревшие кадры
+    public static final String STATE_VERSION_HEADER = "state-version";
+    public static final String GAME_CODE_HEADER = "game-code";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    public void publish(String destination, GameStateFrame frame) {
+        SimpMessageHeaderAccessor accessor = frameHeaders(frame);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Кадр только автору запроса, как @SendToUser: во все сессии пользователя,
+     * а у анонимного клиента - в сессию, из которой пришёл запрос
+     */
+    public void publishToUser(SimpMessageHeaderAccessor request, String destination, GameStateFrame frame) {
+        SimpMessageHeaderAccessor accessor = frameHeaders(frame);
+        Principal user = request.getUser();
+        String name;
+        if (user != null) {
+            name = user.getName();
+        } else {
+            name = request.getSessionId();
+            accessor.setSessionId(name);
+        }
+        messagingTemplate.send(messagingTemplate.getUserDestinationPrefix() + name.replace("/", "%2F") + destination,
+                MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+    }
+
+    private static SimpMessageHeaderAccessor frameHeaders(GameStateFrame frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(STATE_VERSION_HEADER, Long.toString(frame.getVersion()));
+        accessor.setNativeHeader(GAME_CODE_HEADER, frame.getGameCode());
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+}
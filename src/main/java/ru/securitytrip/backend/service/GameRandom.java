@@ -0,0 +1,48 @@
+package ru.securitytrip.backend.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Детерминированные генераторы случайных чисел для игр.
+ *
+ * У каждой игры свой seed (хранится в Game.rngSeed). Расстановка кораблей
+ * компьютера использует поток номер 0, каждый ход компьютера — следующий поток
+ * (Game.rngStep). Поток получается из пары (seed, номер) хешированием, поэтому
+ * любой ход можно воспроизвести по seed и номеру хода, а потоки не зависят
+ * друг от друга и не разделяют состояние между играми и потоками выполнения.
+ */
+final class GameRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private GameRandom() {
+    }
+
+    // Новый seed для игры (без общей точки конкуренции между потоками)
+    static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    // Генератор для расстановки кораблей компьютера
+    static SplittableRandom forPlacement(long seed) {
+        return forStep(seed, 0);
+    }
+
+    // Генератор для шага с номером step (ходы компьютера нумеруются с 1)
+    static SplittableRandom forStep(long seed, long step) {
+        return new SplittableRandom(mix64(seed + step * GOLDEN_GAMMA));
+    }
+
+    // Генератор без привязки к игре (например, расстановка по запросу игрока)
+    static SplittableRandom unseeded() {
+        return new SplittableRandom(newSeed());
+    }
+
+    // Финализатор MurmurHash3: соседние номера шагов дают несвязанные seed
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
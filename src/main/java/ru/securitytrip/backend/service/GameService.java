@@ -2,18 +2,30 @@ package ru.securitytrip.backend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.securitytrip.backend.dto.*;
 import ru.securitytrip.backend.model.*;
 import ru.securitytrip.backend.repository.GameBoardRepository;
 import ru.securitytrip.backend.repository.GameRepository;
 import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+import ru.securitytrip.engine.Board;
+import ru.securitytrip.engine.FleetValidator;
+import ru.securitytrip.engine.ShotOutcome;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -36,16 +48,74 @@ public class GameService {
     
     @Autowired
     private MultiplayerRoomRepository multiplayerRoomRepository;
+
+    @Autowired
+    private RoomCodeAllocator roomCodeAllocator;
+
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    // События партий (GameFinishedEvent, ShotFiredEvent, FleetPlacedEvent) для рейтинга и статистики
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Предрасчёт ходов компьютера, пока игрок думает
+    @Autowired
+    private ComputerTurnSpeculator computerTurnSpeculator;
+
+    // Выстрелы пишутся в журнал событий асинхронно, а не логом в потоке хода
+    @Autowired
+    private GameEventLog gameEventLog;
+
+    // Снимки комнат после каждой фиксации — в локальный журнал узла (если включён)
+    @Autowired
+    private RoomJournal roomJournal;
+
+    // Гостевые одиночные игры: живут в памяти, в БД попадают после окончания
+    @Autowired
+    private EphemeralGameStore ephemeralGames;
+
+    // Подсказка по доске компьютера, кэшируется до следующего выстрела
+    @Autowired
+    private ShotHeatmapService shotHeatmapService;
+
+    // Привычки стрельбы игроков для расстановки компьютера на сложном уровне
+    @Autowired
+    private ShotHabitTracker shotHabitTracker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Транзакция изменения одиночной игры открывается под блокировкой гостевой игры
+    private TransactionTemplate transactionTemplate;
     
-    private final Random random = new Random();
     
     // Кэш для хранения состояния игры
     private final Map<String, GameDto> gameStateCache = new ConcurrentHashMap<>();
     private final Map<String, Long> lastUpdateTime = new ConcurrentHashMap<>();
+    // Состояние комнаты глазами конкретного пользователя: код комнаты -> userId -> состояние
+    private final Map<String, Map<Long, CachedState>> playerStateCache = new ConcurrentHashMap<>();
     private static final long CACHE_TTL = 1000; // Время жизни кэша в миллисекундах (1 секунда)
+
+    private record CachedState(GameDto state, long updatedAt) {
+    }
+
+    // Фиксированный seed для всех новых игр (отладка и сравнимые прогоны бенчмарков)
+    @Value("${game.rng.fixed-seed:#{null}}")
+    private Long fixedSeed;
+
+    // Сколько случайных расстановок сравнивается при расстановке против привычек игрока
+    @Value("${game.ai.adaptive-placement.candidates:64}")
+    private int adaptiveCandidates;
+
+    // Насколько сильно предпочитаются расстановки вдали от ранних выстрелов игрока
+    private static final double ADAPTIVE_SHARPNESS = 20;
+
+    // Кадры состояния комнаты глазами каждого пользователя: код комнаты -> userId -> кадр
+    private final Map<String, Map<Long, GameStateFrame>> playerFrames = new ConcurrentHashMap<>();
     
     // Стандартные размеры кораблей для морского боя
-    private static final int[] STANDARD_SHIP_SIZES = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+    private static final int[] STANDARD_SHIP_SIZES = FleetValidator.STANDARD_FLEET;
     
     // Хранилище комнат (gameCode -> MultiplayerRoom)
     private final Map<String, MultiplayerRoom> multiplayerRooms = new ConcurrentHashMap<>();
@@ -61,6 +131,11 @@ public class GameService {
         String currentTurn; // "player1" или "player2"
         GameDto gameState;
     }
+
+    @PostConstruct
+    void initTransactions() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
     
     /**
      * Сохраняет корабли хоста после создания комнаты, если они ещё не были отправлены
@@ -72,6 +147,7 @@ public class GameService {
         if (!userId.equals(entity.getPlayer1Id())) {
             throw new RuntimeException("Только хост может размещать свои корабли");
         }
+        Fleets.validate(ships);
         try {
             // Проверяем, не были ли уже размещены корабли
             List<ShipDto> currentShips = entity.getPlayer1ShipsJson() != null
@@ -80,15 +156,7 @@ public class GameService {
             if (currentShips != null && !currentShips.isEmpty()) {
                 throw new RuntimeException("Корабли уже размещены");
             }
-            // Гарантируем заполнение positions/hits
-            for (ShipDto ship : ships) {
-                if (ship.getPositions() == null) {
-                    ship.setPositions(generateShipPositionsFromShipDto(ship));
-                }
-                if (ship.getHits() == null) {
-                    ship.setHits(new boolean[ship.getSize()]);
-                }
-            }
+            resetPlacedShips(ships);
             entity.setPlayer1ShipsJson(objectMapper.writeValueAsString(ships));
             int[][] player1Board = generateBoardWithShips(ships);
             entity.setPlayer1BoardJson(objectMapper.writeValueAsString(player1Board));
@@ -101,6 +169,7 @@ public class GameService {
             if (bothReady) {
                 gameState.setGameState(GameState.IN_PROGRESS);
                 gameState.setPlayerTurn(true); // Первый ход за хостом
+                entity.setStatus(GameState.IN_PROGRESS);
             } else {
                 gameState.setGameState(GameState.WAITING);
                 gameState.setPlayerTurn(false);
@@ -127,8 +196,17 @@ public class GameService {
             gameState.setPlayerBoard(playerBoardDto);
             gameState.setComputerBoard(computerBoardDto);
 
-            entity.setGameStateJson(objectMapper.writeValueAsString(gameState));
+            if (bothReady) {
+                startReplay(entity, ships, objectMapper.readValue(entity.getPlayer2ShipsJson(),
+                        new com.fasterxml.jackson.core.type.TypeReference<List<ShipDto>>() {}));
+                entity.setCurrentTurn(TurnTimerService.PLAYER1);
+                gameState.setTurnDeadline(toEpochMillis(turnTimerService.startTurn(gameCode,
+                        TurnTimerService.PLAYER1, entity.getStateVersion() + 1)));
+            }
+            writeStateFrame(entity, gameCode, gameState);
             multiplayerRoomRepository.save(entity);
+            journalRoom(entity);
+            evictRoomState(gameCode);
             return gameState;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при размещении кораблей хоста: " + e.getMessage(), e);
@@ -138,6 +216,7 @@ public class GameService {
     @Transactional
     public GameDto createSinglePlayerGame(Long userId, CreateSinglePlayerGameRequest request) {
         logger.info("Создание одиночной игры для пользователя: {}", userId);
+        Fleets.validate(request.getShips());
         
         // Создаем новую игру
         Game game = new Game();
@@ -166,6 +245,11 @@ public class GameService {
         computerBoard.setComputer(true);
         computerBoard.initEmptyBoard();
         
+        // Seed игры: по нему воспроизводятся расстановка компьютера и все его ходы
+        long seed = fixedSeed != null ? fixedSeed : GameRandom.newSeed();
+        game.setRngSeed(seed);
+        SplittableRandom rng = GameRandom.forPlacement(seed);
+
         // Генерируем расстановку кораблей для компьютера в зависимости от уровня сложности
         List<Ship> computerShips;
         DifficultyLevel difficultyLevel = request.getDifficultyLevel();
@@ -173,16 +257,16 @@ public class GameService {
         // Используем соответствующую стратегию расстановки
         switch (difficultyLevel) {
             case EASY:
-                computerShips = generateShoreStrategy();
+                computerShips = generateShoreStrategy(rng);
                 break;
             case MEDIUM:
-                computerShips = generateAsymmetricStrategy();
+                computerShips = generateAsymmetricStrategy(rng);
                 break;
             case HARD:
-                computerShips = generateRandomStrategy();
+                computerShips = generateAdaptiveStrategy(rng, shotHabitTracker.earlyShotShare(userId));
                 break;
             default:
-                computerShips = generateRandomStrategy();
+                computerShips = generateRandomStrategy(rng);
         }
         
         try {
@@ -196,9 +280,19 @@ public class GameService {
         // Связываем доски с игрой
         game.addBoard(playerBoard);
         game.addBoard(computerBoard);
+
+        // Запись для повтора: флоты на старте; потопление обводится только при ходе компьютера
+        game.setReplayFleets(ReplayCodec.encodeShips(ReplayCodec.FLAG_HALO_PLAYER2, playerShips, computerShips));
         
-        // Сохраняем игру
-        game = gameRepository.save(game);
+        // Сохраняем игру (гостевую - только в память)
+        if (ephemeralGames.keepInMemory(request.getEphemeral())) {
+            game = ephemeralGames.add(game);
+        } else {
+            game = gameRepository.save(game);
+        }
+        logger.info("Одиночная игра {} создана, seed={}", game.getId(), seed);
+        eventPublisher.publishEvent(new FleetPlacedEvent("game:" + game.getId(), userId,
+                PlacementClassifier.classify(ReplayCodec.decodeFleet(game.getReplayFleets(), ReplayCodec.PLAYER1))));
         
         // Преобразуем в DTO для передачи клиенту
         return convertToGameDto(game, userId);
@@ -235,12 +329,12 @@ public class GameService {
     }
     
     // Метод для расстановки кораблей по "стратегии берега" (для EASY)
-    private List<Ship> generateShoreStrategy() {
+    private List<Ship> generateShoreStrategy(SplittableRandom rng) {
         List<Ship> ships = new ArrayList<>();
-        int[][] board = new int[10][10]; // 0 - пусто, 1 - корабль, 2 - зона вокруг корабля
+        FleetValidator fleet = new FleetValidator(); // Клетки кораблей и зоны вокруг них
         
         // Определяем берег (одну из сторон доски)
-        int side = random.nextInt(4); // 0 - верх, 1 - право, 2 - низ, 3 - лево
+        int side = rng.nextInt(4); // 0 - верх, 1 - право, 2 - низ, 3 - лево
         
         // Для каждого стандартного размера корабля
         for (int shipSize : STANDARD_SHIP_SIZES) {
@@ -254,31 +348,31 @@ public class GameService {
                 // Генерируем координаты рядом с выбранным берегом
                 switch (side) {
                     case 0: // Верхний берег
-                        y = random.nextInt(3); // 0-2 строки от верха
-                        x = random.nextInt(10);
+                        y = rng.nextInt(3); // 0-2 строки от верха
+                        x = rng.nextInt(10);
                         horizontal = true; // На верхнем берегу размещаем корабли горизонтально
                         break;
                     case 1: // Правый берег
-                        x = 7 + random.nextInt(3); // 7-9 столбцы от левого края
-                        y = random.nextInt(10);
+                        x = 7 + rng.nextInt(3); // 7-9 столбцы от левого края
+                        y = rng.nextInt(10);
                         horizontal = false; // На правом берегу размещаем корабли вертикально
                         break;
                     case 2: // Нижний берег
-                        y = 7 + random.nextInt(3); // 7-9 строки от верха
-                        x = random.nextInt(10);
+                        y = 7 + rng.nextInt(3); // 7-9 строки от верха
+                        x = rng.nextInt(10);
                         horizontal = true; // На нижнем берегу размещаем корабли горизонтально
                         break;
                     case 3: // Левый берег
                     default:
-                        x = random.nextInt(3); // 0-2 столбцы от левого края
-                        y = random.nextInt(10);
+                        x = rng.nextInt(3); // 0-2 столбцы от левого края
+                        y = rng.nextInt(10);
                         horizontal = false; // На левом берегу размещаем корабли вертикально
                         break;
                 }
                 
                 // Пытаемся разместить корабль в этой позиции
-                if (canPlaceShip(board, x, y, shipSize, horizontal)) {
-                    placeShipOnBoard(board, x, y, shipSize, horizontal);
+                if (fleet.fits(x, y, shipSize, horizontal)) {
+                    fleet.add(x, y, shipSize, horizontal);
                     ships.add(new Ship(shipSize, x, y, horizontal));
                     placed = true;
                 }
@@ -289,19 +383,24 @@ public class GameService {
             // Если не удалось разместить корабль в береговой зоне,
             // пробуем разместить в случайном месте
             if (!placed) {
-                ships.addAll(generateRandomStrategy(board, shipSize));
+                Ship ship = placeRandomly(fleet, shipSize, rng);
+                if (ship == null) {
+                    logger.warn("Береговая расстановка зашла в тупик, используем случайную");
+                    return generateRandomStrategy(rng);
+                }
+                ships.add(ship);
             }
         }
         
         return ships;
     }
 
-    private List<Ship> generateAsymmetricStrategy() {
+    private List<Ship> generateAsymmetricStrategy(SplittableRandom rng) {
         List<Ship> ships = new ArrayList<>();
-        int[][] board = new int[10][10];
+        FleetValidator fleet = new FleetValidator();
 
         // Выбираем угол: 0 — ЛВ, 1 — ПВ, 2 — ЛН, 3 — ПН
-        int corner = random.nextInt(4); // Или random.nextInt(4) — если хочешь случайный угол
+        int corner = rng.nextInt(4);
         int baseX = (corner == 1 || corner == 3) ? 9 : 0;
         int baseY = (corner == 2 || corner == 3) ? 9 : 0;
 
@@ -320,8 +419,8 @@ public class GameService {
                     int y = pos[1];
                     boolean horizontal = pos[2] == 1;
 
-                    if (canPlaceShip(board, x, y, shipSize, horizontal)) {
-                        placeShipOnBoard(board, x, y, shipSize, horizontal);
+                    if (fleet.fits(x, y, shipSize, horizontal)) {
+                        fleet.add(x, y, shipSize, horizontal);
                         ships.add(new Ship(shipSize, x, y, horizontal));
                         placed = true;
                         break;
@@ -365,143 +464,98 @@ public class GameService {
         return Math.abs(x - cornerX) + Math.abs(y - cornerY);
     }
 
-    // Метод для полностью случайной расстановки кораблей (для HARD)
-    private List<Ship> generateRandomStrategy() {
-        List<Ship> ships = new ArrayList<>();
-        int[][] board = new int[10][10]; // 0 - пусто, 1 - корабль, 2 - зона вокруг корабля
-        
-        // Для каждого стандартного размера корабля
-        for (int shipSize : STANDARD_SHIP_SIZES) {
-            ships.addAll(generateRandomStrategy(board, shipSize));
-        }
-        
-        return ships;
-    }
-    
-    // Вспомогательный метод для размещения одного корабля случайным образом
-    private List<Ship> generateRandomStrategy(int[][] board, int shipSize) {
-        List<Ship> result = new ArrayList<>();
-        boolean placed = false;
-        int attempts = 0;
-        
-        while (!placed && attempts < 500) {  // Увеличиваем количество попыток с 100 до 500
-            int x = random.nextInt(10);
-            int y = random.nextInt(10);
-            boolean horizontal = random.nextBoolean();
-            
-            if (canPlaceShip(board, x, y, shipSize, horizontal)) {
-                placeShipOnBoard(board, x, y, shipSize, horizontal);
-                result.add(new Ship(shipSize, x, y, horizontal));
-                placed = true;
-            }
-            
-            attempts++;
+    /**
+     * Расстановка против привычек игрока: из нескольких случайных расстановок
+     * выбирается одна, с весом exp(-sharpness * (доля ранних выстрелов по её клеткам - лучшая доля)).
+     * Чаще всего флот стоит там, куда игрок обычно стреляет поздно, но расстановка не
+     * повторяется от партии к партии. Без истории игрока - обычная случайная расстановка.
+     * Расстановка зависит и от истории на момент создания игры, а не только от seed
+     * @param earlyShotShare Доля ранних выстрелов игрока по клеткам y * 10 + x или null
+     */
+    private List<Ship> generateAdaptiveStrategy(SplittableRandom rng, double[] earlyShotShare) {
+        if (earlyShotShare == null || adaptiveCandidates <= 1) {
+            return generateRandomStrategy(rng);
         }
-        
-        if (!placed) {
-            // Вместо выброса исключения создаем запасной вариант размещения
-            logger.warn("Не удалось разместить корабль размером {} за {} попыток, пробуем очистить часть доски", shipSize, attempts);
-            
-            // Очищаем некоторые ячейки доски (удаляем зоны вокруг кораблей)
-            for (int i = 0; i < 10; i++) {
-                for (int j = 0; j < 10; j++) {
-                    if (board[i][j] == 2) { // Если это зона вокруг корабля
-                        board[i][j] = 0;    // Очищаем её
-                    }
+        List<List<Ship>> candidates = new ArrayList<>(adaptiveCandidates);
+        double[] exposure = new double[adaptiveCandidates];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < adaptiveCandidates; i++) {
+            List<Ship> ships = generateRandomStrategy(rng);
+            for (Ship ship : ships) {
+                for (int[] pos : generateShipPositionsFromShip(ship)) {
+                    exposure[i] += earlyShotShare[pos[1] * 10 + pos[0]];
                 }
             }
-            
-            // Пытаемся снова разместить корабль с повышенным лимитом попыток
-            attempts = 0;
-            while (!placed && attempts < 500) {
-                int x = random.nextInt(10);
-                int y = random.nextInt(10);
-                boolean horizontal = random.nextBoolean();
-                
-                if (canPlaceShip(board, x, y, shipSize, horizontal)) {
-                    placeShipOnBoard(board, x, y, shipSize, horizontal);
-                    result.add(new Ship(shipSize, x, y, horizontal));
-                    placed = true;
-                }
-                
-                attempts++;
-            }
-            
-            // Если и это не помогло, создаем корабль с минимальным размером в случайном месте
-            if (!placed) {
-                logger.warn("Не удалось разместить корабль стандартным способом, создаем альтернативный вариант");
-                // Создаем корабль меньшего размера (1), который должен поместиться
-                for (int i = 0; i < 10; i++) {
-                    for (int j = 0; j < 10; j++) {
-                        if (board[i][j] == 0) { // Нашли свободную клетку
-                            placeShipOnBoard(board, j, i, 1, true);
-                            result.add(new Ship(1, j, i, true));
-                            placed = true;
-                            break;
-                        }
-                    }
-                    if (placed) break;
-                }
+            candidates.add(ships);
+            best = Math.min(best, exposure[i]);
+        }
+        double[] weights = new double[adaptiveCandidates];
+        double total = 0;
+        for (int i = 0; i < adaptiveCandidates; i++) {
+            weights[i] = Math.exp(-ADAPTIVE_SHARPNESS * (exposure[i] - best));
+            total += weights[i];
+        }
+        double r = rng.nextDouble() * total;
+        for (int i = 0; i < adaptiveCandidates - 1; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return candidates.get(i);
             }
         }
-        
-        return result;
+        return candidates.get(adaptiveCandidates - 1);
     }
-    
-    // Проверяет, можно ли разместить корабль в указанной позиции
-    private boolean canPlaceShip(int[][] board, int x, int y, int size, boolean horizontal) {
-        // Проверка выхода за границы поля
-        if (horizontal) {
-            if (x + size > 10) return false;
-        } else {
-            if (y + size > 10) return false;
-        }
-        
-        // Проверка клеток под кораблем и вокруг
-        for (int i = -1; i <= size; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int checkX = horizontal ? x + i : x + j;
-                int checkY = horizontal ? y + j : y + i;
-                
-                // Проверяем, что мы не выходим за пределы доски
-                if (checkX >= 0 && checkX < 10 && checkY >= 0 && checkY < 10) {
-                    // Если клетка занята кораблем (1), нельзя ставить
-                    if (board[checkY][checkX] == 1) {
-                        return false;
-                    }
+
+    // Метод для полностью случайной расстановки кораблей
+    private List<Ship> generateRandomStrategy(SplittableRandom rng) {
+        // Корабли ставятся от крупных к мелким; если очередному не осталось места, расстановка начинается заново
+        for (int attempt = 1; ; attempt++) {
+            List<Ship> ships = new ArrayList<>();
+            FleetValidator fleet = new FleetValidator(); // Клетки кораблей и зоны вокруг них
+            for (int shipSize : STANDARD_SHIP_SIZES) {
+                Ship ship = placeRandomly(fleet, shipSize, rng);
+                if (ship == null) {
+                    break;
                 }
+                ships.add(ship);
+            }
+            if (ships.size() == STANDARD_SHIP_SIZES.length) {
+                return ships;
             }
+            logger.warn("Случайная расстановка зашла в тупик (попытка {}), начинаем заново", attempt);
         }
-        
-        return true;
     }
     
-    // Размещает корабль на доске
-    private void placeShipOnBoard(int[][] board, int x, int y, int size, boolean horizontal) {
-        // Отмечаем клетки, занятые кораблем
-        for (int i = 0; i < size; i++) {
-            if (horizontal) {
-                board[y][x + i] = 1;
-            } else {
-                board[y + i][x] = 1;
+    // Вспомогательный метод для размещения одного корабля случайным образом; null - места не осталось
+    private Ship placeRandomly(FleetValidator fleet, int shipSize, SplittableRandom rng) {
+        for (int attempts = 0; attempts < 500; attempts++) {
+            int x = rng.nextInt(10);
+            int y = rng.nextInt(10);
+            boolean horizontal = rng.nextBoolean();
+            
+            if (fleet.fits(x, y, shipSize, horizontal)) {
+                fleet.add(x, y, shipSize, horizontal);
+                return new Ship(shipSize, x, y, horizontal);
             }
         }
         
-        // Отмечаем зону вокруг корабля
-        for (int i = -1; i <= size; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int markX = horizontal ? x + i : x + j;
-                int markY = horizontal ? y + j : y + i;
-                
-                // Проверяем, что мы не выходим за пределы доски
-                if (markX >= 0 && markX < 10 && markY >= 0 && markY < 10) {
-                    // Если клетка не занята кораблем, отмечаем как зону вокруг корабля
-                    if (board[markY][markX] == 0) {
-                        board[markY][markX] = 2;
-                    }
+        // Случайные попытки не попали в свободное место: выбираем из всех оставшихся позиций
+        List<int[]> free = new ArrayList<>();
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                if (fleet.fits(x, y, shipSize, true)) {
+                    free.add(new int[]{x, y, 1});
+                }
+                if (shipSize > 1 && fleet.fits(x, y, shipSize, false)) {
+                    free.add(new int[]{x, y, 0});
                 }
             }
         }
+        if (free.isEmpty()) {
+            return null;
+        }
+        int[] pos = free.get(rng.nextInt(free.size()));
+        fleet.add(pos[0], pos[1], shipSize, pos[2] == 1);
+        return new Ship(shipSize, pos[0], pos[1], pos[2] == 1);
     }
     
     // Конвертирует игру в DTO
@@ -511,8 +565,9 @@ public class GameService {
         dto.setMode(game.getMode());
         dto.setGameState(game.getGameState());
         dto.setPlayerTurn(game.isPlayerTurn());
+        dto.setEphemeral(EphemeralGameStore.isEphemeral(game.getId()));
         
-        logger.info("[convertToGameDto] User ID: {}, Game ID: {}, Game Mode: {}", userId, game.getId(), game.getMode());
+        logger.debug("[convertToGameDto] User ID: {}, Game ID: {}, Game Mode: {}", userId, game.getId(), game.getMode());
 
         for (GameBoard board : game.getBoards()) {
             GameBoardDto boardDto = new GameBoardDto();
@@ -520,20 +575,20 @@ public class GameService {
             boardDto.setBoard(board.getBoardAsArray());
             boardDto.setComputer(board.isComputer());
             
-            logger.info("[convertToGameDto] Processing Board ID: {}, Owner ID: {}, Is Computer: {}", 
+            logger.debug("[convertToGameDto] Processing Board ID: {}, Owner ID: {}, Is Computer: {}", 
                         board.getId(), board.getOwnerId(), board.isComputer());
 
             try {
                 // В одиночной игре определяем доску игрока по признаку isComputer = false
                 if (game.getMode() == GameMode.singleplayer) {
                     if (!board.isComputer()) {
-                         logger.info("[convertToGameDto] Identified as Singleplayer Player Board");
+                         logger.debug("[convertToGameDto] Identified as Singleplayer Player Board");
                          List<Ship> ships = objectMapper.readValue(board.getShipsData(), 
                                  objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
                          boardDto.setShips(ships.stream().map(this::convertToShipDto).collect(Collectors.toList()));
                          dto.setPlayerBoard(boardDto);
                     } else {
-                         logger.info("[convertToGameDto] Identified as Singleplayer Computer Board");
+                         logger.debug("[convertToGameDto] Identified as Singleplayer Computer Board");
                          // Для компьютера показываем только подбитые корабли во время игры, все после игры
                           if (game.getGameState() != GameState.WAITING) {
                              List<Ship> ships = objectMapper.readValue(board.getShipsData(),
@@ -545,13 +600,13 @@ public class GameService {
                 } else if (game.getMode() == GameMode.multiplayer) {
                     // Логика для мультиплеера остается прежней (по userId)
                     if (userId != null && userId.equals(board.getOwnerId())) {
-                         logger.info("[convertToGameDto] Identified as Multiplayer Player Board");
+                         logger.debug("[convertToGameDto] Identified as Multiplayer Player Board");
                          List<Ship> ships = objectMapper.readValue(board.getShipsData(), 
                                  objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
                          boardDto.setShips(ships.stream().map(this::convertToShipDto).collect(Collectors.toList()));
                          dto.setPlayerBoard(boardDto);
                      } else {
-                         logger.info("[convertToGameDto] Identified as Multiplayer Opponent Board");
+                         logger.debug("[convertToGameDto] Identified as Multiplayer Opponent Board");
                          // Временно упрощенная логика для мультиплеера - показываем все корабли противника (для устранения ошибок компиляции)
                           List<Ship> ships = objectMapper.readValue(board.getShipsData(), 
                                   objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
@@ -576,19 +631,7 @@ public class GameService {
         dto.setY(ship.getY());
         dto.setHorizontal(ship.isHorizontal());
         
-        // Преобразуем List<Boolean> в boolean[] и устанавливаем в DTO
-        List<Boolean> hitsList = ship.getHits();
-        if (hitsList != null) {
-            boolean[] hitsArray = new boolean[hitsList.size()];
-            for (int i = 0; i < hitsList.size(); i++) {
-                Boolean hit = hitsList.get(i);
-                hitsArray[i] = hit != null && hit; // Обрабатываем случай null, хотя List<Boolean> обычно не содержит null
-            }
-            dto.setHits(hitsArray);
-        } else {
-            // Если hitsList null, создаем пустой массив попаданий соответствующего размера
-            dto.setHits(new boolean[ship.getSize()]); 
-        }
+        dto.setHits(ship.getHits());
 
         // Генерируем и устанавливаем позиции корабля в DTO
         dto.setPositions(generateShipPositionsFromShipDto(dto));
@@ -629,12 +672,11 @@ public class GameService {
         return positions;
     }
 
-    @Transactional
     public MoveResponse playerMove(Long userId, MoveRequest moveRequest) {
-        // Получаем игру по ID
-        Game game = gameRepository.findById(moveRequest.getGameId())
-                .orElseThrow(() -> new RuntimeException("Игра не найдена"));
-        
+        return inGameTransaction(moveRequest.getGameId(), game -> playerMove(game, userId, moveRequest));
+    }
+
+    private MoveResponse playerMove(Game game, Long userId, MoveRequest moveRequest) {
         // Проверяем, что игра в процессе
         if (game.getGameState() != GameState.IN_PROGRESS) {
             throw new RuntimeException("Игра уже завершена или еще не начата");
@@ -663,9 +705,6 @@ public class GameService {
             throw new RuntimeException("По этой клетке уже стреляли");
         }
         
-        // Логируем ход игрока
-        logger.info("Ход игрока {} по координатам x={}, y={}", userId, moveRequest.getX(), moveRequest.getY());
-        
         // Получаем информацию о кораблях компьютера
         List<Ship> computerShips;
         try {
@@ -675,37 +714,21 @@ public class GameService {
             throw new RuntimeException("Ошибка при получении данных о кораблях", e);
         }
         
-        // Проверяем, попал ли ход в корабль
-        boolean hit = false;
-        boolean sunk = false;
-        Ship hitShip = null;
+        // Выстрел по доске компьютера: попадание (3) или промах (2); ореол вокруг потопленного не ставится
+        Board targetBoard = new Board(boardArray, Fleets.ofShips(computerShips), false);
+        ShotOutcome outcome = targetBoard.shoot(moveRequest.getX(), moveRequest.getY());
+        int hitShip = targetBoard.lastShip();
+        Fleets.copyHits(targetBoard.fleet(), hitShip, computerShips);
+        boolean hit = outcome.isHit();
+        boolean sunk = outcome == ShotOutcome.SUNK;
         
-        for (Ship ship : computerShips) {
-            if (ship.hit(moveRequest.getX(), moveRequest.getY())) {
-                hit = true;
-                hitShip = ship;
-                sunk = ship.isSunk();
-                break;
-            }
-        }
-        
-        // Обновляем состояние доски
-        if (hit) {
-            // Попадание (3)
-            boardArray[moveRequest.getY()][moveRequest.getX()] = 3;
-            logger.info("Игрок {} ПОПАЛ по координатам x={}, y={}", userId, moveRequest.getX(), moveRequest.getY());
-            if (sunk) {
-                logger.info("Игрок {} ПОТОПИЛ корабль размером {} по координатам x={}, y={}", 
-                    userId, hitShip.getSize(), moveRequest.getX(), moveRequest.getY());
-            }
-        } else {
-            // Промах (2)
-            boardArray[moveRequest.getY()][moveRequest.getX()] = 2;
-            logger.info("Игрок {} ПРОМАХНУЛСЯ по координатам x={}, y={}", userId, moveRequest.getX(), moveRequest.getY());
-        }
+        gameEventLog.playerShot(game.getId(), userId, moveRequest.getX(), moveRequest.getY(), hit, sunk);
         
         // Обновляем доску
         computerBoard.setBoardState(computerBoard.convertBoardToString(boardArray));
+        recordShot(game, ReplayCodec.PLAYER1, moveRequest.getX(), moveRequest.getY(), hit, sunk);
+        eventPublisher.publishEvent(new ShotFiredEvent("game:" + game.getId(), userId,
+                moveRequest.getX(), moveRequest.getY(), hit, sunk));
         
         // Обновляем данные о кораблях, если было попадание
         if (hit) {
@@ -724,27 +747,25 @@ public class GameService {
         }
         
         // Проверяем, закончилась ли игра (все ли корабли потоплены)
-        boolean gameOver = true;
-        for (Ship ship : computerShips) {
-            if (!ship.isSunk()) {
-                gameOver = false;
-                break;
-            }
-        }
+        boolean gameOver = targetBoard.isGameOver();
         
         // Если игра закончилась, обновляем статус
         if (gameOver) {
             game.setGameState(GameState.PLAYER_WON);
             logger.info("Игрок ВЫИГРАЛ игру {}", game.getId());
+            eventPublisher.publishEvent(GameFinishedEvent.singleplayer(game.getId(), userId, true, game.getDifficultyLevel()));
+            computerTurnSpeculator.discard(game.getId());
         } else if (!hit) {
             // Если промах, переключаем ход на компьютер
             game.toggleTurn();
-            logger.info("Передаём ход компьютеру");
+            logger.debug("Передаём ход компьютеру");
             computerMove(game);
         }
         
         // Сохраняем изменения
-        game = gameRepository.save(game);
+        game = saveGame(game);
+        // Пока игрок думает, считаем следующий ход компьютера
+        computerTurnSpeculator.prepare(game);
         
         // Формируем ответ
         MoveResponse response = new MoveResponse(hit, sunk, gameOver);
@@ -757,334 +778,89 @@ public class GameService {
     
     @Transactional
     public void computerMove(Game game) {
-        computerMove(game, 0);
+        applyComputerTurn(game, planComputerTurn(game));
+        saveGame(game);
     }
-    
+
+    // Серия ходов компьютера: готовая из предрасчёта, если снимок игры совпал, иначе считается сейчас
+    private ComputerTurn planComputerTurn(Game game) {
+        // У игр без seed он назначается при первом ходе компьютера
+        if (game.getRngSeed() == null) {
+            game.setRngSeed(fixedSeed != null ? fixedSeed : GameRandom.newSeed());
+        }
+        ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game);
+        ComputerTurn turn = computerTurnSpeculator.take(game.getId(), snapshot);
+        if (turn != null) {
+            logger.debug("Ход компьютера в игре {} взят из предрасчёта", game.getId());
+            return turn;
+        }
+        return ComputerTurn.plan(snapshot, objectMapper);
+    }
+
     /**
-     * Внутренний метод для хода компьютера с ограничением на количество последовательных ходов
+     * Применяет серию ходов компьютера к игре
      * @param game Текущая игра
-     * @param moveCount Счетчик последовательных ходов
+     * @param turn Рассчитанная серия (не более ComputerTurn.MAX_SHOTS выстрелов подряд)
      */
-    private void computerMove(Game game, int moveCount) {
-        // Защита от бесконечной рекурсии - не более 10 последовательных ходов компьютера
-        if (moveCount >= 15) {
-            logger.warn("Достигнуто максимальное количество последовательных ходов компьютера ({}), передаем ход игроку", moveCount);
-            game.toggleTurn();
-            gameRepository.save(game);
-            return;
-        }
-        
-        // Получаем доску игрока
+    private void applyComputerTurn(Game game, ComputerTurn turn) {
         GameBoard playerBoard = game.getPlayerBoard();
-        
-        // Получаем текущее состояние доски
-        int[][] boardArray = playerBoard.getBoardAsArray();
-        
-        // Получаем уровень сложности
-        DifficultyLevel difficultyLevel = game.getDifficultyLevel();
-        
-        // Координаты выстрела
-        int[] shotCoordinates = new int[2]; // [x, y]
-        boolean validMove = false;
-        
-        // Выбираем стратегию в зависимости от сложности
-        switch (difficultyLevel) {
-            case EASY:
-                // Полностью случайные выстрелы
-                logger.info("Компьютер использует стратегию EASY (случайные выстрелы)");
-                validMove = makeRandomShot(boardArray, shotCoordinates);
-                break;
-                
-            case MEDIUM:
-                // Выстрелы по шахматной доске
-                logger.info("Компьютер использует стратегию MEDIUM (шахматная доска)");
-                validMove = makeCheckerboardShot(boardArray, shotCoordinates);
-                break;
-                
-            case HARD:
-                // Случайные выстрелы с добиванием кораблей
-                logger.info("Компьютер использует стратегию HARD (добивание)");
-                validMove = makeSmartShot(boardArray, shotCoordinates, game);
-                break;
-                
-            default:
-                // По умолчанию - случайный выстрел
-                logger.info("Компьютер использует стратегию по умолчанию");
-                validMove = makeRandomShot(boardArray, shotCoordinates);
+        for (ComputerTurn.Shot shot : turn.shots()) {
+            gameEventLog.computerShot(game.getId(), shot.x(), shot.y(), shot.hit(), shot.sunk());
+            recordShot(game, ReplayCodec.PLAYER2, shot.x(), shot.y(), shot.hit(), shot.sunk());
         }
-        
-        if (validMove) {
-            int x = shotCoordinates[0];
-            int y = shotCoordinates[1];
-            
-            // Логируем ход компьютера
-            logger.info("Ход компьютера в игре {} по координатам x={}, y={}", game.getId(), x, y);
-            
-            // Дополнительная проверка, чтобы убедиться, что клетка еще не обстреляна
-            if (boardArray[y][x] == 2 || boardArray[y][x] == 3) {
-                logger.error("Ошибка в логике игры: компьютер пытается выстрелить в уже обстреляную клетку x={}, y={}", x, y);
-                // Если это происходит, переключаем ход на игрока и завершаем метод
-                game.toggleTurn();
-                gameRepository.save(game);
-                return;
-            }
-            
-            // Получаем информацию о кораблях игрока
-            List<Ship> playerShips;
-            try {
-                playerShips = objectMapper.readValue(playerBoard.getShipsData(),
-                        objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Ошибка при получении данных о кораблях игрока", e);
-            }
-            
-            // Проверяем, попал ли ход в корабль
-            boolean hit = false;
-            Ship hitShip = null;
-            
-            for (Ship ship : playerShips) {
-                if (ship.hit(x, y)) {
-                    hit = true;
-                    hitShip = ship;
-                    break;
-                }
-            }
-            
-            // Обновляем состояние доски
-            if (hit) {
-                // Попадание (3)
-                boardArray[y][x] = 3;
-                logger.info("Компьютер ПОПАЛ по координатам x={}, y={}", x, y);
-                
-                // Проверяем, потоплен ли корабль
-                boolean isShipSunk = true;
-                for (boolean hitStatus : hitShip.getHits()) {
-                    if (!hitStatus) {
-                        isShipSunk = false;
-                        break;
-                    }
-                }
 
-                // Если корабль потоплен, помечаем соседние клетки как промах
-                if (isShipSunk) {
-                    for (int[] position : hitShip.getCoordinates()) {
-                        int shipX = position[0];
-                        int shipY = position[1];
-                        
-                        // Проверяем все соседние клетки
-                        for (int dx = -1; dx <= 1; dx++) {
-                            for (int dy = -1; dy <= 1; dy++) {
-                                int nx = shipX + dx;
-                                int ny = shipY + dy;
-                                
-                                // Проверяем границы поля
-                                if (nx >= 0 && nx < 10 && ny >= 0 && ny < 10) {
-                                    // Если клетка пустая (0), помечаем её как промах (2)
-                                    if (boardArray[ny][nx] < 2) {
-                                        boardArray[ny][nx] = 2;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            } else {
-                // Промах (2)
-                boardArray[y][x] = 2;
-                logger.info("Компьютер ПРОМАХНУЛСЯ по координатам x={}, y={}", x, y);
-            }
-            
-            // Обновляем доску
-            playerBoard.setBoardState(playerBoard.convertBoardToString(boardArray));
-            
-
-            // Если был HARD уровень и попадание, добавляем в pendingHits
-            if (difficultyLevel == DifficultyLevel.HARD && hit) {
-                // Добавляем попадание, если оно не потоплено
-                boolean isShipSunk = true;
-                for (boolean hitStatus : hitShip.getHits()) {
-                    if (!hitStatus) {
-                        isShipSunk = false;
-                        break;
-                    }
-                }
-                if (!isShipSunk) {
-                    boolean already = false;
-                    for (Game.PendingHit ph : game.getPendingHits()) {
-                        if (ph.getX() == x && ph.getY() == y) {
-                            already = true;
-                            break;
-                        }
-                    }
-                    if (!already) {
-                        game.getPendingHits().add(new Game.PendingHit(x, y));
-                    }
-                }
-                game.setLastHitX(x);
-                game.setLastHitY(y);
-            }
-            
-            // Обновляем данные о кораблях, если было попадание
-            if (hit) {
-                try {
-                    playerBoard.setShipsData(objectMapper.writeValueAsString(playerShips));
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException("Ошибка при сохранении данных о кораблях игрока", e);
-                }
-                
-                // Проверяем, закончилась ли игра (все ли корабли потоплены)
-                boolean gameOver = true;
-                for (Ship ship : playerShips) {
-                    if (!ship.isSunk()) {
-                        gameOver = false;
-                        break;
-                    }
-                }
-                // Если корабль потоплен, удаляем все связанные pendingHits
-                boolean isShipSunk = true;
-                for (boolean hitStatus : hitShip.getHits()) {
-                    if (!hitStatus) {
-                        isShipSunk = false;
-                        break;
-                    }
-                }
-                if (isShipSunk && difficultyLevel == DifficultyLevel.HARD) {
-                    List<int[]> coords = hitShip.getCoordinates();
-                    game.getPendingHits().removeIf(ph -> {
-                        for (int[] c : coords) {
-                            if (ph.getX() == c[0] && ph.getY() == c[1]) return true;
-                        }
-                        return false;
-                    });
-                }
-                // Если игра закончилась, обновляем статус
-                if (gameOver) {
-                    game.setGameState(GameState.COMPUTER_WON);
-                    logger.info("Компьютер ВЫИГРАЛ игру {}", game.getId());
-                } else {
-                    // Если попал, компьютер ходит еще раз (рекурсивно) с увеличением счетчика ходов
-                    gameRepository.save(game);
-                    computerMove(game, moveCount + 1);
-                    return;
-                }
-            } else {
-                // Если промах на HARD, не сбрасываем pendingHits, но сбрасываем lastHitX/lastHitY
-                if (difficultyLevel == DifficultyLevel.HARD) {
-                    game.setLastHitX(-1);
-                    game.setLastHitY(-1);
-                }
-                // Если промах, переключаем ход на игрока
-                game.toggleTurn();
-            }
-            
-            // Сохраняем изменения
-            gameRepository.save(game);
-        }
-    }
-    
-    // Метод для случайного выстрела (для EASY)
-    private boolean makeRandomShot(int[][] boardArray, int[] coordinates) {
-        boolean validMove = false;
-        int attempts = 0;
-        int maxAttempts = 500; // Предотвращение бесконечного цикла
-        
-        while (!validMove && attempts < maxAttempts) {
-            int x = random.nextInt(10);
-            int y = random.nextInt(10);
-            
-            // Проверяем, что по этой клетке еще не стреляли
-            if (boardArray[y][x] != 2 && boardArray[y][x] != 3) {
-                coordinates[0] = x;
-                coordinates[1] = y;
-                validMove = true;
-            }
-            
-            attempts++;
+        playerBoard.setBoardState(turn.boardState());
+        if (turn.shipsData() != null) {
+            playerBoard.setShipsData(turn.shipsData());
         }
-        
-        if (!validMove) {
-            logger.warn("Не удалось найти клетку для случайного выстрела после {} попыток", maxAttempts);
+        game.getPendingHits().clear();
+        game.getPendingHits().addAll(turn.pendingHits());
+        game.setLastHitX(turn.lastHitX());
+        game.setLastHitY(turn.lastHitY());
+        game.setRngStep(turn.rngStep());
+
+        if (turn.computerWon()) {
+            game.setGameState(GameState.COMPUTER_WON);
+            logger.info("Компьютер ВЫИГРАЛ игру {}", game.getId());
+            eventPublisher.publishEvent(GameFinishedEvent.singleplayer(game.getId(),
+                    playerBoard.getOwnerId(), false, game.getDifficultyLevel()));
+        } else if (turn.turnPassed()) {
+            // Промах (или лимит ходов подряд) - ход переходит к игроку
+            game.toggleTurn();
         }
-        
-        return validMove;
     }
     
-    // Метод для выстрела по шахматной доске (для MEDIUM)
-    private boolean makeCheckerboardShot(int[][] boardArray, int[] coordinates) {
-        boolean validMove = false;
-        
-        // Попытки найти ход по шахматному паттерну
-        for (int attempts = 0; attempts < 100 && !validMove; attempts++) {
-            int x = random.nextInt(10);
-            int y = random.nextInt(10);
-            
-            // Проверяем, что клетка следует шахматному паттерну
-            // (сумма координат четная), и по ней еще не стреляли
-            if ((x + y) % 2 == 0 && boardArray[y][x] != 2 && boardArray[y][x] != 3) {
-                coordinates[0] = x;
-                coordinates[1] = y;
-                validMove = true;
-            }
+    // Выстрел в запись повтора; партии, созданные до появления повторов, не записываются
+    private void recordShot(Game game, int shooter, int x, int y, boolean hit, boolean sunk) {
+        if (game.getReplayFleets() != null) {
+            game.setReplayShots(ReplayCodec.appendShot(game.getReplayShots(), shooter, x, y, shotResult(hit, sunk)));
         }
-        
-        // Если не удалось найти ход по шахматному паттерну, делаем случайный ход
-        if (!validMove) {
-            logger.info("Не удалось найти подходящую клетку по шахматной стратегии, переключаемся на случайную");
-            return makeRandomShot(boardArray, coordinates);
-        }
-        
-        return validMove;
     }
-    
-    // Метод для умного выстрела с добиванием кораблей (для HARD)
-    private boolean makeSmartShot(int[][] boardArray, int[] coordinates, Game game) {
-        boolean validMove = false;
-        // Если есть "висящие" попадания, пытаемся добить их
-        List<Game.PendingHit> pendingHits = game.getPendingHits();
-        outer:
-        for (Game.PendingHit ph : pendingHits) {
-            int[][] directions = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
-            for (int[] dir : directions) {
-                int newX = ph.getX() + dir[0];
-                int newY = ph.getY() + dir[1];
-                if (newX >= 0 && newX < 10 && newY >= 0 && newY < 10 &&
-                        boardArray[newY][newX] != 2 && boardArray[newY][newX] != 3) {
-                    coordinates[0] = newX;
-                    coordinates[1] = newY;
-                    validMove = true;
-                    break outer;
-                }
-            }
-        }
-        // Если нет pendingHits или не нашли подходящую клетку, используем lastHitX/lastHitY
-        if (!validMove && game.getLastHitX() >= 0 && game.getLastHitY() >= 0) {
-            int[][] directions = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
-            for (int[] dir : directions) {
-                int newX = game.getLastHitX() + dir[0];
-                int newY = game.getLastHitY() + dir[1];
-                if (newX >= 0 && newX < 10 && newY >= 0 && newY < 10 &&
-                        boardArray[newY][newX] != 2 && boardArray[newY][newX] != 3) {
-                    coordinates[0] = newX;
-                    coordinates[1] = newY;
-                    validMove = true;
-                    break;
-                }
-            }
-        }
-        // Если не удалось найти умный ход, делаем случайный
-        if (!validMove) {
-            logger.info("Не удалось найти подходящую клетку для добивания, переключаемся на случайную");
-            return makeRandomShot(boardArray, coordinates);
+
+    // Начало записи мультиплеерной партии: флоты известны, когда оба игрока расставили корабли.
+    // Здесь же сообщается о расстановках обоих игроков (для статистики)
+    private void startReplay(MultiplayerRoomEntity entity, List<ShipDto> player1Ships, List<ShipDto> player2Ships) {
+        if (player1Ships == null || player1Ships.isEmpty() || player2Ships == null || player2Ships.isEmpty()) {
+            return;
         }
-        return validMove;
+        entity.setReplayFleets(ReplayCodec.encodeShipDtos(
+                ReplayCodec.FLAG_HALO_PLAYER1 | ReplayCodec.FLAG_HALO_PLAYER2, player1Ships, player2Ships));
+        entity.setReplayShots(null);
+        eventPublisher.publishEvent(new FleetPlacedEvent("room:" + entity.getCode(), entity.getPlayer1Id(),
+                PlacementClassifier.classify(ReplayCodec.decodeFleet(entity.getReplayFleets(), ReplayCodec.PLAYER1))));
+        eventPublisher.publishEvent(new FleetPlacedEvent("room:" + entity.getCode(), entity.getPlayer2Id(),
+                PlacementClassifier.classify(ReplayCodec.decodeFleet(entity.getReplayFleets(), ReplayCodec.PLAYER2))));
     }
-    
-    @Transactional
+
+    private static int shotResult(boolean hit, boolean sunk) {
+        return sunk ? ReplayCodec.SUNK : hit ? ReplayCodec.HIT : ReplayCodec.MISS;
+    }
+
     public GameDto startGame(Long gameId, Long userId) {
-        // Получаем игру по ID
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Игра не найдена"));
-        
+        return inGameTransaction(gameId, game -> startGame(game, userId));
+    }
+
+    private GameDto startGame(Game game, Long userId) {
         // Проверяем, что игра в статусе ожидания
         if (game.getGameState() != GameState.WAITING) {
             throw new RuntimeException("Игра уже начата или завершена");
@@ -1101,7 +877,8 @@ public class GameService {
         game.setPlayerTurn(true); // Первый ход за игроком
         
         // Сохраняем изменения
-        game = gameRepository.save(game);
+        game = saveGame(game);
+        computerTurnSpeculator.prepare(game);
         
         // Возвращаем обновленное состояние игры
         return convertToGameDto(game, userId);
@@ -1110,11 +887,115 @@ public class GameService {
     @Transactional(readOnly = true)
     public GameDto getGameById(Long gameId, Long userId) {
         // Получаем игру по ID
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Игра не найдена"));
+        Game game = findGame(gameId);
         
         // Возвращаем данные игры
-        return convertToGameDto(game, userId);
+        synchronized (game) {
+            return convertToGameDto(game, userId);
+        }
+    }
+
+    /**
+     * Подсказка для одиночной игры: вероятности кораблей на доске компьютера
+     */
+    @Transactional(readOnly = true)
+    public HeatmapDto getHeatmap(Long gameId, Long userId) {
+        Game game = findGame(gameId);
+        synchronized (game) {
+            GameBoard playerBoard = game.getPlayerBoard();
+            if (playerBoard == null || !userId.equals(playerBoard.getOwnerId())) {
+                throw new RuntimeException("Вы не являетесь владельцем этой игры");
+            }
+            return shotHeatmapService.heatmap(game.getId(), game.getComputerBoard());
+        }
+    }
+
+    /**
+     * Сохраняет гостевую игру в БД по просьбе игрока (до окончания партии)
+     * @return Состояние игры с новым (положительным) id
+     */
+    public GameDto saveGuestGame(Long gameId, Long userId) {
+        return inGameTransaction(gameId, game -> {
+            GameBoard playerBoard = game.getPlayerBoard();
+            if (playerBoard == null || !userId.equals(playerBoard.getOwnerId())) {
+                throw new RuntimeException("Вы не являетесь владельцем этой игры");
+            }
+            if (EphemeralGameStore.isEphemeral(game.getId())) {
+                game = persistGuestGame(game);
+            }
+            return convertToGameDto(game, userId);
+        });
+    }
+
+    /**
+     * Изменение одиночной игры в своей транзакции. Гостевая игра - общий объект в
+     * памяти: изменения по ней идут по одному, и блокировка снимается только после
+     * фиксации. Иначе запрос по старому id успел бы взять игру, уже вставленную в БД
+     * незафиксированной транзакцией, а откат менял бы id без блокировки
+     */
+    private <T> T inGameTransaction(Long gameId, Function<Game, T> action) {
+        Game guest = ephemeralGames.get(gameId);
+        if (guest != null) {
+            synchronized (guest) {
+                // Пока ждали блокировку, игру могли сохранить в БД - тогда она читается оттуда
+                if (ephemeralGames.get(gameId) == guest) {
+                    return transactionTemplate.execute(status -> action.apply(guest));
+                }
+            }
+        }
+        return transactionTemplate.execute(status -> action.apply(findGame(gameId)));
+    }
+
+    // Игра из памяти (гостевая), иначе из БД; старый id сохранённой гостевой игры ведёт на её id в БД
+    private Game findGame(Long gameId) {
+        Game game = ephemeralGames.get(gameId);
+        if (game != null) {
+            return game;
+        }
+        Long persistedId = ephemeralGames.resolve(gameId);
+        if (persistedId == null) {
+            throw new RuntimeException("Игра не найдена");
+        }
+        return gameRepository.findById(persistedId)
+                .orElseThrow(() -> new RuntimeException("Игра не найдена"));
+    }
+
+    // Гостевая игра пишется в БД только после окончания, обычная - на каждом ходе
+    private Game saveGame(Game game) {
+        if (!EphemeralGameStore.isEphemeral(game.getId())) {
+            return gameRepository.save(game);
+        }
+        if (game.getGameState() == GameState.PLAYER_WON || game.getGameState() == GameState.COMPUTER_WON) {
+            return persistGuestGame(game);
+        }
+        return game;
+    }
+
+    private Game persistGuestGame(Game game) {
+        Long ephemeralId = game.getId();
+        // Без id игра и обе доски вставляются как новые строки
+        game.setId(null);
+        Game saved = gameRepository.save(game);
+        Long persistedId = saved.getId();
+        eventPublisher.publishEvent(new GuestGamePersistedEvent(ephemeralId, persistedId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ephemeralGames.persisted(ephemeralId, persistedId);
+            return saved;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    ephemeralGames.persisted(ephemeralId, persistedId);
+                } else {
+                    // Вставка откатилась: игра остаётся гостевой
+                    game.setId(ephemeralId);
+                    game.getBoards().forEach(board -> board.setId(null));
+                }
+            }
+        });
+        logger.info("Гостевая игра {} сохранена в БД под id {}", ephemeralId, persistedId);
+        return saved;
     }
     
     /**
@@ -1125,18 +1006,20 @@ public class GameService {
     @Transactional(readOnly = true)
     public List<ShipDto> generatePlayerShips(String placementStrategy) {
         List<Ship> ships;
+        // Расстановка для игрока не привязана к игре: свой генератор на каждый запрос
+        SplittableRandom rng = GameRandom.unseeded();
         
         // Выбираем стратегию расстановки
         switch (placementStrategy.toUpperCase()) {
             case "SHORE":
-                ships = generateShoreStrategy();
+                ships = generateShoreStrategy(rng);
                 break;
             case "ASYMMETRIC":
-                ships = generateAsymmetricStrategy();
+                ships = generateAsymmetricStrategy(rng);
                 break;
             case "RANDOM":
             default:
-                ships = generateRandomStrategy();
+                ships = generateRandomStrategy(rng);
                 break;
         }
         
@@ -1144,6 +1027,14 @@ public class GameService {
         return ships.stream().map(this::convertToShipDto).collect(Collectors.toList());
     }
 
+    // Клетки и попадания новой расстановки считаются по x/y/size/horizontal, присланные клиентом не используются
+    private void resetPlacedShips(List<ShipDto> ships) {
+        for (ShipDto ship : ships) {
+            ship.setPositions(generateShipPositionsFromShipDto(ship));
+            ship.setHits(new boolean[ship.getSize()]);
+        }
+    }
+
     // Helper method to generate the board array with ships placed
     private int[][] generateBoardWithShips(List<ShipDto> ships) {
         int[][] board = new int[10][10]; // Initialize with zeros
@@ -1167,54 +1058,16 @@ public class GameService {
     // Создание мультиплеерной игры, возвращает сгенерированный код
     @Transactional
     public String createMultiplayerGame(Long userId, List<ShipDto> ships) {
-        String code = java.util.UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        // Код гарантированно уникален: выдаётся из зарезервированного за узлом блока
+        String code = roomCodeAllocator.nextCode();
         logger.info("Создаю комнату с кодом: {}", code);
-        MultiplayerRoomEntity entity = new MultiplayerRoomEntity();
-        entity.setCode(code);
-        entity.setPlayer1Id(userId);
-        entity.setCurrentTurn("player1");
         try {
-            // Инициализируем пустые доски и корабли для обоих игроков
-            int[][] emptyBoard = new int[10][10];
-            List<ShipDto> emptyShips = new ArrayList<>();
-            // Не сохраняем корабли хоста на этом этапе!
-            entity.setPlayer1ShipsJson(objectMapper.writeValueAsString(emptyShips));
-            entity.setPlayer1BoardJson(objectMapper.writeValueAsString(emptyBoard));
-            // --- НЕ сохраняем пустые данные для игрока 2 ---
-            // entity.setPlayer2ShipsJson(objectMapper.writeValueAsString(emptyShips));
-            // entity.setPlayer2BoardJson(objectMapper.writeValueAsString(emptyBoard));
-
-            // Инициализация GameDto с начальным состоянием (ожидание игрока 2 и расстановки хоста)
-            GameDto gameState = new GameDto();
-            gameState.setMode(GameMode.multiplayer);
-            gameState.setGameState(GameState.WAITING);
-            gameState.setPlayerTurn(false); // Игра не началась, ход не активен
-
-            // Для хоста его поле - playerBoard, поле противника пока пустое - computerBoard
-            GameBoardDto hostBoardDto = new GameBoardDto();
-            hostBoardDto.setId(entity.getPlayer1Id()); // Устанавливаем id игрока 1
-            hostBoardDto.setBoard(emptyBoard);
-            hostBoardDto.setShips(emptyShips);
-            hostBoardDto.setComputer(false);
-
-            GameBoardDto emptyOpponentBoardDto = new GameBoardDto();
-            emptyOpponentBoardDto.setId(entity.getPlayer2Id()); // Устанавливаем id игрока 2
-            emptyOpponentBoardDto.setBoard(emptyBoard);
-            emptyOpponentBoardDto.setShips(emptyShips);
-            emptyOpponentBoardDto.setComputer(true);
-
-            gameState.setPlayerBoard(hostBoardDto);
-            gameState.setComputerBoard(emptyOpponentBoardDto);
-
-            // Сохраняем состояние игры
-            entity.setGameStateJson(objectMapper.writeValueAsString(gameState));
-
-            // Сохраняем режим игры в базе данных
-            entity.setGameMode(GameMode.multiplayer);
+            MultiplayerRoomEntity entity = newRoom(code, userId, null);
 
             // Сохраняем и фиксируем изменения
             entity = multiplayerRoomRepository.save(entity);
             multiplayerRoomRepository.flush();
+            journalRoom(entity);
 
             logger.info("Комната {} успешно создана и сохранена в БД", code);
             return code;
@@ -1225,25 +1078,115 @@ public class GameService {
         }
     }
 
+    /**
+     * Комната с заранее назначенными игроками (матч турнира). Дальше всё как
+     * в обычной комнате: хост расставляет корабли через placeHostShips,
+     * второй игрок входит через joinMultiplayerGame со своей расстановкой
+     */
+    public record ReservedRoom(Long player1Id, Long player2Id) {
+    }
+
+    /**
+     * Создаёт комнаты для пачки пар игроков в одной транзакции и возвращает
+     * коды в том же порядке. Коды берутся из блока узла без обращения к БД,
+     * комнаты вставляются пакетами JDBC без предварительных SELECT, поэтому
+     * старт раунда с сотнями матчей — несколько запросов, а не сотни транзакций
+     */
+    @Transactional
+    public List<String> createReservedMultiplayerGames(List<ReservedRoom> rooms) {
+        List<MultiplayerRoomEntity> entities = new ArrayList<>(rooms.size());
+        try {
+            for (ReservedRoom room : rooms) {
+                entities.add(newRoom(roomCodeAllocator.nextCode(), room.player1Id(), room.player2Id()));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Ошибка при создании мультиплеерной игры: " + e.getMessage(), e);
+        }
+        multiplayerRoomRepository.persistAll(entities);
+        entities.forEach(this::journalRoom);
+        logger.info("Создано комнат одной пачкой: {}", entities.size());
+        return entities.stream().map(MultiplayerRoomEntity::getCode).toList();
+    }
+
+    // Новая комната в ожидании расстановки кораблей; player2Id задан только у турнирных комнат
+    private MultiplayerRoomEntity newRoom(String code, Long player1Id, Long player2Id) throws JsonProcessingException {
+        MultiplayerRoomEntity entity = new MultiplayerRoomEntity();
+        entity.setCode(code);
+        entity.setPlayer1Id(player1Id);
+        entity.setPlayer2Id(player2Id);
+        entity.setCurrentTurn("player1");
+
+        // Инициализируем пустые доски и корабли для обоих игроков
+        int[][] emptyBoard = new int[10][10];
+        List<ShipDto> emptyShips = new ArrayList<>();
+        // Не сохраняем корабли хоста на этом этапе!
+        entity.setPlayer1ShipsJson(objectMapper.writeValueAsString(emptyShips));
+        entity.setPlayer1BoardJson(objectMapper.writeValueAsString(emptyBoard));
+        // --- НЕ сохраняем пустые данные для игрока 2 ---
+        // entity.setPlayer2ShipsJson(objectMapper.writeValueAsString(emptyShips));
+        // entity.setPlayer2BoardJson(objectMapper.writeValueAsString(emptyBoard));
+
+        // Инициализация GameDto с начальным состоянием (ожидание игрока 2 и расстановки хоста)
+        GameDto gameState = new GameDto();
+        gameState.setMode(GameMode.multiplayer);
+        gameState.setGameState(GameState.WAITING);
+        gameState.setPlayerTurn(false); // Игра не началась, ход не активен
+
+        // Для хоста его поле - playerBoard, поле противника пока пустое - computerBoard
+        GameBoardDto hostBoardDto = new GameBoardDto();
+        hostBoardDto.setId(entity.getPlayer1Id()); // Устанавливаем id игрока 1
+        hostBoardDto.setBoard(emptyBoard);
+        hostBoardDto.setShips(emptyShips);
+        hostBoardDto.setComputer(false);
+
+        GameBoardDto emptyOpponentBoardDto = new GameBoardDto();
+        emptyOpponentBoardDto.setId(entity.getPlayer2Id()); // Устанавливаем id игрока 2
+        emptyOpponentBoardDto.setBoard(emptyBoard);
+        emptyOpponentBoardDto.setShips(emptyShips);
+        emptyOpponentBoardDto.setComputer(true);
+
+        gameState.setPlayerBoard(hostBoardDto);
+        gameState.setComputerBoard(emptyOpponentBoardDto);
+
+        // Сохраняем состояние игры
+        writeStateFrame(entity, code, gameState);
+
+        // Сохраняем режим игры в базе данных
+        entity.setGameMode(GameMode.multiplayer);
+        entity.setStatus(GameState.WAITING);
+        return entity;
+    }
+
+    /**
+     * Итог комнаты, которая так и не началась (кто-то не пришёл): true - побеждает игрок 1.
+     * Игрок 1 проигрывает, только если соперник вошёл со своей расстановкой, а он сам
+     * корабли так и не расставил; если не пришёл никто, дальше проходит игрок 1
+     */
+    @Transactional(readOnly = true)
+    public boolean noShowPlayer1Wins(String gameCode) {
+        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
+            .orElseThrow(() -> new RuntimeException("Комната не найдена"));
+        return hasShips(entity.getPlayer1ShipsJson()) || !hasShips(entity.getPlayer2ShipsJson());
+    }
+
+    private static boolean hasShips(String shipsJson) {
+        return shipsJson != null && !shipsJson.equals("[]");
+    }
+
     // Подключение к игре по коду, возвращает DTO игры
     @Transactional
     public GameDto joinMultiplayerGame(String gameCode, Long userId, List<ShipDto> ships) {
         MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
             .orElseThrow(() -> new RuntimeException("Комната не найдена или уже заполнена"));
-        if (entity.getPlayer2Id() != null) {
+        // Турнирная комната: второй игрок назначен заранее и приходит со своей расстановкой
+        boolean reservedForUser = userId.equals(entity.getPlayer2Id()) && entity.getPlayer2ShipsJson() == null;
+        if (entity.getPlayer2Id() != null && !reservedForUser) {
             throw new RuntimeException("Комната уже заполнена");
         }
+        Fleets.validate(ships);
         entity.setPlayer2Id(userId);
         try {
-            // --- ГАРАНТИРУЕМ заполнение hits и positions ---
-            for (ShipDto ship : ships) {
-                if (ship.getPositions() == null) {
-                    ship.setPositions(generateShipPositionsFromShipDto(ship));
-                }
-                if (ship.getHits() == null) {
-                    ship.setHits(new boolean[ship.getSize()]);
-                }
-            }
+            resetPlacedShips(ships);
             entity.setPlayer2ShipsJson(objectMapper.writeValueAsString(ships));
             int[][] player2Board = generateBoardWithShips(ships);
             entity.setPlayer2BoardJson(objectMapper.writeValueAsString(player2Board));
@@ -1251,12 +1194,18 @@ public class GameService {
             // Получаем доски и корабли игрока 1 из сущности
             List<ShipDto> player1Ships = objectMapper.readValue(entity.getPlayer1ShipsJson(), new com.fasterxml.jackson.core.type.TypeReference<List<ShipDto>>() {});
             int[][] player1Board = objectMapper.readValue(entity.getPlayer1BoardJson(), int[][].class);
+            // Хост ещё не расставил корабли: комната ждёт, игра начнётся в placeHostShips
+            boolean hostReady = player1Ships != null && !player1Ships.isEmpty();
+            GameState roomState = hostReady ? GameState.IN_PROGRESS : GameState.WAITING;
+            if (hostReady) {
+                startReplay(entity, player1Ships, ships);
+            }
 
             // --- GameDto для игрока 2 ---
             GameDto player2GameState = new GameDto();
             player2GameState.setId(userId); // Устанавливаем id игрока
             player2GameState.setMode(GameMode.multiplayer);
-            player2GameState.setGameState(GameState.IN_PROGRESS);
+            player2GameState.setGameState(roomState);
             player2GameState.setPlayerTurn(false); // Первый ход за игроком 1
             player2GameState.setGameCode(gameCode); // Устанавливаем код игры
 
@@ -1279,8 +1228,8 @@ public class GameService {
             GameDto player1GameState = new GameDto();
             player1GameState.setId(entity.getPlayer1Id()); // Устанавливаем id игрока 1
             player1GameState.setMode(GameMode.multiplayer);
-            player1GameState.setGameState(GameState.IN_PROGRESS);
-            player1GameState.setPlayerTurn(true); // Первый ход за игроком 1
+            player1GameState.setGameState(roomState);
+            player1GameState.setPlayerTurn(hostReady); // Первый ход за игроком 1
             player1GameState.setGameCode(gameCode); // Устанавливаем код игры
 
             GameBoardDto player1BoardDto2 = new GameBoardDto();
@@ -1298,13 +1247,24 @@ public class GameService {
             player1GameState.setPlayerBoard(player1BoardDto2);
             player1GameState.setComputerBoard(player2BoardDto2);
 
+            if (hostReady) {
+                // Запускаем часы первого хода; срок хода видят оба игрока
+                Long deadline = toEpochMillis(turnTimerService.startTurn(gameCode, TurnTimerService.PLAYER1,
+                        entity.getStateVersion() + 1));
+                player1GameState.setTurnDeadline(deadline);
+                player2GameState.setTurnDeadline(deadline);
+            }
+
             // Сохраняем состояние игры для обоих игроков
-            entity.setGameStateJson(objectMapper.writeValueAsString(player1GameState));
+            writeStateFrame(entity, gameCode, player1GameState);
             entity.setCurrentTurn("player1"); // Первый ход за игроком 1
+            entity.setStatus(roomState);
 
             // Сохраняем изменения в базе данных
             entity = multiplayerRoomRepository.save(entity);
             multiplayerRoomRepository.flush();
+            journalRoom(entity);
+            evictRoomState(gameCode);
 
             // Возвращаем состояние для игрока 2
             return player2GameState;
@@ -1314,8 +1274,13 @@ public class GameService {
         }
     }
 
+    /**
+     * Выполняет ход в мультиплеерной игре и возвращает новое состояние комнаты
+     * в виде готового кадра: JSON формируется один раз и используется и для
+     * колонки gameStateJson, и для рассылки клиентам
+     */
     @Transactional
-    public GameDto makeMultiplayerMove(String gameCode, Long userId, MoveRequest moveRequest) {
+    public GameStateFrame makeMultiplayerMove(String gameCode, Long userId, MoveRequest moveRequest) {
         MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
             .orElseThrow(() -> new RuntimeException("Комната не найдена"));
 
@@ -1330,9 +1295,21 @@ public class GameService {
         }
 
         try {
-            GameDto gameState = objectMapper.readValue(entity.getGameStateJson(), GameDto.class);
-            if (gameState.getGameState() != GameState.IN_PROGRESS) {
-                throw new RuntimeException("Игра не в процессе");
+            GameDto gameState;
+            if (entity.getStatus() != null) {
+                // Статус хранится в отдельной колонке — разбирать сохранённый JSON не нужно
+                if (entity.getStatus() != GameState.IN_PROGRESS) {
+                    throw new RuntimeException("Игра не в процессе");
+                }
+                gameState = new GameDto();
+                gameState.setId(entity.getPlayer1Id());
+                gameState.setGameState(GameState.IN_PROGRESS);
+            } else {
+                // Комнаты, созданные до появления колонки статуса
+                gameState = objectMapper.readValue(entity.getGameStateJson(), GameDto.class);
+                if (gameState.getGameState() != GameState.IN_PROGRESS) {
+                    throw new RuntimeException("Игра не в процессе");
+                }
             }
 
             // Проверяем, чей сейчас ход
@@ -1357,102 +1334,37 @@ public class GameService {
                 throw new RuntimeException("По этой клетке уже стреляли");
             }
 
-            // Проверяем попадание
-            boolean hit = false;
-            boolean sunk = false;
-            boolean gameOver = false;
-
-            for (ShipDto ship : targetShips) {
-                if (ship.getX() <= moveRequest.getX() && moveRequest.getX() < ship.getX() + (ship.isHorizontal() ? ship.getSize() : 1) &&
-                    ship.getY() <= moveRequest.getY() && moveRequest.getY() < ship.getY() + (ship.isHorizontal() ? 1 : ship.getSize())) {
-                    hit = true;
-                    // Находим индекс попадания в массиве hits
-                    int hitIndex = ship.isHorizontal() ? 
-                        moveRequest.getX() - ship.getX() : 
-                        moveRequest.getY() - ship.getY();
-                    boolean[] hits = ship.getHits();
-                    hits[hitIndex] = true;
-                    ship.setHits(hits);
-                    // Проверяем, потоплен ли корабль
-                    sunk = true;
-                    for (boolean h : hits) {
-                        if (!h) {
-                            sunk = false;
-                            break;
-                        }
-                    }
-                    break;
-                }
-            }
+            // Проверяем попадание; вокруг потопленного корабля клетки помечаются как промах
+            Board board = new Board(targetBoard, Fleets.ofDtos(targetShips), true);
+            ShotOutcome outcome = board.shoot(moveRequest.getX(), moveRequest.getY());
+            Fleets.copyDtoHits(board.fleet(), board.lastShip(), targetShips);
+            boolean hit = outcome.isHit();
+            boolean sunk = outcome == ShotOutcome.SUNK;
 
-            // Обновляем доску
-            targetBoard[moveRequest.getY()][moveRequest.getX()] = hit ? 3 : 2;
-
-            // Проверяем, потоплен ли корабль, который был только что подбит
-            ShipDto hitShipDto = null;
-            if (hit) {
-                 for (ShipDto ship : targetShips) {
-                     if (ship.getX() <= moveRequest.getX() && moveRequest.getX() < ship.getX() + (ship.isHorizontal() ? ship.getSize() : 1) &&
-                         ship.getY() <= moveRequest.getY() && moveRequest.getY() < ship.getY() + (ship.isHorizontal() ? 1 : ship.getSize())) {
-                         hitShipDto = ship;
-                         break;
-                     }
-                 }
-             }
-
-            if (hitShipDto != null) {
-                 boolean isShipSunkAfterHit = true;
-                 boolean[] hitsAfterHit = hitShipDto.getHits();
-                 for (boolean h : hitsAfterHit) {
-                     if (!h) {
-                         isShipSunkAfterHit = false;
-                         break;
-                     }
-                 }
-                 sunk = isShipSunkAfterHit; // Обновляем флаг sunk на основе текущего подбитого корабля
-
-                 // Если корабль потоплен, помечаем соседние клетки как промах
-                 if (sunk) {
-                      for (int[] position : generateShipPositionsFromShipDto(hitShipDto)) {
-                          int shipX = position[0];
-                          int shipY = position[1];
-
-                          // Проверяем все соседние клетки
-                          for (int dx = -1; dx <= 1; dx++) {
-                              for (int dy = -1; dy <= 1; dy++) {
-                                  int nx = shipX + dx;
-                                  int ny = shipY + dy;
-
-                                  // Проверяем границы поля
-                                  if (nx >= 0 && nx < 10 && ny >= 0 && ny < 10) {
-                                      // Если клетка пустая (0), помечаем её как промах (2)
-                                      if (targetBoard[ny][nx] < 2) {
-                                          targetBoard[ny][nx] = 2;
-                                      }
-                                  }
-                              }
-                          }
-                      }
-                  }
-             }
+            eventPublisher.publishEvent(new ShotFiredEvent("room:" + gameCode, userId,
+                    moveRequest.getX(), moveRequest.getY(), hit, sunk));
+            gameEventLog.multiplayerShot(gameCode, userId, moveRequest.getX(), moveRequest.getY(), hit, sunk);
 
             // Проверяем, закончилась ли игра
-            gameOver = targetShips.stream().allMatch(ship -> {
-                boolean[] hits = ship.getHits();
-                for (boolean h : hits) {
-                    if (!h) return false;
-                }
-                return true;
-            });
+            boolean gameOver = board.isGameOver();
 
             // Обновляем состояние игры
             if (gameOver) {
                 gameState.setGameState(isPlayer1 ? GameState.PLAYER_WON : GameState.COMPUTER_WON);
+                entity.setStatus(gameState.getGameState());
+                eventPublisher.publishEvent(GameFinishedEvent.multiplayer(gameCode,
+                        entity.getPlayer1Id(), entity.getPlayer2Id(), isPlayer1, false));
             } else if (!hit) {
                 // Переключаем ход только при промахе
                 entity.setCurrentTurn(isPlayer1 ? "player2" : "player1");
             }
 
+            if (entity.getReplayFleets() != null) {
+                entity.setReplayShots(ReplayCodec.appendShot(entity.getReplayShots(),
+                        isPlayer1 ? ReplayCodec.PLAYER1 : ReplayCodec.PLAYER2,
+                        moveRequest.getX(), moveRequest.getY(), shotResult(hit, sunk)));
+            }
+
             // Сохраняем обновленные данные
             if (isPlayer1) {
                 entity.setPlayer2BoardJson(objectMapper.writeValueAsString(targetBoard));
@@ -1484,16 +1396,28 @@ public class GameService {
             gameState.setMode(GameMode.multiplayer);
             gameState.setGameCode(gameCode);
 
-            // Сохраняем обновленное состояние
-            entity.setGameStateJson(objectMapper.writeValueAsString(gameState));
-            multiplayerRoomRepository.save(entity);
-
-            // Добавляем информацию о результате хода
+            // Информация о результате хода входит в тот же кадр, что сохраняется в БД
             gameState.setLastMoveHit(hit);
             gameState.setLastMoveSunk(sunk);
             gameState.setLastMoveGameOver(gameOver);
+            gameState.setTimeoutAction(null);
 
-            return gameState;
+            // Часы: после хода (в том числе повторного после попадания) таймер перезапускается
+            turnTimerService.playerMoved(gameCode, isPlayer1 ? TurnTimerService.PLAYER1 : TurnTimerService.PLAYER2);
+            if (gameOver) {
+                turnTimerService.stop(gameCode);
+            } else {
+                gameState.setTurnDeadline(toEpochMillis(turnTimerService.startTurn(gameCode,
+                        entity.getCurrentTurn(), entity.getStateVersion() + 1)));
+            }
+
+            // Сохраняем обновленное состояние
+            GameStateFrame frame = writeStateFrame(entity, gameCode, gameState);
+            multiplayerRoomRepository.save(entity);
+            journalRoom(entity);
+            evictRoomState(gameCode);
+
+            return frame;
 
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при выполнении хода: " + e.getMessage(), e);
@@ -1550,18 +1474,59 @@ public class GameService {
         logger.info("Ищу комнату с кодом: {} для userId={}", gameCode, userId);
         
         // Проверяем кэш
-        String cacheKey = gameCode + "_" + userId; // Добавляем userId в ключ кэша
-        GameDto cachedState = gameStateCache.get(cacheKey);
-        Long lastUpdate = lastUpdateTime.get(cacheKey);
-        if (cachedState != null && lastUpdate != null && 
-            System.currentTimeMillis() - lastUpdate < CACHE_TTL) {
-            return cachedState;
+        Map<Long, CachedState> roomCache = playerStateCache.get(gameCode);
+        CachedState cached = roomCache != null && userId != null ? roomCache.get(userId) : null;
+        if (cached != null && System.currentTimeMillis() - cached.updatedAt() < CACHE_TTL) {
+            return cached.state();
         }
         
 
-        String cleanCode = gameCode;
-        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(cleanCode)
+        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
+                .orElseThrow(() -> new RuntimeException("Комната не найдена"));
+        GameDto gameState = buildPlayerState(entity, userId);
+
+        // Сохраняем в кэш с учетом userId
+        if (userId != null) {
+            playerStateCache.computeIfAbsent(gameCode, code -> new ConcurrentHashMap<>())
+                    .put(userId, new CachedState(gameState, System.currentTimeMillis()));
+        }
+        return gameState;
+    }
+
+    /**
+     * Состояние комнаты глазами пользователя как готовый кадр (для /app/multiplayer.state).
+     * Кадр сериализуется один раз на версию комнаты: пока версия в БД не сменилась,
+     * повторные запросы отдают те же байты без разбора колонок комнаты
+     */
+    @Transactional(readOnly = true)
+    public GameStateFrame getMultiplayerGameStateFrame(String gameCode, Long userId) {
+        long version = multiplayerRoomRepository.findStateVersion(gameCode)
                 .orElseThrow(() -> new RuntimeException("Комната не найдена"));
+        Map<Long, GameStateFrame> roomFrames = playerFrames.get(gameCode);
+        GameStateFrame cached = roomFrames != null && userId != null ? roomFrames.get(userId) : null;
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
+
+        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
+                .orElseThrow(() -> new RuntimeException("Комната не найдена"));
+        GameDto gameState = buildPlayerState(entity, userId);
+        GameStateFrame frame;
+        try {
+            frame = new GameStateFrame(gameCode, entity.getStateVersion(), objectMapper.writeValueAsBytes(gameState),
+                    gameState.getGameState(), false, false, false);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Ошибка сериализации состояния комнаты", e);
+        }
+        if (userId != null) {
+            playerFrames.computeIfAbsent(gameCode, code -> new ConcurrentHashMap<>()).put(userId, frame);
+        }
+        return frame;
+    }
+
+    // Состояние комнаты для игрока 1, игрока 2 или постороннего (без чужих кораблей)
+    private GameDto buildPlayerState(MultiplayerRoomEntity entity, Long userId) {
+        String cleanCode = entity.getCode();
         try {
             // Получаем корабли и доски обоих игроков
             List<ShipDto> player1Ships = entity.getPlayer1ShipsJson() != null ?
@@ -1600,7 +1565,8 @@ public class GameService {
                 }
             }
 
-            if (entity.getPlayer2Id() == null) {
+            // Второй игрок мог войти раньше, чем хост расставил корабли: тогда комната ещё ждёт
+            if (entity.getPlayer2Id() == null || entity.getStatus() == GameState.WAITING) {
                 gameState.setGameState(GameState.WAITING);
                 gameState.setPlayerTurn(false);
             } else {
@@ -1665,17 +1631,154 @@ public class GameService {
                 gameState.setPlayerBoard(emptyPlayerBoard);
                 gameState.setComputerBoard(emptyOpponentBoard);
             }
-
-            // Сохраняем в кэш с учетом userId
-            gameStateCache.put(cacheKey, gameState);
-            lastUpdateTime.put(cacheKey, System.currentTimeMillis());
-            
             return gameState;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка сериализации/десериализации комнаты", e);
         }
     }
 
+    /**
+     * Сериализует состояние комнаты один раз: байты становятся и колонкой
+     * gameStateJson, и кадром для рассылки. Версия состояния увеличивается.
+     * Кадр попадает в кэш только после фиксации транзакции
+     */
+    private GameStateFrame writeStateFrame(MultiplayerRoomEntity entity, String gameCode, GameDto gameState)
+            throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(gameState);
+        long version = entity.getStateVersion() + 1;
+        GameStateFrame frame = new GameStateFrame(gameCode, version, json, gameState.getGameState(),
+                gameState.isLastMoveHit(), gameState.isLastMoveSunk(), gameState.isLastMoveGameOver());
+        entity.setStateVersion(version);
+        entity.setGameStateJson(frame.asString());
+        return frame;
+    }
+
+    // Выполняет действие после фиксации текущей транзакции (или сразу, если транзакции нет)
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Снимок сохранённой комнаты попадает в журнал только после фиксации транзакции
+    private void journalRoom(MultiplayerRoomEntity entity) {
+        RoomJournal.Record record = roomJournal.snapshot(entity);
+        if (record != null) {
+            afterCommit(() -> roomJournal.append(record));
+        }
+    }
+
+    /**
+     * Удаляет из памяти всё, что относится к комнате: закэшированные состояния
+     * по коду и состояния всех пользователей этой комнаты
+     */
+    public void evictRoomState(String gameCode) {
+        gameStateCache.remove(gameCode);
+        lastUpdateTime.remove(gameCode);
+        playerStateCache.remove(gameCode);
+        playerFrames.remove(gameCode);
+        multiplayerRooms.remove(gameCode);
+    }
+
+    /**
+     * Полная очистка комнаты из памяти и журнала (комната удалена или архивирована)
+     */
+    public void forgetRoom(String gameCode) {
+        evictRoomState(gameCode);
+        turnTimerService.stop(gameCode);
+        roomJournal.forget(gameCode);
+    }
+
+    /**
+     * Применяет истёкший таймер хода: передаёт ход сопернику или засчитывает
+     * поражение. Возвращает новый кадр состояния или null, если событие устарело
+     * (игрок успел сходить, партия закончена)
+     */
+    @Transactional
+    public GameStateFrame applyTurnTimeout(TurnTimerService.TurnTimeoutEvent event) {
+        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(event.gameCode()).orElse(null);
+        if (entity == null || entity.getStatus() != GameState.IN_PROGRESS
+                || entity.getStateVersion() != event.expectedVersion()
+                || !event.player().equals(entity.getCurrentTurn())) {
+            return null;
+        }
+        try {
+            GameDto gameState = objectMapper.readValue(entity.getGameStateJson(), GameDto.class);
+            gameState.setLastMoveHit(false);
+            gameState.setLastMoveSunk(false);
+            String opponent = TurnTimerService.opponentOf(event.player());
+            if (turnTimerService.shouldForfeit(event)) {
+                // Побеждает соперник: PLAYER_WON — победа игрока 1, COMPUTER_WON — игрока 2
+                GameState result = TurnTimerService.PLAYER1.equals(opponent) ? GameState.PLAYER_WON : GameState.COMPUTER_WON;
+                entity.setStatus(result);
+                gameState.setGameState(result);
+                gameState.setLastMoveGameOver(true);
+                gameState.setTurnDeadline(null);
+                gameState.setTimeoutAction("forfeit");
+                turnTimerService.stop(event.gameCode());
+                eventPublisher.publishEvent(GameFinishedEvent.multiplayer(event.gameCode(),
+                        entity.getPlayer1Id(), entity.getPlayer2Id(), result == GameState.PLAYER_WON, true));
+            } else {
+                entity.setCurrentTurn(opponent);
+                gameState.setPlayerTurn(TurnTimerService.PLAYER1.equals(opponent));
+                gameState.setLastMoveGameOver(false);
+                gameState.setTimeoutAction("pass");
+                gameState.setTurnDeadline(toEpochMillis(turnTimerService.startTurn(event.gameCode(), opponent,
+                        entity.getStateVersion() + 1)));
+            }
+            logger.info("[MULTIPLAYER] Время хода {} в комнате {} истекло ({}): {}",
+                    event.player(), event.gameCode(), event.reason(), gameState.getTimeoutAction());
+            GameStateFrame frame = writeStateFrame(entity, event.gameCode(), gameState);
+            multiplayerRoomRepository.save(entity);
+            journalRoom(entity);
+            evictRoomState(event.gameCode());
+            return frame;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Ошибка при обработке таймаута хода: " + e.getMessage(), e);
+        }
+    }
+
+    private static Long toEpochMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : null;
+    }
+
+    /**
+     * Удаляет устаревшие записи кэша состояний. Записи старше CACHE_TTL всё равно
+     * не используются, но без очистки карта растёт с каждым новым ключом
+     * @return количество удалённых записей
+     */
+    public int evictExpiredCacheEntries() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<String, Long> entry : lastUpdateTime.entrySet()) {
+            if (now - entry.getValue() >= CACHE_TTL && lastUpdateTime.remove(entry.getKey(), entry.getValue())) {
+                gameStateCache.remove(entry.getKey());
+                removed++;
+            }
+        }
+        // Записи кэша без отметки времени (не должны появляться, но не держим их вечно)
+        gameStateCache.keySet().removeIf(key -> !lastUpdateTime.containsKey(key));
+        for (Map.Entry<String, Map<Long, CachedState>> room : playerStateCache.entrySet()) {
+            Map<Long, CachedState> states = room.getValue();
+            for (Map.Entry<Long, CachedState> entry : states.entrySet()) {
+                if (now - entry.getValue().updatedAt() >= CACHE_TTL && states.remove(entry.getKey(), entry.getValue())) {
+                    removed++;
+                }
+            }
+            if (states.isEmpty()) {
+                playerStateCache.remove(room.getKey(), states);
+            }
+        }
+        return removed;
+    }
+
     // Скрывает корабли на доске: оставляет только попадания (3) и промахи (2), все 1 превращает в 0
     private int[][] hideShipsOnBoard(int[][] board) {
         int[][] result = new int[10][10];
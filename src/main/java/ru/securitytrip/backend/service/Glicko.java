@@ -0,0 +1,49 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Формулы Glicko для одной партии между двумя игроками.
+ *
+ * Рейтинг обновляется сразу после каждой партии (период оценки — одна партия),
+ * а рост неопределённости при простое считается по числу дней без игр.
+ */
+final class Glicko {
+
+    static final double MIN_DEVIATION = 30;
+    static final double MAX_DEVIATION = 350;
+
+    private static final double Q = Math.log(10) / 400;
+
+    private Glicko() {
+    }
+
+    // Ослабление влияния соперника с неточным рейтингом
+    static double g(double deviation) {
+        return 1 / Math.sqrt(1 + 3 * Q * Q * deviation * deviation / (Math.PI * Math.PI));
+    }
+
+    // Ожидаемый результат игрока против соперника (0..1)
+    static double expectedScore(double rating, double opponentRating, double opponentDeviation) {
+        return 1 / (1 + Math.pow(10, -g(opponentDeviation) * (rating - opponentRating) / 400));
+    }
+
+    /**
+     * Новые {рейтинг, отклонение} игрока после партии; score — 1 победа, 0 поражение
+     */
+    static double[] update(double rating, double deviation, double opponentRating, double opponentDeviation, double score) {
+        double g = g(opponentDeviation);
+        double expected = expectedScore(rating, opponentRating, opponentDeviation);
+        double dSquaredInverse = Q * Q * g * g * expected * (1 - expected);
+        double precision = 1 / (deviation * deviation) + dSquaredInverse;
+        double newRating = rating + Q / precision * g * (score - expected);
+        double newDeviation = Math.max(MIN_DEVIATION, Math.sqrt(1 / precision));
+        return new double[]{newRating, newDeviation};
+    }
+
+    // Рост отклонения за время без игр: sqrt(RD^2 + c^2 * t), не больше начального
+    static double inflate(double deviation, double idleDays, double growthPerDay) {
+        if (idleDays <= 0) {
+            return deviation;
+        }
+        return Math.min(MAX_DEVIATION, Math.sqrt(deviation * deviation + growthPerDay * growthPerDay * idleDays));
+    }
+}
@@ -0,0 +1,9 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Гостевая игра после окончания сохранена в БД и получила постоянный id.
+ * Публикуется GameService внутри транзакции хода, слушатели получают его после фиксации;
+ * события партии, опубликованные раньше, идут с ключом "game:{ephemeralId}", позже — "game:{persistedId}"
+ */
+public record GuestGamePersistedEvent(Long ephemeralId, Long persistedId) {
+}
@@ -0,0 +1,25 @@
+package ru.securitytrip.backend.service;
+
+import ru.securitytrip.engine.FleetValidator;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Расстановка кораблей нарушает правила; нарушения перечислены по кораблям
+ */
+public class InvalidFleetException extends IllegalArgumentException {
+
+    private final List<FleetValidator.Violation> violations;
+
+    public InvalidFleetException(List<FleetValidator.Violation> violations) {
+        super("Некорректная расстановка кораблей: " + violations.stream()
+                .map(FleetValidator.Violation::message)
+                .collect(Collectors.joining("; ")));
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<FleetValidator.Violation> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,207 @@
+package ru.securitytrip.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Таблица лидеров в памяти: декартово дерево (treap) с размерами поддеревьев.
+ *
+ * Порядок — по убыванию рейтинга, при равенстве по возрастанию id игрока.
+ * Изменение рейтинга, место игрока и выборка страницы (offset, limit) —
+ * O(log n) (страница — O(log n + limit)), без сортировки всех игроков.
+ * Чтения идут параллельно, изменения — под блокировкой записи.
+ */
+class Leaderboard {
+
+    public record Entry(long playerId, double rating, int rank) {
+    }
+
+    private static final class Node {
+        final long playerId;
+        final double rating;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(long playerId, double rating, int priority) {
+            this.playerId = playerId;
+            this.rating = rating;
+            this.priority = priority;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Текущий рейтинг каждого игрока в дереве — ключ для удаления старой записи
+    private final Map<Long, Double> ratings = new HashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private Node root;
+
+    /**
+     * Добавляет игрока или переставляет его на новое место
+     */
+    public void update(long playerId, double rating) {
+        lock.writeLock().lock();
+        try {
+            Double previous = ratings.put(playerId, rating);
+            if (previous != null) {
+                root = remove(root, previous, playerId);
+            }
+            Node[] parts = split(root, rating, playerId);
+            root = merge(merge(parts[0], new Node(playerId, rating, priorities.nextInt())), parts[1]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long playerId) {
+        lock.writeLock().lock();
+        try {
+            Double previous = ratings.remove(playerId);
+            if (previous != null) {
+                root = remove(root, previous, playerId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Место игрока (с 1) или 0, если игрока нет в таблице
+     */
+    public int rankOf(long playerId) {
+        lock.readLock().lock();
+        try {
+            Double rating = ratings.get(playerId);
+            if (rating == null) {
+                return 0;
+            }
+            int before = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = compare(rating, playerId, node.rating, node.playerId);
+                if (cmp == 0) {
+                    return before + size(node.left) + 1;
+                }
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    before += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Страница таблицы: limit записей начиная с места offset + 1
+     */
+    public List<Entry> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            collect(root, Math.max(0, offset), offset, limit, entries);
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Обход по порядку с пропуском первых skip записей поддерева
+    private void collect(Node node, int skip, int offset, int limit, List<Entry> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collect(node.left, skip, offset, limit, out);
+        }
+        if (out.size() >= limit) {
+            return;
+        }
+        if (skip <= leftSize) {
+            out.add(new Entry(node.playerId, node.rating, offset + out.size() + 1));
+        }
+        collect(node.right, Math.max(0, skip - leftSize - 1), offset, limit, out);
+    }
+
+    // Отрицательное значение — первый ключ стоит в таблице выше
+    private static int compare(double rating1, long playerId1, double rating2, long playerId2) {
+        int cmp = Double.compare(rating2, rating1);
+        return cmp != 0 ? cmp : Long.compare(playerId1, playerId2);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node refresh(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    // Делит дерево на [выше ключа] и [ключ и ниже]
+    private static Node[] split(Node node, double rating, long playerId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(node.rating, node.playerId, rating, playerId) < 0) {
+            Node[] parts = split(node.right, rating, playerId);
+            node.right = parts[0];
+            parts[0] = refresh(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, rating, playerId);
+        node.left = parts[1];
+        parts[1] = refresh(node);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return refresh(left);
+        }
+        right.left = merge(left, right.left);
+        return refresh(right);
+    }
+
+    private static Node remove(Node node, double rating, long playerId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(rating, playerId, node.rating, node.playerId);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, rating, playerId);
+        } else {
+            node.right = remove(node.right, rating, playerId);
+        }
+        return refresh(node);
+    }
+}
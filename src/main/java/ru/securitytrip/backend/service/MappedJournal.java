@@ -0,0 +1,260 @@
+package ru.securitytrip.backend.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Локальный журнал только на дописывание: сегменты фиксированного размера,
+ * отображённые в память (MappedByteBuffer). Запись — копирование в страницы
+ * файла без системного вызова; на диск их сбрасывает sync(), который
+ * вызывается периодически и фиксирует сразу все записи, накопленные с
+ * прошлого вызова (group commit).
+ *
+ * Сегмент: заголовок [magic int][формат int][номер long], затем записи
+ * [длина int][crc32 int][данные]. Файл создаётся сразу нужного размера и
+ * заполнен нулями, поэтому длина 0 означает конец данных. Запись, оборванная
+ * сбоем, не проходит проверку CRC: чтение сегмента на ней останавливается.
+ * После открытия запись всегда начинается в новом сегменте, так что
+ * повреждённый хвост старого никогда не дописывается.
+ *
+ * append() и rotate() потокобезопасны; sync() сбрасывает страницы вне
+ * блокировки и не задерживает запись.
+ */
+final class MappedJournal implements Closeable {
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAGIC = 0x524A4E4C; // "RJNL"
+    private static final int FORMAT = 1;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    /**
+     * Итог чтения журнала: torn — сегменты, чтение которых остановилось на
+     * повреждённой записи (нормально только для последнего сегмента перед сбоем)
+     */
+    record ReplayStats(int segments, long records, int torn) {
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final CRC32 crc = new CRC32();
+    // Номер сегмента -> файл, по возрастанию; последний — текущий, если он открыт
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private long currentId = -1;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    // Граница текущего сегмента, до которой данные уже на диске
+    private int synced;
+
+    private MappedJournal(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Открывает каталог журнала (создаёт, если его нет) и находит сегменты.
+     * Запись начнётся в новом сегменте при первом append() или rotate()
+     */
+    static MappedJournal open(Path dir, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE + 1) {
+            throw new IllegalArgumentException("Слишком маленький сегмент журнала: " + segmentSize);
+        }
+        Files.createDirectories(dir);
+        MappedJournal journal = new MappedJournal(dir, segmentSize);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long id = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    journal.segments.put(id, file);
+                } catch (NumberFormatException e) {
+                    // Чужой файл с похожим именем — не трогаем
+                }
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Передаёт данные всех записей по порядку, от старого сегмента к новому.
+     * Буфер записи действителен только внутри вызова consumer
+     */
+    synchronized ReplayStats replay(Consumer<ByteBuffer> consumer) throws IOException {
+        int read = 0;
+        long records = 0;
+        int torn = 0;
+        for (Path file : new ArrayList<>(segments.headMap(currentId < 0 ? Long.MAX_VALUE : currentId).values())) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = in.size();
+                if (size < HEADER_SIZE) {
+                    torn++;
+                    continue;
+                }
+                MappedByteBuffer segment = in.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+                if (segment.getInt(0) != MAGIC || segment.getInt(4) != FORMAT) {
+                    torn++;
+                    continue;
+                }
+                read++;
+                int limit = segment.limit();
+                int offset = HEADER_SIZE;
+                while (offset + RECORD_HEADER_SIZE <= limit) {
+                    int length = segment.getInt(offset);
+                    if (length == 0) {
+                        break;
+                    }
+                    if (length < 0 || length > limit - offset - RECORD_HEADER_SIZE) {
+                        torn++;
+                        break;
+                    }
+                    ByteBuffer payload = segment.slice(offset + RECORD_HEADER_SIZE, length);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+                        torn++;
+                        break;
+                    }
+                    consumer.accept(payload.asReadOnlyBuffer());
+                    records++;
+                    offset += RECORD_HEADER_SIZE + length;
+                }
+            }
+        }
+        return new ReplayStats(read, records, torn);
+    }
+
+    /**
+     * Дописывает запись; если она не помещается в текущий сегмент, журнал
+     * переходит на новый. Запись больше сегмента не принимается
+     */
+    synchronized void append(byte[] payload) throws IOException {
+        int size = RECORD_HEADER_SIZE + payload.length;
+        if (payload.length == 0 || size > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Запись журнала размером " + payload.length
+                    + " байт не помещается в сегмент " + segmentSize);
+        }
+        if (buffer == null || position + size > segmentSize) {
+            rotate();
+        }
+        crc.reset();
+        crc.update(payload);
+        buffer.put(position + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        // Длина пишется последней: пока её нет, читатель видит конец данных
+        buffer.putInt(position, payload.length);
+        position += size;
+    }
+
+    /**
+     * Закрывает текущий сегмент (сбросив его на диск) и начинает новый.
+     * Возвращает номер нового сегмента
+     */
+    synchronized long rotate() throws IOException {
+        closeCurrent();
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = dir.resolve(String.format("%s%020d%s", PREFIX, id, SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT);
+        buffer.putLong(8, id);
+        buffer.force(0, HEADER_SIZE);
+        syncDirectory();
+        segments.put(id, file);
+        currentId = id;
+        position = HEADER_SIZE;
+        synced = HEADER_SIZE;
+        return id;
+    }
+
+    /**
+     * Сбрасывает на диск всё, что дописано с прошлого вызова.
+     * Возвращает число сброшенных байт (0 — нечего сбрасывать)
+     */
+    int sync() {
+        MappedByteBuffer target;
+        long id;
+        int from;
+        int to;
+        synchronized (this) {
+            if (buffer == null || position == synced) {
+                return 0;
+            }
+            target = buffer;
+            id = currentId;
+            from = synced;
+            to = position;
+        }
+        target.force(from, to - from);
+        synchronized (this) {
+            if (id == currentId && to > synced) {
+                synced = to;
+            }
+        }
+        return to - from;
+    }
+
+    /**
+     * Удаляет сегменты с номерами меньше указанного (их записи переписаны дальше)
+     */
+    synchronized int deleteBefore(long id) throws IOException {
+        List<Long> obsolete = new ArrayList<>(segments.headMap(Math.min(id, currentId < 0 ? id : currentId)).keySet());
+        for (Long old : obsolete) {
+            Files.deleteIfExists(segments.remove(old));
+        }
+        if (!obsolete.isEmpty()) {
+            syncDirectory();
+        }
+        return obsolete.size();
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    synchronized long currentSegment() {
+        return currentId;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeCurrent();
+    }
+
+    private void closeCurrent() throws IOException {
+        if (buffer != null) {
+            buffer.force(0, position);
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // Создание и удаление файлов сегментов тоже должны пережить сбой
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Не все файловые системы позволяют открыть каталог; данные сегментов уже сброшены
+        }
+    }
+}
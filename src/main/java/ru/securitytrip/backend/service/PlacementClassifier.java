@@ -0,0 +1,59 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Определяет, на какую стратегию расстановки похож флот игрока
+ * (те же названия, что у генератора расстановок: SHORE, ASYMMETRIC, RANDOM).
+ *
+ * SHORE — большая часть палуб у края поля; ASYMMETRIC — флот сосредоточен
+ * в одной половине поля; иначе — RANDOM.
+ */
+final class PlacementClassifier {
+
+    static final String SHORE = "SHORE";
+    static final String ASYMMETRIC = "ASYMMETRIC";
+    static final String RANDOM = "RANDOM";
+
+    private static final double SHORE_SHARE = 0.6;
+    private static final double HALF_SHARE = 0.75;
+
+    private PlacementClassifier() {
+    }
+
+    /**
+     * @param ships корабли в виде {x, y, size, horizontal(0/1)} (как ReplayCodec.decodeFleet)
+     */
+    static String classify(int[][] ships) {
+        int cells = 0;
+        int edge = 0;
+        int left = 0;
+        int top = 0;
+        for (int[] ship : ships) {
+            for (int i = 0; i < ship[2]; i++) {
+                int x = ship[3] != 0 ? ship[0] + i : ship[0];
+                int y = ship[3] != 0 ? ship[1] : ship[1] + i;
+                cells++;
+                if (x == 0 || y == 0 || x == 9 || y == 9) {
+                    edge++;
+                }
+                if (x < 5) {
+                    left++;
+                }
+                if (y < 5) {
+                    top++;
+                }
+            }
+        }
+        if (cells == 0) {
+            return RANDOM;
+        }
+        if (edge >= cells * SHORE_SHARE) {
+            return SHORE;
+        }
+        int horizontalHalf = Math.max(left, cells - left);
+        int verticalHalf = Math.max(top, cells - top);
+        if (Math.max(horizontalHalf, verticalHalf) >= cells * HALF_SHARE) {
+            return ASYMMETRIC;
+        }
+        return RANDOM;
+    }
+}
@@ -0,0 +1,210 @@
+package ru.securitytrip.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.securitytrip.backend.dto.PlayerStatsDto;
+import ru.securitytrip.backend.model.PlayerStats;
+import ru.securitytrip.backend.repository.PlayerStatsRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Статистика игроков, собираемая по событиям партий.
+ *
+ * Выстрелы, расстановки и итоги партий сразу складываются в накопленные
+ * приращения по игрокам (в памяти); раз в flush-interval-ms приращения
+ * одной пачкой прибавляются к строкам player_stats. Запрос статистики
+ * читает строку игрока и добавляет к ней ещё не записанное приращение,
+ * поэтому пересчитывать что-либо по таблицам партий не нужно.
+ *
+ * Для среднего числа выстрелов до победы выстрелы считаются по каждой идущей
+ * партии; счётчики брошенных партий удаляются через game-ttl. Когда гостевая
+ * игра сохраняется в БД, её счётчики переносятся на новый id.
+ */
+@Service
+public class PlayerStatsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerStatsAggregator.class);
+
+    @Autowired
+    private PlayerStatsRepository playerStatsRepository;
+
+    @Value("${game.stats.game-ttl:PT6H}")
+    private Duration gameTtl;
+
+    // Накопленные, но ещё не записанные приращения
+    private final Map<Long, PlayerStats> pending = new ConcurrentHashMap<>();
+    // Выстрелы игрока в идущей партии: ключ "{gameKey}/{playerId}"
+    private final Map<String, GameShots> gameShots = new ConcurrentHashMap<>();
+
+    private static final class GameShots {
+        final AtomicInteger count = new AtomicInteger();
+        volatile long lastShotNanos = System.nanoTime();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShotFired(ShotFiredEvent event) {
+        if (event.playerId() == null) {
+            return;
+        }
+        change(event.playerId(), delta -> {
+            delta.setShots(delta.getShots() + 1);
+            if (event.hit()) {
+                delta.setHits(delta.getHits() + 1);
+            }
+        });
+        GameShots shots = gameShots.computeIfAbsent(shotsKey(event.gameKey(), event.playerId()), key -> new GameShots());
+        shots.count.incrementAndGet();
+        shots.lastShotNanos = System.nanoTime();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFleetPlaced(FleetPlacedEvent event) {
+        if (event.playerId() == null) {
+            return;
+        }
+        change(event.playerId(), delta -> {
+            switch (event.placement()) {
+                case PlacementClassifier.SHORE -> delta.setShorePlacements(delta.getShorePlacements() + 1);
+                case PlacementClassifier.ASYMMETRIC -> delta.setAsymmetricPlacements(delta.getAsymmetricPlacements() + 1);
+                default -> delta.setRandomPlacements(delta.getRandomPlacements() + 1);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGuestGamePersisted(GuestGamePersistedEvent event) {
+        // Выстрелы до сохранения посчитаны под временным id, итог партии может прийти уже с новым
+        String prefix = "game:" + event.ephemeralId() + "/";
+        for (String key : List.copyOf(gameShots.keySet())) {
+            if (key.startsWith(prefix)) {
+                GameShots shots = gameShots.remove(key);
+                if (shots != null) {
+                    gameShots.put("game:" + event.persistedId() + "/" + key.substring(prefix.length()), shots);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameFinished(GameFinishedEvent event) {
+        recordResult(event.gameKey(), event.player1Id(), event.player1Won());
+        if (!event.againstComputer()) {
+            recordResult(event.gameKey(), event.player2Id(), !event.player1Won());
+        }
+    }
+
+    private void recordResult(String gameKey, Long playerId, boolean won) {
+        if (playerId == null) {
+            return;
+        }
+        GameShots shots = gameShots.remove(shotsKey(gameKey, playerId));
+        change(playerId, delta -> {
+            delta.setGamesPlayed(delta.getGamesPlayed() + 1);
+            if (won) {
+                delta.setWins(delta.getWins() + 1);
+                if (shots != null) {
+                    delta.setShotsInWins(delta.getShotsInWins() + shots.count.get());
+                    delta.setTrackedWins(delta.getTrackedWins() + 1);
+                }
+            }
+        });
+    }
+
+    public PlayerStatsDto getStats(Long playerId) {
+        PlayerStats stats = playerStatsRepository.findById(playerId).orElseGet(() -> new PlayerStats(playerId));
+        pending.computeIfPresent(playerId, (id, delta) -> {
+            stats.add(delta);
+            return delta;
+        });
+
+        PlayerStatsDto dto = new PlayerStatsDto();
+        dto.setPlayerId(playerId);
+        dto.setGamesPlayed(stats.getGamesPlayed());
+        dto.setWins(stats.getWins());
+        dto.setWinRate(stats.getGamesPlayed() > 0 ? (double) stats.getWins() / stats.getGamesPlayed() : 0);
+        dto.setShots(stats.getShots());
+        dto.setHits(stats.getHits());
+        dto.setAccuracy(stats.getShots() > 0 ? (double) stats.getHits() / stats.getShots() : 0);
+        dto.setAverageShotsToWin(stats.getTrackedWins() > 0 ? (double) stats.getShotsInWins() / stats.getTrackedWins() : null);
+        dto.setFavoritePlacement(favoritePlacement(stats));
+        return dto;
+    }
+
+    /**
+     * Прибавляет накопленные приращения к player_stats одной пачкой
+     */
+    @Scheduled(fixedDelayString = "${game.stats.flush-interval-ms:5000}")
+    public void flush() {
+        evictAbandonedGames();
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PlayerStats> batch = new ArrayList<>(pending.size());
+        for (Long playerId : pending.keySet()) {
+            PlayerStats delta = pending.remove(playerId);
+            if (delta != null) {
+                batch.add(delta);
+            }
+        }
+        try {
+            playerStatsRepository.addAll(batch);
+            logger.debug("Статистика записана для {} игроков", batch.size());
+        } catch (RuntimeException e) {
+            // Приращения возвращаются в очередь и будут записаны следующей пачкой
+            batch.forEach(delta -> change(delta.getPlayerId(), current -> current.add(delta)));
+            logger.error("Не удалось записать статистику ({} игроков): {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    int pendingPlayers() {
+        return pending.size();
+    }
+
+    private void change(Long playerId, Consumer<PlayerStats> update) {
+        pending.compute(playerId, (id, delta) -> {
+            PlayerStats target = delta != null ? delta : new PlayerStats(id);
+            update.accept(target);
+            return target;
+        });
+    }
+
+    private void evictAbandonedGames() {
+        long cutoff = System.nanoTime() - gameTtl.toNanos();
+        gameShots.values().removeIf(shots -> shots.lastShotNanos - cutoff < 0);
+    }
+
+    private static String shotsKey(String gameKey, Long playerId) {
+        return gameKey + "/" + playerId;
+    }
+
+    private static String favoritePlacement(PlayerStats stats) {
+        long shore = stats.getShorePlacements();
+        long asymmetric = stats.getAsymmetricPlacements();
+        long random = stats.getRandomPlacements();
+        if (shore + asymmetric + random == 0) {
+            return null;
+        }
+        if (shore >= asymmetric && shore >= random) {
+            return PlacementClassifier.SHORE;
+        }
+        return asymmetric >= random ? PlacementClassifier.ASYMMETRIC : PlacementClassifier.RANDOM;
+    }
+}
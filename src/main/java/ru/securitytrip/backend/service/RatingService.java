@@ -0,0 +1,243 @@
+package ru.securitytrip.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.securitytrip.backend.dto.LeaderboardPageDto;
+import ru.securitytrip.backend.dto.RatingDto;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.PlayerRating;
+import ru.securitytrip.backend.model.User;
+import ru.securitytrip.backend.repository.PlayerRatingRepository;
+import ru.securitytrip.backend.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Рейтинги игроков (Glicko) и таблица лидеров.
+ *
+ * Рейтинги всех игроков держатся в памяти: при старте загружаются из
+ * player_ratings, после каждой завершённой партии (GameFinishedEvent)
+ * пересчитываются и переставляются в Leaderboard. В БД изменения пишутся
+ * отложенно, пачками: изменённые игроки накапливаются и сохраняются
+ * раз в flush-interval-ms, а также при остановке приложения.
+ *
+ * Одиночные партии учитываются как игра против компьютера с фиксированным
+ * рейтингом уровня сложности; рейтинг компьютера не меняется.
+ */
+@Service
+public class RatingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private PlayerRatingRepository playerRatingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${game.rating.initial-rating:1500}")
+    private double initialRating;
+
+    @Value("${game.rating.initial-deviation:350}")
+    private double initialDeviation;
+
+    // Рост отклонения за день без игр (c в формуле Glicko)
+    @Value("${game.rating.deviation-growth-per-day:18}")
+    private double deviationGrowthPerDay;
+
+    @Value("${game.rating.include-singleplayer:true}")
+    private boolean includeSingleplayer;
+
+    @Value("${game.rating.computer.easy:1000}")
+    private double computerEasy;
+
+    @Value("${game.rating.computer.medium:1400}")
+    private double computerMedium;
+
+    @Value("${game.rating.computer.hard:1800}")
+    private double computerHard;
+
+    @Value("${game.rating.computer.deviation:50}")
+    private double computerDeviation;
+
+    @Value("${game.rating.max-page-size:100}")
+    private int maxPageSize;
+
+    private final Map<Long, PlayerRating> ratings = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Leaderboard leaderboard = new Leaderboard();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRatings() {
+        int page = 0;
+        Page<PlayerRating> batch;
+        do {
+            batch = playerRatingRepository.findAll(PageRequest.of(page++, LOAD_PAGE_SIZE));
+            for (PlayerRating rating : batch) {
+                ratings.put(rating.getPlayerId(), rating);
+                leaderboard.update(rating.getPlayerId(), rating.getRating());
+            }
+        } while (batch.hasNext());
+        logger.info("Загружено рейтингов игроков: {}", ratings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameFinished(GameFinishedEvent event) {
+        if (event.player1Id() == null) {
+            return;
+        }
+        if (event.againstComputer()) {
+            if (includeSingleplayer) {
+                applyComputerResult(event.player1Id(), event.player1Won(), event.difficulty());
+            }
+            return;
+        }
+        applyResult(event.player1Id(), event.player2Id(), event.player1Won());
+    }
+
+    /**
+     * Партия между двумя игроками: оба рейтинга считаются от значений до партии
+     */
+    synchronized void applyResult(Long player1Id, Long player2Id, boolean player1Won) {
+        Instant now = Instant.now();
+        PlayerRating player1 = current(player1Id, now);
+        PlayerRating player2 = current(player2Id, now);
+        double[] updated1 = Glicko.update(player1.getRating(), player1.getDeviation(),
+                player2.getRating(), player2.getDeviation(), player1Won ? 1 : 0);
+        double[] updated2 = Glicko.update(player2.getRating(), player2.getDeviation(),
+                player1.getRating(), player1.getDeviation(), player1Won ? 0 : 1);
+        store(player1, updated1, player1Won, now);
+        store(player2, updated2, !player1Won, now);
+    }
+
+    synchronized void applyComputerResult(Long playerId, boolean playerWon, DifficultyLevel difficulty) {
+        Instant now = Instant.now();
+        PlayerRating player = current(playerId, now);
+        double[] updated = Glicko.update(player.getRating(), player.getDeviation(),
+                computerRating(difficulty), computerDeviation, playerWon ? 1 : 0);
+        store(player, updated, playerWon, now);
+    }
+
+    public RatingDto getRating(Long playerId) {
+        PlayerRating rating = ratings.get(playerId);
+        RatingDto dto = rating != null
+                ? toDto(rating, leaderboard.rankOf(playerId))
+                : new RatingDto(playerId, null, initialRating, initialDeviation, 0, 0, 0);
+        userRepository.findById(playerId).ifPresent(user -> dto.setUsername(user.getUsername()));
+        return dto;
+    }
+
+    // Текущий рейтинг игрока (начальный, если игрок ещё не играл); без обращения к БД
+    public double currentRating(Long playerId) {
+        PlayerRating rating = ratings.get(playerId);
+        return rating != null ? rating.getRating() : initialRating;
+    }
+
+    /**
+     * Страница таблицы лидеров; имена подгружаются одним запросом для игроков страницы
+     */
+    public LeaderboardPageDto getLeaderboard(int offset, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        int start = Math.max(0, offset);
+        List<RatingDto> entries = new ArrayList<>(pageSize);
+        for (Leaderboard.Entry entry : leaderboard.page(start, pageSize)) {
+            PlayerRating rating = ratings.get(entry.playerId());
+            if (rating != null) {
+                entries.add(toDto(rating, entry.rank()));
+            }
+        }
+        Map<Long, String> usernames = userRepository.findAllById(entries.stream().map(RatingDto::getPlayerId).toList())
+                .stream().collect(Collectors.toMap(User::getId, User::getUsername, (a, b) -> a));
+        entries.forEach(entry -> entry.setUsername(usernames.get(entry.getPlayerId())));
+        return new LeaderboardPageDto(leaderboard.size(), start, entries);
+    }
+
+    /**
+     * Пишет изменённые рейтинги в БД одной пачкой
+     */
+    @Scheduled(fixedDelayString = "${game.rating.flush-interval-ms:2000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<PlayerRating> snapshot = new ArrayList<>();
+        synchronized (this) {
+            for (Long playerId : dirty) {
+                dirty.remove(playerId);
+                snapshot.add(ratings.get(playerId).copy());
+            }
+        }
+        try {
+            playerRatingRepository.saveAll(snapshot);
+            logger.debug("Сохранено рейтингов: {}", snapshot.size());
+        } catch (RuntimeException e) {
+            snapshot.forEach(rating -> dirty.add(rating.getPlayerId()));
+            logger.error("Не удалось сохранить рейтинги ({} шт.), повтор при следующей записи: {}",
+                    snapshot.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Рейтинг игрока с учётом роста неопределённости за время без игр
+    private PlayerRating current(Long playerId, Instant now) {
+        PlayerRating rating = ratings.computeIfAbsent(playerId,
+                id -> new PlayerRating(id, initialRating, initialDeviation));
+        if (rating.getLastPlayedAt() != null) {
+            double idleDays = Duration.between(rating.getLastPlayedAt(), now).toMinutes() / (24.0 * 60);
+            rating.setDeviation(Math.min(initialDeviation,
+                    Glicko.inflate(rating.getDeviation(), idleDays, deviationGrowthPerDay)));
+        }
+        return rating;
+    }
+
+    private void store(PlayerRating rating, double[] updated, boolean won, Instant now) {
+        rating.setRating(updated[0]);
+        rating.setDeviation(updated[1]);
+        rating.setGamesPlayed(rating.getGamesPlayed() + 1);
+        if (won) {
+            rating.setWins(rating.getWins() + 1);
+        }
+        rating.setLastPlayedAt(now);
+        leaderboard.update(rating.getPlayerId(), rating.getRating());
+        dirty.add(rating.getPlayerId());
+    }
+
+    private double computerRating(DifficultyLevel difficulty) {
+        if (difficulty == null) {
+            return computerMedium;
+        }
+        return switch (difficulty) {
+            case EASY -> computerEasy;
+            case HARD -> computerHard;
+            default -> computerMedium;
+        };
+    }
+
+    private static RatingDto toDto(PlayerRating rating, int rank) {
+        return new RatingDto(rating.getPlayerId(), null, rating.getRating(), rating.getDeviation(),
+                rank, rating.getGamesPlayed(), rating.getWins());
+    }
+}
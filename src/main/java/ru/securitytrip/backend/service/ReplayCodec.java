@@ -0,0 +1,127 @@
+package ru.securitytrip.backend.service;
+
+import ru.securitytrip.backend.dto.ShipDto;
+import ru.securitytrip.backend.model.Ship;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактный формат записи партии для повторов.
+ *
+ * Флоты (записываются один раз, при старте партии):
+ *   [флаги][n1][корабли игрока 1 ...][n2][корабли игрока 2 ...],
+ *   корабль — 2 байта: индекс клетки начала (y * 10 + x) и размер,
+ *   старший бит второго байта — горизонтальная ориентация.
+ *
+ * Выстрелы — 2 байта на ход:
+ *   байт 0 — индекс клетки (0..99), старший бит — кто стрелял (0 — игрок 1, 1 — игрок 2 / компьютер);
+ *   байт 1 — результат в младших 2 битах (MISS, HIT, SUNK), остальные биты зарезервированы.
+ *
+ * Флаги указывают, для чьих выстрелов потопление обводит корабль промахами
+ * (в одиночной игре так делает только ход компьютера).
+ */
+final class ReplayCodec {
+
+    static final int PLAYER1 = 0;
+    static final int PLAYER2 = 1;
+
+    static final int MISS = 0;
+    static final int HIT = 1;
+    static final int SUNK = 2;
+
+    static final int FLAG_HALO_PLAYER1 = 1;
+    static final int FLAG_HALO_PLAYER2 = 1 << 1;
+
+    static final int SHOT_BYTES = 2;
+
+    private static final int SHOOTER_BIT = 0x80;
+    private static final int RESULT_MASK = 0x03;
+
+    private ReplayCodec() {
+    }
+
+    static byte[] encodeShips(int flags, List<Ship> player1Ships, List<Ship> player2Ships) {
+        return encodeFleets(flags,
+                player1Ships.stream().map(s -> new int[]{s.getX(), s.getY(), s.getSize(), s.isHorizontal() ? 1 : 0}).toList(),
+                player2Ships.stream().map(s -> new int[]{s.getX(), s.getY(), s.getSize(), s.isHorizontal() ? 1 : 0}).toList());
+    }
+
+    static byte[] encodeShipDtos(int flags, List<ShipDto> player1Ships, List<ShipDto> player2Ships) {
+        return encodeFleets(flags,
+                player1Ships.stream().map(s -> new int[]{s.getX(), s.getY(), s.getSize(), s.isHorizontal() ? 1 : 0}).toList(),
+                player2Ships.stream().map(s -> new int[]{s.getX(), s.getY(), s.getSize(), s.isHorizontal() ? 1 : 0}).toList());
+    }
+
+    // Корабль — {x, y, size, horizontal(0/1)}
+    private static byte[] encodeFleets(int flags, List<int[]> player1, List<int[]> player2) {
+        byte[] fleets = new byte[3 + (player1.size() + player2.size()) * 2];
+        fleets[0] = (byte) flags;
+        int offset = writeFleet(fleets, 1, player1);
+        writeFleet(fleets, offset, player2);
+        return fleets;
+    }
+
+    private static int writeFleet(byte[] fleets, int offset, List<int[]> ships) {
+        fleets[offset++] = (byte) ships.size();
+        for (int[] ship : ships) {
+            fleets[offset++] = (byte) (ship[1] * 10 + ship[0]);
+            fleets[offset++] = (byte) ((ship[2] & 0x7F) | (ship[3] != 0 ? 0x80 : 0));
+        }
+        return offset;
+    }
+
+    static int flags(byte[] fleets) {
+        return fleets[0] & 0xFF;
+    }
+
+    /**
+     * Корабли игрока (PLAYER1 или PLAYER2) в виде {x, y, size, horizontal(0/1)}
+     */
+    static int[][] decodeFleet(byte[] fleets, int player) {
+        int offset = 1;
+        if (player == PLAYER2) {
+            offset += 1 + (fleets[offset] & 0xFF) * 2;
+        }
+        int count = fleets[offset++] & 0xFF;
+        int[][] ships = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int cell = fleets[offset++] & 0xFF;
+            int meta = fleets[offset++] & 0xFF;
+            ships[i] = new int[]{cell % 10, cell / 10, meta & 0x7F, (meta & 0x80) != 0 ? 1 : 0};
+        }
+        return ships;
+    }
+
+    static byte[] appendShot(byte[] shots, int shooter, int x, int y, int result) {
+        int length = shots == null ? 0 : shots.length;
+        byte[] updated = shots == null ? new byte[SHOT_BYTES] : Arrays.copyOf(shots, length + SHOT_BYTES);
+        updated[length] = (byte) ((y * 10 + x) | (shooter == PLAYER2 ? SHOOTER_BIT : 0));
+        updated[length + 1] = (byte) (result & RESULT_MASK);
+        return updated;
+    }
+
+    static int shotCount(byte[] shots) {
+        return shots == null ? 0 : shots.length / SHOT_BYTES;
+    }
+
+    static int shooter(byte[] shots, int index) {
+        return (shots[index * SHOT_BYTES] & SHOOTER_BIT) != 0 ? PLAYER2 : PLAYER1;
+    }
+
+    static int cell(byte[] shots, int index) {
+        return shots[index * SHOT_BYTES] & ~SHOOTER_BIT & 0xFF;
+    }
+
+    static int result(byte[] shots, int index) {
+        return shots[index * SHOT_BYTES + 1] & RESULT_MASK;
+    }
+
+    static String resultName(int result) {
+        return switch (result) {
+            case HIT -> "HIT";
+            case SUNK -> "SUNK";
+            default -> "MISS";
+        };
+    }
+}
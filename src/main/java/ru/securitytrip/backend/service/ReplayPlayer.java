@@ -0,0 +1,132 @@
+package ru.securitytrip.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Восстанавливает доски партии на любой ход по записи ReplayCodec.
+ *
+ * Доски обоих игроков хранятся одним массивом из 200 клеток (0..99 — игрок 1,
+ * 100..199 — игрок 2) в тех же кодах, что и GameBoard: 0 — пусто, 1 — корабль,
+ * 2 — промах, 3 — попадание. При построении запоминается снимок досок через
+ * каждые checkpointInterval ходов, поэтому состояние на ход N получается из
+ * ближайшего снимка и не более чем checkpointInterval - 1 выстрелов.
+ *
+ * Объект неизменяем после построения и может использоваться из разных потоков.
+ */
+final class ReplayPlayer {
+
+    static final int CELLS = 100;
+
+    private final byte[] fleets;
+    private final byte[] shots;
+    private final int checkpointInterval;
+    // Номер корабля + 1 для каждой клетки обеих досок (0 — вода)
+    private final byte[] shipAt = new byte[CELLS * 2];
+    private final int[][][] ships = new int[2][][];
+    private final List<byte[]> checkpoints = new ArrayList<>();
+
+    ReplayPlayer(byte[] fleets, byte[] shots, int checkpointInterval) {
+        this.fleets = fleets;
+        this.shots = shots == null ? new byte[0] : shots;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+
+        byte[] boards = new byte[CELLS * 2];
+        for (int player = ReplayCodec.PLAYER1; player <= ReplayCodec.PLAYER2; player++) {
+            ships[player] = ReplayCodec.decodeFleet(fleets, player);
+            for (int i = 0; i < ships[player].length; i++) {
+                for (int cell : cellsOf(ships[player][i])) {
+                    boards[player * CELLS + cell] = 1;
+                    shipAt[player * CELLS + cell] = (byte) (i + 1);
+                }
+            }
+        }
+
+        int total = moveCount();
+        for (int move = 0; move < total; move++) {
+            if (move % this.checkpointInterval == 0) {
+                checkpoints.add(boards.clone());
+            }
+            apply(boards, move);
+        }
+        if (total % this.checkpointInterval == 0) {
+            checkpoints.add(boards.clone());
+        }
+    }
+
+    int moveCount() {
+        return ReplayCodec.shotCount(shots);
+    }
+
+    int checkpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Доски после первых moveIndex выстрелов (0 — начальная расстановка)
+     */
+    byte[] boardsAt(int moveIndex) {
+        if (moveIndex < 0 || moveIndex > moveCount()) {
+            throw new IllegalArgumentException("Номер хода вне диапазона: " + moveIndex);
+        }
+        int checkpoint = moveIndex / checkpointInterval;
+        byte[] boards = checkpoints.get(checkpoint).clone();
+        for (int move = checkpoint * checkpointInterval; move < moveIndex; move++) {
+            apply(boards, move);
+        }
+        return boards;
+    }
+
+    // Доска игрока в виде int[10][10] (строка — y)
+    static int[][] toBoard(byte[] boards, int player) {
+        int[][] board = new int[10][10];
+        for (int cell = 0; cell < CELLS; cell++) {
+            board[cell / 10][cell % 10] = boards[player * CELLS + cell];
+        }
+        return board;
+    }
+
+    private void apply(byte[] boards, int move) {
+        int shooter = ReplayCodec.shooter(shots, move);
+        int target = shooter == ReplayCodec.PLAYER1 ? ReplayCodec.PLAYER2 : ReplayCodec.PLAYER1;
+        int cell = ReplayCodec.cell(shots, move);
+        int result = ReplayCodec.result(shots, move);
+        int base = target * CELLS;
+        boards[base + cell] = (byte) (result == ReplayCodec.MISS ? 2 : 3);
+
+        int haloFlag = shooter == ReplayCodec.PLAYER1 ? ReplayCodec.FLAG_HALO_PLAYER1 : ReplayCodec.FLAG_HALO_PLAYER2;
+        int shipIndex = shipAt[base + cell] - 1;
+        if (result != ReplayCodec.SUNK || shipIndex < 0 || (ReplayCodec.flags(fleets) & haloFlag) == 0) {
+            return;
+        }
+        // Потопленный корабль обводится промахами
+        for (int shipCell : cellsOf(ships[target][shipIndex])) {
+            int x = shipCell % 10;
+            int y = shipCell / 10;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if (nx >= 0 && nx < 10 && ny >= 0 && ny < 10 && boards[base + ny * 10 + nx] < 2) {
+                        boards[base + ny * 10 + nx] = 2;
+                    }
+                }
+            }
+        }
+    }
+
+    // Клетки корабля в пределах поля
+    private static int[] cellsOf(int[] ship) {
+        int[] cells = new int[ship[2]];
+        int count = 0;
+        for (int i = 0; i < ship[2]; i++) {
+            int x = ship[3] != 0 ? ship[0] + i : ship[0];
+            int y = ship[3] != 0 ? ship[1] : ship[1] + i;
+            if (x < 10 && y < 10) {
+                cells[count++] = y * 10 + x;
+            }
+        }
+        return count == cells.length ? cells : Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,217 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.securitytrip.backend.dto.ReplayFrameDto;
+import ru.securitytrip.backend.model.Game;
+import ru.securitytrip.backend.model.GameBoard;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.model.MultiplayerRoomEntity;
+import ru.securitytrip.backend.repository.GameRepository;
+import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Повторы партий: выгрузка записи целиком и восстановление досок на любой ход.
+ *
+ * Запись ведёт GameService (ReplayCodec), здесь она только читается.
+ * Для воспроизведения по каждой партии строится ReplayPlayer со снимками досок;
+ * он кэшируется и перестраивается, только если в партии появились новые выстрелы.
+ */
+@Service
+public class ReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayService.class);
+
+    // Заголовок бинарной выгрузки
+    static final byte[] MAGIC = {'S', 'B', 'R', 'P'};
+    static final int FORMAT_VERSION = 1;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private MultiplayerRoomRepository multiplayerRoomRepository;
+
+    @Autowired
+    private EphemeralGameStore ephemeralGames;
+
+    @Value("${game.replay.checkpoint-interval:16}")
+    private int checkpointInterval;
+
+    // Сколько выстрелов записывается в поток между сбросами (размер чанка ответа)
+    @Value("${game.replay.chunk-moves:64}")
+    private int chunkMoves;
+
+    @Value("${game.replay.cache-size:1024}")
+    private int cacheSize;
+
+    private final Map<String, ReplayPlayer> players = new ConcurrentHashMap<>();
+
+    /**
+     * Запись партии, прочитанная в транзакции; viewer — каким игроком смотрит пользователь
+     */
+    public record ReplaySource(String key, boolean multiplayer, byte[] fleets, byte[] shots,
+                               boolean finished, int viewer) {
+        public int totalMoves() {
+            return ReplayCodec.shotCount(shots);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ReplaySource loadSingleplayer(Long gameId, Long userId) {
+        // Гостевая игра читается из памяти; запись повтора в ней не меняется на месте, а заменяется
+        Game game = ephemeralGames.get(gameId);
+        if (game == null) {
+            Long persistedId = ephemeralGames.resolve(gameId);
+            game = (persistedId != null ? gameRepository.findById(persistedId) : Optional.<Game>empty())
+                    .orElseThrow(() -> new RuntimeException("Игра не найдена"));
+        }
+        GameBoard playerBoard = game.getPlayerBoard();
+        if (playerBoard == null || !userId.equals(playerBoard.getOwnerId())) {
+            throw new RuntimeException("Доступ запрещен: вы не участник игры");
+        }
+        if (game.getReplayFleets() == null) {
+            throw new RuntimeException("Повтор для игры не найден");
+        }
+        return new ReplaySource("game:" + gameId, false, game.getReplayFleets(), game.getReplayShots(),
+                isFinished(game.getGameState()), ReplayCodec.PLAYER1);
+    }
+
+    @Transactional(readOnly = true)
+    public ReplaySource loadMultiplayer(String gameCode, Long userId) {
+        MultiplayerRoomEntity entity = multiplayerRoomRepository.findById(gameCode)
+                .orElseThrow(() -> new RuntimeException("Игра не найдена"));
+        boolean isPlayer1 = userId.equals(entity.getPlayer1Id());
+        if (!isPlayer1 && !userId.equals(entity.getPlayer2Id())) {
+            throw new RuntimeException("Доступ запрещен: вы не участник игры");
+        }
+        if (entity.getReplayFleets() == null) {
+            throw new RuntimeException("Повтор для игры не найден");
+        }
+        return new ReplaySource("room:" + gameCode, true, entity.getReplayFleets(), entity.getReplayShots(),
+                isFinished(entity.getStatus()), isPlayer1 ? ReplayCodec.PLAYER1 : ReplayCodec.PLAYER2);
+    }
+
+    /**
+     * Бинарная выгрузка записи:
+     *   "SBRP", версия (1 байт), режим (0 — одиночная, 1 — мультиплеер), завершена (0/1),
+     *   длина флотов (2 байта) и флоты, число выстрелов (2 байта) и выстрелы по 2 байта (см. ReplayCodec).
+     * Выстрелы пишутся порциями по chunk-moves со сбросом потока после каждой порции.
+     * Пока партия идёт, корабли соперника в выгрузку не попадают.
+     */
+    public void writeReplay(ReplaySource source, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        byte[] fleets = source.finished() ? source.fleets() : hideOpponentFleet(source.fleets(), source.viewer());
+        out.write(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(source.multiplayer() ? 1 : 0);
+        out.writeByte(source.finished() ? 1 : 0);
+        out.writeShort(fleets.length);
+        out.write(fleets);
+
+        int total = source.totalMoves();
+        out.writeShort(total);
+        out.flush();
+        int step = Math.max(1, chunkMoves);
+        for (int move = 0; move < total; move += step) {
+            int count = Math.min(step, total - move);
+            out.write(source.shots(), move * ReplayCodec.SHOT_BYTES, count * ReplayCodec.SHOT_BYTES);
+            out.flush();
+        }
+    }
+
+    /**
+     * Доски на ход moveIndex: ближайший снимок плюс оставшиеся выстрелы
+     */
+    public ReplayFrameDto frameAt(ReplaySource source, int moveIndex) {
+        int total = source.totalMoves();
+        if (moveIndex < 0 || moveIndex > total) {
+            throw new IllegalArgumentException("Номер хода должен быть от 0 до " + total);
+        }
+        ReplayPlayer player = playerFor(source);
+        byte[] boards = player.boardsAt(moveIndex);
+
+        ReplayFrameDto frame = new ReplayFrameDto();
+        frame.setMoveIndex(moveIndex);
+        frame.setTotalMoves(total);
+        frame.setFinished(source.finished());
+        int[][] player1Board = ReplayPlayer.toBoard(boards, ReplayCodec.PLAYER1);
+        int[][] player2Board = ReplayPlayer.toBoard(boards, ReplayCodec.PLAYER2);
+        if (!source.finished()) {
+            hideShips(source.viewer() == ReplayCodec.PLAYER1 ? player2Board : player1Board);
+        }
+        frame.setPlayer1Board(player1Board);
+        frame.setPlayer2Board(player2Board);
+
+        if (moveIndex > 0) {
+            int last = moveIndex - 1;
+            int cell = ReplayCodec.cell(source.shots(), last);
+            frame.setLastShooter(ReplayCodec.shooter(source.shots(), last) == ReplayCodec.PLAYER1
+                    ? TurnTimerService.PLAYER1 : TurnTimerService.PLAYER2);
+            frame.setLastX(cell % 10);
+            frame.setLastY(cell / 10);
+            frame.setLastResult(ReplayCodec.resultName(ReplayCodec.result(source.shots(), last)));
+        }
+        return frame;
+    }
+
+    private ReplayPlayer playerFor(ReplaySource source) {
+        ReplayPlayer cached = players.get(source.key());
+        if (cached != null && cached.moveCount() == source.totalMoves()) {
+            return cached;
+        }
+        ReplayPlayer player = new ReplayPlayer(source.fleets(), source.shots(), checkpointInterval);
+        if (cached == null && players.size() >= cacheSize) {
+            // Кэш переполнен — вытесняем произвольную запись
+            Iterator<String> keys = players.keySet().iterator();
+            if (keys.hasNext()) {
+                players.remove(keys.next());
+            }
+        }
+        players.put(source.key(), player);
+        logger.debug("Повтор {} подготовлен: ходов={}, снимков={}", source.key(), player.moveCount(), player.checkpointCount());
+        return player;
+    }
+
+    private static boolean isFinished(GameState state) {
+        return state == GameState.PLAYER_WON || state == GameState.COMPUTER_WON;
+    }
+
+    private static void hideShips(int[][] board) {
+        for (int[] row : board) {
+            for (int x = 0; x < row.length; x++) {
+                if (row[x] == 1) {
+                    row[x] = 0;
+                }
+            }
+        }
+    }
+
+    // Флоты без кораблей соперника (для незавершённой партии)
+    private static byte[] hideOpponentFleet(byte[] fleets, int viewer) {
+        int player1Count = fleets[1] & 0xFF;
+        int player1Bytes = 2 + player1Count * 2;
+        if (viewer == ReplayCodec.PLAYER1) {
+            byte[] hidden = new byte[player1Bytes + 1];
+            System.arraycopy(fleets, 0, hidden, 0, player1Bytes);
+            return hidden;
+        }
+        int player2Bytes = fleets.length - player1Bytes;
+        byte[] hidden = new byte[2 + player2Bytes];
+        hidden[0] = fleets[0];
+        System.arraycopy(fleets, player1Bytes, hidden, 2, player2Bytes);
+        return hidden;
+    }
+}
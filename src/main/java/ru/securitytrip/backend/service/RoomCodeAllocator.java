@@ -0,0 +1,185 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.securitytrip.backend.model.RoomCodeBlock;
+import ru.securitytrip.backend.repository.RoomCodeBlockRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Выдаёт уникальные коды мультиплеерных комнат.
+ *
+ * Формат кода — 7 символов base32 (алфавит Крокфорда, без I, L, O, U):
+ * первый символ — идентификатор узла (0..31), остальные 6 — перемешанный
+ * 30-битный порядковый номер. Номера выдаются из блоков, заранее
+ * зарезервированных в таблице room_code_blocks, поэтому коды не повторяются
+ * ни между узлами, ни после перезапуска, а выдача внутри блока не требует
+ * блокировок. Перемешивание — биекция, оно лишь скрывает порядок выдачи.
+ *
+ * Старые коды (6 шестнадцатеричных символов) не пересекаются с новыми по длине.
+ */
+@Service
+public class RoomCodeAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomCodeAllocator.class);
+
+    static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    public static final int CODE_LENGTH = 7;
+    public static final int MAX_NODES = 32;
+
+    private static final int SEQUENCE_BITS = 30;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MIX_1 = 0x1B873593L;
+    private static final long MIX_2 = 0x0CC9E2D5L;
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DECODE[ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    @Autowired
+    private RoomCodeBlockRepository roomCodeBlockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${game.node.id:0}")
+    private int nodeId;
+
+    @Value("${game.rooms.code-block-size:1024}")
+    private int blockSize;
+
+    // Текущий блок; null до первой выдачи
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final Object refillLock = new Object();
+
+    // Диапазон порядковых номеров [cursor, end), выдаваемых без обращения к БД
+    private static final class Block {
+        final AtomicLong cursor;
+        final long end;
+
+        Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Возвращает новый уникальный код комнаты.
+     * На горячем пути — только getAndIncrement; к БД обращается лишь поток,
+     * исчерпавший блок
+     */
+    public String nextCode() {
+        while (true) {
+            Block block = current.get();
+            if (block != null) {
+                long sequence = block.cursor.getAndIncrement();
+                if (sequence < block.end) {
+                    return encode(nodeId, sequence);
+                }
+            }
+            refill(block);
+        }
+    }
+
+    private void refill(Block exhausted) {
+        synchronized (refillLock) {
+            // Пока ждали блокировку, блок мог заменить другой поток
+            if (current.get() != exhausted) {
+                return;
+            }
+            long blockNumber = reserveBlock();
+            long start = blockNumber * blockSize;
+            long end = start + blockSize;
+            if (end - 1 > SEQUENCE_MASK) {
+                throw new IllegalStateException("Исчерпано пространство кодов комнат для узла " + nodeId);
+            }
+            current.set(new Block(start, end));
+            logger.debug("Узел {} зарезервировал блок кодов комнат №{}", nodeId, blockNumber);
+        }
+    }
+
+    // Резервирует следующий блок в отдельной транзакции: откат вызывающей
+    // транзакции не должен вернуть блок и привести к повторной выдаче кодов
+    private long reserveBlock() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Long reserved = tx.execute(status -> {
+                    RoomCodeBlock row = roomCodeBlockRepository.findForUpdate(nodeId)
+                            .orElseGet(() -> new RoomCodeBlock(nodeId));
+                    long blockNumber = row.getNextBlock();
+                    row.setNextBlock(blockNumber + 1);
+                    roomCodeBlockRepository.saveAndFlush(row);
+                    return blockNumber;
+                });
+                return reserved;
+            } catch (DataIntegrityViolationException e) {
+                // Строку узла одновременно создал другой экземпляр — повторяем уже с блокировкой
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Кодирует идентификатор узла и порядковый номер в код комнаты
+     */
+    static String encode(int nodeId, long sequence) {
+        if (nodeId < 0 || nodeId >= MAX_NODES) {
+            throw new IllegalArgumentException("Идентификатор узла должен быть в диапазоне 0.." + (MAX_NODES - 1));
+        }
+        long value = scramble(sequence & SEQUENCE_MASK);
+        char[] chars = new char[CODE_LENGTH];
+        chars[0] = ALPHABET.charAt(nodeId);
+        for (int i = CODE_LENGTH - 1; i >= 1; i--) {
+            chars[i] = ALPHABET.charAt((int) (value & 31));
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    // Биекция на 30-битных числах: умножение на нечётное и xor-сдвиг обратимы по модулю 2^30
+    static long scramble(long x) {
+        x = (x * MIX_1) & SEQUENCE_MASK;
+        x ^= x >>> 15;
+        x = (x * MIX_2) & SEQUENCE_MASK;
+        x ^= x >>> 13;
+        return x;
+    }
+
+    /**
+     * Возвращает идентификатор узла, выдавшего код, или -1 для кодов старого формата
+     */
+    public static int nodeIdOf(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return -1;
+        }
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            char c = code.charAt(i);
+            if (c >= 128 || DECODE[c] < 0) {
+                return -1;
+            }
+        }
+        return DECODE[code.charAt(0)];
+    }
+}
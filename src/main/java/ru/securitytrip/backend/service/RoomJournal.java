@@ -0,0 +1,550 @@
+package ru.securitytrip.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.securitytrip.backend.model.GameMode;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.model.MultiplayerRoomEntity;
+import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Локальный журнал состояния мультиплеерных комнат (см. MappedJournal).
+ *
+ * После фиксации каждой транзакции, изменившей комнату, в журнал дописывается
+ * полный снимок её колонок с номером версии (stateVersion), при удалении или
+ * архивации комнаты — отметка об удалении. На диск журнал сбрасывает отдельный
+ * поток раз в flush-interval, одним fsync за все накопленные записи; ход
+ * этого не ждёт. Postgres остаётся основным хранилищем: журнал — вторая,
+ * дешёвая копия последних состояний на локальном диске узла.
+ *
+ * При старте журнал читается целиком, и комнаты, у которых в БД версия
+ * старше журнальной (например, БД восстановлена из резервной копии), получают
+ * состояние из журнала. Отсутствующие в БД незавершённые комнаты этого узла
+ * создаются заново. Затем живые снимки переписываются в новый сегмент, а
+ * старые сегменты удаляются; во время работы то же делает фоновый поток, когда
+ * сегментов становится больше max-segments.
+ *
+ * Очистка комнат идёт на любом узле кластера, поэтому комнату этого узла может
+ * удалить или архивировать чужой. Раз в reconcile-interval журнал сверяется с
+ * БД, и такие комнаты забываются, иначе при перезапуске узел создал бы их заново.
+ */
+@Service
+public class RoomJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomJournal.class);
+
+    private static final byte SNAPSHOT = 1;
+    private static final byte FORGET = 2;
+    private static final int FORMAT = 1;
+    private static final int RESTORE_BATCH_SIZE = 500;
+
+    @Value("${game.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${game.journal.dir:data/journal}")
+    private String directory;
+
+    @Value("${game.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    // Как часто накопленные записи сбрасываются на диск одним fsync
+    @Value("${game.journal.flush-interval:PT0.01S}")
+    private Duration flushInterval;
+
+    // Больше сегментов — живые снимки переписываются в новый, старые удаляются
+    @Value("${game.journal.max-segments:8}")
+    private int maxSegments;
+
+    @Autowired
+    private MultiplayerRoomRepository multiplayerRoomRepository;
+
+    @Autowired
+    private RoomCodeAllocator roomCodeAllocator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Снимок комнаты, готовый к записи: данные сериализованы в момент
+     * сохранения, а в журнал попадают только после фиксации транзакции
+     */
+    public record Record(String code, long version, byte[] payload) {
+    }
+
+    /**
+     * Колонки комнаты, которые хранит журнал
+     */
+    record RoomSnapshot(String code, long version, Long player1Id, Long player2Id,
+                        String player1ShipsJson, String player2ShipsJson,
+                        String player1BoardJson, String player2BoardJson,
+                        String currentTurn, String gameStateJson, GameMode gameMode, GameState status,
+                        byte[] replayFleets, byte[] replayShots) {
+
+        static RoomSnapshot of(MultiplayerRoomEntity entity) {
+            return new RoomSnapshot(entity.getCode(), entity.getStateVersion(),
+                    entity.getPlayer1Id(), entity.getPlayer2Id(),
+                    entity.getPlayer1ShipsJson(), entity.getPlayer2ShipsJson(),
+                    entity.getPlayer1BoardJson(), entity.getPlayer2BoardJson(),
+                    entity.getCurrentTurn(), entity.getGameStateJson(), entity.getGameMode(), entity.getStatus(),
+                    entity.getReplayFleets(), entity.getReplayShots());
+        }
+
+        void applyTo(MultiplayerRoomEntity entity) {
+            entity.setCode(code);
+            entity.setStateVersion(version);
+            entity.setPlayer1Id(player1Id);
+            entity.setPlayer2Id(player2Id);
+            entity.setPlayer1ShipsJson(player1ShipsJson);
+            entity.setPlayer2ShipsJson(player2ShipsJson);
+            entity.setPlayer1BoardJson(player1BoardJson);
+            entity.setPlayer2BoardJson(player2BoardJson);
+            entity.setCurrentTurn(currentTurn);
+            entity.setGameStateJson(gameStateJson);
+            entity.setGameMode(gameMode);
+            entity.setStatus(status);
+            entity.setReplayFleets(replayFleets);
+            entity.setReplayShots(replayShots);
+        }
+
+        boolean finished() {
+            return status == GameState.PLAYER_WON || status == GameState.COMPUTER_WON;
+        }
+    }
+
+    // Последняя записанная версия комнаты и её запись (для переписывания при сжатии)
+    private record Entry(long version, byte[] payload) {
+    }
+
+    private final Object lock = new Object();
+    private final Map<String, Entry> latest = new HashMap<>();
+    // Только при чтении журнала на старте: версия, с которой комната забыта. Сжатие
+    // может переписать снимок уже после отметки об удалении, такой снимок пропускается
+    private final Map<String, Long> forgotten = new HashMap<>();
+    private long liveBytes;
+    private MappedJournal journal;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    private volatile boolean running;
+    private Thread syncer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Path.of(directory);
+        try {
+            journal = MappedJournal.open(dir, (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes()));
+            long started = System.nanoTime();
+            MappedJournal.ReplayStats stats = journal.replay(this::load);
+            forgotten.clear();
+            if (stats.torn() > 0) {
+                logger.warn("Журнал комнат: {} сегм. прочитано не до конца (оборванная при сбое запись)", stats.torn());
+            }
+            int restored = restore();
+            compact();
+            logger.info("Журнал комнат {}: {} записей из {} сегм., комнат {}, восстановлено в БД {} за {} мс",
+                    dir.toAbsolutePath(), stats.records(), stats.segments(), latest.size(), restored,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось открыть журнал комнат " + dir.toAbsolutePath(), e);
+        }
+        if (meterRegistry != null) {
+            FunctionCounter.builder("game.journal.appended", appended, LongAdder::sum)
+                    .register(meterRegistry);
+            FunctionCounter.builder("game.journal.failed", failed, LongAdder::sum)
+                    .description("Снимки комнат, не записанные в журнал из-за ошибки")
+                    .register(meterRegistry);
+            FunctionCounter.builder("game.journal.syncs", syncs, LongAdder::sum)
+                    .register(meterRegistry);
+            Gauge.builder("game.journal.segments", journal, MappedJournal::segmentCount)
+                    .register(meterRegistry);
+        }
+        running = true;
+        syncer = Thread.ofPlatform().daemon().name("room-journal-sync").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = syncer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("Ошибка при закрытии журнала комнат: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Сериализует текущее состояние комнаты; null, если журнал выключен
+     */
+    public Record snapshot(MultiplayerRoomEntity entity) {
+        if (!enabled) {
+            return null;
+        }
+        return new Record(entity.getCode(), entity.getStateVersion(), encode(RoomSnapshot.of(entity)));
+    }
+
+    /**
+     * Дописывает снимок после фиксации транзакции. Снимок старше уже записанного
+     * (транзакции зафиксировались в другом порядке) пропускается
+     */
+    public void append(Record record) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (lock) {
+            Entry previous = latest.get(record.code());
+            if (previous != null && previous.version() > record.version()) {
+                return;
+            }
+            if (write(record.payload())) {
+                latest.put(record.code(), new Entry(record.version(), record.payload()));
+                liveBytes += record.payload().length - (previous != null ? previous.payload().length : 0);
+            }
+        }
+    }
+
+    /**
+     * Комната удалена или архивирована: при старте её состояние больше не восстанавливается
+     */
+    public void forget(String code) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (lock) {
+            Entry previous = latest.remove(code);
+            if (previous == null) {
+                return;
+            }
+            liveBytes -= previous.payload().length;
+            write(encodeForget(code, previous.version()));
+        }
+    }
+
+    /**
+     * Забывает комнаты, которых больше нет в БД среди неархивных (их удалила или
+     * архивировала очистка на другом узле)
+     */
+    @Scheduled(fixedDelayString = "${game.journal.reconcile-interval-ms:60000}")
+    public void forgetDeletedRooms() {
+        if (journal == null) {
+            return;
+        }
+        List<String> codes;
+        synchronized (lock) {
+            codes = new ArrayList<>(latest.keySet());
+        }
+        int removed = 0;
+        try {
+            for (int from = 0; from < codes.size(); from += RESTORE_BATCH_SIZE) {
+                List<String> batch = codes.subList(from, Math.min(codes.size(), from + RESTORE_BATCH_SIZE));
+                Set<String> live = new HashSet<>(multiplayerRoomRepository.findLiveCodes(batch));
+                for (String code : batch) {
+                    if (!live.contains(code)) {
+                        forget(code);
+                        removed++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Не удалось сверить журнал комнат с БД: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            logger.info("Журнал комнат: забыто комнат, удалённых или архивированных на других узлах: {}", removed);
+        }
+    }
+
+    private boolean write(byte[] payload) {
+        try {
+            journal.append(payload);
+            appended.increment();
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            failed.increment();
+            logger.warn("Не удалось записать в журнал комнат: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void run() {
+        long intervalNanos = Math.max(1, flushInterval.toNanos());
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            if (journal.sync() > 0) {
+                syncs.increment();
+            }
+            // Сжатие идёт здесь, а не в append: запись после фиксации хода его не ждёт
+            compactIfNeeded();
+        }
+    }
+
+    // Сегментов слишком много, а живые снимки занимают не больше половины места
+    void compactIfNeeded() {
+        long live;
+        synchronized (lock) {
+            live = liveBytes;
+        }
+        int count = journal.segmentCount();
+        if (count > maxSegments && live * 2 < (count - 1) * segmentSize.toBytes()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                logger.warn("Не удалось сжать журнал комнат: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Переписывает последние снимки живых комнат в новый сегмент и удаляет старые.
+    // Под блокировкой только переход на новый сегмент и список снимков: всё, что
+    // дописано позже, уже попадает в новые сегменты, а при чтении побеждает старшая версия
+    private void compact() throws IOException {
+        long first;
+        List<byte[]> live;
+        synchronized (lock) {
+            first = journal.rotate();
+            live = new ArrayList<>(latest.size());
+            for (Entry entry : latest.values()) {
+                live.add(entry.payload());
+            }
+        }
+        for (byte[] payload : live) {
+            journal.append(payload);
+        }
+        journal.sync();
+        int deleted = journal.deleteBefore(first);
+        if (deleted > 0) {
+            logger.info("Журнал комнат сжат: {} комнат, удалено сегментов {}", live.size(), deleted);
+        }
+    }
+
+    // Чтение при старте: остаётся последняя версия каждой комнаты, удалённые комнаты исключаются
+    private void load(ByteBuffer payload) {
+        ByteBuffer in = payload.duplicate();
+        byte type = in.get();
+        if (in.get() != FORMAT) {
+            return;
+        }
+        String code = readString(in);
+        long version = in.getLong();
+        if (type == FORGET) {
+            Entry removed = latest.remove(code);
+            if (removed != null) {
+                liveBytes -= removed.payload().length;
+            }
+            forgotten.merge(code, version, Math::max);
+            return;
+        }
+        Long forgottenVersion = forgotten.get(code);
+        if (forgottenVersion != null && forgottenVersion >= version) {
+            return;
+        }
+        Entry previous = latest.get(code);
+        if (previous == null || previous.version() <= version) {
+            byte[] copy = new byte[payload.remaining()];
+            payload.duplicate().get(copy);
+            latest.put(code, new Entry(version, copy));
+            liveBytes += copy.length - (previous != null ? previous.payload().length : 0);
+        }
+    }
+
+    /**
+     * Возвращает в БД состояния, которые новее сохранённых там. Завершённые
+     * комнаты, которых нет в БД, уже удалены очисткой; чужие комнаты создаёт
+     * только их узел
+     */
+    private int restore() {
+        List<String> codes = new ArrayList<>(latest.keySet());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int restored = 0;
+        for (int from = 0; from < codes.size(); from += RESTORE_BATCH_SIZE) {
+            List<String> batch = codes.subList(from, Math.min(codes.size(), from + RESTORE_BATCH_SIZE));
+            Integer count = tx.execute(status -> restoreBatch(batch));
+            restored += count != null ? count : 0;
+        }
+        return restored;
+    }
+
+    int restoreBatch(List<String> codes) {
+        Map<String, MultiplayerRoomEntity> rows = new HashMap<>();
+        for (MultiplayerRoomEntity row : multiplayerRoomRepository.findAllById(codes)) {
+            rows.put(row.getCode(), row);
+        }
+        List<MultiplayerRoomEntity> changed = new ArrayList<>();
+        for (String code : codes) {
+            RoomSnapshot snapshot = decode(latest.get(code).payload());
+            MultiplayerRoomEntity row = rows.get(code);
+            if (row == null) {
+                if (snapshot.finished() || RoomCodeAllocator.nodeIdOf(code) != roomCodeAllocator.getNodeId()) {
+                    liveBytes -= latest.remove(code).payload().length;
+                    continue;
+                }
+                row = new MultiplayerRoomEntity();
+            } else if (row.isArchived() || row.getStateVersion() >= snapshot.version()) {
+                continue;
+            }
+            snapshot.applyTo(row);
+            changed.add(row);
+            logger.info("Комната {} восстановлена из журнала: версия {}", code, snapshot.version());
+        }
+        multiplayerRoomRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    int trackedRooms() {
+        synchronized (lock) {
+            return latest.size();
+        }
+    }
+
+    static byte[] encode(RoomSnapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out, SNAPSHOT, snapshot.code(), snapshot.version());
+            writeLong(out, snapshot.player1Id());
+            writeLong(out, snapshot.player2Id());
+            writeString(out, snapshot.player1ShipsJson());
+            writeString(out, snapshot.player2ShipsJson());
+            writeString(out, snapshot.player1BoardJson());
+            writeString(out, snapshot.player2BoardJson());
+            writeString(out, snapshot.currentTurn());
+            writeString(out, snapshot.gameStateJson());
+            writeString(out, snapshot.gameMode() != null ? snapshot.gameMode().name() : null);
+            writeString(out, snapshot.status() != null ? snapshot.status().name() : null);
+            writeBytes(out, snapshot.replayFleets());
+            writeBytes(out, snapshot.replayShots());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static RoomSnapshot decode(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        if (in.get() != SNAPSHOT || in.get() != FORMAT) {
+            throw new IllegalArgumentException("Запись журнала не является снимком комнаты");
+        }
+        String code = readString(in);
+        long version = in.getLong();
+        Long player1Id = readLong(in);
+        Long player2Id = readLong(in);
+        String player1Ships = readString(in);
+        String player2Ships = readString(in);
+        String player1Board = readString(in);
+        String player2Board = readString(in);
+        String currentTurn = readString(in);
+        String gameStateJson = readString(in);
+        String gameMode = readString(in);
+        String status = readString(in);
+        return new RoomSnapshot(code, version, player1Id, player2Id, player1Ships, player2Ships,
+                player1Board, player2Board, currentTurn, gameStateJson,
+                gameMode != null ? GameMode.valueOf(gameMode) : null,
+                status != null ? GameState.valueOf(status) : null,
+                readBytes(in), readBytes(in));
+    }
+
+    private static byte[] encodeForget(String code, long version) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out, FORGET, code, version);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeHeader(DataOutputStream out, byte type, String code, long version) throws IOException {
+        out.writeByte(type);
+        out.writeByte(FORMAT);
+        writeString(out, code);
+        out.writeLong(version);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    // Длина -1 — null
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static Long readLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+}
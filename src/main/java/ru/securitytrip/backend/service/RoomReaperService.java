@@ -0,0 +1,161 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Жизненный цикл мультиплеерных комнат.
+ * Периодически находит неактивные комнаты и пачками удаляет или архивирует их,
+ * одновременно очищая связанное с ними состояние в памяти GameService.
+ *
+ * Правила:
+ * - WAITING дольше waiting-ttl — удаляется (второй игрок так и не пришёл);
+ *   матчу турнира в такой комнате засчитывается неявка (TournamentService.forfeitNoShows);
+ * - IN_PROGRESS (и комнаты без статуса) дольше abandoned-ttl — удаляется (игра брошена);
+ * - завершённая дольше finished-ttl — архивируется или удаляется (finished-action);
+ * - архив дольше archive-retention — удаляется.
+ */
+@Service
+public class RoomReaperService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomReaperService.class);
+
+    private static final Set<GameState> FINISHED_STATES = EnumSet.of(GameState.PLAYER_WON, GameState.COMPUTER_WON);
+
+    @Autowired
+    private MultiplayerRoomRepository multiplayerRoomRepository;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private TournamentService tournamentService;
+
+    @Value("${game.rooms.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.rooms.reaper.batch-size:500}")
+    private int batchSize;
+
+    // Ограничение на количество пачек за один проход, чтобы не занимать БД надолго
+    @Value("${game.rooms.reaper.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${game.rooms.waiting-ttl:PT30M}")
+    private Duration waitingTtl;
+
+    @Value("${game.rooms.abandoned-ttl:PT6H}")
+    private Duration abandonedTtl;
+
+    @Value("${game.rooms.finished-ttl:PT1H}")
+    private Duration finishedTtl;
+
+    // archive - оставить итоговое состояние без досок, delete - удалить комнату целиком
+    @Value("${game.rooms.finished-action:archive}")
+    private String finishedAction;
+
+    @Value("${game.rooms.archive-retention:P30D}")
+    private Duration archiveRetention;
+
+    @Scheduled(fixedDelayString = "${game.rooms.reaper.interval-ms:60000}",
+            initialDelayString = "${game.rooms.reaper.initial-delay-ms:30000}")
+    public void sweep() {
+        // Кэш состояний чистим всегда: он растёт даже при выключенной очистке комнат
+        int evicted = gameService.evictExpiredCacheEntries();
+        if (!enabled) {
+            return;
+        }
+        try {
+            sweepRooms(Instant.now(), evicted);
+        } catch (Exception e) {
+            logger.error("Ошибка при очистке неактивных комнат: {}", e.getMessage(), e);
+        }
+    }
+
+    void sweepRooms(Instant now, int evictedCacheEntries) {
+        int backfilled = multiplayerRoomRepository.backfillLastActivity(now);
+        if (backfilled > 0) {
+            logger.info("Проставлено время активности для {} старых комнат", backfilled);
+        }
+
+        int waiting = deleteInBatches(cutoff -> multiplayerRoomRepository.findIdleRoomCodes(
+                EnumSet.of(GameState.WAITING), cutoff, PageRequest.of(0, batchSize)), now.minus(waitingTtl),
+                tournamentService::forfeitNoShows);
+        int abandoned = deleteInBatches(cutoff -> multiplayerRoomRepository.findIdleRoomCodes(
+                EnumSet.of(GameState.IN_PROGRESS), cutoff, PageRequest.of(0, batchSize)), now.minus(abandonedTtl));
+        abandoned += deleteInBatches(cutoff -> multiplayerRoomRepository.findIdleLegacyRoomCodes(
+                cutoff, PageRequest.of(0, batchSize)), now.minus(abandonedTtl));
+
+        int finished;
+        if ("delete".equalsIgnoreCase(finishedAction)) {
+            finished = deleteInBatches(cutoff -> multiplayerRoomRepository.findIdleRoomCodes(
+                    FINISHED_STATES, cutoff, PageRequest.of(0, batchSize)), now.minus(finishedTtl));
+        } else {
+            finished = archiveInBatches(now.minus(finishedTtl), now);
+        }
+        int archivedExpired = deleteInBatches(cutoff -> multiplayerRoomRepository.findExpiredArchivedRoomCodes(
+                cutoff, PageRequest.of(0, batchSize)), now.minus(archiveRetention));
+
+        if (waiting + abandoned + finished + archivedExpired > 0 || evictedCacheEntries > 0) {
+            logger.info("Очистка комнат: ожидающих удалено={}, брошенных удалено={}, завершённых обработано={} ({}), " +
+                            "архивных удалено={}, записей кэша удалено={}",
+                    waiting, abandoned, finished, finishedAction, archivedExpired, evictedCacheEntries);
+        }
+    }
+
+    private int deleteInBatches(Function<Instant, List<String>> finder, Instant cutoff) {
+        return deleteInBatches(finder, cutoff, codes -> { });
+    }
+
+    // beforeDelete вызывается, пока комнаты ещё в БД; если он упал, пачка не удаляется до следующего прохода
+    private int deleteInBatches(Function<Instant, List<String>> finder, Instant cutoff, Consumer<List<String>> beforeDelete) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<String> codes = finder.apply(cutoff);
+            if (codes.isEmpty()) {
+                break;
+            }
+            beforeDelete.accept(codes);
+            multiplayerRoomRepository.deleteAllByIdInBatch(codes);
+            codes.forEach(gameService::forgetRoom);
+            total += codes.size();
+            if (codes.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archiveInBatches(Instant cutoff, Instant now) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<String> codes = multiplayerRoomRepository.findIdleRoomCodes(
+                    FINISHED_STATES, cutoff, PageRequest.of(0, batchSize));
+            if (codes.isEmpty()) {
+                break;
+            }
+            multiplayerRoomRepository.archiveByCodes(codes, now);
+            codes.forEach(gameService::forgetRoom);
+            total += codes.size();
+            if (codes.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Выстрел игрока (ходы компьютера не публикуются).
+ * Публикуется GameService внутри транзакции хода, слушатели получают его после фиксации
+ *
+ * @param gameKey "game:{id}" или "room:{code}", как в GameFinishedEvent
+ * @param x координата выстрела (0..9)
+ * @param y координата выстрела (0..9)
+ */
+public record ShotFiredEvent(String gameKey, Long playerId, int x, int y, boolean hit, boolean sunk) {
+}
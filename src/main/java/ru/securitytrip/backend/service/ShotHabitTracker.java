@@ -0,0 +1,235 @@
+package ru.securitytrip.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.securitytrip.backend.model.ShotHabits;
+import ru.securitytrip.backend.repository.ShotHabitsRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма очерёдности выстрелов каждого игрока (ShotHabits): k-й выстрел
+ * игрока в партии добавляет клетке early-shots - k, поздние выстрелы не
+ * учитываются. По ней компьютер ставит флот туда, куда этот игрок обычно
+ * стреляет поздно.
+ *
+ * Слушатель события только кладёт его в ограниченную очередь (при
+ * переполнении событие отбрасывается), поэтому к ходу ничего не добавляется.
+ * Очередь разбирается в фоне раз в drain-interval-ms: там считается номер
+ * выстрела в партии и копится приращение гистограммы в массивах int.
+ * Приращения раз в flush-interval-ms пишутся в БД одной пачкой.
+ */
+@Service
+public class ShotHabitTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShotHabitTracker.class);
+
+    @Autowired
+    private ShotHabitsRepository shotHabitsRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${game.ai.habits.enabled:true}")
+    private boolean enabled;
+
+    // Сколько первых выстрелов партии учитывается
+    @Value("${game.ai.habits.early-shots:30}")
+    private int earlyShots;
+
+    // Гистограмма используется, когда учтено не меньше стольких партий игрока
+    @Value("${game.ai.habits.min-games:3}")
+    private int minGames;
+
+    @Value("${game.ai.habits.queue-size:65536}")
+    private int queueSize;
+
+    @Value("${game.stats.game-ttl:PT6H}")
+    private Duration gameTtl;
+
+    private BlockingQueue<Object> queue;
+    private final LongAdder dropped = new LongAdder();
+
+    // Ниже - только в потоке разбора очереди и записи (методы synchronized)
+    private final Map<Long, Pending> pending = new HashMap<>();
+    // Номер следующего выстрела игрока в идущей партии: ключ "{gameKey}/{playerId}"
+    private final Map<String, GameOrder> gameOrders = new HashMap<>();
+
+    private static final class Pending {
+        final int[] cells = new int[ShotHabits.CELLS];
+        long games;
+        long shots;
+    }
+
+    private static final class GameOrder {
+        int shots;
+        long lastShotNanos;
+    }
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueSize);
+        if (meterRegistry != null) {
+            FunctionCounter.builder("game.ai.habits.dropped", dropped, LongAdder::sum)
+                    .description("Выстрелы, не попавшие в гистограмму из-за переполнения очереди")
+                    .register(meterRegistry);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShotFired(ShotFiredEvent event) {
+        if (enabled && event.playerId() != null && !queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameFinished(GameFinishedEvent event) {
+        if (enabled && !queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Доля ранних выстрелов игрока по клеткам (сумма 1) или null, если партий пока мало
+     */
+    public double[] earlyShotShare(Long playerId) {
+        if (!enabled || playerId == null) {
+            return null;
+        }
+        ShotHabits habits = shotHabitsRepository.findById(playerId).orElseGet(() -> new ShotHabits(playerId));
+        int[] cells = habits.cells();
+        long games = habits.getGames();
+        synchronized (this) {
+            Pending delta = pending.get(playerId);
+            if (delta != null) {
+                games += delta.games;
+                for (int i = 0; i < ShotHabits.CELLS; i++) {
+                    cells[i] += delta.cells[i];
+                }
+            }
+        }
+        long total = 0;
+        for (int value : cells) {
+            total += value;
+        }
+        if (games < minGames || total == 0) {
+            return null;
+        }
+        double[] share = new double[ShotHabits.CELLS];
+        for (int i = 0; i < ShotHabits.CELLS; i++) {
+            share[i] = (double) cells[i] / total;
+        }
+        return share;
+    }
+
+    /**
+     * Разбирает очередь событий в накопленные приращения гистограмм
+     */
+    @Scheduled(fixedDelayString = "${game.ai.habits.drain-interval-ms:1000}")
+    public synchronized void drain() {
+        List<Object> events = new ArrayList<>(queue.size());
+        queue.drainTo(events);
+        long now = System.nanoTime();
+        for (Object event : events) {
+            if (event instanceof ShotFiredEvent shot) {
+                record(shot, now);
+            } else if (event instanceof GameFinishedEvent finished) {
+                gameOrders.remove(orderKey(finished.gameKey(), finished.player1Id()));
+                gameOrders.remove(orderKey(finished.gameKey(), finished.player2Id()));
+            }
+        }
+        long cutoff = now - gameTtl.toNanos();
+        gameOrders.values().removeIf(order -> order.lastShotNanos - cutoff < 0);
+    }
+
+    private void record(ShotFiredEvent shot, long now) {
+        GameOrder order = gameOrders.computeIfAbsent(orderKey(shot.gameKey(), shot.playerId()), key -> new GameOrder());
+        int k = order.shots++;
+        order.lastShotNanos = now;
+        if (k >= earlyShots || shot.x() < 0 || shot.x() >= 10 || shot.y() < 0 || shot.y() >= 10) {
+            return;
+        }
+        Pending delta = pending.computeIfAbsent(shot.playerId(), id -> new Pending());
+        if (k == 0) {
+            delta.games++;
+        }
+        delta.shots++;
+        delta.cells[shot.y() * 10 + shot.x()] += earlyShots - k;
+    }
+
+    /**
+     * Прибавляет накопленные приращения к player_shot_habits одной пачкой
+     */
+    @Scheduled(fixedDelayString = "${game.ai.habits.flush-interval-ms:30000}")
+    public void flush() {
+        // Запись в БД идёт без блокировки: разбор очереди и чтение гистограмм её не ждут
+        Map<Long, Pending> batch = takePending();
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ShotHabits> deltas = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, Pending> entry : batch.entrySet()) {
+            ShotHabits delta = new ShotHabits(entry.getKey());
+            delta.setGames(entry.getValue().games);
+            delta.setShots(entry.getValue().shots);
+            delta.setCells(entry.getValue().cells);
+            deltas.add(delta);
+        }
+        try {
+            shotHabitsRepository.addAll(deltas);
+            logger.debug("Привычки стрельбы записаны для {} игроков", deltas.size());
+        } catch (RuntimeException e) {
+            // Приращения возвращаются в память и будут записаны следующей пачкой
+            restorePending(batch);
+            logger.error("Не удалось записать привычки стрельбы ({} игроков): {}", deltas.size(), e.getMessage(), e);
+        }
+    }
+
+    private synchronized Map<Long, Pending> takePending() {
+        drain();
+        Map<Long, Pending> batch = new HashMap<>(pending);
+        pending.clear();
+        return batch;
+    }
+
+    private synchronized void restorePending(Map<Long, Pending> batch) {
+        batch.forEach((playerId, delta) -> pending.merge(playerId, delta, (current, failed) -> {
+            current.games += failed.games;
+            current.shots += failed.shots;
+            for (int i = 0; i < ShotHabits.CELLS; i++) {
+                current.cells[i] += failed.cells[i];
+            }
+            return current;
+        }));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    synchronized int pendingPlayers() {
+        return pending.size();
+    }
+
+    private static String orderKey(String gameKey, Long playerId) {
+        return gameKey + "/" + playerId;
+    }
+}
@@ -0,0 +1,108 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.securitytrip.backend.dto.HeatmapDto;
+import ru.securitytrip.backend.model.GameBoard;
+import ru.securitytrip.backend.model.Ship;
+import ru.securitytrip.engine.Board;
+import ru.securitytrip.engine.PlacementDensity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подсказка "куда стрелять": вероятности кораблей на доске противника
+ * (PlacementDensity) по видимым выстрелам и потопленным кораблям.
+ *
+ * Результат зависит только от выстрелов по доске, поэтому хранится для
+ * каждой игры вместе с версией доски - числом обстрелянных клеток. Пока по
+ * доске не выстрелили, повторный запрос отдаёт готовую карту без разбора
+ * кораблей; каждый выстрел меняет версию, и карта считается заново.
+ */
+@Service
+public class ShotHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShotHeatmapService.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Не больше стольких игр с готовой картой
+    @Value("${game.heatmap.max-games:10000}")
+    private int maxGames;
+
+    // Карта брошенной игры удаляется через ttl
+    @Value("${game.heatmap.ttl:PT30M}")
+    private Duration ttl;
+
+    private final Map<Long, Cached> heatmaps = new ConcurrentHashMap<>();
+
+    private record Cached(int version, HeatmapDto heatmap, long createdNanos) {
+    }
+
+    /**
+     * Карта для доски, по которой стреляет игрок
+     * @param gameId Идентификатор игры (ключ кэша)
+     * @param targetBoard Доска противника
+     */
+    public HeatmapDto heatmap(Long gameId, GameBoard targetBoard) {
+        int version = version(targetBoard.getBoardState());
+        Cached cached = heatmaps.get(gameId);
+        if (cached != null && cached.version() == version) {
+            return cached.heatmap();
+        }
+
+        List<Ship> ships;
+        try {
+            ships = objectMapper.readValue(targetBoard.getShipsData(),
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, Ship.class));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Ошибка при получении данных о кораблях", e);
+        }
+        int[][] cells = targetBoard.getBoardAsArray();
+        double[][] probabilities = PlacementDensity.of(cells, Fleets.ofShips(ships));
+        int best = PlacementDensity.best(probabilities, cells);
+        HeatmapDto heatmap = new HeatmapDto(gameId, version, probabilities,
+                best >= 0 ? best % Board.SIZE : null, best >= 0 ? best / Board.SIZE : null);
+
+        if (cached != null || heatmaps.size() < maxGames) {
+            heatmaps.put(gameId, new Cached(version, heatmap, System.nanoTime()));
+        } else {
+            logger.debug("Карта для игры {} не кэшируется: уже {} игр", gameId, heatmaps.size());
+        }
+        return heatmap;
+    }
+
+    // Число обстрелянных клеток (промахи и попадания) в строке доски "0,1,2;3,..."
+    static int version(String boardState) {
+        int shots = 0;
+        if (boardState != null) {
+            for (int i = 0; i < boardState.length(); i++) {
+                char c = boardState.charAt(i);
+                if (c == '0' + Board.MISS || c == '0' + Board.HIT) {
+                    shots++;
+                }
+            }
+        }
+        return shots;
+    }
+
+    @Scheduled(fixedDelayString = "${game.heatmap.cleanup-interval-ms:60000}")
+    public void evictAbandoned() {
+        long cutoff = System.nanoTime() - ttl.toNanos();
+        heatmaps.values().removeIf(cached -> cached.createdNanos() - cutoff < 0);
+    }
+
+    int size() {
+        return heatmaps.size();
+    }
+}
@@ -0,0 +1,217 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Иерархическое колесо таймеров: один общий поток обслуживает любое число
+ * отложенных задач (таймеры ходов во всех комнатах).
+ *
+ * Уровень 0 — wheelSize ячеек по одному тику; каждая ячейка уровня k покрывает
+ * wheelSize^k тиков. Задача кладётся на самый нижний уровень, диапазон которого
+ * покрывает её срок, и опускается на уровень ниже, когда колесо доходит до её
+ * ячейки. Добавление и отмена — O(1) и без блокировок: новые задачи проходят
+ * через очередь, а ячейки трогает только поток колеса. Отменённые задачи
+ * удаляются лениво, при проходе их ячейки.
+ *
+ * Сработавшие задачи выполняются на переданном executor, поток колеса ими не занят.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final int wheelSize;
+    private final int wheelBits;
+    private final Executor executor;
+
+    // buckets[level][slot], доступ только из потока колеса
+    private final ArrayDeque<Timeout>[][] buckets;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long startNanos;
+    private volatile long currentTick;
+    private Thread worker;
+
+    /**
+     * Отложенная задача. cancel() можно вызывать из любого потока
+     */
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final long deadlineTick;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final TimingWheel wheel;
+
+        private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                wheel.active.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(Duration tick, int wheelSize, Executor executor) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Размер колеса должен быть степенью двойки: " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheelSize = wheelSize;
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.executor = executor;
+        this.buckets = new ArrayDeque[LEVELS][wheelSize];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Выполнить задачу через delay (с точностью до тика, не раньше срока)
+     */
+    public Timeout schedule(Duration delay, Runnable task) {
+        long elapsedTicks = (System.nanoTime() - startNanos) / tickNanos;
+        long delayTicks = Math.max(1, (delay.toNanos() + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(this, elapsedTicks + delayTicks, task);
+        active.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    // Число ожидающих (не отменённых и не сработавших) задач
+    public int size() {
+        return active.get();
+    }
+
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        currentTick = 0;
+        worker = Thread.ofPlatform().daemon().name("timing-wheel").start(this::run);
+    }
+
+    public void stop() {
+        running.set(false);
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (running.get()) {
+            long nextTickAt = startNanos + (currentTick + 1) * tickNanos;
+            long sleep = nextTickAt - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+                continue;
+            }
+            try {
+                advance();
+            } catch (RuntimeException e) {
+                logger.error("Ошибка в колесе таймеров: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Один тик: принять новые задачи, опустить задачи с верхних уровней
+     * и выполнить задачи текущей ячейки. Вызывается только потоком колеса
+     * (и тестами вместо него)
+     */
+    void advance() {
+        long tick = currentTick + 1;
+        currentTick = tick;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((tick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                cascade(level, tick);
+            }
+        }
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            place(timeout, tick);
+        }
+        ArrayDeque<Timeout> bucket = buckets[0][(int) (tick & (wheelSize - 1))];
+        while ((timeout = bucket.poll()) != null) {
+            if (timeout.deadlineTick <= tick) {
+                expire(timeout);
+            } else {
+                place(timeout, tick);
+            }
+        }
+    }
+
+    private void cascade(int level, long tick) {
+        ArrayDeque<Timeout> bucket = buckets[level][(int) ((tick >>> (wheelBits * level)) & (wheelSize - 1))];
+        Timeout timeout;
+        int count = bucket.size();
+        for (int i = 0; i < count && (timeout = bucket.poll()) != null; i++) {
+            place(timeout, tick);
+        }
+    }
+
+    private void place(Timeout timeout, long tick) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+        long delta = timeout.deadlineTick - tick;
+        if (delta <= 0) {
+            // Срок уже наступил (задача добавлена с опозданием) — в текущую ячейку
+            buckets[0][(int) (tick & (wheelSize - 1))].add(timeout);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (level == LEVELS - 1 || delta < (1L << (wheelBits * (level + 1)))) {
+                int slot = (int) ((timeout.deadlineTick >>> (wheelBits * level)) & (wheelSize - 1));
+                buckets[level][slot].add(timeout);
+                return;
+            }
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+            return;
+        }
+        active.decrementAndGet();
+        try {
+            executor.execute(timeout.task);
+        } catch (RuntimeException e) {
+            logger.error("Не удалось запустить задачу таймера: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.securitytrip.backend.service;
+
+/**
+ * Сетка турнира на выбывание.
+ *
+ * Размер сетки — ближайшая степень двойки, не меньшая числа участников;
+ * недостающие места — пропуски раунда, они достаются сильнейшим по посеву.
+ * Расстановка стандартная: 1-й и 2-й посев могут встретиться только в финале,
+ * первые четыре — не раньше полуфинала и т.д.
+ */
+final class TournamentBracket {
+
+    private TournamentBracket() {
+    }
+
+    static int size(int players) {
+        if (players < 2) {
+            throw new IllegalArgumentException("В турнире должно быть не меньше двух участников");
+        }
+        return Integer.highestOneBit(players - 1) << 1;
+    }
+
+    static int rounds(int players) {
+        return Integer.numberOfTrailingZeros(size(players));
+    }
+
+    /**
+     * Номера посева (с 1) по местам сетки; соседние места — пары первого раунда
+     */
+    static int[] seedOrder(int size) {
+        int[] order = {1};
+        while (order.length < size) {
+            int[] next = new int[order.length * 2];
+            int sum = next.length + 1;
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = sum - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    /**
+     * Пары первого раунда по матчам: индексы участников в порядке посева
+     * (0 — первый посев); -1 вместо второго — пропуск раунда
+     */
+    static int[][] firstRound(int players) {
+        int[] order = seedOrder(size(players));
+        int[][] pairs = new int[order.length / 2][];
+        for (int slot = 0; slot < pairs.length; slot++) {
+            int first = order[2 * slot] - 1;
+            int second = order[2 * slot + 1] - 1;
+            // Сильнейший по посеву — хост комнаты (ходит первым)
+            int higher = Math.min(first, second);
+            int lower = Math.max(first, second);
+            pairs[slot] = new int[]{higher, lower < players ? lower : -1};
+        }
+        return pairs;
+    }
+}
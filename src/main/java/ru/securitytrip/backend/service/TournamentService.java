@@ -0,0 +1,329 @@
+package ru.securitytrip.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.securitytrip.backend.dto.CreateTournamentRequest;
+import ru.securitytrip.backend.dto.TournamentDto;
+import ru.securitytrip.backend.dto.TournamentMatchDto;
+import ru.securitytrip.backend.dto.TournamentPlayerDto;
+import ru.securitytrip.backend.model.GameMode;
+import ru.securitytrip.backend.model.Tournament;
+import ru.securitytrip.backend.model.TournamentMatch;
+import ru.securitytrip.backend.model.TournamentPlayer;
+import ru.securitytrip.backend.model.TournamentStatus;
+import ru.securitytrip.backend.repository.TournamentMatchRepository;
+import ru.securitytrip.backend.repository.TournamentPlayerRepository;
+import ru.securitytrip.backend.repository.TournamentRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Турниры на выбывание из мультиплеерных партий.
+ *
+ * Создатель открывает регистрацию и запускает турнир; при старте участники
+ * посеиваются по рейтингу и строится первый раунд сетки. Комнаты для матчей
+ * создаёт планировщик: он забирает матчи без комнат пачками по room-batch-size
+ * и создаёт для каждой пачки все комнаты одной транзакцией
+ * (GameService.createReservedMultiplayerGames), поэтому старт раунда с сотнями
+ * матчей не превращается в сотни отдельных транзакций.
+ *
+ * Итог матча приходит как GameFinishedEvent комнаты (победа или поражение по
+ * времени). Когда сыграны все матчи раунда, победители соседних матчей
+ * образуют следующий раунд; победитель финала — победитель турнира.
+ */
+@Service
+public class TournamentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TournamentService.class);
+
+    private static final String ROOM_PREFIX = "room:";
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @Autowired
+    private TournamentPlayerRepository tournamentPlayerRepository;
+
+    @Autowired
+    private TournamentMatchRepository tournamentMatchRepository;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${game.tournament.default-max-players:64}")
+    private int defaultMaxPlayers;
+
+    @Value("${game.tournament.max-players-limit:1024}")
+    private int maxPlayersLimit;
+
+    // Сколько комнат создаётся одной транзакцией
+    @Value("${game.tournament.room-batch-size:200}")
+    private int roomBatchSize;
+
+    // Ограничение на количество пачек за один проход планировщика
+    @Value("${game.tournament.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    // Отдельная транзакция: итог матча записывается после фиксации хода, из слушателя события
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    void initTransactions() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public TournamentDto createTournament(Long userId, CreateTournamentRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            throw new IllegalArgumentException("Не указано название турнира");
+        }
+        int maxPlayers = request.getMaxPlayers() != null ? request.getMaxPlayers() : defaultMaxPlayers;
+        if (maxPlayers < 2 || maxPlayers > maxPlayersLimit) {
+            throw new IllegalArgumentException("Число участников должно быть от 2 до " + maxPlayersLimit);
+        }
+        Tournament tournament = new Tournament();
+        tournament.setName(request.getName().trim());
+        tournament.setCreatedBy(userId);
+        tournament.setMaxPlayers(maxPlayers);
+        tournament = tournamentRepository.save(tournament);
+        logger.info("Игрок {} создал турнир {} на {} участников", userId, tournament.getId(), maxPlayers);
+        return toDto(tournament, List.of(), List.of());
+    }
+
+    @Transactional
+    public TournamentDto register(Long tournamentId, Long userId) {
+        Tournament tournament = lockTournament(tournamentId);
+        if (tournament.getStatus() != TournamentStatus.REGISTRATION) {
+            throw new IllegalStateException("Регистрация на турнир закрыта");
+        }
+        if (tournamentPlayerRepository.existsByTournamentIdAndPlayerId(tournamentId, userId)) {
+            throw new IllegalStateException("Вы уже зарегистрированы в турнире");
+        }
+        if (tournamentPlayerRepository.countByTournamentId(tournamentId) >= tournament.getMaxPlayers()) {
+            throw new IllegalStateException("Все места в турнире заняты");
+        }
+        tournamentPlayerRepository.save(new TournamentPlayer(tournamentId, userId));
+        logger.info("Игрок {} зарегистрирован в турнире {}", userId, tournamentId);
+        return getTournament(tournamentId);
+    }
+
+    /**
+     * Посев по рейтингу и первый раунд сетки; комнаты матчей создаст планировщик
+     */
+    @Transactional
+    public TournamentDto start(Long tournamentId, Long userId) {
+        Tournament tournament = lockTournament(tournamentId);
+        if (!userId.equals(tournament.getCreatedBy())) {
+            throw new SecurityException("Запустить турнир может только его создатель");
+        }
+        if (tournament.getStatus() != TournamentStatus.REGISTRATION) {
+            throw new IllegalStateException("Турнир уже начат");
+        }
+        List<TournamentPlayer> players = tournamentPlayerRepository.findByTournamentIdOrderByIdAsc(tournamentId);
+        if (players.size() < 2) {
+            throw new IllegalStateException("В турнире должно быть не меньше двух участников");
+        }
+
+        // Посев: по убыванию рейтинга, при равенстве — кто раньше зарегистрировался
+        players.forEach(player -> player.setRating(ratingService.currentRating(player.getPlayerId())));
+        players.sort(Comparator.comparing(TournamentPlayer::getRating).reversed()
+                .thenComparing(TournamentPlayer::getId));
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).setSeed(i + 1);
+        }
+
+        int[][] pairs = TournamentBracket.firstRound(players.size());
+        List<TournamentMatch> matches = new ArrayList<>(pairs.length);
+        for (int slot = 0; slot < pairs.length; slot++) {
+            Long player1Id = players.get(pairs[slot][0]).getPlayerId();
+            Long player2Id = pairs[slot][1] >= 0 ? players.get(pairs[slot][1]).getPlayerId() : null;
+            TournamentMatch match = new TournamentMatch(tournamentId, 1, slot, player1Id, player2Id);
+            if (player2Id == null) {
+                // Пропуск раунда: игрок проходит дальше без игры
+                match.setWinnerId(player1Id);
+            }
+            matches.add(match);
+        }
+        tournamentMatchRepository.saveAll(matches);
+
+        tournament.setStatus(TournamentStatus.IN_PROGRESS);
+        tournament.setCurrentRound(1);
+        tournament.setRounds(TournamentBracket.rounds(players.size()));
+        tournament.setStartedAt(Instant.now());
+        logger.info("Турнир {} начат: {} участников, {} раундов", tournamentId, players.size(), tournament.getRounds());
+        return toDto(tournament, players, matches);
+    }
+
+    @Transactional(readOnly = true)
+    public TournamentDto getTournament(Long tournamentId) {
+        Tournament tournament = tournamentRepository.findById(tournamentId)
+                .orElseThrow(() -> new RuntimeException("Турнир не найден"));
+        List<TournamentPlayer> players = tournamentPlayerRepository.findByTournamentIdOrderByIdAsc(tournamentId);
+        if (tournament.getStatus() != TournamentStatus.REGISTRATION) {
+            players.sort(Comparator.comparing(TournamentPlayer::getSeed));
+        }
+        return toDto(tournament, players, tournamentMatchRepository.findByTournamentIdOrderByRoundAscSlotAsc(tournamentId));
+    }
+
+    /**
+     * Несыгранный матч игрока (с кодом комнаты, если она уже создана)
+     */
+    @Transactional(readOnly = true)
+    public Optional<TournamentMatchDto> getCurrentMatch(Long tournamentId, Long userId) {
+        return tournamentMatchRepository.findUnfinished(tournamentId, userId).map(TournamentService::toMatchDto);
+    }
+
+    /**
+     * Создаёт комнаты для матчей, у которых их ещё нет (первый раунд после
+     * старта, следующие раунды после завершения предыдущих)
+     */
+    @Scheduled(fixedDelayString = "${game.tournament.rooms-interval-ms:1000}")
+    public void createPendingRooms() {
+        try {
+            int total = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Integer created = newTransaction.execute(status -> createRoomBatch());
+                total += created != null ? created : 0;
+                if (created == null || created < roomBatchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Созданы комнаты для матчей турниров: {}", total);
+            }
+        } catch (Exception e) {
+            logger.error("Ошибка при создании комнат для матчей турниров: {}", e.getMessage(), e);
+        }
+    }
+
+    // Одна пачка: матчи блокируются до фиксации, комнаты вставляются одним пакетом
+    private int createRoomBatch() {
+        List<TournamentMatch> matches = tournamentMatchRepository.findWithoutRoomForUpdate(PageRequest.of(0, roomBatchSize));
+        if (matches.isEmpty()) {
+            return 0;
+        }
+        List<String> codes = gameService.createReservedMultiplayerGames(matches.stream()
+                .map(match -> new GameService.ReservedRoom(match.getPlayer1Id(), match.getPlayer2Id()))
+                .toList());
+        for (int i = 0; i < matches.size(); i++) {
+            matches.get(i).setRoomCode(codes.get(i));
+        }
+        return matches.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameFinished(GameFinishedEvent event) {
+        if (event.mode() != GameMode.multiplayer || !event.gameKey().startsWith(ROOM_PREFIX)) {
+            return;
+        }
+        String roomCode = event.gameKey().substring(ROOM_PREFIX.length());
+        // Большинство комнат не турнирные — для них без транзакции и блокировок
+        Optional<Long> tournamentId = tournamentMatchRepository.findTournamentIdByRoomCode(roomCode);
+        if (tournamentId.isEmpty()) {
+            return;
+        }
+        newTransaction.executeWithoutResult(status -> recordResult(tournamentId.get(), roomCode, event.player1Won()));
+    }
+
+    /**
+     * Матчи в комнатах, которые очистка удаляет неначатыми (игрок не пришёл или не
+     * расставил корабли): победителем записывается явившийся игрок. Без этого матч
+     * остался бы без победителя, и следующий раунд никогда бы не начался
+     */
+    public void forfeitNoShows(List<String> roomCodes) {
+        for (TournamentMatch match : tournamentMatchRepository.findByRoomCodeInAndWinnerIdIsNull(roomCodes)) {
+            boolean player1Won = gameService.noShowPlayer1Wins(match.getRoomCode());
+            logger.info("Турнир {}: матч {} не начался, засчитана неявка игрока {}", match.getTournamentId(),
+                    match.getRoomCode(), player1Won ? match.getPlayer2Id() : match.getPlayer1Id());
+            newTransaction.executeWithoutResult(status ->
+                    recordResult(match.getTournamentId(), match.getRoomCode(), player1Won));
+        }
+    }
+
+    /**
+     * Записывает победителя матча; если раунд сыгран — строит следующий или завершает турнир.
+     * Матчи одного турнира завершаются по одному (блокировка строки турнира)
+     */
+    void recordResult(Long tournamentId, String roomCode, boolean player1Won) {
+        Tournament tournament = tournamentRepository.findForUpdate(tournamentId).orElse(null);
+        if (tournament == null || tournament.getStatus() != TournamentStatus.IN_PROGRESS) {
+            return;
+        }
+        TournamentMatch match = tournamentMatchRepository.findByRoomCode(roomCode).orElse(null);
+        if (match == null || match.getWinnerId() != null) {
+            return;
+        }
+        Long winnerId = player1Won ? match.getPlayer1Id() : match.getPlayer2Id();
+        Long loserId = player1Won ? match.getPlayer2Id() : match.getPlayer1Id();
+        match.setWinnerId(winnerId);
+        tournamentMatchRepository.save(match);
+        tournamentPlayerRepository.markEliminated(tournamentId, loserId);
+        logger.info("Турнир {}, раунд {}: игрок {} выиграл матч {}", tournamentId, match.getRound(), winnerId, roomCode);
+
+        if (tournamentMatchRepository.countByTournamentIdAndRoundAndWinnerIdIsNull(tournamentId, match.getRound()) == 0) {
+            advance(tournament, match.getRound());
+        }
+    }
+
+    // Победители матчей 2k и 2k+1 встречаются в матче k следующего раунда
+    private void advance(Tournament tournament, int round) {
+        List<TournamentMatch> finished = tournamentMatchRepository.findByTournamentIdAndRoundOrderBySlotAsc(tournament.getId(), round);
+        if (finished.size() == 1) {
+            tournament.setStatus(TournamentStatus.FINISHED);
+            tournament.setWinnerId(finished.get(0).getWinnerId());
+            tournament.setFinishedAt(Instant.now());
+            tournamentRepository.save(tournament);
+            logger.info("Турнир {} завершён, победитель {}", tournament.getId(), tournament.getWinnerId());
+            return;
+        }
+        List<TournamentMatch> next = new ArrayList<>(finished.size() / 2);
+        for (int slot = 0; slot < finished.size() / 2; slot++) {
+            next.add(new TournamentMatch(tournament.getId(), round + 1, slot,
+                    finished.get(2 * slot).getWinnerId(), finished.get(2 * slot + 1).getWinnerId()));
+        }
+        tournamentMatchRepository.saveAll(next);
+        tournament.setCurrentRound(round + 1);
+        tournamentRepository.save(tournament);
+        logger.info("Турнир {}: начат раунд {} ({} матчей)", tournament.getId(), round + 1, next.size());
+    }
+
+    private Tournament lockTournament(Long tournamentId) {
+        return tournamentRepository.findForUpdate(tournamentId)
+                .orElseThrow(() -> new RuntimeException("Турнир не найден"));
+    }
+
+    private static TournamentDto toDto(Tournament tournament, List<TournamentPlayer> players, List<TournamentMatch> matches) {
+        return new TournamentDto(tournament.getId(), tournament.getName(), tournament.getStatus(), tournament.getCreatedBy(),
+                tournament.getMaxPlayers(), tournament.getCurrentRound(), tournament.getRounds(), tournament.getWinnerId(),
+                players.stream().map(player -> new TournamentPlayerDto(player.getPlayerId(), player.getSeed(),
+                        player.getRating(), player.isEliminated())).toList(),
+                matches.stream().map(TournamentService::toMatchDto).toList());
+    }
+
+    private static TournamentMatchDto toMatchDto(TournamentMatch match) {
+        return new TournamentMatchDto(match.getRound(), match.getSlot(), match.getPlayer1Id(), match.getPlayer2Id(),
+                match.getRoomCode(), match.getWinnerId());
+    }
+}
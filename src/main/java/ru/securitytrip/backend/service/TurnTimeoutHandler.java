@@ -0,0 +1,36 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.securitytrip.backend.dto.GameStateFrame;
+
+/**
+ * Применяет истёкшие таймеры ходов и рассылает новое состояние комнаты
+ * в её топик, как обычный ход
+ */
+@Component
+public class TurnTimeoutHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurnTimeoutHandler.class);
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameFramePublisher gameFramePublisher;
+
+    @EventListener
+    public void onTurnTimeout(TurnTimerService.TurnTimeoutEvent event) {
+        try {
+            GameStateFrame frame = gameService.applyTurnTimeout(event);
+            if (frame != null) {
+                gameFramePublisher.publish("/topic/multiplayer/move", frame);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Не удалось применить таймаут хода в комнате {}: {}", event.gameCode(), e.getMessage(), e);
+        }
+    }
+}
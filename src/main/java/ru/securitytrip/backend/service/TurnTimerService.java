@@ -0,0 +1,174 @@
+package ru.securitytrip.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Серверные часы мультиплеерных комнат: лимит на ход и общий запас времени
+ * каждого игрока на партию (как в шахматах).
+ *
+ * Для текущего хода ставится одна задача в общее колесо таймеров — на момент,
+ * когда закончится либо время хода, либо запас игрока. Срабатывание
+ * превращается в событие TurnTimeoutEvent; применяет его TurnTimeoutHandler
+ * (через GameService, чтобы не было циклической зависимости).
+ */
+@Service
+public class TurnTimerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurnTimerService.class);
+
+    public static final String PLAYER1 = "player1";
+    public static final String PLAYER2 = "player2";
+
+    /**
+     * Истекло время хода (reason = TURN) или весь запас игрока (reason = GAME_CLOCK).
+     * expectedVersion — версия состояния комнаты, при которой таймер был запущен:
+     * если с тех пор был ход, событие устарело
+     */
+    public record TurnTimeoutEvent(String gameCode, String player, long expectedVersion, Reason reason) {
+    }
+
+    public enum Reason { TURN, GAME_CLOCK }
+
+    @Autowired
+    private TimingWheel timingWheel;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${game.turns.enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.turns.turn-timeout:PT30S}")
+    private Duration turnTimeout;
+
+    // Запас времени игрока на всю партию; PT0S — без общего лимита
+    @Value("${game.turns.game-clock:PT10M}")
+    private Duration gameClock;
+
+    // pass — ход переходит сопернику, forfeit — сразу поражение
+    @Value("${game.turns.on-timeout:pass}")
+    private String onTimeout;
+
+    // После стольких пропусков подряд игроку засчитывается поражение
+    @Value("${game.turns.max-missed-turns:3}")
+    private int maxMissedTurns;
+
+    private final Map<String, RoomClock> clocks = new ConcurrentHashMap<>();
+
+    private static final class RoomClock {
+        final long[] remainingNanos = new long[2];
+        final int[] missedTurns = new int[2];
+        int currentPlayer = -1;
+        long turnStartedNanos;
+        TimingWheel.Timeout timeout;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Начинает ход игрока: списывает время предыдущего хода с запаса того, кто
+     * ходил, и ставит таймер. Возвращает срок хода (для клиента) или null,
+     * если часы выключены
+     */
+    public Instant startTurn(String gameCode, String player, long stateVersion) {
+        if (!enabled) {
+            return null;
+        }
+        int index = indexOf(player);
+        long now = System.nanoTime();
+        RoomClock clock = clocks.computeIfAbsent(gameCode, code -> newClock());
+        synchronized (clock) {
+            if (clock.currentPlayer >= 0) {
+                clock.remainingNanos[clock.currentPlayer] -= now - clock.turnStartedNanos;
+            }
+            clock.currentPlayer = index;
+            clock.turnStartedNanos = now;
+            if (clock.timeout != null) {
+                clock.timeout.cancel();
+            }
+
+            long budget = turnTimeout.toNanos();
+            Reason reason = Reason.TURN;
+            if (!gameClock.isZero() && clock.remainingNanos[index] <= budget) {
+                budget = Math.max(0, clock.remainingNanos[index]);
+                reason = Reason.GAME_CLOCK;
+            }
+            TurnTimeoutEvent event = new TurnTimeoutEvent(gameCode, player, stateVersion, reason);
+            clock.timeout = timingWheel.schedule(Duration.ofNanos(budget), () -> eventPublisher.publishEvent(event));
+            return Instant.now().plusNanos(budget);
+        }
+    }
+
+    /**
+     * Игрок сделал ход сам — счётчик пропусков обнуляется
+     */
+    public void playerMoved(String gameCode, String player) {
+        RoomClock clock = clocks.get(gameCode);
+        if (clock != null) {
+            synchronized (clock) {
+                clock.missedTurns[indexOf(player)] = 0;
+            }
+        }
+    }
+
+    /**
+     * Решение по истёкшему таймеру: true — засчитать поражение, false — передать ход
+     */
+    public boolean shouldForfeit(TurnTimeoutEvent event) {
+        if (event.reason() == Reason.GAME_CLOCK || "forfeit".equalsIgnoreCase(onTimeout)) {
+            return true;
+        }
+        RoomClock clock = clocks.get(event.gameCode());
+        if (clock == null) {
+            return false;
+        }
+        synchronized (clock) {
+            return ++clock.missedTurns[indexOf(event.player())] >= maxMissedTurns;
+        }
+    }
+
+    // Партия закончилась или комната удалена
+    public void stop(String gameCode) {
+        RoomClock clock = clocks.remove(gameCode);
+        if (clock != null) {
+            synchronized (clock) {
+                if (clock.timeout != null) {
+                    clock.timeout.cancel();
+                }
+            }
+            logger.debug("Часы комнаты {} остановлены", gameCode);
+        }
+    }
+
+    public int activeClocks() {
+        return clocks.size();
+    }
+
+    private RoomClock newClock() {
+        RoomClock clock = new RoomClock();
+        long total = gameClock.isZero() ? Long.MAX_VALUE : gameClock.toNanos();
+        clock.remainingNanos[0] = total;
+        clock.remainingNanos[1] = total;
+        return clock;
+    }
+
+    private static int indexOf(String player) {
+        return PLAYER1.equals(player) ? 0 : 1;
+    }
+
+    public static String opponentOf(String player) {
+        return PLAYER1.equals(player) ? PLAYER2 : PLAYER1;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.securitytrip.backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPayloadInterceptorTest {
+
+    @Test
+    void testCborOnlyWhenListedExplicitly() {
+        assertTrue(BinaryPayloadInterceptor.acceptsCbor("application/cbor"));
+        assertTrue(BinaryPayloadInterceptor.acceptsCbor("application/json;q=0.5, application/cbor"));
+        // Маски и отсутствие заголовка оставляют JSON
+        assertFalse(BinaryPayloadInterceptor.acceptsCbor("*/*"));
+        assertFalse(BinaryPayloadInterceptor.acceptsCbor("application/*"));
+        assertFalse(BinaryPayloadInterceptor.acceptsCbor("application/json"));
+        assertFalse(BinaryPayloadInterceptor.acceptsCbor(null));
+        assertFalse(BinaryPayloadInterceptor.acceptsCbor("не тип"));
+    }
+}
@@ -0,0 +1,108 @@
+package ru.securitytrip.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CoalescingSessionDecoratorTest {
+
+    // Задачи отправки выполняются вручную, чтобы сообщения успели накопиться в очереди
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final WebSocketSession delegate = mock(WebSocketSession.class);
+
+    private CoalescingSessionDecorator decorator(int bufferSizeLimit, CoalescingSessionDecorator.OverflowPolicy policy) {
+        when(delegate.getId()).thenReturn("s1");
+        return new CoalescingSessionDecorator(delegate, tasks::add, 10_000, bufferSizeLimit, policy);
+    }
+
+    private static TextMessage state(String gameCode, long version) {
+        return new TextMessage("MESSAGE\ndestination:/topic/multiplayer/state\nsubscription:sub-0\n" +
+                "game-code:" + gameCode + "\nstate-version:" + version + "\n\n{\"version\":" + version + "}\u0000");
+    }
+
+    private static TextMessage other(String body) {
+        return new TextMessage("MESSAGE\ndestination:/topic/multiplayer/chat\nsubscription:sub-1\n\n" + body + "\u0000");
+    }
+
+    private List<String> sent() throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(delegate, atLeast(0)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    void testNewerStateSupersedesPendingFrameOfSameRoom() throws Exception {
+        CoalescingSessionDecorator session = decorator(64 * 1024, CoalescingSessionDecorator.OverflowPolicy.CLOSE);
+        session.sendMessage(state("ABC", 1));
+        session.sendMessage(state("ABC", 2));
+        session.sendMessage(other("hello"));
+        session.sendMessage(state("XYZ", 1));
+        session.sendMessage(state("ABC", 3));
+        assertEquals(1, tasks.size());
+
+        runTasks();
+
+        assertEquals(List.of(other("hello").getPayload(), state("XYZ", 1).getPayload(), state("ABC", 3).getPayload()), sent());
+        assertEquals(2, session.coalescedCount());
+        assertEquals(0, session.bufferedBytes());
+        verify(delegate, never()).close(any());
+    }
+
+    @Test
+    void testOverflowClosesSession() throws Exception {
+        int limit = other("x").getPayloadLength() * 3;
+        CoalescingSessionDecorator session = decorator(limit, CoalescingSessionDecorator.OverflowPolicy.CLOSE);
+        for (int i = 0; i < 4; i++) {
+            session.sendMessage(other("x"));
+        }
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        // После закрытия сообщения не принимаются и не отправляются
+        session.sendMessage(other("y"));
+        runTasks();
+        assertTrue(sent().isEmpty());
+    }
+
+    @Test
+    void testOverflowDropsOldestMessages() throws Exception {
+        int limit = other("1").getPayloadLength() * 2;
+        CoalescingSessionDecorator session = decorator(limit, CoalescingSessionDecorator.OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 5; i++) {
+            session.sendMessage(other(Integer.toString(i)));
+        }
+        runTasks();
+
+        assertEquals(List.of(other("4").getPayload(), other("5").getPayload()), sent());
+        verify(delegate, never()).close(any());
+    }
+
+    @Test
+    void testStateKeyReadsHeadersOfBinaryFrames() {
+        byte[] headers = "MESSAGE\ndestination:/topic/multiplayer/state\nsubscription:sub-0\ngame-code:ABC\nstate-version:7\n\n"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[headers.length + 3];
+        System.arraycopy(headers, 0, frame, 0, headers.length);
+        frame[headers.length] = (byte) 0xA1;
+
+        assertEquals("sub-0|/topic/multiplayer/state|ABC", CoalescingSessionDecorator.stateKey(new BinaryMessage(frame)));
+        assertEquals("sub-0|/topic/multiplayer/state|ABC", CoalescingSessionDecorator.stateKey(state("ABC", 7)));
+        assertNull(CoalescingSessionDecorator.stateKey(other("hello")));
+    }
+}
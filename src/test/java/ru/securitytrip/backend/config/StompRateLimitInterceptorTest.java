@@ -0,0 +1,113 @@
+package ru.securitytrip.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StompRateLimitInterceptorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+
+    // Состояние: 1 кадр в секунду, до 3 подряд; прочие /app/** — 10 в секунду, до 2 подряд
+    private StompRateLimitInterceptor interceptor(StompRateLimitInterceptor.Action action) {
+        StompRateLimitInterceptor interceptor = new StompRateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "budgetSpecs", List.of("/app/multiplayer.state=1/3"));
+        ReflectionTestUtils.setField(interceptor, "defaultBudgetSpec", "10/2");
+        ReflectionTestUtils.setField(interceptor, "userMultiplier", 2);
+        ReflectionTestUtils.setField(interceptor, "action", action);
+        ReflectionTestUtils.setField(interceptor, "messagingTemplate", messagingTemplate);
+        interceptor.init();
+        return interceptor;
+    }
+
+    private static StompHeaderAccessor send(String sessionId, String user, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (user != null) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null));
+        }
+        return accessor;
+    }
+
+    @Test
+    void testBurstThenRefill() {
+        StompRateLimitInterceptor interceptor = interceptor(StompRateLimitInterceptor.Action.DROP);
+        long now = 5 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, interceptor.admit(send("s1", null, "/app/multiplayer.state"), now));
+        }
+        long wait = interceptor.admit(send("s1", null, "/app/multiplayer.state"), now);
+        assertTrue(wait > 0 && wait <= SECOND, "wait=" + wait);
+
+        // Другие назначения и другие сессии считаются отдельно
+        assertEquals(0, interceptor.admit(send("s1", null, "/app/multiplayer.move"), now));
+        assertEquals(0, interceptor.admit(send("s2", null, "/app/multiplayer.state"), now));
+        // Назначения вне /app не ограничиваются
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, interceptor.admit(send("s1", null, "/topic/multiplayer/state"), now));
+        }
+
+        // Через секунду в ведре появляется один токен
+        assertEquals(0, interceptor.admit(send("s1", null, "/app/multiplayer.state"), now + SECOND));
+        assertTrue(interceptor.admit(send("s1", null, "/app/multiplayer.state"), now + SECOND) > 0);
+        assertEquals(2, interceptor.rejectedCount());
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testUserBudgetSpansSessions() {
+        StompRateLimitInterceptor interceptor = interceptor(StompRateLimitInterceptor.Action.DROP);
+        long now = SECOND;
+        // Бюджет пользователя — 6 подряд: по 3 из двух вкладок проходят, третья вкладка упирается в него
+        for (String session : List.of("tab1", "tab2")) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, interceptor.admit(send(session, "alice", "/app/multiplayer.state"), now));
+            }
+        }
+        assertTrue(interceptor.admit(send("tab3", "alice", "/app/multiplayer.state"), now) > 0);
+        assertEquals(0, interceptor.admit(send("tab3", "bob", "/app/multiplayer.state"), now));
+    }
+
+    @Test
+    void testPreSendDropsFrameAndNotifiesSession() {
+        StompRateLimitInterceptor interceptor = interceptor(StompRateLimitInterceptor.Action.REJECT);
+        StompHeaderAccessor accessor = send("s1", "alice", "/app/unknown");
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        assertSame(message, interceptor.preSend(message, null));
+        assertSame(message, interceptor.preSend(message, null));
+        assertNull(interceptor.preSend(message, null));
+        assertNull(interceptor.preSend(message, null));
+
+        // Уведомление не чаще раза в секунду
+        verify(messagingTemplate, times(1)).convertAndSendToUser(eq("alice"),
+                eq(StompRateLimitInterceptor.NOTICE_DESTINATION), any(Object.class), any(MessageHeaders.class));
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        StompRateLimitInterceptor interceptor = interceptor(StompRateLimitInterceptor.Action.DROP);
+        interceptor.admit(send("s1", null, "/app/multiplayer.state"), System.nanoTime() - 10 * SECOND);
+        assertEquals(1, interceptor.trackedSessions());
+        interceptor.evictIdle();
+        assertEquals(0, interceptor.trackedSessions());
+    }
+}
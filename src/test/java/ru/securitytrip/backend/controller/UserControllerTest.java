@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.securitytrip.backend.service.PlayerStatsAggregator;
 import ru.securitytrip.backend.service.UserService;
 import ru.securitytrip.backend.jwt.JwtUtils;
 import ru.securitytrip.backend.service.UserDetailsServiceImpl;
@@ -22,6 +23,9 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private PlayerStatsAggregator playerStatsAggregator;
+
     @MockBean
     private JwtUtils jwtUtils;
 
@@ -0,0 +1,45 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterServiceTest {
+
+    @Test
+    void testOwnerTakenFromRoomCode() {
+        String code = RoomCodeAllocator.encode(2, 777);
+        assertEquals(2, ClusterService.ownerOf(code, 3));
+    }
+
+    @Test
+    void testLegacyCodeHashedToExistingNode() {
+        int owner = ClusterService.ownerOf("A1B2C3", 3);
+        assertTrue(owner >= 0 && owner < 3);
+        assertEquals(owner, ClusterService.ownerOf("A1B2C3", 3));
+    }
+
+    @Test
+    void testCodeFromRemovedNodeFallsBackToHash() {
+        String code = RoomCodeAllocator.encode(5, 1);
+        int owner = ClusterService.ownerOf(code, 3);
+        assertTrue(owner >= 0 && owner < 3);
+    }
+
+    @Test
+    void testClusterModeRefusesToStartWithoutSecret() {
+        ClusterService service = new ClusterService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "nodeId", 0);
+        ReflectionTestUtils.setField(service, "nodes", new String[]{"http://localhost:8080"});
+        ReflectionTestUtils.setField(service, "secret", " ");
+        assertThrows(IllegalStateException.class, service::init);
+    }
+
+    @Test
+    void testSingleNodeOwnsEverything() {
+        assertEquals(0, ClusterService.ownerOf(RoomCodeAllocator.encode(7, 1), 1));
+        assertEquals(0, ClusterService.ownerOf("A1B2C3", 0));
+    }
+}
@@ -0,0 +1,134 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.Game;
+import ru.securitytrip.backend.model.GameBoard;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.model.Ship;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComputerTurnTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private Game game(DifficultyLevel difficulty) throws Exception {
+        List<Ship> ships = List.of(
+                new Ship(4, 0, 0, true), new Ship(3, 0, 2, true), new Ship(3, 5, 2, true),
+                new Ship(2, 0, 4, true), new Ship(2, 3, 4, true), new Ship(2, 6, 4, true),
+                new Ship(1, 0, 6, true), new Ship(1, 2, 6, true), new Ship(1, 4, 6, true), new Ship(1, 6, 6, true));
+        GameBoard playerBoard = new GameBoard();
+        playerBoard.setComputer(false);
+        playerBoard.initEmptyBoard();
+        int[][] board = playerBoard.getBoardAsArray();
+        for (Ship ship : ships) {
+            for (int[] cell : ship.getCoordinates()) {
+                board[cell[1]][cell[0]] = 1;
+            }
+        }
+        playerBoard.setBoardState(playerBoard.convertBoardToString(board));
+        playerBoard.setShipsData(objectMapper.writeValueAsString(ships));
+
+        Game game = new Game();
+        game.setId(7L);
+        game.setDifficultyLevel(difficulty);
+        game.setGameState(GameState.IN_PROGRESS);
+        game.setRngSeed(42L);
+        game.addBoard(playerBoard);
+        return game;
+    }
+
+    // Состояние после серии - снимок для следующей серии (как после применения в GameService)
+    private static ComputerTurn.Snapshot next(ComputerTurn turn) {
+        ComputerTurn.Snapshot from = turn.snapshot();
+        return new ComputerTurn.Snapshot(turn.boardState(), turn.shipsData() != null ? turn.shipsData() : from.shipsData(),
+                from.difficulty(), turn.pendingHits(), turn.lastHitX(), turn.lastHitY(), from.rngSeed(), turn.rngStep());
+    }
+
+    @Test
+    void testSameSnapshotGivesSameTurn() throws Exception {
+        ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game(DifficultyLevel.HARD));
+        for (int i = 0; i < 20; i++) {
+            ComputerTurn first = ComputerTurn.plan(snapshot, objectMapper);
+            ComputerTurn second = ComputerTurn.plan(snapshot, objectMapper);
+            assertEquals(first, second);
+            assertFalse(first.shots().isEmpty());
+            if (first.computerWon()) {
+                break;
+            }
+            snapshot = next(first);
+        }
+    }
+
+    @Test
+    void testTurnsPlayGameToTheEnd() throws Exception {
+        for (DifficultyLevel difficulty : DifficultyLevel.values()) {
+            ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game(difficulty));
+            Set<Integer> shotCells = new HashSet<>();
+            ComputerTurn turn = null;
+            for (int i = 0; i < 100 && (turn == null || !turn.computerWon()); i++) {
+                turn = ComputerTurn.plan(snapshot, objectMapper);
+                assertTrue(turn.shots().size() <= ComputerTurn.MAX_SHOTS);
+                assertEquals(snapshot.rngStep() + turn.shots().size(), turn.rngStep());
+                for (ComputerTurn.Shot shot : turn.shots()) {
+                    assertTrue(shotCells.add(shot.y() * 10 + shot.x()), "Повторный выстрел " + difficulty);
+                }
+                // Серия заканчивается промахом, победой или лимитом ходов подряд
+                ComputerTurn.Shot last = turn.shots().get(turn.shots().size() - 1);
+                assertTrue(!last.hit() || turn.computerWon() || turn.shots().size() == ComputerTurn.MAX_SHOTS);
+                assertNotEquals(turn.computerWon(), turn.turnPassed());
+                snapshot = next(turn);
+            }
+            assertTrue(turn.computerWon(), "Компьютер не закончил игру: " + difficulty);
+            assertFalse(snapshot.boardState().contains("1"));
+        }
+    }
+
+    @Test
+    void testSpeculatorReturnsTurnOnlyForSameSnapshot() throws Exception {
+        ComputerTurnSpeculator speculator = new ComputerTurnSpeculator();
+        ReflectionTestUtils.setField(speculator, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(speculator, "enabled", true);
+        ReflectionTestUtils.setField(speculator, "maxGames", 10);
+        try {
+            Game game = game(DifficultyLevel.MEDIUM);
+            ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game);
+
+            speculator.prepare(game);
+            assertEquals(1, speculator.size());
+            assertEquals(ComputerTurn.plan(snapshot, objectMapper), speculator.take(game.getId(), snapshot));
+            assertEquals(0, speculator.size());
+
+            // Снимок изменился после предрасчёта - серия не используется
+            speculator.prepare(game);
+            game.setRngStep(game.getRngStep() + 1);
+            assertNull(speculator.take(game.getId(), ComputerTurn.Snapshot.of(game)));
+
+            // Ход компьютера - предрасчёт не запускается
+            game.setPlayerTurn(false);
+            speculator.prepare(game);
+            assertEquals(0, speculator.size());
+        } finally {
+            speculator.stop();
+        }
+    }
+
+    @Test
+    void testSnapshotCopiesPendingHits() throws Exception {
+        Game game = game(DifficultyLevel.HARD);
+        game.setPendingHits(new ArrayList<>(List.of(new Game.PendingHit(0, 0))));
+        ComputerTurn.Snapshot snapshot = ComputerTurn.Snapshot.of(game);
+        game.getPendingHits().get(0).setX(5);
+        assertEquals(0, snapshot.pendingHits().get(0).getX());
+    }
+}
@@ -0,0 +1,81 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.model.Game;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EphemeralGameStoreTest {
+
+    private static EphemeralGameStore store(int maxGames, Duration idleTtl) {
+        EphemeralGameStore store = new EphemeralGameStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "byDefault", true);
+        ReflectionTestUtils.setField(store, "maxGames", maxGames);
+        ReflectionTestUtils.setField(store, "idleTtl", idleTtl);
+        return store;
+    }
+
+    @Test
+    void testLeastRecentlyUsedGameIsEvicted() {
+        EphemeralGameStore store = store(2, Duration.ofMinutes(30));
+        Game first = store.add(new Game());
+        Game second = store.add(new Game());
+        assertTrue(first.getId() < 0);
+        assertNotEquals(first.getId(), second.getId());
+
+        // Обращение к первой игре делает второй кандидатом на вытеснение
+        assertSame(first, store.get(first.getId()));
+        Game third = store.add(new Game());
+
+        assertSame(first, store.get(first.getId()));
+        assertNull(store.get(second.getId()));
+        assertNull(store.resolve(second.getId()));
+        assertSame(third, store.get(third.getId()));
+        assertEquals(2, store.size());
+        assertEquals(1, store.evictedCount());
+    }
+
+    @Test
+    void testIdleGamesAreEvicted() {
+        EphemeralGameStore store = store(10, Duration.ZERO);
+        store.add(new Game());
+        store.add(new Game());
+
+        store.evictIdle();
+
+        assertEquals(0, store.size());
+        assertEquals(2, store.evictedCount());
+    }
+
+    @Test
+    void testPersistedGameIdResolvesToDatabaseId() {
+        EphemeralGameStore store = store(10, Duration.ofMinutes(30));
+        Long ephemeralId = store.add(new Game()).getId();
+
+        store.persisted(ephemeralId, 42L);
+
+        assertNull(store.get(ephemeralId));
+        assertEquals(42L, store.resolve(ephemeralId));
+        assertEquals(7L, store.resolve(7L));
+        assertNull(store.get(7L));
+        assertEquals(0, store.evictedCount());
+    }
+
+    @Test
+    void testKeepInMemory() {
+        EphemeralGameStore store = store(10, Duration.ofMinutes(30));
+        assertTrue(store.keepInMemory(null));
+        assertFalse(store.keepInMemory(false));
+
+        ReflectionTestUtils.setField(store, "byDefault", false);
+        assertFalse(store.keepInMemory(null));
+        assertTrue(store.keepInMemory(true));
+
+        ReflectionTestUtils.setField(store, "enabled", false);
+        assertFalse(store.keepInMemory(true));
+    }
+}
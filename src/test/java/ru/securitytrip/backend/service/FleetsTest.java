@@ -0,0 +1,65 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.securitytrip.backend.dto.ShipDto;
+import ru.securitytrip.backend.model.Ship;
+import ru.securitytrip.engine.Board;
+import ru.securitytrip.engine.ShotOutcome;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetsTest {
+
+    @Test
+    void testHitsAreCopiedBackToShips() {
+        List<Ship> ships = List.of(new Ship(3, 1, 2, true), new Ship(1, 9, 9, true));
+        ships.get(0).hit(1, 2);
+        Board board = new Board(new int[10][10], Fleets.ofShips(ships), false);
+
+        assertEquals(ShotOutcome.HIT, board.shoot(2, 2));
+        Fleets.copyHits(board.fleet(), board.lastShip(), ships);
+        assertArrayEquals(new boolean[]{true, true, false}, ships.get(0).getHits());
+
+        assertEquals(ShotOutcome.MISS, board.shoot(5, 5));
+        Fleets.copyHits(board.fleet(), board.lastShip(), ships);
+        assertFalse(ships.get(1).isSunk());
+    }
+
+    @Test
+    void testHitsAreCopiedBackToDtos() {
+        ShipDto ship = new ShipDto();
+        ship.setSize(2);
+        ship.setX(4);
+        ship.setY(4);
+        ship.setHorizontal(false);
+        List<ShipDto> ships = List.of(ship);
+        Board board = new Board(new int[10][10], Fleets.ofDtos(ships), true);
+
+        assertEquals(ShotOutcome.HIT, board.shoot(4, 5));
+        Fleets.copyDtoHits(board.fleet(), board.lastShip(), ships);
+        assertArrayEquals(new boolean[]{false, true}, ship.getHits());
+        assertEquals(ShotOutcome.SUNK, board.shoot(4, 4));
+        Fleets.copyDtoHits(board.fleet(), board.lastShip(), ships);
+        assertArrayEquals(new boolean[]{true, true}, ship.getHits());
+        assertTrue(board.isGameOver());
+    }
+
+    @Test
+    void testShipHitsKeepJsonFormat() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Ship ship = new Ship(3, 1, 2, true);
+        ship.hit(2, 2);
+
+        String json = objectMapper.writeValueAsString(ship);
+        assertTrue(json.contains("\"hits\":[false,true,false]"), json);
+        assertFalse(json.contains("hitMask"), json);
+
+        Ship restored = objectMapper.readValue(json, Ship.class);
+        assertEquals(0b010, restored.getHitMask());
+        assertFalse(restored.isSunk());
+    }
+}
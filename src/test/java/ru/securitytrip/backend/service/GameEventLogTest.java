@@ -0,0 +1,72 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.model.DifficultyLevel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventLogTest {
+
+    // Буфер без потока записи: события вычитываются вручную через drain()
+    private static GameEventLog eventLog(int bufferSize, double computerShotRate) {
+        GameEventLog log = new GameEventLog();
+        ReflectionTestUtils.setField(log, "bufferSize", bufferSize);
+        ReflectionTestUtils.setField(log, "playerShotRate", 1.0);
+        ReflectionTestUtils.setField(log, "computerShotRate", computerShotRate);
+        ReflectionTestUtils.setField(log, "multiplayerShotRate", 1.0);
+        ReflectionTestUtils.setField(log, "gameFinishedRate", 1.0);
+        log.allocate();
+        return log;
+    }
+
+    @Test
+    void testFullBufferDropsInsteadOfBlocking() {
+        GameEventLog log = eventLog(4, 1.0);
+        for (int i = 0; i < 6; i++) {
+            log.playerShot(1L, 42L, i, 0, false, false);
+        }
+        assertEquals(4, log.buffered());
+        assertEquals(2, log.dropped());
+
+        assertEquals(4, log.drain());
+        assertEquals(0, log.buffered());
+        assertEquals(0, log.drain());
+
+        // После вычитывания ячейки снова свободны, в том числе после оборота кольца
+        for (int i = 0; i < 3; i++) {
+            log.multiplayerShot("0ABCDEF", 7L, i, i, true, i == 2);
+        }
+        log.onGameFinished(GameFinishedEvent.singleplayer(1L, 42L, true, DifficultyLevel.EASY));
+        assertEquals(4, log.drain());
+        assertEquals(2, log.dropped());
+    }
+
+    @Test
+    void testSamplingRates() {
+        GameEventLog off = eventLog(1024, 0.0);
+        for (int i = 0; i < 100; i++) {
+            off.computerShot(1L, 0, 0, false, false);
+        }
+        assertEquals(0, off.buffered());
+
+        GameEventLog sampled = eventLog(1024, 0.25);
+        for (int i = 0; i < 1000; i++) {
+            sampled.computerShot(1L, 0, 0, false, false);
+        }
+        int kept = sampled.buffered();
+        assertTrue(kept > 150 && kept < 350, "Записано " + kept + " из 1000");
+        assertEquals(0, sampled.dropped());
+    }
+
+    @Test
+    void testDisabledLogIgnoresEvents() {
+        GameEventLog log = new GameEventLog();
+        ReflectionTestUtils.setField(log, "enabled", false);
+        log.start();
+        log.playerShot(1L, 42L, 0, 0, true, false);
+        assertEquals(0, log.buffered());
+        assertEquals(0, log.dropped());
+        log.stop();
+    }
+}
@@ -0,0 +1,34 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRandomTest {
+
+    @Test
+    void testSameSeedAndStepGiveSameSequence() {
+        SplittableRandom first = GameRandom.forStep(42L, 7);
+        SplittableRandom second = GameRandom.forStep(42L, 7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextInt(100), second.nextInt(100));
+        }
+    }
+
+    @Test
+    void testNeighbouringStepsAreIndependent() {
+        // Поток шага 1 не должен совпадать со сдвинутым потоком шага 0
+        SplittableRandom step0 = GameRandom.forStep(42L, 0);
+        step0.nextLong();
+        SplittableRandom step1 = GameRandom.forStep(42L, 1);
+        assertNotEquals(step0.nextLong(), step1.nextLong());
+        assertNotEquals(GameRandom.forStep(42L, 1).nextLong(), GameRandom.forStep(43L, 1).nextLong());
+    }
+
+    @Test
+    void testPlacementUsesStepZero() {
+        assertEquals(GameRandom.forStep(5L, 0).nextLong(), GameRandom.forPlacement(5L).nextLong());
+    }
+}
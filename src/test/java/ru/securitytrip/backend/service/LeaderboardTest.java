@@ -0,0 +1,52 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void testRankAndPagesMatchSortedOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        Map<Long, Double> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            long playerId = random.nextInt(700);
+            if (random.nextInt(10) == 0) {
+                leaderboard.remove(playerId);
+                expected.remove(playerId);
+            } else {
+                // Небольшой диапазон, чтобы были равные рейтинги
+                double rating = 1400 + random.nextInt(200);
+                leaderboard.update(playerId, rating);
+                expected.put(playerId, rating);
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(expected.keySet());
+        sorted.sort(Comparator.<Long>comparingDouble(expected::get).reversed().thenComparing(Comparator.naturalOrder()));
+
+        assertEquals(sorted.size(), leaderboard.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i + 1, leaderboard.rankOf(sorted.get(i)));
+        }
+        for (int offset : new int[]{0, 1, 37, sorted.size() - 5, sorted.size() + 3}) {
+            List<Leaderboard.Entry> page = leaderboard.page(offset, 20);
+            int expectedSize = Math.max(0, Math.min(20, sorted.size() - offset));
+            assertEquals(expectedSize, page.size());
+            for (int i = 0; i < page.size(); i++) {
+                assertEquals((long) sorted.get(offset + i), page.get(i).playerId());
+                assertEquals(offset + i + 1, page.get(i).rank());
+            }
+        }
+        assertEquals(0, leaderboard.rankOf(100_000));
+    }
+}
@@ -3,13 +3,17 @@ package ru.securitytrip.backend.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.securitytrip.backend.dto.GameDto;
+import ru.securitytrip.backend.dto.GameStateFrame;
+import ru.securitytrip.backend.dto.MoveRequest;
 import ru.securitytrip.backend.dto.ShipDto;
 import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
 import ru.securitytrip.backend.model.MultiplayerRoomEntity;
 import ru.securitytrip.backend.model.GameMode;
 import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.engine.FleetValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.mockito.MockitoAnnotations;
 
 import java.lang.reflect.Field;
@@ -19,6 +23,11 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MultiplayerGameServiceTest {
@@ -28,6 +37,21 @@ class MultiplayerGameServiceTest {
     @Mock
     private MultiplayerRoomRepository multiplayerRoomRepository;
 
+    @Mock
+    private RoomCodeAllocator roomCodeAllocator;
+
+    @Mock
+    private TurnTimerService turnTimerService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GameEventLog gameEventLog;
+
+    @Mock
+    private RoomJournal roomJournal;
+
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
@@ -42,6 +66,27 @@ class MultiplayerGameServiceTest {
         repositoryField.setAccessible(true);
         repositoryField.set(gameService, multiplayerRoomRepository);
 
+        Field allocatorField = GameService.class.getDeclaredField("roomCodeAllocator");
+        allocatorField.setAccessible(true);
+        allocatorField.set(gameService, roomCodeAllocator);
+        when(roomCodeAllocator.nextCode()).thenReturn("0ABCDEF");
+
+        Field timerField = GameService.class.getDeclaredField("turnTimerService");
+        timerField.setAccessible(true);
+        timerField.set(gameService, turnTimerService);
+
+        Field publisherField = GameService.class.getDeclaredField("eventPublisher");
+        publisherField.setAccessible(true);
+        publisherField.set(gameService, eventPublisher);
+
+        Field eventLogField = GameService.class.getDeclaredField("gameEventLog");
+        eventLogField.setAccessible(true);
+        eventLogField.set(gameService, gameEventLog);
+
+        Field journalField = GameService.class.getDeclaredField("roomJournal");
+        journalField.setAccessible(true);
+        journalField.set(gameService, roomJournal);
+
         when(multiplayerRoomRepository.save(any())).thenAnswer(i -> {
             MultiplayerRoomEntity room = (MultiplayerRoomEntity) i.getArgument(0);
             when(multiplayerRoomRepository.findById(room.getCode())).thenReturn(Optional.of(room));
@@ -57,6 +102,10 @@ class MultiplayerGameServiceTest {
         String code = gameService.createMultiplayerGame(player1Id, ships1);
         assertNotNull(code);
 
+        // Хост расставляет корабли
+        GameDto hostState = gameService.placeHostShips(code, player1Id, ships1);
+        assertEquals(GameState.WAITING, hostState.getGameState());
+
         // Игрок 2 подключается
         Long player2Id = 2L;
         List<ShipDto> ships2 = createTestShips();
@@ -65,38 +114,186 @@ class MultiplayerGameServiceTest {
         
         Field gameStateField = GameDto.class.getDeclaredField("gameState");
         gameStateField.setAccessible(true);
-        assertNotNull(gameStateField.get(state));
+        assertEquals(GameState.IN_PROGRESS, gameStateField.get(state));
+        verify(turnTimerService).startTurn(eq(code), eq(TurnTimerService.PLAYER1), anyLong());
+    }
+
+    @Test
+    void testGameDoesNotStartBeforeHostPlacesShips() {
+        String code = gameService.createMultiplayerGame(1L, createTestShips());
+        GameDto state = gameService.joinMultiplayerGame(code, 2L, createTestShips());
+
+        // Флота хоста ещё нет: ходить нельзя, часы не идут
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById(code).orElseThrow();
+        assertEquals(GameState.WAITING, state.getGameState());
+        assertEquals(GameState.WAITING, room.getStatus());
+        assertEquals(GameState.WAITING, gameService.getMultiplayerGameState(code, 2L).getGameState());
+        assertNull(room.getReplayFleets());
+        verify(turnTimerService, never()).startTurn(any(), any(), anyLong());
+        assertThrows(RuntimeException.class, () -> gameService.makeMultiplayerMove(code, 2L, new MoveRequest(2L, null, 0, 0, code)));
+
+        // Игра начинается, когда хост расставил корабли
+        GameDto hostState = gameService.placeHostShips(code, 1L, createTestShips());
+        assertEquals(GameState.IN_PROGRESS, hostState.getGameState());
+        assertEquals(GameState.IN_PROGRESS, room.getStatus());
+        assertNotNull(room.getReplayFleets());
+        verify(turnTimerService).startTurn(eq(code), eq(TurnTimerService.PLAYER1), anyLong());
+    }
+
+    @Test
+    void testEvictRoomStateDropsEveryUserState() {
+        String code = startedRoom();
+
+        // Состояние кэшируется и для игроков, и для других пользователей (зрителей)
+        GameDto player = gameService.getMultiplayerGameState(code, 1L);
+        GameDto spectator = gameService.getMultiplayerGameState(code, 99L);
+        assertSame(player, gameService.getMultiplayerGameState(code, 1L));
+        assertSame(spectator, gameService.getMultiplayerGameState(code, 99L));
+
+        gameService.evictRoomState(code);
+        assertNotSame(player, gameService.getMultiplayerGameState(code, 1L));
+        assertNotSame(spectator, gameService.getMultiplayerGameState(code, 99L));
     }
 
-    private List<ShipDto> createTestShips() throws Exception {
+    @Test
+    void testStateFrameIsReusedUntilRoomVersionChanges() throws Exception {
+        String code = startedRoom();
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById(code).orElseThrow();
+        when(multiplayerRoomRepository.findStateVersion(code)).thenAnswer(i -> Optional.of(room.getStateVersion()));
+
+        GameStateFrame frame = gameService.getMultiplayerGameStateFrame(code, 2L);
+        assertEquals(room.getStateVersion(), frame.getVersion());
+        assertSame(frame, gameService.getMultiplayerGameStateFrame(code, 2L));
+        // Кадр свой у каждого пользователя: игрок 2 видит свою доску
+        assertEquals(2L, objectMapper.readValue(frame.payload(), GameDto.class).getPlayerBoard().getId());
+        assertEquals(1L, objectMapper.readValue(gameService.getMultiplayerGameStateFrame(code, 1L).payload(),
+                GameDto.class).getPlayerBoard().getId());
+
+        // Состояние изменилось (например, на другом узле) - кадр строится заново
+        room.setStateVersion(room.getStateVersion() + 1);
+        GameStateFrame next = gameService.getMultiplayerGameStateFrame(code, 2L);
+        assertNotSame(frame, next);
+        assertEquals(room.getStateVersion(), next.getVersion());
+    }
+
+    @Test
+    void testTurnTimeoutPassesTurnToOpponent() throws Exception {
+        String code = startedRoom();
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById(code).orElseThrow();
+        long version = room.getStateVersion();
+
+        // Устаревшее событие (версия уже другая) игнорируется
+        assertNull(gameService.applyTurnTimeout(new TurnTimerService.TurnTimeoutEvent(
+                code, TurnTimerService.PLAYER1, version - 1, TurnTimerService.Reason.TURN)));
+
+        GameStateFrame frame = gameService.applyTurnTimeout(new TurnTimerService.TurnTimeoutEvent(
+                code, TurnTimerService.PLAYER1, version, TurnTimerService.Reason.TURN));
+        assertNotNull(frame);
+        assertEquals(version + 1, frame.getVersion());
+        assertEquals(TurnTimerService.PLAYER2, room.getCurrentTurn());
+        assertEquals(GameState.IN_PROGRESS, room.getStatus());
+        assertEquals("pass", objectMapper.readValue(frame.payload(), GameDto.class).getTimeoutAction());
+    }
+
+    @Test
+    void testGameClockTimeoutForfeits() throws Exception {
+        String code = startedRoom();
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById(code).orElseThrow();
+        TurnTimerService.TurnTimeoutEvent event = new TurnTimerService.TurnTimeoutEvent(
+                code, TurnTimerService.PLAYER1, room.getStateVersion(), TurnTimerService.Reason.GAME_CLOCK);
+        when(turnTimerService.shouldForfeit(event)).thenReturn(true);
+
+        GameStateFrame frame = gameService.applyTurnTimeout(event);
+
+        assertNotNull(frame);
+        // Время вышло у игрока 1 — побеждает игрок 2
+        assertEquals(GameState.COMPUTER_WON, room.getStatus());
+        assertTrue(frame.isLastMoveGameOver());
+        verify(eventPublisher).publishEvent(GameFinishedEvent.multiplayer(code, 1L, 2L, false, true));
+    }
+
+    @Test
+    void testReservedRoomsAcceptOnlyAssignedGuest() throws Exception {
+        when(roomCodeAllocator.nextCode()).thenReturn("0ABCDE1", "0ABCDE2");
+        doAnswer(i -> {
+            List<MultiplayerRoomEntity> rooms = i.getArgument(0);
+            rooms.forEach(room -> when(multiplayerRoomRepository.findById(room.getCode())).thenReturn(Optional.of(room)));
+            return null;
+        }).when(multiplayerRoomRepository).persistAll(any());
+
+        List<String> codes = gameService.createReservedMultiplayerGames(List.of(
+                new GameService.ReservedRoom(1L, 2L), new GameService.ReservedRoom(3L, 4L)));
+
+        assertEquals(List.of("0ABCDE1", "0ABCDE2"), codes);
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById("0ABCDE1").orElseThrow();
+        assertEquals(GameState.WAITING, room.getStatus());
+        assertEquals(2L, room.getPlayer2Id());
+
+        // Чужой игрок не может занять место назначенного соперника
+        assertThrows(RuntimeException.class, () -> gameService.joinMultiplayerGame("0ABCDE1", 5L, createTestShips()));
+        GameDto state = gameService.joinMultiplayerGame("0ABCDE1", 2L, createTestShips());
+        // Хост ещё не расставил корабли - игра не начинается
+        assertEquals(GameState.WAITING, state.getGameState());
+        assertEquals(GameState.WAITING, room.getStatus());
+        // Повторный вход с другой расстановкой запрещён
+        assertThrows(RuntimeException.class, () -> gameService.joinMultiplayerGame("0ABCDE1", 2L, createTestShips()));
+
+        assertEquals(GameState.IN_PROGRESS, gameService.placeHostShips("0ABCDE1", 1L, createTestShips()).getGameState());
+        assertEquals(GameState.IN_PROGRESS, room.getStatus());
+    }
+
+    @Test
+    void testNoShowWinnerIsThePlayerWhoPlacedShips() {
+        String hostOnly = gameService.createMultiplayerGame(1L, createTestShips());
+        gameService.placeHostShips(hostOnly, 1L, createTestShips());
+        assertTrue(gameService.noShowPlayer1Wins(hostOnly));
+
+        when(roomCodeAllocator.nextCode()).thenReturn("0ABCDE2");
+        String guestOnly = gameService.createMultiplayerGame(1L, createTestShips());
+        gameService.joinMultiplayerGame(guestOnly, 2L, createTestShips());
+        assertFalse(gameService.noShowPlayer1Wins(guestOnly));
+
+        // Не пришёл никто - дальше проходит игрок 1
+        when(roomCodeAllocator.nextCode()).thenReturn("0ABCDE3");
+        assertTrue(gameService.noShowPlayer1Wins(gameService.createMultiplayerGame(1L, createTestShips())));
+    }
+
+    @Test
+    void testInvalidFleetIsRejectedBeforeJoining() throws Exception {
+        String code = gameService.createMultiplayerGame(1L, createTestShips());
+        List<ShipDto> ships = createTestShips();
+        // Однопалубный вплотную к четырёхпалубному
+        ships.set(9, new ShipDto(1, 4, 0, true, null, null, null));
+
+        InvalidFleetException e = assertThrows(InvalidFleetException.class,
+                () -> gameService.joinMultiplayerGame(code, 2L, ships));
+        assertEquals(1, e.getViolations().size());
+        assertEquals(FleetValidator.Code.ADJACENT, e.getViolations().get(0).code());
+        assertEquals(9, e.getViolations().get(0).ship());
+
+        MultiplayerRoomEntity room = multiplayerRoomRepository.findById(code).orElseThrow();
+        assertNull(room.getPlayer2Id());
+        assertEquals(GameState.WAITING, room.getStatus());
+    }
+
+    // Комната, где хост расставил корабли и второй игрок вошёл: игра идёт
+    private String startedRoom() {
+        String code = gameService.createMultiplayerGame(1L, createTestShips());
+        gameService.placeHostShips(code, 1L, createTestShips());
+        gameService.joinMultiplayerGame(code, 2L, createTestShips());
+        return code;
+    }
+
+    // Стандартный флот без касаний; клетки считает сервер
+    private List<ShipDto> createTestShips() {
+        int[][] layout = {
+                {4, 0, 0, 1}, {3, 0, 2, 1}, {3, 5, 2, 1},
+                {2, 0, 4, 1}, {2, 3, 4, 1}, {2, 6, 4, 1},
+                {1, 0, 6, 1}, {1, 2, 6, 1}, {1, 4, 6, 1}, {1, 9, 9, 1}};
         List<ShipDto> ships = new ArrayList<>();
-        ShipDto ship = new ShipDto();
-        
-        Field sizeField = ShipDto.class.getDeclaredField("size");
-        sizeField.setAccessible(true);
-        sizeField.set(ship, 2);
-        
-        Field xField = ShipDto.class.getDeclaredField("x");
-        xField.setAccessible(true);
-        xField.set(ship, 0);
-        
-        Field yField = ShipDto.class.getDeclaredField("y");
-        yField.setAccessible(true);
-        yField.set(ship, 0);
-        
-        Field horizontalField = ShipDto.class.getDeclaredField("isHorizontal");
-        horizontalField.setAccessible(true);
-        horizontalField.set(ship, true);
-        
-        List<int[]> positions = new ArrayList<>();
-        positions.add(new int[]{0, 0});
-        positions.add(new int[]{1, 0});
-        
-        Field positionsField = ShipDto.class.getDeclaredField("positions");
-        positionsField.setAccessible(true);
-        positionsField.set(ship, positions);
-        
-        ships.add(ship);
+        for (int[] ship : layout) {
+            ships.add(new ShipDto(ship[0], ship[1], ship[2], ship[3] == 1, null, null, null));
+        }
         return ships;
     }
 }
@@ -0,0 +1,100 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.dto.PlayerStatsDto;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.PlayerStats;
+import ru.securitytrip.backend.repository.PlayerStatsRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class PlayerStatsAggregatorTest {
+
+    @Mock
+    private PlayerStatsRepository playerStatsRepository;
+
+    @InjectMocks
+    private PlayerStatsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(aggregator, "gameTtl", Duration.ofHours(6));
+        when(playerStatsRepository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testCountersIncludeUnflushedDeltas() {
+        aggregator.onFleetPlaced(new FleetPlacedEvent("game:1", 7L, PlacementClassifier.SHORE));
+        aggregator.onShotFired(new ShotFiredEvent("game:1", 7L, 0, 0, false, false));
+        aggregator.onShotFired(new ShotFiredEvent("game:1", 7L, 0, 0, true, false));
+        aggregator.onShotFired(new ShotFiredEvent("game:1", 7L, 0, 0, true, true));
+        aggregator.onShotFired(new ShotFiredEvent("game:1", 7L, 0, 0, true, true));
+        aggregator.onGameFinished(GameFinishedEvent.singleplayer(1L, 7L, true, DifficultyLevel.EASY));
+
+        PlayerStatsDto stats = aggregator.getStats(7L);
+        assertEquals(1, stats.getGamesPlayed());
+        assertEquals(1.0, stats.getWinRate());
+        assertEquals(4, stats.getShots());
+        assertEquals(0.75, stats.getAccuracy());
+        assertEquals(4.0, stats.getAverageShotsToWin());
+        assertEquals(PlacementClassifier.SHORE, stats.getFavoritePlacement());
+    }
+
+    @Test
+    void testGuestGameShotsFollowPersistedId() {
+        aggregator.onShotFired(new ShotFiredEvent("game:-5", 7L, 0, 0, true, false));
+        aggregator.onShotFired(new ShotFiredEvent("game:-5", 7L, 0, 0, true, true));
+        aggregator.onGuestGamePersisted(new GuestGamePersistedEvent(-5L, 12L));
+        aggregator.onGameFinished(GameFinishedEvent.singleplayer(12L, 7L, true, DifficultyLevel.EASY));
+
+        PlayerStatsDto stats = aggregator.getStats(7L);
+        assertEquals(1, stats.getGamesPlayed());
+        assertEquals(2.0, stats.getAverageShotsToWin());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushSendsOneBatchAndRequeuesOnFailure() {
+        aggregator.onShotFired(new ShotFiredEvent("room:0ABCDEF", 1L, 0, 0, true, false));
+        aggregator.onShotFired(new ShotFiredEvent("room:0ABCDEF", 2L, 0, 0, false, false));
+        aggregator.onGameFinished(GameFinishedEvent.multiplayer("0ABCDEF", 1L, 2L, true, false));
+
+        when(playerStatsRepository.addAll(anyCollection())).thenThrow(new RuntimeException("БД недоступна"));
+        aggregator.flush();
+        assertEquals(2, aggregator.pendingPlayers());
+
+        reset(playerStatsRepository);
+        aggregator.flush();
+        ArgumentCaptor<Collection<PlayerStats>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(playerStatsRepository, times(1)).addAll(batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals(0, aggregator.pendingPlayers());
+        PlayerStats loser = batch.getValue().stream().filter(s -> s.getPlayerId() == 2L).findFirst().orElseThrow();
+        assertEquals(1, loser.getGamesPlayed());
+        assertEquals(0, loser.getWins());
+        assertEquals(1, loser.getShots());
+    }
+
+    @Test
+    void testPlacementClassifier() {
+        assertEquals(PlacementClassifier.SHORE, PlacementClassifier.classify(new int[][]{{0, 0, 4, 1}, {9, 3, 3, 0}}));
+        assertEquals(PlacementClassifier.ASYMMETRIC, PlacementClassifier.classify(new int[][]{{1, 1, 3, 1}, {2, 3, 3, 1}}));
+        assertEquals(PlacementClassifier.RANDOM, PlacementClassifier.classify(List.of(
+                new int[]{2, 2, 2, 1}, new int[]{6, 6, 2, 1}, new int[]{6, 2, 2, 0}, new int[]{2, 6, 2, 0}).toArray(new int[0][])));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.dto.RatingDto;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.repository.PlayerRatingRepository;
+import ru.securitytrip.backend.repository.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RatingServiceTest {
+
+    @Mock
+    private PlayerRatingRepository playerRatingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private RatingService ratingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(ratingService, "initialRating", 1500.0);
+        ReflectionTestUtils.setField(ratingService, "initialDeviation", 350.0);
+        ReflectionTestUtils.setField(ratingService, "deviationGrowthPerDay", 18.0);
+        ReflectionTestUtils.setField(ratingService, "includeSingleplayer", true);
+        ReflectionTestUtils.setField(ratingService, "computerMedium", 1400.0);
+        ReflectionTestUtils.setField(ratingService, "computerDeviation", 50.0);
+        ReflectionTestUtils.setField(ratingService, "maxPageSize", 100);
+        when(userRepository.findById(any())).thenReturn(Optional.empty());
+        when(userRepository.findAllById(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void testWinnerGainsAndLoserLosesRating() {
+        ratingService.onGameFinished(GameFinishedEvent.multiplayer("0ABCDEF", 1L, 2L, true, false));
+
+        RatingDto winner = ratingService.getRating(1L);
+        RatingDto loser = ratingService.getRating(2L);
+        assertTrue(winner.getRating() > 1500);
+        assertTrue(loser.getRating() < 1500);
+        // Равные соперники: изменения симметричны, неопределённость уменьшилась
+        assertEquals(winner.getRating() - 1500, 1500 - loser.getRating(), 1e-9);
+        assertTrue(winner.getDeviation() < 350);
+        assertEquals(1, winner.getRank());
+        assertEquals(2, loser.getRank());
+        assertEquals(1, winner.getWins());
+        assertEquals(1, loser.getGamesPlayed());
+        assertEquals(2, ratingService.getLeaderboard(0, 10).getTotal());
+    }
+
+    @Test
+    void testComputerGamesAndBatchedFlush() {
+        ratingService.onGameFinished(GameFinishedEvent.singleplayer(10L, 5L, false, DifficultyLevel.MEDIUM));
+        assertTrue(ratingService.getRating(5L).getRating() < 1500);
+
+        ratingService.flush();
+        verify(playerRatingRepository, times(1)).saveAll(anyList());
+        // Без новых партий повторная запись не нужна
+        ratingService.flush();
+        verify(playerRatingRepository, times(1)).saveAll(anyList());
+    }
+}
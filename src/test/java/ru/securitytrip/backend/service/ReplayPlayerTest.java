@@ -0,0 +1,79 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+import ru.securitytrip.backend.model.Ship;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayPlayerTest {
+
+    private static byte[] fleets(int flags) {
+        return ReplayCodec.encodeShips(flags,
+                List.of(new Ship(1, 5, 5, true)),
+                List.of(new Ship(2, 0, 0, true), new Ship(3, 9, 2, false)));
+    }
+
+    private static byte[] shots() {
+        byte[] shots = null;
+        shots = ReplayCodec.appendShot(shots, ReplayCodec.PLAYER1, 0, 0, ReplayCodec.HIT);
+        shots = ReplayCodec.appendShot(shots, ReplayCodec.PLAYER1, 1, 0, ReplayCodec.SUNK);
+        shots = ReplayCodec.appendShot(shots, ReplayCodec.PLAYER1, 4, 4, ReplayCodec.MISS);
+        shots = ReplayCodec.appendShot(shots, ReplayCodec.PLAYER2, 9, 9, ReplayCodec.MISS);
+        shots = ReplayCodec.appendShot(shots, ReplayCodec.PLAYER2, 5, 5, ReplayCodec.SUNK);
+        return shots;
+    }
+
+    @Test
+    void testCodecRoundTrip() {
+        byte[] fleets = fleets(ReplayCodec.FLAG_HALO_PLAYER2);
+        assertEquals(ReplayCodec.FLAG_HALO_PLAYER2, ReplayCodec.flags(fleets));
+        assertArrayEquals(new int[][]{{0, 0, 2, 1}, {9, 2, 3, 0}}, ReplayCodec.decodeFleet(fleets, ReplayCodec.PLAYER2));
+
+        byte[] shots = shots();
+        assertEquals(5, ReplayCodec.shotCount(shots));
+        assertEquals(10, shots.length);
+        assertEquals(ReplayCodec.PLAYER2, ReplayCodec.shooter(shots, 3));
+        assertEquals(99, ReplayCodec.cell(shots, 3));
+        assertEquals(ReplayCodec.SUNK, ReplayCodec.result(shots, 1));
+    }
+
+    @Test
+    void testBoardsAtAnyMoveMatchSequentialPlayback() {
+        byte[] fleets = fleets(ReplayCodec.FLAG_HALO_PLAYER1 | ReplayCodec.FLAG_HALO_PLAYER2);
+        ReplayPlayer withCheckpoints = new ReplayPlayer(fleets, shots(), 2);
+        ReplayPlayer sequential = new ReplayPlayer(fleets, shots(), 1000);
+        assertEquals(3, withCheckpoints.checkpointCount());
+        for (int move = 0; move <= 5; move++) {
+            assertArrayEquals(sequential.boardsAt(move), withCheckpoints.boardsAt(move), "Ход " + move);
+        }
+
+        int[][] start = ReplayPlayer.toBoard(withCheckpoints.boardsAt(0), ReplayCodec.PLAYER2);
+        assertEquals(1, start[0][0]);
+        assertEquals(1, start[4][9]);
+
+        int[][] afterSunk = ReplayPlayer.toBoard(withCheckpoints.boardsAt(2), ReplayCodec.PLAYER2);
+        assertEquals(3, afterSunk[0][0]);
+        assertEquals(3, afterSunk[0][1]);
+        assertEquals(2, afterSunk[1][0]);
+        assertEquals(2, afterSunk[0][2]);
+        assertEquals(0, afterSunk[4][4]);
+
+        int[][] end = ReplayPlayer.toBoard(withCheckpoints.boardsAt(5), ReplayCodec.PLAYER1);
+        assertEquals(2, end[9][9]);
+        assertEquals(3, end[5][5]);
+        assertEquals(2, end[4][4]);
+    }
+
+    @Test
+    void testHaloOnlyForFlaggedShooter() {
+        ReplayPlayer player = new ReplayPlayer(fleets(ReplayCodec.FLAG_HALO_PLAYER2), shots(), 4);
+
+        int[][] computerBoard = ReplayPlayer.toBoard(player.boardsAt(5), ReplayCodec.PLAYER2);
+        assertEquals(0, computerBoard[1][0]);
+        int[][] playerBoard = ReplayPlayer.toBoard(player.boardsAt(5), ReplayCodec.PLAYER1);
+        assertEquals(2, playerBoard[6][6]);
+        assertThrows(IllegalArgumentException.class, () -> player.boardsAt(6));
+    }
+}
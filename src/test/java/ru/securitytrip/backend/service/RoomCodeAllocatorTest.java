@@ -0,0 +1,56 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCodeAllocatorTest {
+
+    @Test
+    void testCodesAreUniqueWithinNode() {
+        Set<String> codes = new HashSet<>();
+        for (long sequence = 0; sequence < 200_000; sequence++) {
+            assertTrue(codes.add(RoomCodeAllocator.encode(3, sequence)), "Повтор кода для номера " + sequence);
+        }
+    }
+
+    @Test
+    void testCodeFormatAndNodeId() {
+        String code = RoomCodeAllocator.encode(17, 123456);
+        assertEquals(RoomCodeAllocator.CODE_LENGTH, code.length());
+        for (char c : code.toCharArray()) {
+            assertTrue(RoomCodeAllocator.ALPHABET.indexOf(c) >= 0, "Недопустимый символ " + c);
+        }
+        assertEquals(17, RoomCodeAllocator.nodeIdOf(code));
+    }
+
+    @Test
+    void testSameSequenceOnDifferentNodesDiffers() {
+        assertNotEquals(RoomCodeAllocator.encode(0, 42), RoomCodeAllocator.encode(1, 42));
+    }
+
+    @Test
+    void testLegacyCodeHasNoNodeId() {
+        assertEquals(-1, RoomCodeAllocator.nodeIdOf("A1B2C3"));
+        assertEquals(-1, RoomCodeAllocator.nodeIdOf("0ILOU00"));
+        assertEquals(-1, RoomCodeAllocator.nodeIdOf(null));
+    }
+
+    @Test
+    void testScrambleIsBijectiveOnSample() {
+        Set<Long> values = new HashSet<>();
+        for (long x = 0; x < 100_000; x++) {
+            long y = RoomCodeAllocator.scramble(x);
+            assertTrue(y >= 0 && y < (1L << 30));
+            assertTrue(values.add(y));
+        }
+    }
+
+    @Test
+    void testInvalidNodeIdRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RoomCodeAllocator.encode(32, 1));
+    }
+}
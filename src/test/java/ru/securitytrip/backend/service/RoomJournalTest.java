@@ -0,0 +1,214 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import ru.securitytrip.backend.model.GameMode;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.model.MultiplayerRoomEntity;
+import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RoomJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final MultiplayerRoomRepository repository = mock(MultiplayerRoomRepository.class);
+    private final RoomCodeAllocator allocator = mock(RoomCodeAllocator.class);
+    private final List<MultiplayerRoomEntity> saved = new ArrayList<>();
+
+    private RoomJournal journal(List<MultiplayerRoomEntity> rows) {
+        when(repository.findAllById(any())).thenReturn(rows);
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            invocation.<Iterable<MultiplayerRoomEntity>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+        when(allocator.getNodeId()).thenReturn(0);
+        RoomJournal journal = new RoomJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", DataSize.ofKilobytes(4));
+        ReflectionTestUtils.setField(journal, "flushInterval", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(journal, "maxSegments", 8);
+        ReflectionTestUtils.setField(journal, "multiplayerRoomRepository", repository);
+        ReflectionTestUtils.setField(journal, "roomCodeAllocator", allocator);
+        ReflectionTestUtils.setField(journal, "transactionManager", mock(PlatformTransactionManager.class));
+        journal.start();
+        return journal;
+    }
+
+    private static MultiplayerRoomEntity room(String code, long version, GameState status) {
+        MultiplayerRoomEntity entity = new MultiplayerRoomEntity();
+        entity.setCode(code);
+        entity.setStateVersion(version);
+        entity.setPlayer1Id(1L);
+        entity.setPlayer2Id(2L);
+        entity.setPlayer1BoardJson("[[0]]");
+        entity.setCurrentTurn("player1");
+        entity.setGameStateJson("{\"version\":" + version + "}");
+        entity.setGameMode(GameMode.multiplayer);
+        entity.setStatus(status);
+        entity.setReplayShots(new byte[]{(byte) version, 1});
+        return entity;
+    }
+
+    @Test
+    void testSnapshotRoundTrip() {
+        MultiplayerRoomEntity entity = room(RoomCodeAllocator.encode(3, 17), 9, GameState.IN_PROGRESS);
+        entity.setPlayer2Id(null);
+        entity.setPlayer1ShipsJson("[{\"size\":4,\"название\":\"линкор\"}]");
+
+        RoomJournal.RoomSnapshot decoded = RoomJournal.decode(RoomJournal.encode(RoomJournal.RoomSnapshot.of(entity)));
+        MultiplayerRoomEntity restored = new MultiplayerRoomEntity();
+        decoded.applyTo(restored);
+
+        assertEquals(entity.getCode(), restored.getCode());
+        assertEquals(9, restored.getStateVersion());
+        assertEquals(1L, restored.getPlayer1Id());
+        assertNull(restored.getPlayer2Id());
+        assertEquals(entity.getPlayer1ShipsJson(), restored.getPlayer1ShipsJson());
+        assertNull(restored.getPlayer2ShipsJson());
+        assertEquals(entity.getGameStateJson(), restored.getGameStateJson());
+        assertEquals(GameState.IN_PROGRESS, restored.getStatus());
+        assertNull(restored.getReplayFleets());
+        assertArrayEquals(entity.getReplayShots(), restored.getReplayShots());
+    }
+
+    @Test
+    void testReplayRestoresRoomsBehindTheDatabase() {
+        String behind = RoomCodeAllocator.encode(0, 1);
+        String missing = RoomCodeAllocator.encode(0, 2);
+        String deleted = RoomCodeAllocator.encode(0, 3);
+        String finished = RoomCodeAllocator.encode(0, 4);
+        String foreign = RoomCodeAllocator.encode(5, 5);
+
+        RoomJournal first = journal(List.of());
+        for (long version = 1; version <= 3; version++) {
+            first.append(first.snapshot(room(behind, version, GameState.IN_PROGRESS)));
+        }
+        // Транзакции зафиксировались не по порядку: старый снимок не перекрывает новый
+        first.append(first.snapshot(room(behind, 2, GameState.IN_PROGRESS)));
+        first.append(first.snapshot(room(missing, 4, GameState.IN_PROGRESS)));
+        first.append(first.snapshot(room(deleted, 1, GameState.WAITING)));
+        first.forget(deleted);
+        first.append(first.snapshot(room(finished, 7, GameState.PLAYER_WON)));
+        first.append(first.snapshot(room(foreign, 2, GameState.IN_PROGRESS)));
+        assertEquals(4, first.trackedRooms());
+        first.stop();
+
+        // В БД первая комната отстала на версию, остальных нет
+        MultiplayerRoomEntity stale = room(behind, 2, GameState.IN_PROGRESS);
+        RoomJournal second = journal(List.of(stale));
+
+        Map<String, MultiplayerRoomEntity> restored = saved.stream()
+                .collect(Collectors.toMap(MultiplayerRoomEntity::getCode, Function.identity()));
+        assertEquals(2, restored.size());
+        assertSame(stale, restored.get(behind));
+        assertEquals(3, stale.getStateVersion());
+        assertEquals("{\"version\":3}", stale.getGameStateJson());
+        assertEquals(4, restored.get(missing).getStateVersion());
+        // Удалённая, завершённая и чужая комнаты не возвращаются и выпадают из журнала
+        assertEquals(2, second.trackedRooms());
+        second.stop();
+    }
+
+    @Test
+    void testRoomsDeletedOnAnotherNodeAreNotRestored() {
+        String kept = RoomCodeAllocator.encode(0, 1);
+        String reaped = RoomCodeAllocator.encode(0, 2);
+
+        RoomJournal first = journal(List.of());
+        first.append(first.snapshot(room(kept, 1, GameState.IN_PROGRESS)));
+        first.append(first.snapshot(room(reaped, 1, GameState.WAITING)));
+        // Вторую комнату удалила очистка на другом узле
+        when(repository.findLiveCodes(any())).thenReturn(List.of(kept));
+        first.forgetDeletedRooms();
+        assertEquals(1, first.trackedRooms());
+        first.stop();
+
+        RoomJournal second = journal(List.of());
+        assertEquals(List.of(kept), saved.stream().map(MultiplayerRoomEntity::getCode).toList());
+        assertEquals(1, second.trackedRooms());
+        second.stop();
+    }
+
+    @Test
+    void testSnapshotRewrittenAfterForgetIsSkipped() throws IOException {
+        String code = RoomCodeAllocator.encode(0, 1);
+        MultiplayerRoomEntity entity = room(code, 3, GameState.IN_PROGRESS);
+
+        RoomJournal first = journal(List.of());
+        first.append(first.snapshot(entity));
+        first.forget(code);
+        first.stop();
+        // Фоновое сжатие успело скопировать снимок до отметки об удалении и дописало его после
+        try (MappedJournal raw = MappedJournal.open(dir, (int) DataSize.ofKilobytes(4).toBytes())) {
+            raw.append(RoomJournal.encode(RoomJournal.RoomSnapshot.of(entity)));
+            raw.sync();
+        }
+
+        RoomJournal second = journal(List.of());
+        assertTrue(saved.isEmpty());
+        assertEquals(0, second.trackedRooms());
+        second.stop();
+    }
+
+    @Test
+    void testTornTailIsSkippedAndWritingContinuesInNewSegment() throws IOException {
+        Path journalDir = dir.resolve("raw");
+        int segmentSize = 256;
+        try (MappedJournal journal = MappedJournal.open(journalDir, segmentSize)) {
+            for (int i = 0; i < 10; i++) {
+                byte[] payload = new byte[40];
+                payload[0] = (byte) i;
+                journal.append(payload);
+            }
+            // 48 байт на запись: по 5 записей в сегменте после заголовка
+            assertEquals(2, journal.segmentCount());
+            journal.sync();
+        }
+
+        // Портим последнюю запись второго сегмента, как при сбое посреди записи
+        Path last;
+        try (var files = Files.list(journalDir)) {
+            last = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), MappedJournal.HEADER_SIZE + 4 * 48 + 20);
+        }
+
+        try (MappedJournal journal = MappedJournal.open(journalDir, segmentSize)) {
+            List<Integer> seen = new ArrayList<>();
+            MappedJournal.ReplayStats stats = journal.replay(payload -> seen.add((int) payload.get(0)));
+            assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), seen);
+            assertEquals(2, stats.segments());
+            assertEquals(1, stats.torn());
+
+            long next = journal.rotate();
+            assertEquals(3, next);
+            journal.append(new byte[]{99});
+            assertEquals(2, journal.deleteBefore(next));
+            assertEquals(1, journal.segmentCount());
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[segmentSize]));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.model.GameState;
+import ru.securitytrip.backend.repository.MultiplayerRoomRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RoomReaperServiceTest {
+
+    @Mock
+    private MultiplayerRoomRepository multiplayerRoomRepository;
+
+    @Mock
+    private GameService gameService;
+
+    @Mock
+    private TournamentService tournamentService;
+
+    @InjectMocks
+    private RoomReaperService roomReaperService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(roomReaperService, "enabled", true);
+        ReflectionTestUtils.setField(roomReaperService, "batchSize", 2);
+        ReflectionTestUtils.setField(roomReaperService, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(roomReaperService, "waitingTtl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(roomReaperService, "abandonedTtl", Duration.ofHours(6));
+        ReflectionTestUtils.setField(roomReaperService, "finishedTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(roomReaperService, "finishedAction", "archive");
+        ReflectionTestUtils.setField(roomReaperService, "archiveRetention", Duration.ofDays(30));
+    }
+
+    @Test
+    void testWaitingRoomsDeletedInBatchesAndEvicted() {
+        when(multiplayerRoomRepository.findIdleRoomCodes(eq(EnumSet.of(GameState.WAITING)), any(), any()))
+                .thenReturn(List.of("AAA", "BBB"), List.of("CCC"));
+
+        roomReaperService.sweepRooms(Instant.now(), 0);
+
+        verify(multiplayerRoomRepository).deleteAllByIdInBatch(List.of("AAA", "BBB"));
+        verify(multiplayerRoomRepository).deleteAllByIdInBatch(List.of("CCC"));
+        verify(gameService).forgetRoom("AAA");
+        verify(gameService).forgetRoom("BBB");
+        verify(gameService).forgetRoom("CCC");
+    }
+
+    @Test
+    void testNoShowIsResolvedBeforeWaitingRoomIsDeleted() {
+        when(multiplayerRoomRepository.findIdleRoomCodes(eq(EnumSet.of(GameState.WAITING)), any(), any()))
+                .thenReturn(List.of("MATCH1"));
+
+        roomReaperService.sweepRooms(Instant.now(), 0);
+
+        // Матч турнира получает победителя, пока комната ещё есть в БД
+        InOrder inOrder = inOrder(tournamentService, multiplayerRoomRepository);
+        inOrder.verify(tournamentService).forfeitNoShows(List.of("MATCH1"));
+        inOrder.verify(multiplayerRoomRepository).deleteAllByIdInBatch(List.of("MATCH1"));
+    }
+
+    @Test
+    void testWaitingRoomsKeptWhenNoShowFails() {
+        when(multiplayerRoomRepository.findIdleRoomCodes(eq(EnumSet.of(GameState.WAITING)), any(), any()))
+                .thenReturn(List.of("MATCH1"));
+        doThrow(new RuntimeException("БД недоступна")).when(tournamentService).forfeitNoShows(any());
+
+        roomReaperService.sweep();
+
+        verify(multiplayerRoomRepository, never()).deleteAllByIdInBatch(any());
+        verify(gameService, never()).forgetRoom("MATCH1");
+    }
+
+    @Test
+    void testFinishedRoomsArchivedNotDeleted() {
+        when(multiplayerRoomRepository.findIdleRoomCodes(
+                eq(EnumSet.of(GameState.PLAYER_WON, GameState.COMPUTER_WON)), any(), any()))
+                .thenReturn(List.of("DONE1"));
+
+        roomReaperService.sweepRooms(Instant.now(), 0);
+
+        verify(multiplayerRoomRepository).archiveByCodes(eq(List.of("DONE1")), any());
+        verify(multiplayerRoomRepository, never()).deleteAllByIdInBatch(List.of("DONE1"));
+        verify(gameService).forgetRoom("DONE1");
+    }
+
+    @Test
+    void testDisabledReaperStillEvictsCache() {
+        ReflectionTestUtils.setField(roomReaperService, "enabled", false);
+
+        roomReaperService.sweep();
+
+        verify(gameService).evictExpiredCacheEntries();
+        verify(multiplayerRoomRepository, never()).backfillLastActivity(any());
+        verify(multiplayerRoomRepository, never()).archiveByCodes(anyCollection(), any());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.model.DifficultyLevel;
+import ru.securitytrip.backend.model.ShotHabits;
+import ru.securitytrip.backend.repository.ShotHabitsRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ShotHabitTrackerTest {
+
+    @Mock
+    private ShotHabitsRepository shotHabitsRepository;
+
+    @InjectMocks
+    private ShotHabitTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "earlyShots", 3);
+        ReflectionTestUtils.setField(tracker, "minGames", 2);
+        ReflectionTestUtils.setField(tracker, "queueSize", 16);
+        ReflectionTestUtils.setField(tracker, "gameTtl", Duration.ofHours(6));
+        tracker.init();
+        when(shotHabitsRepository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    private void playGame(long gameId, int... cells) {
+        for (int cell : cells) {
+            tracker.onShotFired(new ShotFiredEvent("game:" + gameId, 7L, cell % 10, cell / 10, false, false));
+        }
+        tracker.onGameFinished(GameFinishedEvent.singleplayer(gameId, 7L, false, DifficultyLevel.HARD));
+    }
+
+    @Test
+    void testEarlyShotsWeighMoreAndLateShotsAreIgnored() {
+        playGame(1, 0, 11, 22, 33);
+        tracker.drain();
+        // Одной партии мало
+        assertNull(tracker.earlyShotShare(7L));
+
+        // Номер выстрела считается заново в каждой партии
+        playGame(2, 0, 99);
+        tracker.drain();
+        double[] share = tracker.earlyShotShare(7L);
+
+        // Вклады: клетка 0 - 3 + 3, 11 - 2, 22 - 1, 99 - 2, выстрел 33 четвёртый и не учтён
+        assertEquals(6.0 / 11, share[0], 1e-12);
+        assertEquals(2.0 / 11, share[11], 1e-12);
+        assertEquals(1.0 / 11, share[22], 1e-12);
+        assertEquals(0, share[33]);
+        assertEquals(2.0 / 11, share[99], 1e-12);
+        assertNull(tracker.earlyShotShare(8L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushSendsOneBatchAndKeepsDeltasOnFailure() {
+        playGame(1, 5, 6);
+        tracker.onShotFired(new ShotFiredEvent("room:0ABCDEF", 9L, 1, 0, true, false));
+
+        when(shotHabitsRepository.addAll(anyCollection())).thenThrow(new RuntimeException("БД недоступна"));
+        tracker.flush();
+        assertEquals(2, tracker.pendingPlayers());
+
+        reset(shotHabitsRepository);
+        tracker.flush();
+        ArgumentCaptor<Collection<ShotHabits>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(shotHabitsRepository, times(1)).addAll(batch.capture());
+        assertEquals(0, tracker.pendingPlayers());
+
+        ShotHabits player = batch.getValue().stream()
+                .filter(delta -> delta.getPlayerId() == 7L).findFirst().orElseThrow();
+        assertEquals(1, player.getGames());
+        assertEquals(2, player.getShots());
+        assertEquals(3, player.cells()[5]);
+        assertEquals(2, player.cells()[6]);
+
+        ShotHabits stored = new ShotHabits(7L);
+        stored.add(player);
+        stored.add(player);
+        assertEquals(List.of(6, 4), List.of(stored.cells()[5], stored.cells()[6]));
+        assertEquals(2, stored.getGames());
+    }
+}
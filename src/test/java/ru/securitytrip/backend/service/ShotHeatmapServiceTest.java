@@ -0,0 +1,49 @@
+package ru.securitytrip.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.securitytrip.backend.dto.HeatmapDto;
+import ru.securitytrip.backend.model.GameBoard;
+import ru.securitytrip.backend.model.Ship;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShotHeatmapServiceTest {
+
+    @Test
+    void testHeatmapIsCachedUntilNextShot() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ShotHeatmapService service = new ShotHeatmapService();
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "maxGames", 10);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(30));
+
+        List<Ship> ships = List.of(new Ship(4, 0, 0, true), new Ship(1, 9, 9, true));
+        GameBoard board = new GameBoard();
+        board.initEmptyBoard();
+        board.setShipsData(objectMapper.writeValueAsString(ships));
+
+        HeatmapDto first = service.heatmap(-1L, board);
+        assertEquals(0, first.getVersion());
+        assertSame(first, service.heatmap(-1L, board));
+
+        int[][] cells = board.getBoardAsArray();
+        cells[0][0] = 3;
+        board.setBoardState(board.convertBoardToString(cells));
+        HeatmapDto second = service.heatmap(-1L, board);
+        assertNotSame(first, second);
+        assertEquals(1, second.getVersion());
+        assertEquals(1.0, second.getProbabilities()[0][0]);
+        // Лучшая клетка - рядом с раненым кораблём
+        assertEquals(1, second.getBestX() + second.getBestY());
+        assertEquals(1, service.size());
+
+        ReflectionTestUtils.setField(service, "ttl", Duration.ZERO);
+        service.evictAbandoned();
+        assertEquals(0, service.size());
+    }
+}
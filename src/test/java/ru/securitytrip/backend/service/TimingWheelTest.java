@@ -0,0 +1,66 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    // Тик в час: за время теста реальное время не успевает сдвинуть расписание
+    private final TimingWheel wheel = new TimingWheel(Duration.ofHours(1), 8, Runnable::run);
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance();
+        }
+    }
+
+    @Test
+    void testFiresExactlyAtDeadline() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(Duration.ofHours(3), () -> fired.add("a"));
+
+        advance(2);
+        assertTrue(fired.isEmpty());
+        advance(1);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCascadesFromUpperLevels() {
+        // 8 ячеек на уровень: 100 тиков лежат на уровне 2, 1000 — на уровне 3
+        List<Integer> fired = new ArrayList<>();
+        for (int delay : new int[]{5, 9, 64, 100, 1000}) {
+            wheel.schedule(Duration.ofHours(delay), () -> fired.add(delay));
+        }
+        for (int tick = 1; tick <= 1000; tick++) {
+            wheel.advance();
+            for (int delay : fired) {
+                assertTrue(delay <= tick, "Таймер " + delay + " сработал раньше срока на тике " + tick);
+            }
+        }
+        assertEquals(List.of(5, 9, 64, 100, 1000), fired);
+    }
+
+    @Test
+    void testCancelledTimeoutDoesNotFire() {
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout timeout = wheel.schedule(Duration.ofHours(2), () -> fired.add("x"));
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+
+        advance(5);
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testRejectsWheelSizeNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(Duration.ofMillis(10), 100, Runnable::run));
+    }
+}
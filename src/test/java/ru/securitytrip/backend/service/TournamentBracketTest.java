@@ -0,0 +1,55 @@
+package ru.securitytrip.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentBracketTest {
+
+    @Test
+    void testSizeAndRounds() {
+        assertEquals(2, TournamentBracket.size(2));
+        assertEquals(4, TournamentBracket.size(3));
+        assertEquals(8, TournamentBracket.size(8));
+        assertEquals(16, TournamentBracket.size(9));
+        assertEquals(10, TournamentBracket.rounds(1000));
+        assertThrows(IllegalArgumentException.class, () -> TournamentBracket.size(1));
+    }
+
+    @Test
+    void testSeedOrderKeepsTopSeedsApart() {
+        assertArrayEquals(new int[]{1, 8, 4, 5, 2, 7, 3, 6}, TournamentBracket.seedOrder(8));
+        // Первый и второй посев — в разных половинах сетки
+        int[] order = TournamentBracket.seedOrder(64);
+        int firstHalf = 0;
+        for (int i = 0; i < 32; i++) {
+            if (order[i] == 1 || order[i] == 2) {
+                firstHalf++;
+            }
+        }
+        assertEquals(1, firstHalf);
+    }
+
+    @Test
+    void testByesGoToTopSeeds() {
+        int[][] pairs = TournamentBracket.firstRound(5);
+        assertEquals(4, pairs.length);
+        Set<Integer> seen = new HashSet<>();
+        int byes = 0;
+        for (int[] pair : pairs) {
+            assertTrue(pair[0] < 3 || pair[1] >= 0, "Пропуск раунда только у сильнейших");
+            assertTrue(seen.add(pair[0]));
+            if (pair[1] < 0) {
+                byes++;
+            } else {
+                assertTrue(pair[0] < pair[1], "Хост — сильнейший по посеву");
+                assertTrue(seen.add(pair[1]));
+            }
+        }
+        assertEquals(3, byes);
+        assertEquals(5, seen.size());
+    }
+}